@@ -0,0 +1,107 @@
+package benchmarks;
+
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import javax.swing.table.DefaultTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tmcsim.client.cadclientgui.ScriptLoader;
+import tmcsim.client.cadclientgui.ScriptLoader.Scenario;
+import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.Unit;
+import tmcsim.loadtest.ScenarioGenerator;
+
+/**
+ * Benchmark of the CADData incident and unit lookups, and of the table
+ * models built from them for the CAD clients.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CADDataBenchmark
+{
+    /** Number of incidents and of units. */
+    @Param({ "100", "1000" })
+    public int size;
+
+    private CADData data;
+    private int[] logNums;
+    private String[] unitNums;
+    private int next;
+
+    @Setup
+    public void loadData() throws Exception
+    {
+        Scenario scenario = ScriptLoader.load(Scenarios.write(
+                new ScenarioGenerator(size, size, size, 0).toXML()));
+
+        data = new CADData();
+        Vector<Incident> incidents = scenario.getIncidents();
+        Vector<Unit> units = scenario.getUnits();
+        data.setIncidentsFromXML(incidents);
+        data.setUnitsFromXML(units);
+
+        logNums = new int[incidents.size()];
+        for (int i = 0; i < logNums.length; i++)
+        {
+            logNums[i] = incidents.get(i).getLogNum();
+        }
+        unitNums = new String[units.size()];
+        for (int u = 0; u < unitNums.length; u++)
+        {
+            unitNums[u] = units.get(u).getUnitNum();
+        }
+    }
+
+    @Benchmark
+    public Incident getIncident()
+    {
+        next = (next + 1) % logNums.length;
+        return data.getIncident(logNums[next]);
+    }
+
+    @Benchmark
+    public Unit getUnit()
+    {
+        next = (next + 1) % unitNums.length;
+        return data.getUnit(unitNums[next]);
+    }
+
+    @Benchmark
+    public DefaultTableModel tableForUnitStatus()
+    {
+        return data.tableForUnitStatus();
+    }
+
+    @Benchmark
+    public DefaultTableModel tableForAssignedIncidents()
+    {
+        return data.tableForAssignedIncidents();
+    }
+
+    @Benchmark
+    public DefaultTableModel tableForPendingIncidents()
+    {
+        return data.tableForPendingIncidents();
+    }
+
+    @Benchmark
+    public DefaultTableModel tableForIncidentEditor()
+    {
+        return data.tableForIncidentEditor();
+    }
+}
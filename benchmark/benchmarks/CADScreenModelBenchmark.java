@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import tmcsim.cadmodels.IncidentBoardModel;
+import tmcsim.cadmodels.IncidentBoardModel_obj;
+import tmcsim.common.CADEnums.CADScreenNum;
+
+/**
+ * Benchmark of CADScreenModel.toXML(), which builds the screen updates sent
+ * to the CAD terminals, for an IncidentBoardModel with a number of messages.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CADScreenModelBenchmark
+{
+    /** Number of messages on the incident board. */
+    @Param({ "10", "100", "1000" })
+    public int messages;
+
+    private IncidentBoardModel model;
+    private DocumentBuilder builder;
+
+    @Setup
+    public void fillModel() throws Exception
+    {
+        model = new IncidentBoardModel(CADScreenNum.ONE);
+        for (int i = 1; i <= messages; i++)
+        {
+            model.addModelObject(new IncidentBoardModel_obj(i, "0101",
+                    String.format("%02d:%02d", i / 60 % 24, i % 60),
+                    "Message " + i + " on the incident board"));
+        }
+        builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    }
+
+    @Benchmark
+    public Document toXML()
+    {
+        Document doc = builder.newDocument();
+        Element root = doc.createElement("CAD_SCREEN");
+        doc.appendChild(root);
+        model.toXML(root);
+        return doc;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tmcsim.client.cadclientgui.data.CardfileDataObject;
+import tmcsim.client.cadclientgui.data.CardfileIndex;
+
+/**
+ * Benchmark of the Cardfile search, over a Cardfile of synthetic entries
+ * spread over the 36 lists.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CardfileSearchBenchmark
+{
+    private static final String[] CITIES = { "San Luis Obispo", "Santa Maria",
+        "Arroyo Grande", "Paso Robles", "Atascadero", "Morro Bay", "Pismo Beach" };
+
+    /** Number of Cardfile entries. */
+    @Param({ "1000", "50000" })
+    public int entries;
+
+    /** The search, from one selective word to one common word. */
+    @Param({ "entry 42", "name12", "805-42", "list 7 paso", "morro" })
+    public String search;
+
+    private CardfileIndex index;
+
+    @Setup
+    public void fillIndex()
+    {
+        index = new CardfileIndex();
+        for (int i = 0; i < entries; i++)
+        {
+            CardfileDataObject cfdo = new CardfileDataObject("List " + (i % 36),
+                    "Entry " + i + " Name" + (i % 997), i);
+            cfdo.setCity(CITIES[i % CITIES.length]);
+            cfdo.setPhone1("805-" + (i % 1000) + "-" + i);
+            index.add(cfdo);
+        }
+    }
+
+    @Benchmark
+    public LinkedList<CardfileDataObject> search()
+    {
+        return index.search(search);
+    }
+}
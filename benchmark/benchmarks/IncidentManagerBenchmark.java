@@ -0,0 +1,115 @@
+package benchmarks;
+
+import java.io.File;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tmcsim.cadsimulator.Coordinator;
+import tmcsim.cadsimulator.SoundPlayer;
+import tmcsim.cadsimulator.managers.IncidentManager;
+import tmcsim.client.cadclientgui.ScriptLoader;
+import tmcsim.client.cadclientgui.ScriptLoader.Scenario;
+import tmcsim.client.cadclientgui.data.IncidentEvent;
+import tmcsim.loadtest.ScenarioGenerator;
+
+/**
+ * Benchmark of IncidentManager.tick().  Each invocation plays a synthetic
+ * scenario from its first to its last event, one tick per simulated second,
+ * with audio disabled and the Coordinator's GUI updates ignored.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IncidentManagerBenchmark
+{
+    /** Number of events in the scenario, ten to an incident. */
+    @Param({ "10", "100", "1000", "10000" })
+    public int events;
+
+    private Scenario scenario;
+    private long duration;
+    private QuietCoordinator coordinator;
+    private SoundPlayer soundPlayer;
+    private IncidentManager manager;
+
+    @Setup(Level.Trial)
+    public void loadScenario() throws Exception
+    {
+        int incidents = Math.max(1, events / 10);
+        ScenarioGenerator generator = new ScenarioGenerator(incidents, events, 20, 0);
+        File script = Scenarios.write(generator.toXML());
+        scenario = ScriptLoader.load(script);
+        duration = generator.getDuration();
+
+        coordinator = new QuietCoordinator();
+        soundPlayer = new SoundPlayer("audio");
+        soundPlayer.setAudioEnabled(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void newManager() throws Exception
+    {
+        manager = new IncidentManager(coordinator, soundPlayer);
+        manager.addIncidents(scenario.getIncidents());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception
+    {
+        UnicastRemoteObject.unexportObject(coordinator, true);
+    }
+
+    @Benchmark
+    public IncidentManager tick()
+    {
+        for (long time = 0; time <= duration; time++)
+        {
+            manager.tick(time);
+        }
+        return manager;
+    }
+
+    /**
+     * A Coordinator that does not update the GUI or the CAD clients, so only
+     * the IncidentManager is measured.
+     */
+    private static class QuietCoordinator extends Coordinator
+    {
+        QuietCoordinator() throws RemoteException
+        {
+            super(null);
+        }
+
+        @Override
+        public void incidentStarted(IncidentEvent completedEvent)
+        {
+        }
+
+        @Override
+        public void incidentUpdated(IncidentEvent completedEvent)
+        {
+        }
+
+        @Override
+        public void updateIncidentInGUI(Integer logNum, IncidentEvent completedEvent)
+        {
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import tmcsim.common.ParamicsFrame;
+
+/**
+ * Benchmark of sending an incident update to the Paramics Communicator over
+ * a loopback socket, as a frame and as an XML document.  A reader thread
+ * discards the bytes received, so only the sender's encoding and writing are
+ * measured.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ParamicsFrameBenchmark
+{
+    private ServerSocket server;
+    private Socket sock;
+    private ObjectOutputStream out;
+    private Element incident;
+
+    @Setup(Level.Trial)
+    public void connect() throws Exception
+    {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread reader = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    InputStream in = server.accept().getInputStream();
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0)
+                    {
+                    }
+                }
+                catch (IOException e)
+                {
+                }
+            }
+        };
+        reader.setDaemon(true);
+        reader.start();
+
+        sock = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+        out = new ObjectOutputStream(sock.getOutputStream());
+        out.flush();
+        incident = incidentElement();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception
+    {
+        sock.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void sendFramed() throws IOException
+    {
+        ParamicsFrame.writeFile("2", incident).write(out);
+        out.flush();
+    }
+
+    @Benchmark
+    public void sendDocument() throws IOException
+    {
+        out.writeObject(ParamicsFrame.writeFile("2", incident).toDocument());
+        out.reset();
+        out.flush();
+    }
+
+    /**
+     * Builds an incident update similar to the ones written by the
+     * ParamicsIncidentWriter.
+     */
+    private static Element incidentElement() throws Exception
+    {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = doc.createElement("Incidents");
+        for (int i = 0; i < 5; i++)
+        {
+            Element inc = doc.createElement("Incident");
+            inc.setAttribute("ID", String.valueOf(100 + i));
+            addText(doc, inc, "Location", "SR-55 NB at Dyer Rd");
+            addText(doc, inc, "Link", String.valueOf(2000 + i));
+            addText(doc, inc, "Lane", "1");
+            addText(doc, inc, "Status", "ACTIVE");
+            addText(doc, inc, "Duration", "1800");
+            root.appendChild(inc);
+        }
+        doc.appendChild(root);
+        return root;
+    }
+
+    private static void addText(Document doc, Element parent, String tag, String text)
+    {
+        Element elem = doc.createElement(tag);
+        elem.appendChild(doc.createTextNode(text));
+        parent.appendChild(elem);
+    }
+}
@@ -0,0 +1,124 @@
+package benchmarks;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tmcsim.cadsimulator.paramicscontrol.ParamicsIncidentWriter;
+import tmcsim.common.ParamicsLocation;
+import tmcsim.common.XMLIncident;
+
+/**
+ * Benchmark of the XML updates the ParamicsIncidentWriter sends, with a
+ * number of ongoing incidents.  fullUpdate() sends every incident, as when a
+ * network is loaded, deltaUpdate() sends the one incident changed since the
+ * last update, and sendUpdate() sends the update of an interval without
+ * changes.  The update is built and passed to an observer in place of the
+ * ParamicsCommunicator.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ParamicsIncidentWriterBenchmark
+{
+    /** Number of ongoing incidents. */
+    @Param({ "1", "10", "100" })
+    public int incidents;
+
+    private ParamicsIncidentWriter writer;
+    private XMLIncident[] updates;
+    private long simTime;
+    private int next;
+    private Object sent;
+
+    @Setup
+    public void startWriter() throws Exception
+    {
+        writer = new ParamicsIncidentWriter(30);
+        writer.setDeltaEncoding(true);
+        writer.addObserver(new Observer()
+        {
+            public void update(Observable o, Object frame)
+            {
+                sent = frame;
+            }
+        });
+        writer.networkLoaded();
+        writer.startSimulation();
+
+        updates = new XMLIncident[incidents];
+        for (int i = 1; i <= incidents; i++)
+        {
+            writer.updateIncident(incident(i));
+            updates[i - 1] = incident(i);
+        }
+        writer.sendUpdate(simTime);
+    }
+
+    /**
+     * Sends a FULL update, as loadNetwork() does.
+     */
+    @Benchmark
+    public Object fullUpdate()
+    {
+        writer.loadNetwork(1);
+        return sent;
+    }
+
+    /**
+     * Changes one incident and flushes the DELTA update containing it.  The
+     * changed incident is queued by one flush and sent by the next.
+     */
+    @Benchmark
+    public Object deltaUpdate()
+    {
+        writer.updateIncident(updates[next]);
+        next = (next + 1) % incidents;
+        writer.flush(++simTime);
+        writer.flush(++simTime);
+        return sent;
+    }
+
+    /**
+     * Sends the update of an interval in which nothing has changed.  The
+     * update is built by transmitXMLUpdate(), which is private.
+     */
+    @Benchmark
+    public Object sendUpdate()
+    {
+        simTime += 30;
+        writer.sendUpdate(simTime);
+        return sent;
+    }
+
+    private static XMLIncident incident(int i) throws Exception
+    {
+        String id = String.valueOf(i);
+        ParamicsLocation location = new ParamicsLocation(id);
+        location.readXMLNode("Route", "US 101");
+        location.readXMLNode("Direction", i % 2 == 0 ? "N" : "S");
+        location.readXMLNode("Location_type", "Mainline");
+        location.readXMLNode("Postmile", String.valueOf(i));
+
+        XMLIncident incident = new XMLIncident(id, location);
+        incident.readXMLNode("Status", "NEW");
+        incident.readXMLNode("Incident_type", "LANE_BREAKDOWN");
+        incident.readXMLNode("Lane_number", "1");
+        incident.readXMLNode("Lane_number", "2");
+        return incident;
+    }
+}
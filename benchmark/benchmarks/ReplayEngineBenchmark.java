@@ -0,0 +1,116 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tmcsim.cadmodels.CMSInfo;
+import tmcsim.cadsimulator.managers.SimulationClock;
+import tmcsim.cadsimulator.managers.SimulationClock.ClockTarget;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.journal.ReplayEngine;
+import tmcsim.journal.SessionJournal;
+
+/**
+ * Benchmark of the ReplayEngine.  Each invocation replays a journal of
+ * applyDiversions calls, one a simulated second, as fast as possible on a
+ * target that does nothing, so it measures reading and dispatching the
+ * records.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReplayEngineBenchmark
+{
+    /** Number of records in the journal. */
+    @Param({ "1000", "10000", "100000" })
+    public int records;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws Exception
+    {
+        file = File.createTempFile("replay", ".bin");
+        file.delete();
+
+        SessionJournal journal = new SessionJournal(file);
+        CMSInfo diversion = new CMSInfo("CMS_1", 1.5f, "I-5");
+        journal.append(RECORD_TYPE.CALL, 0, "startSimulation",
+                new Class<?>[0], new Object[0]);
+        for (int i = 1; i < records; i++)
+        {
+            journal.append(RECORD_TYPE.CALL, i, "applyDiversions",
+                    new Class<?>[] { CMSInfo.class }, new Object[] { diversion });
+        }
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal()
+    {
+        file.delete();
+    }
+
+    @Benchmark
+    public long replay()
+    {
+        Target target = new Target();
+        ReplayEngine engine = new ReplayEngine(file, target, target, 0);
+        target.clock = engine.getClock();
+        engine.run();
+        return engine.getRecordsReplayed() + target.simTime;
+    }
+
+    /**
+     * Replay target whose calls and ticks do nothing.
+     */
+    public static class Target implements ClockTarget
+    {
+        SimulationClock clock;
+        long simTime;
+
+        public void startSimulation()
+        {
+            clock.start(this);
+        }
+
+        public void applyDiversions(CMSInfo diversion)
+        {
+        }
+
+        public long getCurrentSimTime()
+        {
+            return simTime;
+        }
+
+        public void advanceTo(long newSimTime)
+        {
+            simTime = newSimTime;
+        }
+
+        public long getNextEventTime(long currentSimTime)
+        {
+            return -1;
+        }
+
+        public void awaitTick(long tickTime)
+        {
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes the scripts used by the benchmarks.  Synthetic scripts are made by
+ * the load test's ScenarioGenerator; this class scales the stored scripts and
+ * writes scripts to temporary files.
+ * @author Jonathan Molina
+ */
+public class Scenarios
+{
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+
+    private static final Pattern LOG_NUM = Pattern.compile("LogNum\\s*=\\s*\"(\\d+)\"");
+
+    private Scenarios()
+    {
+    }
+
+    /**
+     * Returns a script with the events of a script repeated, each copy with
+     * its own log numbers.  The DOCTYPE is removed so the copy can be parsed
+     * away from the DTD.
+     * @param scriptFile the script to scale
+     * @param copies number of copies of its events
+     * @return the scaled script
+     * @throws IOException if the script cannot be read
+     */
+    public static String scaled(File scriptFile, int copies) throws IOException
+    {
+        String xml = new String(Files.readAllBytes(scriptFile.toPath()), LATIN_1);
+        xml = xml.replaceFirst("<!DOCTYPE[^>]*>", "");
+
+        int first = xml.indexOf("<SCRIPT_EVENT>");
+        int end = xml.lastIndexOf("</TMC_SCRIPT>");
+        String events = xml.substring(first, end);
+
+        int highest = 0;
+        Matcher m = LOG_NUM.matcher(events);
+        while (m.find())
+        {
+            highest = Math.max(highest, Integer.parseInt(m.group(1)));
+        }
+
+        StringBuilder scaled = new StringBuilder(xml.substring(0, first));
+        for (int c = 0; c < copies; c++)
+        {
+            m = LOG_NUM.matcher(events);
+            StringBuffer copy = new StringBuffer();
+            while (m.find())
+            {
+                int logNum = Integer.parseInt(m.group(1)) + c * (highest + 1);
+                m.appendReplacement(copy, "LogNum=\"" + logNum + "\"");
+            }
+            m.appendTail(copy);
+            scaled.append(copy);
+        }
+        scaled.append(xml.substring(end));
+        return scaled.toString();
+    }
+
+    /**
+     * Writes a script to a temporary file that is deleted on exit.
+     * @param xml the script
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public static File write(String xml) throws IOException
+    {
+        File file = File.createTempFile("benchmark", ".xml");
+        file.deleteOnExit();
+        Files.write(file.toPath(), xml.getBytes(LATIN_1));
+        return file;
+    }
+}
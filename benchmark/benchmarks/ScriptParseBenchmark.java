@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tmcsim.client.cadclientgui.ScriptHandler;
+import tmcsim.client.cadclientgui.ScriptLoader;
+import tmcsim.client.cadclientgui.ScriptLoader.Scenario;
+
+/**
+ * Benchmark of loading scripts/testScript.xml with its events repeated:
+ * parsed by the ScriptHandler, and loaded by the ScriptLoader from the script
+ * and from a compiled scenario file.  Each load starts with an empty cache and
+ * creates the incidents and units, as the Coordinator does when a script is
+ * loaded.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ScriptParseBenchmark
+{
+    /** Number of copies of the events of the test script. */
+    @Param({ "1", "10", "100" })
+    public int scale;
+
+    private File script;
+    private File compiled;
+    private SAXParser parser;
+
+    @Setup
+    public void writeScript() throws Exception
+    {
+        script = Scenarios.write(Scenarios.scaled(
+                new File("scripts/testScript.xml"), scale));
+        compiled = new File(script.getPath() + "." + ScriptLoader.COMPILED_EXTENSION);
+        compiled.deleteOnExit();
+        ScriptLoader.compile(script, compiled, false);
+
+        parser = SAXParserFactory.newInstance().newSAXParser();
+    }
+
+    @Benchmark
+    public ScriptHandler parse() throws Exception
+    {
+        ScriptHandler sh = new ScriptHandler();
+        parser.parse(script, sh);
+        return sh;
+    }
+
+    @Benchmark
+    public void loadScript(Blackhole bh) throws Exception
+    {
+        load(script, bh);
+    }
+
+    @Benchmark
+    public void loadCompiled(Blackhole bh) throws Exception
+    {
+        load(compiled, bh);
+    }
+
+    private void load(File file, Blackhole bh) throws Exception
+    {
+        ScriptLoader.clearCache();
+        Scenario scenario = ScriptLoader.load(file);
+        bh.consume(scenario.getIncidents());
+        bh.consume(scenario.getUnits());
+    }
+}
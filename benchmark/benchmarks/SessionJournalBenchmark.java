@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tmcsim.cadmodels.CMSInfo;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.journal.SessionJournal;
+
+/**
+ * Benchmark of the SessionJournal.  appendAndCommit() journals a batch of
+ * applyDiversions calls and waits until the batch is forced to the disk, so
+ * it measures the group commit, one operation to a batch; append() measures
+ * the cost to the calling thread alone, which drops the record rather than
+ * waiting when the writer falls behind.
+ * @author Jonathan Molina
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SessionJournalBenchmark
+{
+    /** Number of records appended before waiting for the commit. */
+    @Param({ "1", "16", "256" })
+    public int batch;
+
+    private File file;
+    private SessionJournal journal;
+    private CMSInfo diversion;
+    private long simTime;
+
+    @Setup(Level.Iteration)
+    public void openJournal() throws Exception
+    {
+        file = File.createTempFile("journal", ".bin");
+        file.delete();
+        journal = new SessionJournal(file);
+        diversion = new CMSInfo("CMS_1", 1.5f, "I-5");
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal()
+    {
+        journal.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public long append()
+    {
+        return appendCall();
+    }
+
+    @Benchmark
+    public long appendAndCommit()
+    {
+        long sequence = 0;
+        for (int i = 0; i < batch; i++)
+        {
+            sequence = appendCall();
+        }
+        journal.flush();
+        return sequence;
+    }
+
+    private long appendCall()
+    {
+        return journal.append(RECORD_TYPE.CALL, simTime++, "applyDiversions",
+                new Class<?>[] { CMSInfo.class }, new Object[] { diversion });
+    }
+}
@@ -0,0 +1,111 @@
+package unit_tests;
+
+import java.io.ObjectOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import junit.framework.TestCase;
+import org.w3c.dom.Document;
+import tmcsim.client.CADClientModel;
+import tmcsim.common.ObserverMessage;
+import tmcsim.common.CADProtocol.CAD_CLIENT_CMD;
+import tmcsim.common.CADProtocol.CAD_SIMULATOR_CMD;
+
+/**
+ * Unit test for the receive loop and redraw latency statistics of the
+ * CADClientModel class.
+ * @author Jonathan Molina
+ */
+public class CADClientModelTest extends TestCase
+{
+    private CADClientModel model;
+    private ObjectOutputStream simulator;
+    private PipedInputStream fromClient;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CADClientModelTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        PipedInputStream toClient = new PipedInputStream(64 * 1024);
+        fromClient = new PipedInputStream(64 * 1024);
+        simulator = new ObjectOutputStream(new PipedOutputStream(toClient));
+        simulator.flush();
+
+        model = new CADClientModel();
+        model.initializeScreen(toClient, new PipedOutputStream(fromClient));
+    }
+
+    /**
+     * Tests that a burst of updates is delivered as soon as it arrives,
+     * rather than at four updates per second.
+     */
+    public void testBurstDelivered() throws Exception
+    {
+        final CountDownLatch received = new CountDownLatch(40);
+        model.addObserver(new Observer()
+        {
+            public void update(Observable o, Object arg)
+            {
+                if (arg != null && ((ObserverMessage) arg).type
+                        == ObserverMessage.messageType.TIME_UPDATE)
+                {
+                    received.countDown();
+                }
+            }
+        });
+        Thread reader = new Thread(model);
+        reader.setDaemon(true);
+        reader.start();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 40; i++)
+        {
+            simulator.writeObject(command(CAD_SIMULATOR_CMD.UPDATE_TIME.type,
+                    String.valueOf(1000 + i)));
+        }
+        simulator.flush();
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+
+    /**
+     * Tests that the time from a terminal function to the next redraw is
+     * recorded once, and that commands without a screen response are not
+     * timed.
+     */
+    public void testRedrawLatency() throws Exception
+    {
+        model.transmitCommand(command(CAD_CLIENT_CMD.SAVE_COMMAND_LINE.type, "IB"));
+        model.screenRedrawn();
+        assertEquals(0, model.getRedrawLatency().getCount());
+
+        model.transmitCommand(command(CAD_CLIENT_CMD.TERMINAL_FUNCTION.type, "REFRESH:0"));
+        Thread.sleep(20);
+        model.screenRedrawn();
+        model.screenRedrawn();
+        assertEquals(1, model.getRedrawLatency().getCount());
+        assertTrue(model.getRedrawLatency().getMax() >= 20);
+        assertEquals(2, model.getOutputStream().getMessagesWritten());
+    }
+
+    private Document command(String type, String value) throws Exception
+    {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        doc.appendChild(doc.createElement(type));
+        doc.getDocumentElement().appendChild(doc.createTextNode(value));
+        return doc;
+    }
+}
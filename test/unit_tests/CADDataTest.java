@@ -0,0 +1,78 @@
+package unit_tests;
+
+import java.util.Vector;
+import junit.framework.TestCase;
+import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.Unit;
+
+/**
+ * Unit test for the indexed unit and incident lookups of the CADData class.
+ * @author Jonathan Molina
+ */
+public class CADDataTest extends TestCase
+{
+    private CADData data;
+    private Unit unit;
+    private Incident incident;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CADDataTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        data = new CADData();
+        Vector<Unit> units = new Vector<Unit>();
+        unit = new Unit("10");
+        units.add(unit);
+        units.add(new Unit("20"));
+        data.setUnitsFromXML(units);
+        Vector<Incident> incidents = new Vector<Incident>();
+        incident = new Incident(1, "Collision", 0);
+        incident.setMasterInc("M1");
+        incidents.add(incident);
+        incidents.add(new Incident(2, "Debris", 0));
+        data.setIncidentsFromXML(incidents);
+    }
+
+    /**
+     * Tests that units and incidents are found by their keys, and that
+     * unknown keys are not found.
+     */
+    public void testLookups()
+    {
+        assertSame(unit, data.getUnit("10"));
+        assertSame(incident, data.getIncident(1));
+        assertEquals(1, data.getIncidentId("M1"));
+
+        assertNull(data.getUnit("30"));
+        assertNull(data.getIncident(3));
+        assertEquals(-1, data.getIncidentId("M3"));
+        assertFalse(data.checkForValidId(3));
+    }
+
+    /**
+     * Tests that a unit or incident whose key changed after loading is found
+     * by its new key and no longer by its old one.
+     */
+    public void testChangedKeys()
+    {
+        unit.setUnitNum("11");
+        assertSame(unit, data.getUnit("11"));
+        assertNull(data.getUnit("10"));
+
+        incident.setLogNum(5);
+        incident.setMasterInc("M5");
+        assertSame(incident, data.getIncident(5));
+        assertNull(data.getIncident(1));
+        assertEquals(5, data.getIncidentId("M5"));
+        assertEquals(-1, data.getIncidentId("M1"));
+    }
+}
@@ -0,0 +1,122 @@
+package unit_tests;
+
+import java.awt.GraphicsEnvironment;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import javax.xml.parsers.DocumentBuilderFactory;
+import junit.framework.TestCase;
+import org.w3c.dom.Document;
+import tmcsim.cadsimulator.CADOutboundQueue;
+import tmcsim.cadsimulator.CADSimulator;
+import tmcsim.cadsimulator.CADSimulatorSocketHandler;
+import tmcsim.cadsimulator.Coordinator;
+import tmcsim.common.CADProtocol.CAD_SIMULATOR_CMD;
+
+/**
+ * Unit test for the CADOutboundQueue class and the non-blocking
+ * CADSimulatorSocketHandler.
+ * @author Jonathan Molina
+ */
+public class CADSimulatorSocketHandlerTest extends TestCase
+{
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CADSimulatorSocketHandlerTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        // the CAD Simulator runs on servers without a display
+        System.setProperty("java.awt.headless", "true");
+        assertTrue(GraphicsEnvironment.isHeadless());
+    }
+
+    /**
+     * Tests that status commands are coalesced to the newest value while
+     * other commands are all kept in order.
+     */
+    public void testCoalescing() throws Exception
+    {
+        CADOutboundQueue queue = new CADOutboundQueue(10);
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.UPDATE_TIME, "0800")));
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.CAD_INFO, "first")));
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.UPDATE_TIME, "0801")));
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.CAD_INFO, "second")));
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.UPDATE_TIME, "0802")));
+
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.getCoalescedCount());
+        assertEquals("first", queue.poll().getDocumentElement().getTextContent());
+        assertEquals("second", queue.poll().getDocumentElement().getTextContent());
+        assertEquals("0802", queue.poll().getDocumentElement().getTextContent());
+        assertNull(queue.poll());
+    }
+
+    /**
+     * Tests that a full queue refuses commands that cannot be coalesced.
+     */
+    public void testFull() throws Exception
+    {
+        CADOutboundQueue queue = new CADOutboundQueue(2);
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.CAD_INFO, "1")));
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.UPDATE_STATUS, "{}")));
+        assertTrue(queue.offer(command(CAD_SIMULATOR_CMD.UPDATE_STATUS, "{ONE=true}")));
+        assertFalse(queue.offer(command(CAD_SIMULATOR_CMD.CAD_INFO, "2")));
+        assertEquals(2, queue.size());
+    }
+
+    /**
+     * Tests that a connected client receives the screen refresh and that a
+     * client which closes its socket is disconnected.
+     */
+    public void testConnection() throws Exception
+    {
+        if (CADSimulator.theCoordinator == null)
+        {
+            CADSimulator.theCoordinator = new Coordinator(null);
+        }
+        CADSimulatorSocketHandler handler = new CADSimulatorSocketHandler(0);
+        handler.start();
+        try
+        {
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                    handler.getLocalPort());
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+
+            Document refresh = (Document) in.readObject();
+            assertEquals(CAD_SIMULATOR_CMD.UPDATE_SCREEN.type,
+                    refresh.getDocumentElement().getNodeName());
+            assertEquals(1, handler.getClientCount());
+
+            socket.close();
+            for (int i = 0; i < 100 && handler.getClientCount() > 0; i++)
+            {
+                Thread.sleep(20);
+            }
+            assertEquals(0, handler.getClientCount());
+            assertEquals(1, handler.getDisconnectCount());
+        }
+        finally
+        {
+            handler.interrupt();
+            handler.join(5000);
+        }
+    }
+
+    private Document command(CAD_SIMULATOR_CMD cmd, String value) throws Exception
+    {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        doc.appendChild(doc.createElement(cmd.type));
+        doc.getDocumentElement().appendChild(doc.createTextNode(value));
+        return doc;
+    }
+}
@@ -0,0 +1,275 @@
+package unit_tests;
+
+import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.table.DefaultTableModel;
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.CADSubscriptionManager;
+import tmcsim.client.cadclientgui.data.CADTableFeed;
+import tmcsim.client.cadclientgui.data.CADTopic;
+import tmcsim.client.cadclientgui.data.CADUpdate;
+import tmcsim.client.cadclientgui.data.TableDelta;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.INC_TABLE;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+import tmcsim.interfaces.CADClientInterface;
+
+/**
+ * Unit test for the CADSubscriptionManager class.
+ * @author Jonathan Molina
+ */
+public class CADSubscriptionManagerTest extends TestCase
+{
+    private LinkedHashMap<Object, Vector<Object>> sourceRows;
+    private CADSubscriptionManager manager;
+    private AtomicInteger refreshes = new AtomicInteger();
+    private AtomicInteger deltaReads = new AtomicInteger();
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CADSubscriptionManagerTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        sourceRows = new LinkedHashMap<Object, Vector<Object>>();
+        final CADTableFeed feed = new CADTableFeed(TABLE.UNIT_STATUS,
+                new Vector<String>(), new CADTableFeed.RowSource()
+                {
+                    public void collectRows(LinkedHashMap<Object, Vector<Object>> rows)
+                    {
+                        synchronized (sourceRows)
+                        {
+                            for (Object key : sourceRows.keySet())
+                            {
+                                rows.put(key, new Vector<Object>(sourceRows.get(key)));
+                            }
+                        }
+                    }
+                });
+        manager = new CADSubscriptionManager(new CADSubscriptionManager.UpdateSource()
+        {
+            public long refreshTable(TABLE tag)
+            {
+                refreshes.incrementAndGet();
+                return feed.refresh();
+            }
+
+            public TableDelta getTableDelta(TABLE tag, long sinceVersion)
+            {
+                deltaReads.incrementAndGet();
+                return feed.getRecordedDelta(sinceVersion);
+            }
+
+            public DefaultTableModel getIncidentTable(INC_TABLE tag, int incidentId)
+            {
+                return new DefaultTableModel();
+            }
+        }, 4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        manager.shutdown();
+    }
+
+    /**
+     * Tests that a subscriber receives the table once and then only the changes,
+     * and that publishing an unchanged table sends nothing.
+     */
+    public void testPushesChanges() throws Exception
+    {
+        putRow("10", "AVAIL");
+        RecordingClient client = new RecordingClient(null);
+        manager.subscribe(client, topics(new CADTopic(TABLE.UNIT_STATUS)));
+
+        CADUpdate first = client.take();
+        assertTrue(first.delta.reset);
+
+        manager.publishTables();
+        assertNull(client.poll(200));
+
+        putRow("10", "ENRT");
+        manager.publishTables();
+        CADUpdate change = client.take();
+        assertFalse(change.delta.reset);
+        assertEquals(first.delta.toVersion, change.delta.fromVersion);
+        assertEquals("ENRT", change.delta.upserts.get("10").get(1));
+    }
+
+    /**
+     * Tests that the tables are read once for each publish whatever the number
+     * of clients, and that unchanged tables are not queued for any client.
+     */
+    public void testIdleClientsCostNothing() throws Exception
+    {
+        putRow("10", "AVAIL");
+        RecordingClient[] clients = new RecordingClient[3];
+        for (int i = 0; i < clients.length; i++)
+        {
+            clients[i] = new RecordingClient(null);
+            manager.subscribe(clients[i], topics(new CADTopic(TABLE.UNIT_STATUS)));
+            clients[i].take();
+        }
+
+        refreshes.set(0);
+        deltaReads.set(0);
+        for (int i = 0; i < 5; i++)
+        {
+            manager.publishTables();
+        }
+        assertEquals(5 * TABLE.values().length, refreshes.get());
+        assertEquals(0, deltaReads.get());
+        assertNull(clients[0].poll(200));
+
+        putRow("10", "ENRT");
+        manager.publishTables();
+        for (int i = 0; i < clients.length; i++)
+        {
+            assertEquals("ENRT", clients[i].take().delta.upserts.get("10").get(1));
+        }
+        assertEquals(6 * TABLE.values().length, refreshes.get());
+        assertEquals(clients.length, deltaReads.get());
+    }
+
+    /**
+     * Tests that publishing to a client that is not reading does not block and
+     * that the oldest pending topics are dropped.
+     */
+    public void testSlowClientDropsOldest() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingClient client = new RecordingClient(release);
+        Vector<CADTopic> incidents = new Vector<CADTopic>();
+        for (int i = 0; i < 10; i++)
+        {
+            incidents.add(new CADTopic(INC_TABLE.COMMENTS_NOTES, i));
+        }
+        manager.subscribe(client, topics(incidents.get(0)));
+        assertTrue(client.entered.await(2, TimeUnit.SECONDS));
+
+        manager.subscribe(client, incidents);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++)
+        {
+            manager.publish(incidents.get(i % incidents.size()));
+        }
+        manager.publish(incidents.lastElement());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(manager.getDroppedUpdates() > 0);
+        assertTrue(manager.getCoalescedUpdates() > 0);
+
+        release.countDown();
+        client.take();
+        Vector<CADUpdate> batch = client.takeBatch();
+        assertEquals(4, batch.size());
+        assertEquals(9, batch.lastElement().topic.incidentId);
+    }
+
+    /**
+     * Tests that a client whose callback fails is removed.
+     */
+    public void testFailedClientRemoved() throws Exception
+    {
+        CADClientInterface dead = new CADClientInterface()
+        {
+            public void refresh() throws RemoteException
+            {
+            }
+
+            public void publish(Vector<CADUpdate> updates) throws RemoteException
+            {
+                throw new RemoteException("client has gone away");
+            }
+        };
+        manager.subscribe(dead, topics(new CADTopic(TABLE.UNIT_STATUS)));
+        for (int i = 0; i < 50 && manager.getSubscriberCount() > 0; i++)
+        {
+            Thread.sleep(20);
+        }
+        assertEquals(0, manager.getSubscriberCount());
+    }
+
+    private Vector<CADTopic> topics(CADTopic topic)
+    {
+        Vector<CADTopic> topics = new Vector<CADTopic>();
+        topics.add(topic);
+        return topics;
+    }
+
+    private void putRow(String unit, String status)
+    {
+        Vector<Object> row = new Vector<Object>();
+        row.add(unit);
+        row.add(status);
+        synchronized (sourceRows)
+        {
+            sourceRows.put(unit, row);
+        }
+    }
+
+    /**
+     * Client that records the callbacks it receives.  If a latch is given, the
+     * first callback waits for it to be released.
+     */
+    private static class RecordingClient implements CADClientInterface
+    {
+        private LinkedBlockingQueue<Vector<CADUpdate>> batches =
+                new LinkedBlockingQueue<Vector<CADUpdate>>();
+        private CountDownLatch release;
+        CountDownLatch entered = new CountDownLatch(1);
+
+        RecordingClient(CountDownLatch latch)
+        {
+            release = latch;
+        }
+
+        public void refresh() throws RemoteException
+        {
+        }
+
+        public void publish(Vector<CADUpdate> updates) throws RemoteException
+        {
+            entered.countDown();
+            if (release != null)
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                }
+            }
+            batches.add(updates);
+        }
+
+        CADUpdate take() throws InterruptedException
+        {
+            return takeBatch().firstElement();
+        }
+
+        Vector<CADUpdate> takeBatch() throws InterruptedException
+        {
+            Vector<CADUpdate> batch = batches.poll(2, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            return batch;
+        }
+
+        CADUpdate poll(long millis) throws InterruptedException
+        {
+            Vector<CADUpdate> batch = batches.poll(millis, TimeUnit.MILLISECONDS);
+            return batch == null ? null : batch.firstElement();
+        }
+    }
+}
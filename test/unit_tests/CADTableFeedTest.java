@@ -0,0 +1,140 @@
+package unit_tests;
+
+import java.util.LinkedHashMap;
+import java.util.Vector;
+import junit.framework.TestCase;
+import tmcsim.client.cadclientgui.data.CADTableFeed;
+import tmcsim.client.cadclientgui.data.DeltaTableModel;
+import tmcsim.client.cadclientgui.data.TableDelta;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+import tmcsim.client.cadclientgui.enums.UnitStatusEnums;
+
+/**
+ * Unit test for the CADTableFeed and DeltaTableModel classes.
+ * @author Jonathan Molina
+ */
+public class CADTableFeedTest extends TestCase
+{
+    private LinkedHashMap<Object, Vector<Object>> sourceRows;
+    private CADTableFeed feed;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CADTableFeedTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        sourceRows = new LinkedHashMap<Object, Vector<Object>>();
+        Vector<String> headers = new Vector<String>();
+        headers.add("Unit");
+        headers.add("Status");
+        feed = new CADTableFeed(TABLE.UNIT_STATUS, headers,
+                new CADTableFeed.RowSource()
+                {
+                    public void collectRows(LinkedHashMap<Object, Vector<Object>> rows)
+                    {
+                        for (Object key : sourceRows.keySet())
+                        {
+                            rows.put(key, new Vector<Object>(sourceRows.get(key)));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Tests that a client only receives the rows changed since its version and
+     * that applying the deltas reproduces the server table.
+     */
+    public void testDeltas()
+    {
+        putRow("10", "AVAIL");
+        putRow("20", "AVAIL");
+
+        DeltaTableModel model = new DeltaTableModel(new Object[] { "Unit", "Status" });
+        TableDelta first = feed.getDelta(model.getVersion());
+        assertTrue(first.reset);
+        model.applyDelta(first);
+        assertEquals(2, model.getRowCount());
+
+        assertTrue(feed.getDelta(model.getVersion()).isEmpty());
+
+        putRow("20", "ENRT");
+        putRow("30", "AVAIL");
+        sourceRows.remove("10");
+
+        TableDelta change = feed.getDelta(model.getVersion());
+        assertFalse(change.reset);
+        assertEquals(2, change.upserts.size());
+        assertEquals(1, change.deletes.size());
+
+        model.applyDelta(change);
+        assertEquals(2, model.getRowCount());
+        assertEquals("20", model.getValueAt(0, 0));
+        assertEquals("ENRT", model.getValueAt(0, 1));
+        assertEquals("30", model.getValueAt(1, 0));
+        assertEquals(feed.getVersion(), model.getVersion());
+    }
+
+    /**
+     * Tests that a client several versions behind receives the merged changes.
+     */
+    public void testMergedDelta()
+    {
+        putRow("10", "AVAIL");
+        long start = feed.getDelta(0).toVersion;
+
+        putRow("10", "ENRT");
+        feed.getDelta(start);
+        putRow("10", "10-97");
+        sourceRows.remove("10");
+        putRow("10", "10-98");
+
+        TableDelta merged = feed.getDelta(start);
+        assertFalse(merged.reset);
+        assertEquals(0, merged.deletes.size());
+        assertEquals("10-98", merged.upserts.get("10").get(1));
+    }
+
+    /**
+     * Tests that the model keeps the values of a row past its columns, so
+     * a row can be colored from the delta alone.
+     */
+    public void testSentValues()
+    {
+        putRow("10", "AVAIL");
+        sourceRows.get("10").add(UnitStatusEnums.Assignable);
+
+        DeltaTableModel model = new DeltaTableModel(new Object[] { "Unit", "Status" });
+        model.applyDelta(feed.getDelta(model.getVersion()));
+        assertEquals(2, model.getColumnCount());
+        assertEquals(0, model.getRow("10"));
+        assertEquals(UnitStatusEnums.Assignable, model.getSentValue(0, 2));
+
+        putRow("20", "ENRT");
+        sourceRows.get("20").add(UnitStatusEnums.Enroute);
+        sourceRows.get("10").set(2, UnitStatusEnums.Arrived);
+        model.applyDelta(feed.getDelta(model.getVersion()));
+        assertEquals(UnitStatusEnums.Arrived, model.getSentValue(0, 2));
+        assertEquals(UnitStatusEnums.Enroute, model.getSentValue(model.getRow("20"), 2));
+
+        sourceRows.remove("10");
+        model.applyDelta(feed.getDelta(model.getVersion()));
+        assertEquals(-1, model.getRow("10"));
+        assertEquals(UnitStatusEnums.Enroute, model.getSentValue(0, 2));
+        assertNull(model.getSentValue(0, 3));
+    }
+
+    private void putRow(String unit, String status)
+    {
+        Vector<Object> row = new Vector<Object>();
+        row.add(unit);
+        row.add(status);
+        sourceRows.put(unit, row);
+    }
+}
@@ -0,0 +1,315 @@
+package unit_tests;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import junit.framework.TestCase;
+import tmcsim.client.cadclientgui.data.CardfileCache;
+import tmcsim.client.cadclientgui.data.CardfileData;
+import tmcsim.client.cadclientgui.data.CardfileDataObject;
+import tmcsim.client.cadclientgui.data.CardfileList;
+import tmcsim.client.cadclientgui.data.CardfilePage;
+import tmcsim.client.cadclientgui.data.ChangeLog;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.CARDFILE;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.EditCommand;
+import tmcsim.interfaces.CADInterface;
+
+/**
+ * Unit test for the paged transfer of the CardfileData to the CardfileCache.
+ * @author Jonathan Molina
+ */
+public class CardfileCacheTest extends TestCase
+{
+    private CardfileData data;
+    private CardfileCache cache;
+    private int calls;
+
+    /**
+     * Coordinator in place of the server, serving pages of the CardfileData
+     * as Coordinator.getCardfilePage does and counting the calls.
+     */
+    private InvocationHandler coordinator = new InvocationHandler()
+    {
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            calls++;
+            CARDFILE tag = (CARDFILE) args[0];
+            if (data.getVersion(tag) == (Long) args[3])
+            {
+                return null;
+            }
+            return data.getPage(tag, (Integer) args[1], (Integer) args[2]);
+        }
+    };
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CardfileCacheTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        data = new CardfileData();
+        List<CardfileDataObject> towCompanies = new ArrayList<CardfileDataObject>();
+        for (int i = 9; i >= 0; i--)
+        {
+            towCompanies.add(new CardfileDataObject("Tow Companies", "Tow " + i, i));
+        }
+        data.setList(CARDFILE.TOW_COMPANIES, towCompanies);
+        CADInterface theCoordinator = (CADInterface) Proxy.newProxyInstance(
+                CADInterface.class.getClassLoader(),
+                new Class<?>[] { CADInterface.class }, coordinator);
+        cache = new CardfileCache(theCoordinator, 4);
+    }
+
+    /**
+     * Tests that a page holds the objects from the offset in name order, and
+     * that the last page is clamped to the size of the list.
+     */
+    public void testPages()
+    {
+        CardfilePage page = data.getPage(CARDFILE.TOW_COMPANIES, 4, 4);
+        assertEquals(10, page.getTotal());
+        assertEquals(4, page.getObjects().size());
+        assertEquals("Tow 4", page.getObjects().get(0).getName());
+        assertFalse(page.isLast());
+
+        page = data.getPage(CARDFILE.TOW_COMPANIES, 8, 4);
+        assertEquals(2, page.getObjects().size());
+        assertEquals("Tow 9", page.getObjects().get(1).getName());
+        assertTrue(page.isLast());
+
+        assertTrue(data.getPage(CARDFILE.JAILS, 0, 4).isLast());
+    }
+
+    /**
+     * Tests that each change to a list gives it a new version, and that other
+     * lists keep theirs.
+     */
+    public void testVersions()
+    {
+        long version = data.getVersion(CARDFILE.TOW_COMPANIES);
+        long jails = data.getVersion(CARDFILE.JAILS);
+
+        CardfileDataObject cfdo = new CardfileDataObject("Tow Companies", "Tow 5a", 10);
+        assertEquals(6, data.addCardfileDataObject(CARDFILE.TOW_COMPANIES, cfdo));
+        assertFalse(version == data.getVersion(CARDFILE.TOW_COMPANIES));
+
+        version = data.getVersion(CARDFILE.TOW_COMPANIES);
+        cfdo.setName("A Tow");
+        data.updateCardfileDataObject(CARDFILE.TOW_COMPANIES, cfdo);
+        assertFalse(version == data.getVersion(CARDFILE.TOW_COMPANIES));
+        assertEquals("A Tow", data.getPage(CARDFILE.TOW_COMPANIES, 0, 1)
+                .getObjects().get(0).getName());
+
+        version = data.getVersion(CARDFILE.TOW_COMPANIES);
+        data.removeCardfileDataObject(CARDFILE.TOW_COMPANIES, 10);
+        assertFalse(version == data.getVersion(CARDFILE.TOW_COMPANIES));
+        assertEquals(10, data.getPage(CARDFILE.TOW_COMPANIES, 0, 20).getTotal());
+
+        assertEquals(jails, data.getVersion(CARDFILE.JAILS));
+    }
+
+    /**
+     * Tests that each page is read only when it is asked for, that a cached
+     * page is kept while the list is unchanged, and that the pages are read
+     * again after it changed.
+     */
+    public void testPagesOnDemand() throws Exception
+    {
+        assertEquals(10, cache.getSize(CARDFILE.TOW_COMPANIES));
+        assertEquals(1, calls);
+
+        calls = 0;
+        CardfilePage page = cache.getPage(CARDFILE.TOW_COMPANIES, 2);
+        assertEquals(1, calls);
+        assertEquals(2, page.getObjects().size());
+        assertEquals("Tow 8", page.getObjects().get(0).getName());
+
+        calls = 0;
+        cache.getPage(CARDFILE.TOW_COMPANIES, 0);
+        cache.getPage(CARDFILE.TOW_COMPANIES, 2);
+        assertEquals(10, cache.getSize(CARDFILE.TOW_COMPANIES));
+        cache.getPage(CARDFILE.TOW_COMPANIES, 2);
+        assertEquals(1, calls);
+
+        calls = 0;
+        data.removeCardfileDataObject(CARDFILE.TOW_COMPANIES, 0);
+        assertEquals(9, cache.getSize(CARDFILE.TOW_COMPANIES));
+        page = cache.getPage(CARDFILE.TOW_COMPANIES, 2);
+        assertEquals(2, calls);
+        assertEquals(1, page.getObjects().size());
+        assertEquals("Tow 9", page.getObjects().get(0).getName());
+    }
+
+    /**
+     * Tests that the objects returned are copies, so editing them changes
+     * neither the cache nor the server data.
+     */
+    public void testCopies() throws Exception
+    {
+        CardfileDataObject cfdo = cache.getPage(CARDFILE.TOW_COMPANIES, 0)
+                .getObjects().get(0);
+        cfdo.setName("Edited");
+        cfdo.addComment(new String[] { "01/01/2026", "12:00", "JM", "Edited" });
+
+        CardfileDataObject cached = cache.getPage(CARDFILE.TOW_COMPANIES, 0)
+                .getObjects().get(0);
+        assertEquals("Tow 0", cached.getName());
+        assertEquals(0, cached.getCommentsTableFields().size());
+        assertEquals("Tow 0", data.getCardfileDataObject(CARDFILE.TOW_COMPANIES, 0).getName());
+
+        data.getPage(CARDFILE.TOW_COMPANIES, 0, 1).getObjects().get(0).setName("Edited");
+        assertEquals("Tow 0", data.getCardfileDataObject(CARDFILE.TOW_COMPANIES, 0).getName());
+    }
+
+    /**
+     * Tests that a CardfileList shows placeholders for the objects asked for
+     * until their page arrives, reads only those pages, and reads the rest
+     * before it is edited. The first page is already cached when the list
+     * is validated.
+     */
+    public void testCardfileList() throws Exception
+    {
+        final CardfileList list = new CardfileList(cache, CARDFILE.TOW_COMPANIES);
+        assertEquals(1, calls);
+        assertEquals(10, list.getModel().getSize());
+
+        calls = 0;
+        assertEquals("...", elementAt(list, 5));
+        assertEquals("Tow 5", awaitElementAt(list, 5));
+        assertEquals("Tow 6", elementAt(list, 6));
+        assertEquals(1, calls);
+
+        calls = 0;
+        final int[] position = new int[1];
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                position[0] = list.addDataObject(new CardfileDataObject(
+                        "Tow Companies", "Tow 5a", 10));
+            }
+        });
+        assertEquals(6, position[0]);
+        assertEquals(1, calls);
+        assertEquals(11, list.getModel().getSize());
+        assertEquals("Tow 9", elementAt(list, 10));
+    }
+
+    /**
+     * Tests that a page of a later version of the list resizes the
+     * CardfileList, with events for the removed rows, and replaces the
+     * objects read before.
+     */
+    public void testCardfileListChanged() throws Exception
+    {
+        final CardfileList list = new CardfileList(cache, CARDFILE.TOW_COMPANIES);
+        final int[] removed = new int[1];
+        list.getModel().addListDataListener(new ListDataListener()
+        {
+            public void intervalAdded(ListDataEvent e)
+            {
+            }
+
+            public void intervalRemoved(ListDataEvent e)
+            {
+                removed[0] += e.getIndex1() - e.getIndex0() + 1;
+            }
+
+            public void contentsChanged(ListDataEvent e)
+            {
+            }
+        });
+
+        data.removeCardfileDataObject(CARDFILE.TOW_COMPANIES, 0);
+        data.removeCardfileDataObject(CARDFILE.TOW_COMPANIES, 1);
+        assertEquals("...", elementAt(list, 9));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (size(list) == 10 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(2, removed[0]);
+        assertEquals(8, list.getModel().getSize());
+        assertEquals("Tow 2", awaitElementAt(list, 0));
+    }
+
+    /**
+     * Tests that the edits of change logs are made to the server data, and
+     * that a renamed object is sorted again.
+     */
+    public void testEdit()
+    {
+        long version = data.getVersion(CARDFILE.TOW_COMPANIES);
+        data.editCardfileDataObject(CARDFILE.TOW_COMPANIES, new ChangeLog(
+                EditCommand.NAME, "Tow Companies", 9, "A Tow"));
+        assertFalse(version == data.getVersion(CARDFILE.TOW_COMPANIES));
+        assertEquals("A Tow", data.getPage(CARDFILE.TOW_COMPANIES, 0, 1)
+                .getObjects().get(0).getName());
+
+        data.editCardfileDataObject(CARDFILE.TOW_COMPANIES, new ChangeLog(
+                EditCommand.PHONE1, "Tow Companies", 9, "555-0100"));
+        assertEquals("555-0100", data.getCardfileDataObject(
+                CARDFILE.TOW_COMPANIES, 9).getPhone1());
+
+        data.editCardfileDataObject(CARDFILE.TOW_COMPANIES, new ChangeLog(
+                EditCommand.OBJECT_DELETE, "Tow Companies", 9));
+        assertNull(data.getCardfileDataObject(CARDFILE.TOW_COMPANIES, 9));
+        assertEquals(9, data.getPage(CARDFILE.TOW_COMPANIES, 0, 20).getTotal());
+    }
+
+    private int size(final CardfileList list) throws Exception
+    {
+        final int[] size = new int[1];
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                size[0] = list.getModel().getSize();
+            }
+        });
+        return size[0];
+    }
+
+    private String elementAt(final CardfileList list, final int index)
+            throws Exception
+    {
+        final String[] element = new String[1];
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                element[0] = list.getModel().getElementAt(index);
+            }
+        });
+        return element[0];
+    }
+
+    /**
+     * Asks for the element until it changes from a placeholder, waiting for
+     * the page being read.
+     */
+    private String awaitElementAt(CardfileList list, int index)
+            throws Exception
+    {
+        String element = elementAt(list, index);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (element.equals("...") && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+            element = elementAt(list, index);
+        }
+        return element;
+    }
+}
@@ -0,0 +1,153 @@
+package unit_tests;
+
+import java.util.LinkedList;
+import junit.framework.TestCase;
+import tmcsim.client.cadclientgui.data.CardfileDataObject;
+import tmcsim.client.cadclientgui.data.CardfileIndex;
+
+/**
+ * Unit test for the CardfileIndex class.
+ * @author Jonathan Molina
+ */
+public class CardfileIndexTest extends TestCase
+{
+    private CardfileIndex index;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CardfileIndexTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        index = new CardfileIndex();
+        index.add(entry(1, "Tow Companies", "Bob's Towing", "San Luis Obispo", "805-555-0101"));
+        index.add(entry(2, "Tow Companies", "Central Coast Tow", "Santa Maria", "805-555-0102"));
+        index.add(entry(3, "Hospitals", "Sierra Vista Hospital", "San Luis Obispo", "805-555-0103"));
+        index.add(entry(4, "Hospitals", "Marian Medical Center", "Santa Maria", "805-555-0104"));
+    }
+
+    /**
+     * Tests that every word of the search must match a word, or the start
+     * of a word, of an entry.
+     */
+    public void testTokens()
+    {
+        assertEquals(ids(3), ids(index.search("sierra")));
+        assertEquals(ids(1, 3), ids(index.search("San Luis")));
+        assertEquals(ids(2, 4), ids(index.search("santa ma")));
+        assertEquals(ids(4), ids(index.search("marian santa")));
+        assertEquals(ids(), ids(index.search("sierra santa")));
+        assertEquals(ids(), ids(index.search("  ")));
+        assertEquals(ids(1), ids(index.search("805-555-0101")));
+    }
+
+    /**
+     * Tests that exact matches rank above prefix matches, and that a field
+     * equal to the whole search ranks first.
+     */
+    public void testRanking()
+    {
+        index.add(entry(5, "Tow Companies", "Tow", "Morro Bay", ""));
+        index.add(entry(6, "Garages", "Townsend Garage", "Morro Bay", ""));
+
+        assertEquals(ids(5, 1, 2, 6), ids(index.search("tow")));
+        assertEquals(ids(5, 1, 2, 6), ids(index.search("TOW")));
+    }
+
+    /**
+     * Tests that a limited search returns the best matches, in rank order.
+     */
+    public void testLimit()
+    {
+        index.add(entry(5, "Tow Companies", "Tow", "Morro Bay", ""));
+        index.add(entry(6, "Garages", "Townsend Garage", "Morro Bay", ""));
+
+        assertEquals(ids(5, 1), ids(index.search("tow", 2)));
+        assertEquals(ids(5, 1, 2, 6), ids(index.search("tow", 10)));
+        assertEquals(ids(), ids(index.search("tow", 0)));
+    }
+
+    /**
+     * Tests that an edited entry is found by its new fields only, and that a
+     * removed entry is not found.
+     */
+    public void testUpdate()
+    {
+        CardfileDataObject cfdo = index.search("sierra").getFirst();
+        cfdo.setName("French Hospital");
+        index.add(cfdo);
+        assertEquals(ids(), ids(index.search("sierra")));
+        assertEquals(ids(3), ids(index.search("french")));
+        assertEquals(4, index.size());
+
+        index.remove(3);
+        assertEquals(ids(), ids(index.search("french")));
+        assertEquals(ids(4), ids(index.search("hospitals")));
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Tests that searches of a large Cardfile are fast.
+     */
+    public void testLargeCardfile()
+    {
+        String[] cities = { "San Luis Obispo", "Santa Maria", "Arroyo Grande",
+            "Paso Robles", "Atascadero", "Morro Bay", "Pismo Beach" };
+        CardfileIndex large = new CardfileIndex();
+        for (int i = 0; i < 50000; i++)
+        {
+            large.add(entry(i, "List " + (i % 36), "Entry " + i + " Name" + (i % 997),
+                    cities[i % cities.length], "805-" + (i % 1000) + "-" + i));
+        }
+
+        String[] searches = { "entry 4242", "name12", "morro", "805-42", "list 7 paso" };
+        long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < 100; i++)
+        {
+            found += large.search(searches[i % searches.length]).size();
+        }
+        long average = (System.nanoTime() - start) / 100;
+
+        assertTrue(found > 0);
+        assertEquals(11, large.search("entry 4242").size());
+        assertEquals(4242, large.search("entry 4242").getFirst().getId());
+        assertEquals(CardfileIndex.MAX_RESULTS, large.search("morro").size());
+        assertTrue("average search took " + average + " ns", average < 50000000L);
+    }
+
+    private CardfileDataObject entry(int id, String category, String name,
+            String city, String phone)
+    {
+        CardfileDataObject cfdo = new CardfileDataObject(category, name, id);
+        cfdo.setCity(city);
+        cfdo.setPhone1(phone);
+        return cfdo;
+    }
+
+    private LinkedList<Integer> ids(int... ids)
+    {
+        LinkedList<Integer> list = new LinkedList<Integer>();
+        for (int id : ids)
+        {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private LinkedList<Integer> ids(LinkedList<CardfileDataObject> results)
+    {
+        LinkedList<Integer> list = new LinkedList<Integer>();
+        for (CardfileDataObject cfdo : results)
+        {
+            list.add(cfdo.getId());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,147 @@
+package unit_tests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.Vector;
+import junit.framework.TestCase;
+import tmcsim.cadmodels.CMSInfo;
+import tmcsim.cadsimulator.db.CMSDiversionDB;
+import tmcsim.cadsimulator.managers.CheckpointManager;
+import tmcsim.cadsimulator.managers.IncidentManager;
+import tmcsim.client.cadclientgui.ScriptLoader;
+import tmcsim.client.cadclientgui.ScriptLoader.Scenario;
+import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.loadtest.ScenarioGenerator;
+
+/**
+ * Unit test for the CheckpointManager class.
+ * @author Jonathan Molina
+ */
+public class CheckpointManagerTest extends TestCase
+{
+    private IncidentManager incidentMgr;
+    private CADData data;
+    private CheckpointManager checkpoints;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CheckpointManagerTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        File script = File.createTempFile("checkpoint", ".xml");
+        try
+        {
+            new ScenarioGenerator(5, 20, 6, 2).write(script);
+            ScriptLoader.clearCache();
+            Scenario scenario = ScriptLoader.load(script);
+            Vector<Incident> incidents = scenario.getIncidents();
+
+            // the IncidentManager is not ticked, so it needs no Coordinator
+            incidentMgr = new IncidentManager(null, null);
+            data = new CADData();
+            data.setIncidentsFromXML(incidents);
+            data.setUnitsFromXML(scenario.getUnits());
+            incidentMgr.addIncidents(incidents);
+        }
+        finally
+        {
+            script.delete();
+        }
+        checkpoints = new CheckpointManager(incidentMgr, data, 60);
+    }
+
+    /**
+     * Tests that a checkpoint is taken once the interval has passed since
+     * the previous checkpoint.
+     */
+    public void testInterval()
+    {
+        checkpoints.tick(30);
+        assertTrue(checkpoints.getCheckpointTimes().isEmpty());
+
+        checkpoints.tick(61);
+        checkpoints.tick(90);
+        checkpoints.tick(121);
+        checkpoints.tick(180);
+        assertEquals(new TreeSet<Long>(Arrays.asList(61L, 121L)),
+                checkpoints.getCheckpointTimes());
+
+        new CheckpointManager(incidentMgr, data, 0).tick(600);
+    }
+
+    /**
+     * Tests that a restored checkpoint replaces the simulation data, with
+     * the incidents shared by the IncidentManager and the CADData.
+     */
+    public void testRestore()
+    {
+        Incident original = incidentMgr.getIncidentList().get(0);
+        int logNum = original.getLogNum();
+        int count = incidentMgr.getIncidentList().size();
+        long nextTime = incidentMgr.getNextEventTime(0);
+        checkpoints.capture(120);
+
+        incidentMgr.clearIncidents();
+        data.clearData();
+        assertFalse(incidentMgr.areIncidentsLoaded());
+        assertNull(data.getIncident(logNum));
+
+        assertEquals(120, checkpoints.restore(150));
+        assertTrue(incidentMgr.areIncidentsLoaded());
+        assertEquals(count, incidentMgr.getIncidentList().size());
+
+        Incident restored = incidentMgr.getIncidentList().get(0);
+        assertFalse(restored == original);
+        assertSame(restored, data.getIncident(logNum));
+        assertEquals(original.getEvents().size(), restored.getEvents().size());
+        assertEquals(original.getSecondsToStart(),
+                restored.getSecondsToStart());
+        assertEquals(nextTime, incidentMgr.getNextEventTime(0));
+    }
+
+    /**
+     * Tests that the CMS diversions are restored.
+     */
+    public void testRestoreDiversions()
+    {
+        CMSDiversionDB db = CMSDiversionDB.getInstance();
+        db.updateDiversions(new CMSInfo("CHECKPOINT_1", 1.5f, "I-5"));
+        checkpoints.capture(60);
+
+        db.updateDiversions(new CMSInfo("CHECKPOINT_2", 2.5f, "I-5"));
+        assertEquals(60, checkpoints.restore(60));
+        assertNotNull(db.getDiversion("CHECKPOINT_1"));
+        assertNull(db.getDiversion("CHECKPOINT_2"));
+    }
+
+    /**
+     * Tests that the checkpoints after a restored checkpoint are discarded,
+     * and that nothing is restored before the first checkpoint.
+     */
+    public void testRestoreDiscardsLaterCheckpoints()
+    {
+        checkpoints.capture(60);
+        checkpoints.capture(120);
+        checkpoints.capture(180);
+
+        assertEquals(120, checkpoints.restore(179));
+        assertEquals(new TreeSet<Long>(Arrays.asList(60L, 120L)),
+                checkpoints.getCheckpointTimes());
+
+        assertEquals(0, checkpoints.restore(59));
+        assertTrue(checkpoints.getCheckpointTimes().isEmpty());
+
+        checkpoints.capture(60);
+        checkpoints.clear();
+        assertEquals(0, checkpoints.restore(600));
+    }
+}
@@ -0,0 +1,128 @@
+package unit_tests;
+
+import java.awt.GraphicsEnvironment;
+import java.rmi.RemoteException;
+import java.util.Vector;
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.Coordinator;
+import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.CADField;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.Unit;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.INC_CALLER;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.INC_LOC;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.INC_VAL;
+import tmcsim.client.cadclientgui.enums.CADScriptTags.UNIT_TAGS;
+import tmcsim.client.cadclientgui.enums.UnitStatusEnums;
+
+/**
+ * Unit test for the batched CADData field reads and writes of the
+ * Coordinator.
+ * @author Jonathan Molina
+ */
+public class CoordinatorBatchTest extends TestCase
+{
+    private Coordinator coordinator;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public CoordinatorBatchTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        // the CAD Simulator runs on servers without a display
+        System.setProperty("java.awt.headless", "true");
+        assertTrue(GraphicsEnvironment.isHeadless());
+        coordinator = new Coordinator(null);
+
+        // the CADData tables are shared by every instance
+        CADData data = new CADData();
+        Vector<Unit> units = new Vector<Unit>();
+        units.add(new Unit("10"));
+        units.add(new Unit("20"));
+        data.setUnitsFromXML(units);
+        Vector<Incident> incidents = new Vector<Incident>();
+        incidents.add(new Incident(1, "Collision", 0));
+        data.setIncidentsFromXML(incidents);
+    }
+
+    /**
+     * Tests that a batch of incident fields of several kinds is written and
+     * read back in order.
+     */
+    public void testIncidentFields() throws Exception
+    {
+        Vector<CADField> fields = new Vector<CADField>();
+        fields.add(new CADField(INC_LOC.ADDRESS, "I-5 N"));
+        fields.add(new CADField(INC_VAL.RP, "Caller"));
+        fields.add(new CADField(INC_CALLER.PHONE, "555-0100"));
+        fields.add(new CADField(INC_LOC.ADDRESS, "I-5 S"));
+        coordinator.setCadDataIncFields(1, fields);
+
+        Vector<CADField> reads = new Vector<CADField>();
+        reads.add(new CADField(INC_CALLER.PHONE));
+        reads.add(new CADField(INC_LOC.ADDRESS));
+        reads.add(new CADField(INC_VAL.LOG_NUM));
+        Vector<CADField> values = coordinator.getCadDataIncFields(1, reads);
+        assertEquals("555-0100", values.get(0).getString());
+        assertEquals("I-5 S", values.get(1).getString());
+        assertEquals("1", values.get(2).getString());
+        assertEquals("Caller", coordinator.getCadDataIncVal(INC_VAL.RP, 1));
+    }
+
+    /**
+     * Tests that a tag that cannot be set is rejected.
+     */
+    public void testWrongTag() throws Exception
+    {
+        Vector<CADField> fields = new Vector<CADField>();
+        fields.add(new CADField(UNIT_TAGS.STATUS, "ENRT"));
+        try
+        {
+            coordinator.setCadDataIncFields(1, fields);
+            fail("Unit tag accepted for an incident");
+        }
+        catch (RemoteException e)
+        {
+        }
+    }
+
+    /**
+     * Tests that unit fields are written in one call, and that one field of
+     * every unit is read in one call.
+     */
+    public void testUnitFields() throws Exception
+    {
+        Vector<CADField> fields = new Vector<CADField>();
+        fields.add(new CADField(UNIT_TAGS.STATUS, "ENRT"));
+        fields.add(new CADField(UNIT_TAGS.UNIT_STATUS, UnitStatusEnums.Enroute));
+        coordinator.setCadDataUnitFields("20", fields);
+
+        Vector<String> unitNums = new Vector<String>();
+        unitNums.add("10");
+        unitNums.add("20");
+        unitNums.add("30");
+        Vector<Object> statuses = coordinator.getCadDataUnitValues(unitNums,
+                UNIT_TAGS.UNIT_STATUS);
+        assertEquals(3, statuses.size());
+        assertEquals(UnitStatusEnums.Enroute, statuses.get(1));
+        assertNull(statuses.get(2));
+
+        Vector<Object> values = coordinator.getCadDataUnitValues(unitNums,
+                UNIT_TAGS.STATUS);
+        assertEquals("ENRT", values.get(1));
+
+        Vector<CADField> reads = new Vector<CADField>();
+        reads.add(new CADField(UNIT_TAGS.STATUS));
+        reads.add(new CADField(UNIT_TAGS.UNIT_STATUS));
+        Vector<CADField> unit = coordinator.getCadDataUnitFields("20", reads);
+        assertEquals("ENRT", unit.get(0).getString());
+        assertEquals(UnitStatusEnums.Enroute, unit.get(1).value);
+    }
+}
@@ -0,0 +1,50 @@
+package unit_tests;
+
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.managers.IncidentManager;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.IncidentEvent;
+
+/**
+ * Unit test for the scheduling of the IncidentManager.
+ * @author Jonathan Molina
+ */
+public class IncidentManagerTest extends TestCase
+{
+    private IncidentManager incidentMgr;
+    private Incident incident;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public IncidentManagerTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        // no events complete in these tests, so no Coordinator is needed
+        incidentMgr = new IncidentManager(null, null);
+        incident = new Incident(100, "Test incident", 10);
+        incident.addEvent(new IncidentEvent(20));
+        incidentMgr.addIncident(incident);
+    }
+
+    /**
+     * Tests that a tick which skips an Incident's start time starts the
+     * Incident at its scheduled time, so its events keep their times.
+     */
+    public void testTickSkippingStartTime()
+    {
+        incidentMgr.tick(5);
+        assertFalse(incident.hasOccured());
+
+        incidentMgr.tick(15);
+        assertTrue(incident.hasOccured());
+        assertEquals(10, incident.getSecondsIncidentStarted());
+        assertEquals(31, incidentMgr.getNextEventTime(15));
+    }
+}
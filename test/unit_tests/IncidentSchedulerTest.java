@@ -0,0 +1,82 @@
+package unit_tests;
+
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.managers.IncidentScheduler;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.IncidentEvent;
+
+/**
+ * Unit test for the IncidentScheduler class.
+ * @author Jonathan Molina
+ */
+public class IncidentSchedulerTest extends TestCase
+{
+    private IncidentScheduler scheduler;
+    private Incident incident;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public IncidentSchedulerTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        scheduler = new IncidentScheduler();
+        incident = new Incident(100, "Test incident", 10);
+        incident.addEvent(new IncidentEvent(0));
+        incident.addEvent(new IncidentEvent(5));
+    }
+
+    /**
+     * Tests that an incident start and its events are due at the same times
+     * the linear scan would have triggered them.
+     */
+    public void testDueTimes()
+    {
+        scheduler.schedule(incident);
+        assertNull(scheduler.pollDue(9));
+        assertEquals(10, scheduler.getNextTime(0));
+
+        IncidentScheduler.ScheduledEntry start = scheduler.pollDue(10);
+        assertEquals(IncidentScheduler.ENTRY_TYPE.INCIDENT_START, start.type);
+        assertTrue(incident.tick(10));
+        scheduler.schedule(incident);
+
+        assertNull(scheduler.pollDue(10));
+        assertEquals(11, scheduler.getNextTime(10));
+
+        IncidentScheduler.ScheduledEntry first = scheduler.pollDue(11);
+        assertEquals(0, first.event.secondsToOccurInIncident);
+        first.event.triggerEvent(incident.getSecondsIncidentStarted(), 11);
+        scheduler.addActive(first);
+
+        assertNull(scheduler.pollDue(15));
+        assertEquals(1, scheduler.getCompletedEvents().size());
+        assertEquals(16, scheduler.pollDue(20).time);
+        assertEquals(-1, scheduler.getNextTime(20));
+    }
+
+    /**
+     * Tests that rescheduling and removing an incident invalidates its
+     * previous entries.
+     */
+    public void testRescheduleAndRemove()
+    {
+        scheduler.schedule(incident);
+        incident.setSecondsToStart(30);
+        scheduler.schedule(incident);
+
+        assertNull(scheduler.pollDue(29));
+        assertEquals(30, scheduler.pollDue(30).time);
+
+        scheduler.schedule(incident);
+        scheduler.remove(incident);
+        assertNull(scheduler.pollDue(100));
+        assertEquals(-1, scheduler.getNextTime(100));
+    }
+}
@@ -0,0 +1,142 @@
+package unit_tests;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import javax.swing.SwingUtilities;
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.viewer.LogConsole;
+
+/**
+ * Unit test for the LogConsole class.
+ * @author Jonathan Molina
+ */
+public class LogConsoleTest extends TestCase
+{
+    private LogConsole console;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public LogConsoleTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        console = new LogConsole(6, 30, 3);
+    }
+
+    /**
+     * Tests that appended messages are shown by the next frame, in order and
+     * in the format of the SimulationStatusPanel.
+     */
+    public void testAppend() throws Exception
+    {
+        console.append(record(Level.INFO, "first"));
+        console.append(record(Level.INFO, "second"));
+        flush();
+        assertEquals("Test.method = first\nTest.method = second\n", text());
+    }
+
+    /**
+     * Tests that the frame timer shows the appended messages without a call
+     * to flush.
+     */
+    public void testFrameTimer() throws Exception
+    {
+        console.append(record(Level.INFO, "first"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (text().isEmpty() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals("Test.method = first\n", text());
+    }
+
+    /**
+     * Tests that only the most recent messages, up to the capacity, are
+     * kept, whether they were added in one frame or several.
+     */
+    public void testCapacity() throws Exception
+    {
+        console.append(record(Level.INFO, "1"));
+        console.append(record(Level.INFO, "2"));
+        flush();
+        console.append(record(Level.INFO, "3"));
+        console.append(record(Level.INFO, "4"));
+        flush();
+        assertEquals("Test.method = 2\nTest.method = 3\nTest.method = 4\n", text());
+
+        for (int i = 5; i <= 10; i++)
+        {
+            console.append(record(Level.INFO, String.valueOf(i)));
+        }
+        flush();
+        assertEquals("Test.method = 8\nTest.method = 9\nTest.method = 10\n", text());
+    }
+
+    /**
+     * Tests that messages below the level are not shown, and are shown again
+     * when the level is lowered.
+     */
+    public void testLevel() throws Exception
+    {
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                console.setLevel(Level.WARNING);
+            }
+        });
+        console.append(record(Level.SEVERE, "severe"));
+        console.append(record(Level.FINE, "fine"));
+        console.append(record(Level.WARNING, "warning"));
+        flush();
+        assertEquals("Test.method = severe\nTest.method = warning\n", text());
+
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                console.setLevel(Level.ALL);
+            }
+        });
+        assertEquals("Test.method = severe\nTest.method = fine\n"
+                + "Test.method = warning\n", text());
+    }
+
+    private void flush() throws Exception
+    {
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                console.flush();
+            }
+        });
+    }
+
+    private String text() throws Exception
+    {
+        final String[] text = new String[1];
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                text[0] = console.getTextArea().getText();
+            }
+        });
+        return text[0];
+    }
+
+    private static LogRecord record(Level level, String message)
+    {
+        LogRecord rec = new LogRecord(level, message);
+        rec.setSourceClassName("Test");
+        rec.setSourceMethodName("method");
+        return rec;
+    }
+}
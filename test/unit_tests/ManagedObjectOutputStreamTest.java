@@ -0,0 +1,194 @@
+package unit_tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Properties;
+import javax.xml.parsers.DocumentBuilderFactory;
+import junit.framework.TestCase;
+import org.w3c.dom.Document;
+import tmcsim.common.ManagedObjectOutputStream;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
+
+/**
+ * Unit test for the ManagedObjectOutputStream class, including a soak test
+ * that sends the commands of a simulated four hour terminal session.
+ * @author Jonathan Molina
+ */
+public class ManagedObjectOutputStreamTest extends TestCase
+{
+    /** Simulated session length (seconds). */
+    private static final int SESSION_SECONDS = 4 * 60 * 60;
+
+    /** Allowed heap growth (bytes) over the simulated session. */
+    private static final long MAX_HEAP_GROWTH = 4 * 1024 * 1024;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ManagedObjectOutputStreamTest(String testName)
+    {
+        super(testName);
+    }
+
+    /**
+     * Tests that the stream is reset as the policy requires, that the
+     * counters match the data written, and that a plain ObjectInputStream
+     * reads every message.
+     */
+    public void testPolicyAndCounters() throws Exception
+    {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ManagedObjectOutputStream out = new ManagedObjectOutputStream(sink,
+                new ResetPolicy(3, 0));
+        for (int i = 0; i < 7; i++)
+        {
+            out.writeMessage(command("UPDATE_TIME", String.valueOf(i)));
+        }
+        out.flush();
+
+        assertEquals(7, out.getMessagesWritten());
+        assertEquals(2, out.getResetCount());
+        assertEquals(sink.size(), out.getBytesWritten());
+
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(sink.toByteArray()));
+        for (int i = 0; i < 7; i++)
+        {
+            Document doc = (Document) in.readObject();
+            assertEquals(String.valueOf(i), doc.getDocumentElement().getTextContent());
+        }
+    }
+
+    /**
+     * Tests that the policy is read from properties, with defaults for the
+     * properties that are not set.
+     */
+    public void testFromProperties() throws Exception
+    {
+        Properties props = new Properties();
+        props.setProperty(ManagedObjectOutputStream.RESET_MESSAGES_PROPERTY, " 1 ");
+        ResetPolicy policy = ResetPolicy.fromProperties(props);
+        assertEquals(1, policy.messages);
+        assertEquals(ResetPolicy.DEFAULT.bytes, policy.bytes);
+    }
+
+    /**
+     * Tests that a written message is released after a reset, and is kept
+     * for the life of the stream when the stream is never reset.
+     */
+    public void testReleasesMessages() throws Exception
+    {
+        assertTrue(isReleased(ResetPolicy.EVERY_MESSAGE));
+        assertFalse(isReleased(ResetPolicy.NEVER));
+    }
+
+    /**
+     * Soak test.  Sends the commands of a four hour terminal session (a
+     * status update every 5 seconds, a time update every minute and a screen
+     * refresh every 30 seconds) and checks that the heap does not grow.
+     */
+    public void testSoak() throws Exception
+    {
+        ManagedObjectOutputStream out = new ManagedObjectOutputStream(
+                new DiscardOutputStream(), ResetPolicy.DEFAULT);
+
+        long baseline = 0;
+        for (int second = 0; second < SESSION_SECONDS; second++)
+        {
+            if (second % 5 == 0)
+            {
+                out.writeMessage(command("UPDATE_STATUS", "{ONE=true, TWO=false}"));
+            }
+            if (second % 60 == 0)
+            {
+                out.writeMessage(command("UPDATE_TIME", String.valueOf(second / 60)));
+            }
+            if (second % 30 == 0)
+            {
+                out.writeMessage(screen(second));
+            }
+            if (second == SESSION_SECONDS / 10)
+            {
+                baseline = usedHeap();
+            }
+        }
+        out.flush();
+
+        long growth = usedHeap() - baseline;
+        assertTrue("Heap grew " + growth + " bytes", growth < MAX_HEAP_GROWTH);
+        assertTrue(out.getResetCount() >= out.getMessagesWritten() / 64);
+    }
+
+    private boolean isReleased(ResetPolicy policy) throws Exception
+    {
+        ManagedObjectOutputStream out = new ManagedObjectOutputStream(
+                new DiscardOutputStream(), policy);
+        Document doc = screen(0);
+        WeakReference<Document> ref = new WeakReference<Document>(doc);
+        out.writeMessage(doc);
+        out.writeMessage(screen(1));
+        doc = null;
+
+        for (int i = 0; i < 20 && ref.get() != null; i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        boolean released = ref.get() == null;
+        out.close();
+        return released;
+    }
+
+    private long usedHeap() throws Exception
+    {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            Thread.sleep(20);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private Document command(String type, String value) throws Exception
+    {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        doc.appendChild(doc.createElement(type));
+        doc.getDocumentElement().appendChild(doc.createTextNode(value));
+        return doc;
+    }
+
+    private Document screen(int number) throws Exception
+    {
+        Document doc = command("UPDATE_SCREEN", "");
+        for (int i = 0; i < 20; i++)
+        {
+            org.w3c.dom.Element line = doc.createElement("LINE");
+            line.appendChild(doc.createTextNode("Incident " + number + " line " + i));
+            doc.getDocumentElement().appendChild(line);
+        }
+        return doc;
+    }
+
+    /**
+     * OutputStream that discards everything written to it.
+     */
+    private static class DiscardOutputStream extends OutputStream
+    {
+        @Override
+        public void write(int b)
+        {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package unit_tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import junit.framework.TestCase;
+import tmcsim.metrics.Counter;
+import tmcsim.metrics.Gauge;
+import tmcsim.metrics.Histogram;
+import tmcsim.metrics.MetricsProxy;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
+
+/**
+ * Unit test for the MetricsRegistry class and its metrics.
+ * @author Jonathan Molina
+ */
+public class MetricsRegistryTest extends TestCase
+{
+    /**
+     * Interface called through a MetricsProxy.
+     */
+    public static interface Service
+    {
+        int square(int value) throws IOException;
+    }
+
+    private MBeanServer server;
+    private MetricsRegistry registry;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public MetricsRegistryTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        server = MBeanServerFactory.newMBeanServer();
+        registry = new MetricsRegistry(server);
+    }
+
+    /**
+     * Tests that a metric is created once and is registered with JMX.
+     */
+    public void testCreatedOnceAndRegistered() throws Exception
+    {
+        Counter counter = registry.counter("Test.count");
+        assertSame(counter, registry.counter("Test.count"));
+
+        counter.increment();
+        counter.add(4);
+        assertEquals(5L, server.getAttribute(new ObjectName(
+                "tmcsim:type=Counter,name=\"Test.count\""), "Count"));
+
+        try
+        {
+            registry.timer("Test.count");
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+    /**
+     * Tests that a gauge is read when reported, is replaced by a gauge with
+     * the same name, and is unregistered when removed.
+     */
+    public void testGauge() throws Exception
+    {
+        final int[] length = { 3 };
+        registry.gauge("Test.queue", new Gauge()
+        {
+            public long getValue()
+            {
+                return length[0];
+            }
+        });
+        ObjectName name = new ObjectName("tmcsim:type=Gauge,name=\"Test.queue\"");
+        assertEquals(3L, server.getAttribute(name, "Value"));
+        length[0] = 7;
+        assertEquals(7L, server.getAttribute(name, "Value"));
+
+        registry.gauge("Test.queue", new Gauge()
+        {
+            public long getValue()
+            {
+                return -1;
+            }
+        });
+        assertEquals(-1L, server.getAttribute(name, "Value"));
+
+        registry.remove("Test.queue");
+        assertNull(registry.getMetric("Test.queue"));
+        assertFalse(server.isRegistered(name));
+    }
+
+    /**
+     * Tests the histogram's exact statistics and approximate percentiles.
+     */
+    public void testHistogram()
+    {
+        Histogram histogram = registry.histogram("Test.size");
+        for (int value = 1; value <= 1000; value++)
+        {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+        assertEquals(1000, histogram.getMax());
+        assertEquals(1000, histogram.getLast());
+
+        long median = histogram.getMedian();
+        assertTrue("median " + median, median >= 500 && median <= 500 * 1.125);
+        long p99 = histogram.get99thPercentile();
+        assertTrue("p99 " + p99, p99 >= 990 && p99 <= 1000);
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMedian());
+    }
+
+    /**
+     * Tests that a proxy times each call and counts the calls that fail.
+     */
+    public void testProxy() throws Exception
+    {
+        Service service = MetricsProxy.wrap(Service.class, new Service()
+        {
+            public int square(int value) throws IOException
+            {
+                if (value < 0)
+                {
+                    throw new IOException("negative");
+                }
+                return value * value;
+            }
+        }, registry, "Service");
+
+        assertEquals(9, service.square(3));
+        assertEquals(16, service.square(4));
+        try
+        {
+            service.square(-1);
+            fail("Expected IOException");
+        }
+        catch (IOException expected)
+        {
+        }
+
+        Timer timer = (Timer) registry.getMetric("Service.square");
+        assertEquals(3, timer.getCount());
+        assertEquals(1, registry.counter("Service.square.errors").getCount());
+        assertTrue(service.equals(service));
+    }
+
+    /**
+     * Tests that a snapshot lists every metric and is written to a file.
+     */
+    public void testSnapshot() throws Exception
+    {
+        registry.counter("Test.b").increment();
+        registry.timer("Test.a").record(2000000);
+
+        File file = File.createTempFile("metrics", ".txt");
+        try
+        {
+            registry.writeSnapshot(file);
+            String text = new String(Files.readAllBytes(file.toPath()),
+                    Charset.forName("ISO-8859-1"));
+
+            int a = text.indexOf("Test.a count=1 mean=2.000ms");
+            int b = text.indexOf("Test.b count=1");
+            assertTrue(text, a > 0);
+            assertTrue(text, b > a);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+}
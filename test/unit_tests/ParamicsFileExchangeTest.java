@@ -0,0 +1,198 @@
+package unit_tests;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import tmcsim.common.ParamicsFrame;
+import tmcsim.paramicscommunicator.ParamicsFileExchange;
+import tmcsim.paramicscommunicator.ParamicsFileExchange.TRANSPORT;
+import tmcsim.paramicscommunicator.ParamicsFileReader;
+import tmcsim.paramicscommunicator.ParamicsFileWriter;
+
+/**
+ * Unit test for the ParamicsFileExchange class and the readers and writers
+ * that use it.  The rescan interval is long, so the tests only pass if the
+ * exchange reacts to file events.
+ * @author Jonathan Molina
+ */
+public class ParamicsFileExchangeTest extends TestCase
+{
+    private File workingDir;
+    private ParamicsFileExchange exchange;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ParamicsFileExchangeTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        workingDir = Files.createTempDirectory("exchange").toFile();
+        exchange = new ParamicsFileExchange(60000);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        exchange.close();
+        for (File file : workingDir.listFiles())
+        {
+            file.delete();
+        }
+        workingDir.delete();
+    }
+
+    /**
+     * Tests that data written by Paramics is read and the file cleared.
+     */
+    public void testReaderNotified() throws Exception
+    {
+        ParamicsFileReader reader = new ParamicsFileReader(exchange, TRANSPORT.FILE,
+                workingDir.getPath() + File.separator, "1", "status.xml");
+        final LinkedBlockingQueue<ParamicsFrame> frames = new LinkedBlockingQueue<ParamicsFrame>();
+        reader.addObserver(new Observer()
+        {
+            public void update(Observable o, Object arg)
+            {
+                if (arg instanceof ParamicsFrame)
+                {
+                    frames.add((ParamicsFrame) arg);
+                }
+            }
+        });
+
+        File status = new File(workingDir, "status.xml");
+        FileWriter paramics = new FileWriter(status);
+        paramics.write("<Status/>");
+        paramics.close();
+
+        ParamicsFrame frame = frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame);
+        assertEquals("<Status/>", frame.message);
+        assertEquals(0, status.length());
+        assertEquals(1, exchange.getReadLatency().getCount());
+        reader.close();
+    }
+
+    /**
+     * Tests that a file Paramics is still writing is neither read nor cleared,
+     * and is read once complete.
+     */
+    public void testPartialWriteNotRead() throws Exception
+    {
+        ParamicsFileReader reader = new ParamicsFileReader(exchange, TRANSPORT.FILE,
+                workingDir.getPath() + File.separator, "1", "status.xml");
+        final LinkedBlockingQueue<ParamicsFrame> frames = new LinkedBlockingQueue<ParamicsFrame>();
+        reader.addObserver(new Observer()
+        {
+            public void update(Observable o, Object arg)
+            {
+                if (arg instanceof ParamicsFrame)
+                {
+                    frames.add((ParamicsFrame) arg);
+                }
+            }
+        });
+
+        File status = new File(workingDir, "status.xml");
+        FileWriter paramics = new FileWriter(status);
+        paramics.write("<Status><Id>1</Id>");
+        paramics.flush();
+        reader.fileChanged();
+
+        assertNull(frames.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals("<Status><Id>1</Id>", read(status));
+
+        paramics.write("</Status>");
+        paramics.close();
+
+        ParamicsFrame frame = frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame);
+        assertEquals("<Status><Id>1</Id></Status>", frame.message);
+        assertEquals(0, status.length());
+        reader.close();
+    }
+
+    /**
+     * Tests that data which is not a complete document is read by a rescan
+     * once it has been unchanged for the settle time.
+     */
+    public void testStableDataRead() throws Exception
+    {
+        exchange.close();
+        exchange = new ParamicsFileExchange(200);
+        ParamicsFileReader reader = new ParamicsFileReader(exchange, TRANSPORT.FILE,
+                workingDir.getPath() + File.separator, "1", "status.xml");
+        final LinkedBlockingQueue<ParamicsFrame> frames = new LinkedBlockingQueue<ParamicsFrame>();
+        reader.addObserver(new Observer()
+        {
+            public void update(Observable o, Object arg)
+            {
+                if (arg instanceof ParamicsFrame)
+                {
+                    frames.add((ParamicsFrame) arg);
+                }
+            }
+        });
+
+        File status = new File(workingDir, "status.xml");
+        FileWriter paramics = new FileWriter(status);
+        paramics.write("<Status>");
+        paramics.close();
+        long written = System.currentTimeMillis();
+
+        ParamicsFrame frame = frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame);
+        assertEquals("<Status>", frame.message);
+        assertTrue(System.currentTimeMillis() - written >= ParamicsFileReader.SETTLE_TIME);
+        assertEquals(0, status.length());
+        reader.close();
+    }
+
+    /**
+     * Tests that a queued message is written as soon as Paramics clears the
+     * previous one.
+     */
+    public void testWriterWaitsForConsumer() throws Exception
+    {
+        ParamicsFileWriter writer = new ParamicsFileWriter(exchange, TRANSPORT.FILE, "2",
+                workingDir.getPath() + File.separator, "incidents.xml");
+        File incidents = new File(workingDir, "incidents.xml");
+
+        writer.writeMessage("<First/>");
+        writer.writeMessage("<Second/>");
+        assertEquals("<First/>", read(incidents));
+
+        Thread.sleep(200);
+        assertEquals("<First/>", read(incidents));
+
+        FileWriter paramics = new FileWriter(incidents);
+        paramics.write("");
+        paramics.close();
+
+        for (int i = 0; i < 100 && !"<Second/>".equals(read(incidents)); i++)
+        {
+            Thread.sleep(50);
+        }
+        assertEquals("<Second/>", read(incidents));
+        assertEquals(1, exchange.getWriteLatency().getCount());
+        assertFalse(new File(workingDir, "incidents.xml.tmp").exists());
+        writer.close();
+    }
+
+    private String read(File file) throws Exception
+    {
+        return new String(Files.readAllBytes(file.toPath()),
+                ParamicsFileExchange.FILE_CHARSET);
+    }
+}
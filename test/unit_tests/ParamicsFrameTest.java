@@ -0,0 +1,148 @@
+package unit_tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import junit.framework.TestCase;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import tmcsim.common.CADProtocol.PARAMICS_ACTIONS;
+import tmcsim.common.CADProtocol.PARAMICS_COMM_TAGS;
+import tmcsim.common.ParamicsFrame;
+
+/**
+ * Unit test for the ParamicsFrame class.
+ * @author Jonathan Molina
+ */
+public class ParamicsFrameTest extends TestCase
+{
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ParamicsFrameTest(String testName)
+    {
+        super(testName);
+    }
+
+    /**
+     * Tests that every message kind survives the framed encoding.
+     */
+    public void testFramedRoundTrip() throws Exception
+    {
+        assertFrameEquals(ParamicsFrame.reset(), roundTripFramed(ParamicsFrame.reset()));
+        assertFrameEquals(ParamicsFrame.registerReader("1", "5", "status.xml"),
+                roundTripFramed(ParamicsFrame.registerReader("1", "5", "status.xml")));
+        assertFrameEquals(ParamicsFrame.registerWriter("2", "incidents.xml"),
+                roundTripFramed(ParamicsFrame.registerWriter("2", "incidents.xml")));
+        assertFrameEquals(ParamicsFrame.readFile("1", "<Status/>"),
+                roundTripFramed(ParamicsFrame.readFile("1", "<Status/>")));
+
+        ParamicsFrame write = ParamicsFrame.writeFile("2", incidentElement());
+        ParamicsFrame read = roundTripFramed(write);
+        assertEquals(PARAMICS_ACTIONS.WRITE_FILE, read.action);
+        assertEquals(write.getMessage(), read.message);
+    }
+
+    /**
+     * Tests that every message kind survives the XML document encoding.
+     */
+    public void testDocumentRoundTrip() throws Exception
+    {
+        ParamicsFrame hello = ParamicsFrame.reset();
+        hello.protocol = ParamicsFrame.FRAMED_PROTOCOL;
+        ParamicsFrame read = ParamicsFrame.fromDocument(hello.toDocument());
+        assertEquals(PARAMICS_COMM_TAGS.RESET, read.type);
+        assertEquals(ParamicsFrame.FRAMED_PROTOCOL, read.protocol);
+        assertNull(ParamicsFrame.fromDocument(ParamicsFrame.reset().toDocument()).protocol);
+
+        assertFrameEquals(ParamicsFrame.registerReader("1", "5", "status.xml"),
+                ParamicsFrame.fromDocument(
+                ParamicsFrame.registerReader("1", "5", "status.xml").toDocument()));
+        assertFrameEquals(ParamicsFrame.registerWriter("2", "incidents.xml"),
+                ParamicsFrame.fromDocument(
+                ParamicsFrame.registerWriter("2", "incidents.xml").toDocument()));
+        assertFrameEquals(ParamicsFrame.readFile("1", "<Status/>"),
+                ParamicsFrame.fromDocument(
+                ParamicsFrame.readFile("1", "<Status/>").toDocument()));
+
+        ParamicsFrame write = ParamicsFrame.writeFile("2", incidentElement());
+        read = ParamicsFrame.fromDocument(write.toDocument());
+        assertNotNull(read.content);
+        assertEquals(write.getMessage(), read.getMessage());
+    }
+
+    /**
+     * Tests that an incident update written as a frame uses fewer bytes than
+     * the same update written as an XML document.  The time to send each is
+     * measured by the ParamicsFrameBenchmark.
+     */
+    public void testFramedSmaller() throws Exception
+    {
+        ParamicsFrame frame = ParamicsFrame.writeFile("2", incidentElement());
+
+        ByteArrayOutputStream framed = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(framed);
+        frame.write(out);
+        out.close();
+
+        ByteArrayOutputStream dom = new ByteArrayOutputStream();
+        out = new ObjectOutputStream(dom);
+        out.writeObject(frame.toDocument());
+        out.close();
+
+        assertTrue(framed.size() < dom.size());
+    }
+
+    private ParamicsFrame roundTripFramed(ParamicsFrame frame) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        frame.write(new DataOutputStream(bytes));
+        return ParamicsFrame.read(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private void assertFrameEquals(ParamicsFrame expected, ParamicsFrame actual) throws IOException
+    {
+        assertEquals(expected.type, actual.type);
+        assertEquals(expected.action, actual.action);
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.interval, actual.interval);
+        assertEquals(expected.targetFile, actual.targetFile);
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    /**
+     * Builds an incident update similar to the ones written by the
+     * ParamicsIncidentWriter.
+     */
+    private Element incidentElement() throws Exception
+    {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = doc.createElement("Incidents");
+        for (int i = 0; i < 5; i++)
+        {
+            Element inc = doc.createElement("Incident");
+            inc.setAttribute("ID", String.valueOf(100 + i));
+            addText(doc, inc, "Location", "SR-55 NB at Dyer Rd");
+            addText(doc, inc, "Link", String.valueOf(2000 + i));
+            addText(doc, inc, "Lane", "1");
+            addText(doc, inc, "Status", "ACTIVE");
+            addText(doc, inc, "Duration", "1800");
+            root.appendChild(inc);
+        }
+        doc.appendChild(root);
+        return root;
+    }
+
+    private void addText(Document doc, Element parent, String tag, String text)
+    {
+        Element elem = doc.createElement(tag);
+        elem.appendChild(doc.createTextNode(text));
+        parent.appendChild(elem);
+    }
+}
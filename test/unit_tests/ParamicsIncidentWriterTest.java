@@ -0,0 +1,253 @@
+package unit_tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import junit.framework.TestCase;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import tmcsim.cadmodels.CMSInfo;
+import tmcsim.cadsimulator.paramicscontrol.ParamicsIncidentWriter;
+import tmcsim.common.ParamicsFrame;
+import tmcsim.common.ParamicsLocation;
+import tmcsim.common.XMLIncident;
+
+/**
+ * Unit test for the delta encoded updates of the ParamicsIncidentWriter.
+ * @author Jonathan Molina
+ */
+public class ParamicsIncidentWriterTest extends TestCase
+{
+    private ParamicsIncidentWriter writer;
+    private List<Element> sent;
+
+    /**
+     * Observer in place of the ParamicsCommunicator, recording each update.
+     */
+    private Observer communicator = new Observer()
+    {
+        public void update(Observable o, Object frame)
+        {
+            sent.add(((ParamicsFrame) frame).content);
+        }
+    };
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ParamicsIncidentWriterTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        sent = new ArrayList<Element>();
+        writer = new ParamicsIncidentWriter(30);
+        writer.setDeltaEncoding(true);
+        writer.addObserver(communicator);
+    }
+
+    /**
+     * Tests that without delta encoding every update is FULL and contains
+     * every current incident.
+     */
+    public void testFullWithoutDeltaEncoding() throws Exception
+    {
+        writer.setDeltaEncoding(false);
+        loaded();
+        writer.updateIncident(incident("1", "NEW"));
+        writer.updateIncident(incident("2", "NEW"));
+        writer.flush(1);
+        assertEquals("FULL", last().getAttribute("Update"));
+        assertEquals(2, count(last(), "Incident_type"));
+
+        int before = sent.size();
+        writer.flush(2);
+        assertEquals(before, sent.size());
+
+        writer.updateIncident(incident("3", "NEW"));
+        writer.flush(3);
+        assertEquals(before + 1, sent.size());
+        assertEquals("FULL", last().getAttribute("Update"));
+        assertEquals(3, count(last(), "Incident_type"));
+    }
+
+    /**
+     * Tests that loading a network sends a FULL update, and that no further
+     * update is sent until the network has finished loading.
+     */
+    public void testLoadNetworkSendsFullUpdate() throws Exception
+    {
+        writer.updateIncident(incident("1", "NEW"));
+        writer.loadNetwork(3);
+
+        assertEquals(1, sent.size());
+        assertEquals("FULL", last().getAttribute("Update"));
+        assertEquals("3", text(last(), "Network_ID"));
+        assertEquals(1, count(last(), "Incident_type"));
+
+        assertFalse(writer.isUpdateDue(1));
+        writer.networkLoaded();
+        assertTrue(writer.isUpdateDue(1));
+        writer.flush(1);
+        assertEquals("FULL", last().getAttribute("Update"));
+    }
+
+    /**
+     * Tests that a change is sent at the next flush, and that a DELTA update
+     * contains only the incidents changed since the last update.
+     */
+    public void testDeltaContainsOnlyChanges() throws Exception
+    {
+        loaded();
+        writer.updateIncident(incident("1", "NEW"));
+        writer.updateIncident(incident("2", "NEW"));
+        assertTrue(writer.isUpdateDue(1));
+        writer.flush(1);
+
+        assertEquals("DELTA", last().getAttribute("Update"));
+        assertEquals(2, count(last(), "Incident_type"));
+
+        int before = sent.size();
+        writer.flush(2);
+        assertEquals(before, sent.size());
+
+        writer.updateIncident(incident("3", "NEW"));
+        writer.flush(3);
+        assertEquals(before + 1, sent.size());
+        assertEquals(1, count(last(), "Incident_type"));
+        assertEquals("3", text(last(), "Identifier"));
+        assertEquals("TRUE", text(last(), "Incident"));
+    }
+
+    /**
+     * Tests that an update is sent every interval when nothing has changed.
+     */
+    public void testIntervalWithoutChanges() throws Exception
+    {
+        loaded();
+        int before = sent.size();
+
+        writer.flush(29);
+        assertEquals(before, sent.size());
+
+        writer.flush(30);
+        assertEquals(before + 1, sent.size());
+        assertEquals("DELTA", last().getAttribute("Update"));
+        assertEquals("30", text(last(), "second"));
+        assertFalse(writer.isUpdateDue(31));
+        assertTrue(writer.isUpdateDue(60));
+    }
+
+    /**
+     * Tests that an updated incident is queued until the previous update has
+     * been sent, and that a cleared incident is sent once and then removed.
+     */
+    public void testQueuedAndClearedIncidents() throws Exception
+    {
+        loaded();
+        writer.updateIncident(incident("1", "NEW"));
+        writer.updateIncident(incident("1", "CLEARED"));
+        writer.flush(1);
+        assertEquals("NEW", text(last(), "Status"));
+
+        assertTrue(writer.isUpdateDue(2));
+        writer.flush(2);
+        assertEquals("CLEARED", text(last(), "Status"));
+
+        assertFalse(writer.isUpdateDue(3));
+        writer.flush(32);
+        assertEquals("FALSE", text(last(), "Incident"));
+        assertEquals(0, count(last(), "Status"));
+    }
+
+    /**
+     * Tests that a changed CMS is sent with all of its diversion paths, and
+     * that a cleared CMS is sent once with its paths at 0 percent.
+     */
+    public void testDiversionChanges() throws Exception
+    {
+        loaded();
+        CMSInfo cms = new CMSInfo("CMS_1", 1.5f, "I-5");
+        cms.addNewDiversion("A", "B", "PATH_1", 50);
+        cms.addNewDiversion("A", "C", "PATH_2", 50);
+        cms.possibleDiversions.get(0).setCurrDiv(25);
+        writer.updateDiversion(cms);
+        writer.flush(1);
+
+        assertEquals(2, count(last(), "Diversion_path"));
+        assertEquals("25", text(last(), "Percentage"));
+
+        cms.possibleDiversions.get(0).setCurrDiv(0);
+        writer.updateDiversion(cms);
+        writer.flush(2);
+        assertEquals(2, count(last(), "Diversion_path"));
+        assertEquals("0", text(last(), "Percentage"));
+
+        writer.flush(32);
+        assertEquals(0, count(last(), "Management"));
+    }
+
+    /**
+     * Tests that changes are kept until an update has been passed to the
+     * ParamicsCommunicator.
+     */
+    public void testChangesKeptUntilSent() throws Exception
+    {
+        loaded();
+        writer.deleteObserver(communicator);
+        writer.updateIncident(incident("1", "NEW"));
+        writer.flush(1);
+        assertTrue(writer.isUpdateDue(2));
+
+        writer.addObserver(communicator);
+        writer.flush(2);
+        assertEquals("1", text(last(), "Identifier"));
+        assertFalse(writer.isUpdateDue(3));
+    }
+
+    /**
+     * Loads a network and sends the FULL update.
+     */
+    private void loaded()
+    {
+        writer.loadNetwork(1);
+        writer.networkLoaded();
+        writer.startSimulation();
+    }
+
+    private Element last()
+    {
+        return sent.get(sent.size() - 1);
+    }
+
+    private static int count(Element root, String tag)
+    {
+        return root.getElementsByTagName(tag).getLength();
+    }
+
+    private static String text(Element root, String tag)
+    {
+        NodeList nodes = root.getElementsByTagName(tag);
+        return nodes.item(0).getTextContent();
+    }
+
+    private static XMLIncident incident(String id, String status) throws Exception
+    {
+        ParamicsLocation location = new ParamicsLocation(id);
+        location.readXMLNode("Route", "US 101");
+        location.readXMLNode("Direction", "N");
+        location.readXMLNode("Location_type", "Mainline");
+        location.readXMLNode("Postmile", id);
+
+        XMLIncident incident = new XMLIncident(id, location);
+        incident.readXMLNode("Status", status);
+        incident.readXMLNode("Incident_type", "LANE_BREAKDOWN");
+        incident.readXMLNode("Lane_number", "1");
+        return incident;
+    }
+}
@@ -0,0 +1,94 @@
+package unit_tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import junit.framework.TestCase;
+import tmcsim.paramicslog.ParamicsLog;
+import tmcsim.paramicslog.ParamicsLogWriter;
+
+/**
+ * Unit test for the ParamicsLogWriter class and the bounded in-memory log
+ * of the ParamicsLog.
+ * @author Jonathan Molina
+ */
+public class ParamicsLogWriterTest extends TestCase
+{
+    private File workingDir;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ParamicsLogWriterTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        workingDir = Files.createTempDirectory("paramicslog").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File file : workingDir.listFiles())
+        {
+            file.delete();
+        }
+        workingDir.delete();
+    }
+
+    /**
+     * Tests that entries are written in order and that the log file is rolled
+     * by size, keeping only the configured number of backups.
+     */
+    public void testRollsBySize() throws Exception
+    {
+        File log = new File(workingDir, "paramics.log");
+        ParamicsLogWriter writer = new ParamicsLogWriter(log, 100, 0, 2, 100);
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(writer.write(entry(i)));
+        }
+        writer.close(2000);
+
+        assertEquals(10, writer.getWrittenEntries());
+        assertEquals(0, writer.getDroppedEntries());
+        assertTrue(new File(workingDir, "paramics.log.1").exists());
+        assertTrue(new File(workingDir, "paramics.log.2").exists());
+        assertFalse(new File(workingDir, "paramics.log.3").exists());
+
+        String kept = read("paramics.log.2") + read("paramics.log.1") + read("paramics.log");
+        assertTrue(kept.endsWith(entry(8) + entry(9)));
+        assertTrue(kept.indexOf(entry(7)) < kept.indexOf(entry(8)));
+    }
+
+    /**
+     * Tests that the in-memory log keeps only the most recent entries.
+     */
+    public void testBoundedTail() throws Exception
+    {
+        ParamicsLog log = ParamicsLog.getInstance();
+        for (int i = 0; i < ParamicsLog.MAX_TAIL_ENTRIES * 2; i++)
+        {
+            log.writeToLog("<Entry>" + i + "</Entry>");
+        }
+
+        String tail = log.getLog();
+        assertTrue(tail.length() <= ParamicsLog.MAX_TAIL_CHARS);
+        assertTrue(tail.contains("<Entry>" + (ParamicsLog.MAX_TAIL_ENTRIES * 2 - 1) + "</Entry>"));
+        assertFalse(tail.contains("<Entry>0</Entry>"));
+    }
+
+    private String entry(int i)
+    {
+        return "entry " + i + " ........................................\n";
+    }
+
+    private String read(String name) throws Exception
+    {
+        return new String(Files.readAllBytes(new File(workingDir, name).toPath()));
+    }
+}
@@ -0,0 +1,211 @@
+package unit_tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import tmcsim.common.ParamicsFrame;
+import tmcsim.paramicscommunicator.ParamicsFileExchange;
+import tmcsim.paramicscommunicator.ParamicsFileExchange.TRANSPORT;
+import tmcsim.paramicscommunicator.ParamicsFileReader;
+import tmcsim.paramicscommunicator.ParamicsFileWriter;
+import tmcsim.paramicscommunicator.ParamicsRingBuffer;
+import tmcsim.paramicscommunicator.ParamicsStandIn;
+
+/**
+ * Unit test for the ParamicsRingBuffer class and the RING transport of the
+ * ParamicsFileReader and ParamicsFileWriter, using a ParamicsStandIn process
+ * in place of Paramics.
+ * @author Jonathan Molina
+ */
+public class ParamicsRingBufferTest extends TestCase
+{
+    private File workingDir;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ParamicsRingBufferTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        workingDir = Files.createTempDirectory("ring").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File file : workingDir.listFiles())
+        {
+            file.delete();
+        }
+        workingDir.delete();
+    }
+
+    /**
+     * Tests that records keep their order and sequence numbers as they wrap
+     * around the end of the ring.
+     */
+    public void testWrapAround() throws Exception
+    {
+        ParamicsRingBuffer ring = new ParamicsRingBuffer(
+                new File(workingDir, "wrap.ring"), 100, true);
+        long expected = 1;
+        for (int i = 0; i < 20; i++)
+        {
+            assertEquals(expected, ring.append("message " + i));
+            assertEquals(expected + 1, ring.append("second " + i));
+            ParamicsRingBuffer.Record first = ring.poll();
+            ParamicsRingBuffer.Record second = ring.poll();
+            assertEquals("message " + i, first.data);
+            assertEquals(expected, first.sequence);
+            assertEquals("second " + i, second.data);
+            assertEquals(expected + 1, second.sequence);
+            assertNull(ring.poll());
+            expected += 2;
+        }
+        assertTrue(ring.getWritePosition() > ring.getCapacity());
+        ring.close();
+    }
+
+    /**
+     * Tests that a full ring refuses records until the reader catches up, and
+     * that a second mapping of the file sees the same records.
+     */
+    public void testFullAndShared() throws Exception
+    {
+        File file = new File(workingDir, "full.ring");
+        ParamicsRingBuffer writer = new ParamicsRingBuffer(file, 72, true);
+        ParamicsRingBuffer reader = new ParamicsRingBuffer(file, 4096, false);
+        assertEquals(72, reader.getCapacity());
+
+        assertTrue(writer.append("0123456789") > 0);
+        assertTrue(writer.append("0123456789") > 0);
+        assertEquals(-1, writer.append("0123456789"));
+
+        assertEquals("0123456789", reader.poll().data);
+        assertTrue(writer.append("abcdefghij") > 0);
+        assertEquals("0123456789", reader.poll().data);
+        assertEquals("abcdefghij", reader.poll().data);
+        assertNull(reader.poll());
+
+        writer.close();
+        reader.close();
+    }
+
+    /**
+     * Tests that a record whose bytes do not match its CRC is left in the
+     * ring, and is read once its bytes are complete.
+     */
+    public void testIncompleteRecord() throws Exception
+    {
+        File file = new File(workingDir, "crc.ring");
+        ParamicsRingBuffer ring = new ParamicsRingBuffer(file, 256, true);
+        assertEquals(1, ring.append("message"));
+
+        long payload = ParamicsRingBuffer.HEADER_SIZE
+                + ParamicsRingBuffer.RECORD_HEADER_SIZE;
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(payload);
+        raf.write('x');
+
+        assertNull(ring.poll());
+        assertEquals(0, ring.getReadPosition());
+
+        raf.seek(payload);
+        raf.write('m');
+        raf.close();
+
+        ParamicsRingBuffer.Record record = ring.poll();
+        assertNotNull(record);
+        assertEquals("message", record.data);
+        assertEquals(1, record.sequence);
+        assertNull(ring.poll());
+        ring.close();
+    }
+
+    /**
+     * Tests the RING transport against a stand-in Paramics process: several
+     * messages are queued in the writer's ring without waiting for each to be
+     * consumed, and status records produced by the stand-in reach the reader.
+     */
+    public void testStandInProcess() throws Exception
+    {
+        ParamicsFileExchange exchange = new ParamicsFileExchange(60000);
+        String dir = workingDir.getPath() + File.separator;
+        ParamicsFileWriter writer = new ParamicsFileWriter(exchange, TRANSPORT.RING,
+                "2", dir, "incidents.xml");
+        ParamicsFileReader reader = new ParamicsFileReader(exchange, TRANSPORT.RING,
+                dir, "1", "status.xml");
+        final LinkedBlockingQueue<ParamicsFrame> frames = new LinkedBlockingQueue<ParamicsFrame>();
+        reader.addObserver(new Observer()
+        {
+            public void update(Observable o, Object arg)
+            {
+                if (arg instanceof ParamicsFrame)
+                {
+                    frames.add((ParamicsFrame) arg);
+                }
+            }
+        });
+
+        for (int i = 0; i < 3; i++)
+        {
+            writer.writeMessage("<Incident>" + i + "</Incident>");
+        }
+
+        ProcessBuilder builder = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"),
+                ParamicsStandIn.class.getName(), dir, "100",
+                "consume:incidents.xml", "produce:status.xml");
+        builder.redirectErrorStream(true);
+        Process standIn = builder.start();
+        try
+        {
+            BufferedReader output = new BufferedReader(
+                    new InputStreamReader(standIn.getInputStream()));
+            int consumed = 0;
+            String line;
+            while (consumed < 3 && (line = output.readLine()) != null)
+            {
+                if (line.startsWith("CONSUMED incidents.xml"))
+                {
+                    assertTrue(line.endsWith("<Incident>" + consumed + "</Incident>"));
+                    consumed++;
+                }
+            }
+            assertEquals(3, consumed);
+
+            ParamicsFrame status = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull(status);
+            assertTrue(status.message.contains("<Network_Status>LOADED</Network_Status>"));
+
+            for (int i = 0; i < 40 && exchange.getWriteLatency().getCount() < 3; i++)
+            {
+                Thread.sleep(50);
+            }
+            assertEquals(3, exchange.getWriteLatency().getCount());
+            assertTrue(exchange.getReadLatency().getCount() > 0);
+        }
+        finally
+        {
+            standIn.getOutputStream().close();
+            standIn.waitFor();
+            writer.close();
+            reader.close();
+            exchange.close();
+        }
+    }
+}
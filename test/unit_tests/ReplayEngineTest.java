@@ -0,0 +1,224 @@
+package unit_tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.managers.SimulationClock;
+import tmcsim.cadsimulator.managers.SimulationClock.ClockTarget;
+import tmcsim.common.CADEnums.CLOCK_MODE;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.journal.ReplayEngine;
+import tmcsim.journal.SessionJournal;
+
+/**
+ * Unit test for the ReplayEngine class.
+ * @author Jonathan Molina
+ */
+public class ReplayEngineTest extends TestCase
+{
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+
+    /**
+     * Target of the replayed calls, recording each call with the simulation
+     * time at which it was made.
+     */
+    public static class Target
+    {
+        SimulationClock clock;
+        Steps time;
+        List<String> calls = new ArrayList<String>();
+
+        public void startSimulation()
+        {
+            clock.start(time);
+            calls.add("start@" + time.simTime);
+        }
+
+        public void pauseSimulation()
+        {
+            clock.stop();
+            calls.add("pause@" + time.simTime);
+        }
+
+        public void setValue(String tag, int value)
+        {
+            calls.add(tag + value + "@" + time.simTime);
+        }
+
+        public void setClockMode(CLOCK_MODE mode, double acceleration)
+        {
+            calls.add("clock");
+        }
+
+        public void loadScriptFile(File script) throws IOException
+        {
+            calls.add(new String(Files.readAllBytes(script.toPath()), LATIN_1)
+                    + "@" + time.simTime);
+        }
+
+        public void fail()
+        {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    /**
+     * Clock target whose next event is always ten seconds away, recording
+     * each time it is advanced to.
+     */
+    private static class Steps implements ClockTarget
+    {
+        long simTime = 0;
+        List<Long> ticks = new ArrayList<Long>();
+
+        public long getCurrentSimTime()
+        {
+            return simTime;
+        }
+
+        public void advanceTo(long newSimTime)
+        {
+            simTime = newSimTime;
+            ticks.add(newSimTime);
+        }
+
+        public long getNextEventTime(long currentSimTime)
+        {
+            return currentSimTime + 10;
+        }
+
+        public void awaitTick(long simTime)
+        {
+        }
+    }
+
+    private File file;
+    private Target target;
+    private ReplayEngine engine;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ReplayEngineTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        file = File.createTempFile("replay", ".bin");
+        file.delete();
+
+        target = new Target();
+        target.time = new Steps();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        file.delete();
+    }
+
+    /**
+     * Tests that calls are replayed in order at their simulation times, with
+     * the time jumping between events while the simulation is started.
+     */
+    public void testReplayAsFastAsPossible() throws Exception
+    {
+        SessionJournal journal = new SessionJournal(file);
+        call(journal, 0, "setValue", "A", 1);
+        call(journal, 0, "startSimulation");
+        call(journal, 25, "setValue", "B", 2);
+        journal.append(RECORD_TYPE.SCRIPT, 25, "script.xml",
+                "<TMC_SCRIPT/>".getBytes(LATIN_1));
+        journal.append(RECORD_TYPE.EVENT, 30, 1, "event");
+        call(journal, 40, "pauseSimulation");
+        call(journal, 90, "setValue", "C", 3);
+        journal.close();
+
+        replay(0);
+
+        assertEquals(Arrays.asList("A1@0", "start@0", "B2@25",
+                "<TMC_SCRIPT/>@25", "pause@40", "C3@40"), target.calls);
+        assertEquals(Arrays.asList(10L, 20L, 25L, 30L, 40L), target.time.ticks);
+        assertEquals(7, engine.getRecordsReplayed());
+        assertEquals(1, engine.getEventsJournaled());
+        assertEquals(0, engine.getCallsFailed());
+        assertEquals(CLOCK_MODE.AS_FAST_AS_POSSIBLE, engine.getClock().getMode());
+    }
+
+    /**
+     * Tests that a paced replay advances one second at a time and is not
+     * faster than its speed.
+     */
+    public void testPacedReplay() throws Exception
+    {
+        SessionJournal journal = new SessionJournal(file);
+        call(journal, 0, "startSimulation");
+        call(journal, 5, "setValue", "A", 1);
+        journal.close();
+
+        long start = System.nanoTime();
+        replay(100);
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), target.time.ticks);
+        assertEquals(Arrays.asList("start@0", "A1@5"), target.calls);
+        assertTrue("elapsed " + elapsed, elapsed >= 35);
+        assertEquals(CLOCK_MODE.ACCELERATED, engine.getClock().getMode());
+    }
+
+    /**
+     * Tests that calls changing the clock are not replayed, and that a call
+     * that fails is counted without stopping the replay.
+     */
+    public void testSkippedAndFailedCalls() throws Exception
+    {
+        SessionJournal journal = new SessionJournal(file);
+        call(journal, 0, "setClockMode", CLOCK_MODE.REAL_TIME, 1.0);
+        call(journal, 0, "fail");
+        call(journal, 0, "noSuchMethod");
+        call(journal, 0, "setValue", "A", 1);
+        journal.close();
+
+        replay(0);
+
+        assertEquals(Arrays.asList("A1@0"), target.calls);
+        assertEquals(2, engine.getCallsFailed());
+        assertEquals(4, engine.getRecordsReplayed());
+        assertEquals(0, engine.getRecordsMissing());
+    }
+
+    /**
+     * Appends a CALL record for a method of the Target.
+     */
+    private void call(SessionJournal journal, long simTime, String method,
+            Object... args)
+    {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++)
+        {
+            types[i] = args[i] instanceof Integer ? int.class
+                    : args[i] instanceof Double ? double.class
+                    : args[i].getClass();
+        }
+        journal.append(RECORD_TYPE.CALL, simTime, method, types, args);
+    }
+
+    /**
+     * Replays the journal on the target.
+     */
+    private void replay(double speed)
+    {
+        engine = new ReplayEngine(file, target, target.time, speed);
+        target.clock = engine.getClock();
+        engine.run();
+    }
+}
@@ -0,0 +1,113 @@
+package unit_tests;
+
+import java.io.File;
+import java.util.Vector;
+import junit.framework.TestCase;
+import tmcsim.client.cadclientgui.ScriptLoader;
+import tmcsim.client.cadclientgui.ScriptLoader.Scenario;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.IncidentEvent;
+import tmcsim.loadtest.ScenarioGenerator;
+
+/**
+ * Unit test for the ScenarioGenerator class.
+ * @author Jonathan Molina
+ */
+public class ScenarioGeneratorTest extends TestCase
+{
+    private File script;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ScenarioGeneratorTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        script = File.createTempFile("generated", ".xml");
+        ScriptLoader.clearCache();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        script.delete();
+    }
+
+    /**
+     * Tests that a generated script loads with the requested incidents,
+     * events, units and camera changes.
+     */
+    public void testGeneratedScriptLoads() throws Exception
+    {
+        new ScenarioGenerator(7, 30, 12, 3).write(script);
+        Scenario scenario = ScriptLoader.load(script);
+
+        assertEquals(7, scenario.getIncidentCount());
+        assertEquals(12, scenario.getUnitCount());
+
+        Vector<Incident> incidents = scenario.getIncidents();
+        int events = 0;
+        int cameraChanges = 0;
+        for (Incident incident : incidents)
+        {
+            Vector<IncidentEvent> incidentEvents = incident.getEvents();
+            assertTrue(incidentEvents.size() == 4 || incidentEvents.size() == 5);
+            events += incidentEvents.size();
+            for (IncidentEvent event : incidentEvents)
+            {
+                cameraChanges += event.cctvInfos.size();
+            }
+        }
+        assertEquals(30, events);
+        assertEquals(14, cameraChanges);
+    }
+
+    /**
+     * Tests the duration of a scenario, including one with a single event
+     * per incident.
+     */
+    public void testDuration()
+    {
+        assertEquals(6 * 30 + 4 * 60, new ScenarioGenerator(7, 30, 12, 3).getDuration());
+        assertEquals(9 * 30, new ScenarioGenerator(10, 10, 0, 0).getDuration());
+        assertEquals(0, new ScenarioGenerator(1, 1, 0, 0).getDuration());
+    }
+
+    /**
+     * Tests that a scenario without units or cameras still loads.
+     */
+    public void testWithoutUnitsOrCameras() throws Exception
+    {
+        new ScenarioGenerator(3, 3, 0, 0).write(script);
+        Scenario scenario = ScriptLoader.load(script);
+
+        assertEquals(3, scenario.getIncidentCount());
+        assertEquals(0, scenario.getUnitCount());
+    }
+
+    /**
+     * Tests that invalid scenario sizes are rejected.
+     */
+    public void testInvalidSizes()
+    {
+        int[][] invalid = { { 0, 10, 1, 1 }, { 5, 4, 1, 1 }, { 1, 1, -1, 0 },
+            { 1, 1, 0, -1 } };
+        for (int[] sizes : invalid)
+        {
+            try
+            {
+                new ScenarioGenerator(sizes[0], sizes[1], sizes[2], sizes[3]);
+                fail("Expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package unit_tests;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Vector;
+import junit.framework.TestCase;
+import tmcsim.client.cadclientgui.ScriptLoader;
+import tmcsim.client.cadclientgui.ScriptLoader.Scenario;
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.Unit;
+import tmcsim.common.ScriptException;
+
+/**
+ * Unit test for the ScriptLoader class.
+ * @author Jonathan Molina
+ */
+public class ScriptLoaderTest extends TestCase
+{
+    private File dir;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public ScriptLoaderTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = File.createTempFile("scripts", "");
+        dir.delete();
+        dir.mkdir();
+        ScriptLoader.clearCache();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File file : dir.listFiles())
+        {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    /**
+     * Tests that a script is parsed once, and that a copy of it is served
+     * from the cache while a changed script is parsed again.
+     */
+    public void testCachedByHash() throws Exception
+    {
+        File first = write("first.xml", script(20, 10));
+        File copy = write("copy.xml", script(20, 10));
+        File changed = write("changed.xml", script(21, 10));
+
+        long parsed = ScriptLoader.getParseCount();
+        Scenario scenario = ScriptLoader.load(first);
+        assertEquals(parsed + 1, ScriptLoader.getParseCount());
+        assertEquals(20, scenario.getIncidentCount());
+        assertEquals(10, scenario.getUnitCount());
+
+        assertSame(scenario, ScriptLoader.load(first));
+        assertSame(scenario, ScriptLoader.load(copy));
+        assertEquals(parsed + 1, ScriptLoader.getParseCount());
+
+        Scenario other = ScriptLoader.load(changed);
+        assertFalse(scenario == other);
+        assertEquals(21, other.getIncidentCount());
+        assertEquals(parsed + 2, ScriptLoader.getParseCount());
+    }
+
+    /**
+     * Tests that each load returns new incidents and units, so changes made
+     * by a simulation are not seen by the next load.
+     */
+    public void testNewObjects() throws Exception
+    {
+        Scenario scenario = ScriptLoader.load(write("script.xml", script(5, 3)));
+
+        Vector<Incident> incidents = scenario.getIncidents();
+        assertEquals(5, incidents.size());
+        assertEquals(1, incidents.get(0).getLogNum());
+        assertEquals("Location 1", incidents.get(0).getIncidentLocation().getAddress());
+        incidents.get(0).getIncidentLocation().setAddress("Changed");
+
+        Vector<Incident> reloaded = scenario.getIncidents();
+        assertFalse(incidents.get(0) == reloaded.get(0));
+        assertEquals("Location 1", reloaded.get(0).getIncidentLocation().getAddress());
+
+        Vector<Unit> units = scenario.getUnits();
+        assertEquals(3, units.size());
+        assertEquals("U1", units.get(0).getUnitNum());
+        assertFalse(units.get(0) == scenario.getUnits().get(0));
+    }
+
+    /**
+     * Tests that a file that is not a script is rejected.
+     */
+    public void testInvalidScript() throws Exception
+    {
+        try
+        {
+            ScriptLoader.load(write("bad.xml", "<TMC_SCRIPT><SCRIPT_EVENT>"));
+            fail("Invalid script loaded");
+        }
+        catch (ScriptException e)
+        {
+        }
+    }
+
+    /**
+     * Tests that a compiled scenario file loads the same incidents and units
+     * as its script, without parsing the script.
+     */
+    public void testCompiled() throws Exception
+    {
+        File script = write("script.xml", script(12, 4));
+        File compiled = new File(dir, "script." + ScriptLoader.COMPILED_EXTENSION);
+        Scenario scenario = ScriptLoader.compile(script, compiled, false);
+        assertEquals(12, scenario.getIncidentCount());
+
+        ScriptLoader.clearCache();
+        long parsed = ScriptLoader.getParseCount();
+        Scenario loaded = ScriptLoader.load(compiled);
+        assertEquals(parsed, ScriptLoader.getParseCount());
+        assertEquals(scenario.getHash(), loaded.getHash());
+        assertEquals(12, loaded.getIncidentCount());
+        assertEquals(4, loaded.getUnitCount());
+        assertEquals("Location 12",
+                loaded.getIncidents().get(11).getIncidentLocation().getAddress());
+        assertEquals("U4", loaded.getUnits().get(3).getUnitNum());
+
+        assertSame(loaded, ScriptLoader.load(script));
+        assertEquals(parsed, ScriptLoader.getParseCount());
+    }
+
+    /**
+     * Tests that a strict compile of a script without a DTD fails, and that a
+     * scenario file of another version is rejected.
+     */
+    public void testCompiledInvalid() throws Exception
+    {
+        File compiled = new File(dir, "script." + ScriptLoader.COMPILED_EXTENSION);
+        try
+        {
+            ScriptLoader.compile(write("script.xml", script(2, 1)), compiled, true);
+            fail("Script compiled without a DTD");
+        }
+        catch (ScriptException e)
+        {
+        }
+
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(compiled));
+        out.writeInt(ScriptLoader.MAGIC);
+        out.writeInt(ScriptLoader.FORMAT_VERSION + 1);
+        out.close();
+        try
+        {
+            ScriptLoader.load(compiled);
+            fail("Scenario file of another version loaded");
+        }
+        catch (ScriptException e)
+        {
+        }
+    }
+
+    /**
+     * Tests that a scenario file compiled with other versions of the data
+     * classes is rejected.
+     */
+    public void testCompiledSchemaChanged() throws Exception
+    {
+        File compiled = new File(dir, "script." + ScriptLoader.COMPILED_EXTENSION);
+        Scenario scenario = ScriptLoader.compile(write("script.xml", script(2, 1)),
+                compiled, false);
+        ScriptLoader.clearCache();
+
+        byte[] contents = Files.readAllBytes(compiled.toPath());
+        String text = new String(contents, "ISO-8859-1");
+        int schema = text.indexOf(scenario.getSchemaHash());
+        assertTrue(schema > 0);
+        assertTrue(text.contains(Incident.class.getName()));
+        contents[schema] = (byte) (contents[schema] == '0' ? '1' : '0');
+        Files.write(compiled.toPath(), contents);
+        try
+        {
+            ScriptLoader.load(compiled);
+            fail("Scenario file of other data classes loaded");
+        }
+        catch (ScriptException e)
+        {
+        }
+    }
+
+    private File write(String name, String contents) throws IOException
+    {
+        File file = new File(dir, name);
+        FileWriter out = new FileWriter(file);
+        out.write(contents);
+        out.close();
+        return file;
+    }
+
+    private String script(int incidents, int units)
+    {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n");
+        xml.append("<TMC_SCRIPT title=\"Test\">\n<SCRIPT_DATA>\n");
+        for (int i = 1; i <= units; i++)
+        {
+            xml.append("<NEW_UNIT UnitNum=\"U").append(i).append("\">");
+            xml.append("<STATUS>10-8</STATUS><TIMER>").append(i * 60).append("</TIMER>");
+            xml.append("</NEW_UNIT>\n");
+        }
+        xml.append("</SCRIPT_DATA>\n");
+        for (int i = 1; i <= incidents; i++)
+        {
+            xml.append("<SCRIPT_EVENT><TIME_INDEX>00:00:").append(String.format("%02d", i % 60));
+            xml.append("</TIME_INDEX><INCIDENT LogNum=\"").append(i).append("\">Incident ");
+            xml.append(i).append("</INCIDENT><CAD_DATA><LOCATION><ADDRESS>Location ").append(i);
+            xml.append("</ADDRESS></LOCATION></CAD_DATA></SCRIPT_EVENT>\n");
+        }
+        xml.append("</TMC_SCRIPT>\n");
+        return xml.toString();
+    }
+}
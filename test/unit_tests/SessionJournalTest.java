@@ -0,0 +1,254 @@
+package unit_tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.managers.SimulationClock.ClockTarget;
+import tmcsim.journal.JournalProxy;
+import tmcsim.journal.JournalReader;
+import tmcsim.journal.JournalRecord;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.journal.SessionJournal;
+
+/**
+ * Unit test for the SessionJournal, JournalReader and JournalProxy classes.
+ * @author Jonathan Molina
+ */
+public class SessionJournalTest extends TestCase
+{
+    /**
+     * Interface called through a JournalProxy.
+     */
+    public static interface Service
+    {
+        int getValue();
+
+        void setValue(int value);
+    }
+
+    /**
+     * Clock target with a fixed simulation time.
+     */
+    private static class FixedTime implements ClockTarget
+    {
+        private long simTime;
+
+        FixedTime(long simTime)
+        {
+            this.simTime = simTime;
+        }
+
+        public long getCurrentSimTime()
+        {
+            return simTime;
+        }
+
+        public void advanceTo(long newSimTime)
+        {
+            simTime = newSimTime;
+        }
+
+        public long getNextEventTime(long currentSimTime)
+        {
+            return -1;
+        }
+
+        public void awaitTick(long simTime)
+        {
+        }
+    }
+
+    private File file;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public SessionJournalTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        file = File.createTempFile("journal", ".bin");
+        file.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        file.delete();
+    }
+
+    /**
+     * Tests that appended records are read back in order with their
+     * sequence numbers, times, types, and arguments.
+     */
+    public void testRoundTrip() throws Exception
+    {
+        SessionJournal journal = new SessionJournal(file);
+        assertEquals(1, journal.append(RECORD_TYPE.CALL, 15, "setValue",
+                new Class<?>[] { int.class }, new Object[] { 7 }));
+        assertEquals(2, journal.append(RECORD_TYPE.EVENT, 20, 1001, "event"));
+        journal.flush();
+        assertEquals(2, journal.getLastCommitted());
+        journal.close();
+
+        JournalReader reader = new JournalReader(file);
+        JournalRecord call = reader.next();
+        assertEquals(1, call.getSequence());
+        assertEquals(15, call.getSimTime());
+        assertEquals(RECORD_TYPE.CALL, call.getType());
+        Object[] args = call.getArguments();
+        assertEquals("setValue", args[0]);
+        assertTrue(Arrays.equals(new Class<?>[] { int.class }, (Class<?>[]) args[1]));
+        assertTrue(Arrays.equals(new Object[] { 7 }, (Object[]) args[2]));
+
+        JournalRecord event = reader.next();
+        assertEquals(2, event.getSequence());
+        assertEquals(RECORD_TYPE.EVENT, event.getType());
+        assertEquals(Arrays.asList(1001, "event"), Arrays.asList(event.getArguments()));
+
+        assertNull(reader.next());
+        assertEquals(file.length(), reader.getValidLength());
+        reader.close();
+    }
+
+    /**
+     * Tests that the sequence continues when a journal is opened again.
+     */
+    public void testReopenContinuesSequence() throws Exception
+    {
+        SessionJournal journal = new SessionJournal(file);
+        journal.append(RECORD_TYPE.TERMINAL, 0, "client", "<A/>");
+        journal.append(RECORD_TYPE.TERMINAL, 0, "client", "<B/>");
+        journal.close();
+        assertEquals(-1, journal.append(RECORD_TYPE.TERMINAL, 0, "client", "<C/>"));
+
+        journal = new SessionJournal(file);
+        assertEquals(3, journal.append(RECORD_TYPE.TERMINAL, 5, "client", "<D/>"));
+        journal.close();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), readSequences());
+    }
+
+    /**
+     * Tests that an incomplete record at the end of the journal is not read,
+     * and is replaced by the next record appended.
+     */
+    public void testIncompleteRecordRemoved() throws Exception
+    {
+        SessionJournal journal = new SessionJournal(file);
+        journal.append(RECORD_TYPE.EVENT, 10, 1, "first");
+        journal.append(RECORD_TYPE.EVENT, 20, 2, "second");
+        journal.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+        assertEquals(Arrays.asList(1L), readSequences());
+
+        journal = new SessionJournal(file);
+        assertEquals(2, journal.append(RECORD_TYPE.EVENT, 30, 3, "third"));
+        journal.close();
+
+        JournalReader reader = new JournalReader(file);
+        reader.next();
+        assertEquals(Arrays.asList(3, "third"), Arrays.asList(reader.next().getArguments()));
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    /**
+     * Tests that reading stops at a record whose CRC does not match.
+     */
+    public void testCorruptRecordStopsReading() throws Exception
+    {
+        SessionJournal journal = new SessionJournal(file);
+        journal.append(RECORD_TYPE.EVENT, 10, 1, "first");
+        journal.append(RECORD_TYPE.EVENT, 20, 2, "second");
+        journal.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(6 + 4 + 8);
+        raf.write(0x7F);
+        raf.close();
+
+        assertTrue(readSequences().isEmpty());
+    }
+
+    /**
+     * Tests that a file that is not a session journal is not opened.
+     */
+    public void testNotAJournal() throws Exception
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.writeBytes("<TMC_SCRIPT/>");
+        raf.close();
+
+        try
+        {
+            new SessionJournal(file);
+            fail("Expected IOException");
+        }
+        catch (IOException expected)
+        {
+        }
+    }
+
+    /**
+     * Tests that a proxy journals the calls that change the target, at the
+     * current simulation time, and still calls the target.
+     */
+    public void testProxy() throws Exception
+    {
+        final int[] value = { 0 };
+        SessionJournal journal = new SessionJournal(file);
+        Service service = JournalProxy.wrap(Service.class, new Service()
+        {
+            public int getValue()
+            {
+                return value[0];
+            }
+
+            public void setValue(int newValue)
+            {
+                value[0] = newValue;
+            }
+        }, journal, new FixedTime(42));
+
+        service.setValue(5);
+        assertEquals(5, service.getValue());
+        assertTrue(service.equals(service));
+        journal.close();
+
+        JournalReader reader = new JournalReader(file);
+        JournalRecord call = reader.next();
+        assertEquals(42, call.getSimTime());
+        assertEquals("setValue", call.getArguments()[0]);
+        assertTrue(Arrays.equals(new Object[] { 5 }, (Object[]) call.getArguments()[2]));
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    /**
+     * Returns the sequence numbers of the valid records in the journal.
+     */
+    private List<Long> readSequences() throws IOException
+    {
+        List<Long> sequences = new ArrayList<Long>();
+        JournalReader reader = new JournalReader(file);
+        for (JournalRecord record = reader.next(); record != null; record = reader.next())
+        {
+            sequences.add(record.getSequence());
+        }
+        reader.close();
+        return sequences;
+    }
+}
@@ -0,0 +1,302 @@
+package unit_tests;
+
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import tmcsim.cadsimulator.SimulationEventExecutor;
+
+/**
+ * Unit test for the SimulationEventExecutor class.
+ * @author Jonathan Molina
+ */
+public class SimulationEventExecutorTest extends TestCase
+{
+    private Vector<Long> handledTicks;
+    private SimulationEventExecutor executor;
+
+    /**
+     * Class constructor.
+     * @param testName test name
+     */
+    public SimulationEventExecutorTest(String testName)
+    {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        handledTicks = new Vector<Long>();
+        executor = new SimulationEventExecutor("Test",
+                new SimulationEventExecutor.TickHandler()
+                {
+                    public void handleTick(long currentSimTime, long previousSimTime)
+                    {
+                        handledTicks.add(currentSimTime);
+                    }
+                });
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        executor.shutdown();
+        super.tearDown();
+    }
+
+    /**
+     * Tests that submitted tasks run in submission order.
+     */
+    public void testOrdering() throws InterruptedException
+    {
+        final Vector<Integer> order = new Vector<Integer>();
+        for (int i = 0; i < 50; i++)
+        {
+            final int index = i;
+            assertTrue(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    order.add(index);
+                }
+            }));
+        }
+        waitForIdle();
+
+        assertEquals(50, order.size());
+        for (int i = 0; i < 50; i++)
+        {
+            assertEquals(i, order.get(i).intValue());
+        }
+    }
+
+    /**
+     * Tests that ticks queued behind a stalled task are coalesced into the latest
+     * simulation time.
+     */
+    public void testTickCoalescing() throws InterruptedException
+    {
+        final Object gate = new Object();
+        executor.submit(new Runnable()
+        {
+            public void run()
+            {
+                synchronized (gate)
+                {
+                    try
+                    {
+                        gate.wait(2000);
+                    }
+                    catch (InterruptedException ie)
+                    {
+                    }
+                }
+            }
+        });
+
+        for (long t = 1; t <= 10; t++)
+        {
+            executor.submitTick(t);
+        }
+        assertEquals(9, executor.getCoalescedTicks());
+        assertTrue(executor.getQueueDepth() <= 2);
+
+        synchronized (gate)
+        {
+            gate.notifyAll();
+        }
+        waitForIdle();
+
+        assertEquals(1, handledTicks.size());
+        assertEquals(10L, handledTicks.get(0).longValue());
+        assertEquals(0, executor.getTickLag());
+    }
+
+    /**
+     * Tests that a waiting tick is not coalesced with a newer tick once a task
+     * has been submitted after it, so the task runs between the two ticks.
+     */
+    public void testTickNotMovedAheadOfTasks() throws InterruptedException
+    {
+        final Vector<String> order = new Vector<String>();
+        executor.shutdown();
+        executor = new SimulationEventExecutor("Test",
+                new SimulationEventExecutor.TickHandler()
+                {
+                    public void handleTick(long currentSimTime, long previousSimTime)
+                    {
+                        order.add("tick " + currentSimTime);
+                    }
+                });
+        CountDownLatch gate = stall(executor);
+
+        executor.submitTick(1);
+        executor.submit(new Runnable()
+        {
+            public void run()
+            {
+                order.add("task");
+            }
+        });
+        executor.submitTick(2);
+        executor.submitTick(3);
+        assertEquals(1, executor.getCoalescedTicks());
+
+        gate.countDown();
+        waitForIdle();
+
+        assertEquals(3, order.size());
+        assertEquals("tick 1", order.get(0));
+        assertEquals("task", order.get(1));
+        assertEquals("tick 3", order.get(2));
+    }
+
+    /**
+     * Tests that a submitter is blocked while the queue is full and is let in
+     * once the worker makes room.
+     */
+    public void testBackpressure() throws InterruptedException
+    {
+        executor.shutdown();
+        executor = new SimulationEventExecutor("Test", null, 2, 5000);
+        CountDownLatch gate = stall(executor);
+        assertTrue(executor.submit(noop()));
+        assertTrue(executor.submit(noop()));
+
+        final boolean[] queued = { false };
+        Thread submitter = new Thread()
+        {
+            public void run()
+            {
+                queued[0] = executor.submit(noop());
+            }
+        };
+        submitter.start();
+        submitter.join(300);
+        assertTrue(submitter.isAlive());
+        assertEquals(2, executor.getQueueDepth());
+
+        gate.countDown();
+        submitter.join(5000);
+        assertFalse(submitter.isAlive());
+        assertTrue(queued[0]);
+        assertEquals(0, executor.getRejectedTasks());
+    }
+
+    /**
+     * Tests that a task is rejected when the queue stays full for the submit
+     * wait.
+     */
+    public void testRejection() throws InterruptedException
+    {
+        executor.shutdown();
+        executor = new SimulationEventExecutor("Test", null, 1, 100);
+        CountDownLatch gate = stall(executor);
+        assertTrue(executor.submit(noop()));
+
+        assertFalse(executor.submit(noop()));
+        assertFalse(executor.submitTick(1));
+        assertEquals(2, executor.getRejectedTasks());
+        assertEquals(1, executor.getQueueDepth());
+        gate.countDown();
+    }
+
+    /**
+     * Tests that concurrent submitters never fill the queue past its capacity.
+     */
+    public void testCapacityBound() throws InterruptedException
+    {
+        executor.shutdown();
+        executor = new SimulationEventExecutor("Test", null, 4, 5000);
+        CountDownLatch gate = stall(executor);
+
+        Thread[] submitters = new Thread[8];
+        for (int i = 0; i < submitters.length; i++)
+        {
+            submitters[i] = new Thread()
+            {
+                public void run()
+                {
+                    for (int j = 0; j < 25; j++)
+                    {
+                        executor.submit(noop());
+                    }
+                }
+            };
+            submitters[i].start();
+        }
+        Thread.sleep(200);
+        gate.countDown();
+        for (int i = 0; i < submitters.length; i++)
+        {
+            submitters[i].join(10000);
+        }
+        waitForIdle();
+
+        assertEquals(0, executor.getRejectedTasks());
+        assertTrue(executor.getMaxQueueDepth() <= 4);
+        assertTrue(executor.getCompletedTasks() >= 201);
+    }
+
+    /**
+     * Blocks the worker thread in a task until the returned latch is counted
+     * down.
+     */
+    private static CountDownLatch stall(SimulationEventExecutor exec)
+            throws InterruptedException
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        exec.submit(new Runnable()
+        {
+            public void run()
+            {
+                started.countDown();
+                try
+                {
+                    gate.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException ie)
+                {
+                }
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+        return gate;
+    }
+
+    private static Runnable noop()
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+            }
+        };
+    }
+
+    private void waitForIdle() throws InterruptedException
+    {
+        final Object done = new Object();
+        final boolean[] finished = { false };
+        executor.submit(new Runnable()
+        {
+            public void run()
+            {
+                synchronized (done)
+                {
+                    finished[0] = true;
+                    done.notifyAll();
+                }
+            }
+        });
+        synchronized (done)
+        {
+            while (!finished[0])
+            {
+                done.wait(5000);
+            }
+        }
+    }
+}
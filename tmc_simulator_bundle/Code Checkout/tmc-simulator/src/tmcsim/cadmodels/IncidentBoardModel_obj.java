@@ -1,5 +1,7 @@
 package tmcsim.cadmodels;
 
+import java.io.Serializable;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -24,7 +26,8 @@ import org.w3c.dom.Node;
  * @author Matthew Cechini
  * @version 
  */
-public class IncidentBoardModel_obj {
+@SuppressWarnings("serial")
+public class IncidentBoardModel_obj implements Serializable {
     
     /**
      * Enumeration with XML tag names.
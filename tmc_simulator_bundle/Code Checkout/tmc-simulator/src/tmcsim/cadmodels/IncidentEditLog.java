@@ -9,6 +9,9 @@ import java.io.Serializable;
  */
 public class IncidentEditLog implements Serializable
 {
+
+    private static final long serialVersionUID = 1L;
+
     private String edit;
     private String reason;
     private String changeBy;
@@ -52,6 +52,8 @@ import org.w3c.dom.Node;
  */
 @SuppressWarnings("serial")
 public class IncidentInquiryHeader implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     /**
      * Enumeration with XML tag names.
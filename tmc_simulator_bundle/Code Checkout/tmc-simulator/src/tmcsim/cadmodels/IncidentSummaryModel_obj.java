@@ -1,5 +1,7 @@
 package tmcsim.cadmodels;
 
+import java.io.Serializable;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -12,7 +14,8 @@ import tmcsim.common.ScriptException;
  * @author
  * @version
  */
-public class IncidentSummaryModel_obj {
+@SuppressWarnings("serial")
+public class IncidentSummaryModel_obj implements Serializable {
             
     private static enum XML_TAGS {
         /** Log number. */
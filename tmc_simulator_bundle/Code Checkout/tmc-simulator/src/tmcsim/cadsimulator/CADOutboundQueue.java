@@ -0,0 +1,126 @@
+package tmcsim.cadsimulator;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.w3c.dom.Document;
+
+import tmcsim.common.CADProtocol.CAD_SIMULATOR_CMD;
+
+/**
+ * CADOutboundQueue holds the command Documents waiting to be written to one
+ * CAD Client.  Commands that carry the complete current value of something
+ * (screen status, CAD time, routed message count and unread flag, and the
+ * whole screen) are coalesced: when one is queued, an older queued command of
+ * the same type is removed, so a client that falls behind receives only the
+ * latest value.  Other commands (CAD info messages, APP_CLOSE) are always
+ * delivered.<br>
+ * <br>
+ * The queue is bounded.  offer() never blocks; it returns false when the
+ * queue is full, and the caller is expected to disconnect the client, since a
+ * client that cannot keep up with coalesced commands has stopped reading.
+ *
+ * @author Jonathan Molina
+ */
+public class CADOutboundQueue
+{
+    /** Default maximum number of queued commands. */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /** Commands whose newest value replaces any queued older value. */
+    private static final EnumSet<CAD_SIMULATOR_CMD> COALESCED = EnumSet.of(
+            CAD_SIMULATOR_CMD.UPDATE_STATUS,
+            CAD_SIMULATOR_CMD.UPDATE_TIME,
+            CAD_SIMULATOR_CMD.UPDATE_MSG_COUNT,
+            CAD_SIMULATOR_CMD.UPDATE_MSG_UNREAD,
+            CAD_SIMULATOR_CMD.UPDATE_SCREEN);
+
+    /** Maximum number of queued commands. */
+    private int capacity;
+
+    /** Queued commands, oldest first. */
+    private LinkedList<Document> commands = new LinkedList<Document>();
+
+    /** Number of commands removed because a newer command replaced them. */
+    private long coalescedCount = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity Maximum number of queued commands.
+     */
+    public CADOutboundQueue(int capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues a command.  If the command is coalesced, an older queued command
+     * of the same type is removed first.  This method does not block.
+     *
+     * @param command Command Document.
+     * @return False if the queue is full and the command was not queued.
+     */
+    public synchronized boolean offer(Document command)
+    {
+        String type = command.getDocumentElement().getNodeName();
+
+        if (COALESCED.contains(CAD_SIMULATOR_CMD.fromString(type)))
+        {
+            Iterator<Document> iter = commands.iterator();
+            while (iter.hasNext())
+            {
+                if (iter.next().getDocumentElement().getNodeName().equals(type))
+                {
+                    iter.remove();
+                    coalescedCount++;
+                    break;
+                }
+            }
+        }
+
+        if (commands.size() >= capacity)
+        {
+            return false;
+        }
+
+        commands.add(command);
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest queued command.
+     *
+     * @return The command, or null if the queue is empty.
+     */
+    public synchronized Document poll()
+    {
+        return commands.poll();
+    }
+
+    /**
+     * Returns the number of queued commands.
+     */
+    public synchronized int size()
+    {
+        return commands.size();
+    }
+
+    /**
+     * Returns the number of commands removed because a newer command of the
+     * same type replaced them.
+     */
+    public synchronized long getCoalescedCount()
+    {
+        return coalescedCount;
+    }
+
+    /**
+     * Removes all queued commands.
+     */
+    public synchronized void clear()
+    {
+        commands.clear();
+    }
+}
@@ -102,6 +102,9 @@ public class CADScreenManager extends Observable implements Observer {
      *  the message has been read. */
     private TreeMap<CADRoutedMessage, Boolean> messageMap = null;
     
+    /** Timer used to update the CAD time every minute. */
+    private Timer screenTimer = null;
+    
     /**
      * Constructor.  Initialize CADScreen windows.  All screens are initialized 
      * to a blank screen.  The CADScreenUpdates map is also initialized with each
@@ -146,9 +149,9 @@ public class CADScreenManager extends Observable implements Observer {
         Date d = new Date();
         long delay = (60 - ((d.getTime() / 1000) % 60)) * 1000;
 
-        Timer timer             = new Timer();  
+        screenTimer             = new Timer();  
         CADScreenTimer cadTimer = new CADScreenTimer();   
-        timer.scheduleAtFixedRate(cadTimer, new Date(d.getTime() + delay), (long)1000 * 60);        
+        screenTimer.scheduleAtFixedRate(cadTimer, new Date(d.getTime() + delay), (long)1000 * 60);        
         
     }
 
@@ -982,4 +985,12 @@ public class CADScreenManager extends Observable implements Observer {
         
     }
     
-}
\ No newline at end of file
+    /**
+     * Stops the timer that updates the CAD time.  Called when the CAD terminal
+     * using this manager disconnects.
+     */
+    public void close() {
+        screenTimer.cancel();
+    }
+    
+}
@@ -2,9 +2,12 @@ package tmcsim.cadsimulator;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.rmi.Naming;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
+import java.rmi.server.UnicastRemoteObject;
 import java.util.Calendar;
 import java.util.Properties;
 import java.util.logging.Level;
@@ -17,13 +20,23 @@ import javax.xml.parsers.DocumentBuilderFactory;
 
 import tmcsim.cadsimulator.db.CMSDiversionDB;
 import tmcsim.cadsimulator.managers.ATMSManager;
+import tmcsim.cadsimulator.managers.CheckpointManager;
 import tmcsim.cadsimulator.managers.IncidentManager;
 import tmcsim.cadsimulator.managers.MediaManager;
 import tmcsim.cadsimulator.managers.ParamicsSimulationManager;
 import tmcsim.cadsimulator.managers.SimulationControlManager;
 import tmcsim.cadsimulator.viewer.model.CADSimulatorModel;
+import tmcsim.common.CADEnums;
 import tmcsim.common.SimulationException;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
 import tmcsim.interfaces.CADViewer;
+import tmcsim.interfaces.CoordinatorInterface;
+import tmcsim.journal.JournalProxy;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.journal.ReplayEngine;
+import tmcsim.journal.SessionJournal;
+import tmcsim.metrics.MetricsProxy;
+import tmcsim.metrics.MetricsRegistry;
 
 
 /**
@@ -47,6 +60,16 @@ import tmcsim.interfaces.CADViewer;
  * ATMSProperties         The filepath for the properties file to initialize the ATMSManager.<br>
  * MediaProperties        The filepath for the properties file to initialize the MediaManager.<br>
  * ErrorFile              The filename of the error file used for logging errors.<br>
+ * ClockMode              (Optional) RealTime, Accelerated, or AsFastAsPossible.  Defaults to RealTime.<br>
+ * ClockAcceleration      (Optional) Simulation seconds per real second for the Accelerated clock mode.<br>
+ * StreamResetMessages    (Optional) Commands sent to a CAD Client between resets of its object stream, 0 for no limit.  Defaults to 64.<br>
+ * StreamResetBytes       (Optional) Bytes sent to a CAD Client between resets of its object stream, 0 for no limit.  Defaults to 1048576.<br>
+ * MetricsFile            (Optional) The file a snapshot of the metrics is written to.  No snapshot is written if absent.<br>
+ * MetricsInterval        (Optional) Seconds between two metrics snapshots.  Defaults to 10.<br>
+ * CheckpointInterval     (Optional) Simulation seconds between two checkpoints used to reposition the simulation, 0 for none.  Defaults to 300.<br>
+ * JournalFile            (Optional) The session journal file the changes to the simulation are appended to.  No journal is kept if absent.<br>
+ * ReplayFile             (Optional) A session journal file to replay when the CAD Simulator starts.  No journal is kept while replaying.<br>
+ * ReplaySpeed            (Optional) Simulation seconds per real second of the replay, 0 for as fast as possible.  Defaults to 0.<br>
  * ----------------------------------------------------------------------------<br>
  * Example File:<br>
  * CADClientPort          = 4444<br>
@@ -57,7 +80,19 @@ import tmcsim.interfaces.CADViewer;
  * ATMSProperties         = ../config/atms.properties<br>
  * MediaProperties        = ../config/media.properties<br>
  * ErrorFile              = cad_sim_error.xml<br>
- * </code>
+ * ClockMode              = RealTime<br>
+ * ClockAcceleration      = 1<br>
+ * MetricsFile            = cad_sim_metrics.txt<br>
+ * MetricsInterval        = 10<br>
+ * CheckpointInterval     = 300<br>
+ * JournalFile            = cad_sim_journal.bin<br>
+ * </code><br>
+ * <br>
+ * The metrics in the MetricsRegistry are also registered with the platform
+ * MBean server.  The Coordinator is bound for RMI through a MetricsProxy, so
+ * the count and latency of each remote call are recorded.  When a session
+ * journal is kept, the proxy is also wrapped by a JournalProxy, so the
+ * remote calls that change the simulation are journaled.
  *
  * @author Jonathan Molina
  * @author Matthew Cechini (mcechini@calpoly.edu)
@@ -97,7 +132,23 @@ public class CADSimulator {
         /** Filepath for the properties file to initialize the atms manager. */
         ATMS_PROP_FILE     ("ATMSProperties"),
         /** The specific CADViewer used as the user interface for the CADsimulator */
-        USER_INTERFACE     ("UserInterface");
+        USER_INTERFACE     ("UserInterface"),
+        /** Mode of the clock used to advance simulation time. */
+        CLOCK_MODE         ("ClockMode"),
+        /** Simulation seconds per real second for the accelerated clock. */
+        CLOCK_ACCELERATION ("ClockAcceleration"),
+        /** File a snapshot of the metrics is written to. */
+        METRICS_FILE       ("MetricsFile"),
+        /** Seconds between two metrics snapshots. */
+        METRICS_INTERVAL   ("MetricsInterval"),
+        /** Simulation seconds between two simulation checkpoints. */
+        CHECKPOINT_INTERVAL ("CheckpointInterval"),
+        /** Session journal file the changes to the simulation are appended to. */
+        JOURNAL_FILE       ("JournalFile"),
+        /** Session journal file replayed when the CAD Simulator starts. */
+        REPLAY_FILE        ("ReplayFile"),
+        /** Simulation seconds per real second of the replay. */
+        REPLAY_SPEED       ("ReplaySpeed");
         
         public String name;
         
@@ -114,6 +165,9 @@ public class CADSimulator {
     /** Coordinator instance. */
     public static  Coordinator theCoordinator;
     
+    /** Proxy of the Coordinator bound for RMI, recording the remote calls. */
+    private static CoordinatorInterface theCoordinatorProxy;
+    
     /** SoundPlayer instance. */
     protected static  SoundPlayer theSoundPlayer = null;
     
@@ -132,6 +186,12 @@ public class CADSimulator {
     /** ATMSManager instance. */
     protected static  ATMSManager theATMSMgr = null; 
 
+    /** CheckpointManager instance. */
+    protected static  CheckpointManager theCheckpointMgr = null;
+
+    /** SessionJournal instance, or null if no journal is kept. */
+    protected static  SessionJournal theSessionJournal = null;
+
     /** Properties file for the CADSimulator. */
     private Properties cadSimulatorProperties;
     
@@ -174,6 +234,31 @@ public class CADSimulator {
 
             theCoordinator = new Coordinator(cadSimModel);
 
+            theSimulationCntrlMgr = new SimulationControlManager(theCoordinator);
+
+            CoordinatorInterface coordinator = theCoordinator;
+            String journalFile = cadSimulatorProperties.getProperty(
+                    CAD_PROPERTIES.JOURNAL_FILE.name);
+            if (journalFile != null && journalFile.trim().length() > 0 &&
+                    getReplayFile() == null)
+            {
+                theSessionJournal = new SessionJournal(new File(journalFile.trim()));
+                coordinator = JournalProxy.wrap(CoordinatorInterface.class,
+                        theCoordinator, theSessionJournal, theSimulationCntrlMgr);
+
+                Runtime.getRuntime().addShutdownHook(new Thread("SessionJournalClose")
+                {
+                    public void run()
+                    {
+                        theSessionJournal.close();
+                    }
+                });
+            }
+
+            theCoordinatorProxy = MetricsProxy.wrap(CoordinatorInterface.class,
+                    coordinator, MetricsRegistry.getInstance(), "Coordinator.rmi");
+            UnicastRemoteObject.exportObject(theCoordinatorProxy, 0);
+
             startRegistry(Integer.parseInt(
                     cadSimulatorProperties.getProperty(
                     CAD_PROPERTIES.COOR_RMI_PORT.name).trim()));
@@ -181,8 +266,6 @@ public class CADSimulator {
                     cadSimulatorProperties.getProperty(
                     CAD_PROPERTIES.CAD_RMI_PORT.name).trim()));
 
-            theSimulationCntrlMgr = new SimulationControlManager(theCoordinator);
-
             theATMSMgr = new ATMSManager(
                     cadSimulatorProperties.getProperty(
                     CAD_PROPERTIES.ATMS_PROP_FILE.name));
@@ -197,6 +280,13 @@ public class CADSimulator {
                     CAD_PROPERTIES.PARAMICS_PROP_FILE.name),
                     theCoordinator, theMediaMgr);
 
+            theSimulationCntrlMgr.setClockMode(
+                    CADEnums.CLOCK_MODE.fromValue(cadSimulatorProperties.getProperty(
+                    CAD_PROPERTIES.CLOCK_MODE.name, "").trim()),
+                    Double.parseDouble(cadSimulatorProperties.getProperty(
+                    CAD_PROPERTIES.CLOCK_ACCELERATION.name, "1").trim()));
+            theParamicsSimMgr.setSimulationSpeed(theSimulationCntrlMgr.getClockSpeed());
+
             theSoundPlayer = new SoundPlayer(
                     cadSimulatorProperties.getProperty(
                     CAD_PROPERTIES.AUDIO_LOCATION.name));
@@ -204,11 +294,18 @@ public class CADSimulator {
 
             theIncidentMgr = new IncidentManager(theCoordinator, theSoundPlayer);
 
+            theCheckpointMgr = new CheckpointManager(theIncidentMgr,
+                    theCoordinator.getCADData(),
+                    Long.parseLong(cadSimulatorProperties.getProperty(
+                    CAD_PROPERTIES.CHECKPOINT_INTERVAL.name, "300").trim()));
+
 
             //Begin accepting Client connections
             CADSimulatorSocketHandler tmsh = new CADSimulatorSocketHandler(
                     Integer.parseInt(cadSimulatorProperties.getProperty(
-                    CAD_PROPERTIES.CLIENT_PORT.name).trim()));
+                    CAD_PROPERTIES.CLIENT_PORT.name).trim()),
+                    CADOutboundQueue.DEFAULT_CAPACITY,
+                    ResetPolicy.fromProperties(cadSimulatorProperties));
             tmsh.start();
         }
         catch (RemoteException e)
@@ -218,6 +315,13 @@ public class CADSimulator {
 
             throw new SimulationException(SimulationException.BINDING, e);
         }
+        catch (IOException e)
+        {
+            cadSimLogger.logp(Level.SEVERE, "CADSimulator", "Constructor",
+                    "Exception in opening the session journal.", e);
+
+            throw new SimulationException(SimulationException.INITIALIZE_ERROR, e);
+        }
 
         //Load CMS Diversion Information from the XML file
         try
@@ -242,8 +346,62 @@ public class CADSimulator {
                     "Initialization Error", JOptionPane.WARNING_MESSAGE);
         }
 
+        String metricsFile = cadSimulatorProperties.getProperty(
+                CAD_PROPERTIES.METRICS_FILE.name);
+        if (metricsFile != null && metricsFile.trim().length() > 0)
+        {
+            MetricsRegistry.getInstance().startSnapshots(new File(metricsFile.trim()),
+                    1000 * Long.parseLong(cadSimulatorProperties.getProperty(
+                    CAD_PROPERTIES.METRICS_INTERVAL.name, "10").trim()));
+        }
+
         theViewer.setVisible(true);
 
+        if (getReplayFile() != null)
+        {
+            startReplay(new File(getReplayFile()));
+        }
+    }
+
+    /**
+     * Returns the session journal file to replay, or null if none is replayed.
+     */
+    private String getReplayFile()
+    {
+        String replayFile = cadSimulatorProperties.getProperty(
+                CAD_PROPERTIES.REPLAY_FILE.name);
+
+        return replayFile == null || replayFile.trim().length() == 0
+                ? null : replayFile.trim();
+    }
+
+    /**
+     * Replays a session journal on a new thread.  The replay's clock is used
+     * while the journal is replayed, and the clock mode in the properties
+     * file is restored once the replay has finished.
+     *
+     * @param journalFile The session journal file.
+     */
+    private void startReplay(File journalFile)
+    {
+        final ReplayEngine replay = new ReplayEngine(journalFile, theCoordinator,
+                theSimulationCntrlMgr, Double.parseDouble(cadSimulatorProperties
+                .getProperty(CAD_PROPERTIES.REPLAY_SPEED.name, "0").trim()));
+        final CADEnums.CLOCK_MODE mode = theSimulationCntrlMgr.getClockMode();
+        final double speed = theSimulationCntrlMgr.getClockSpeed();
+
+        theSimulationCntrlMgr.setClock(replay.getClock());
+
+        Thread replayThread = new Thread("ReplayEngine")
+        {
+            public void run()
+            {
+                replay.run();
+                theSimulationCntrlMgr.setClockMode(mode, speed);
+            }
+        };
+        replayThread.setDaemon(true);
+        replayThread.start();
     }
     
     private CADViewer chooseUserInterface(String className)
@@ -278,9 +436,10 @@ public class CADSimulator {
      * Binds the Coordinator to an RMI port so that the SimulationManager
      * can communicate with it, and so that the Coordinator can perform RMI
      * callback method calls.  The port numbers and RMI designators are parsed from
-     * the properties file file.
+     * the properties file file.  The Coordinator's proxy is bound, so remote 
+     * calls are recorded in the metrics.
      *
-     * @param theCoor A reference to the Coordinator object.
+     * @param regPort The port of the RMI registry.
      * @throws SimulationException if there are errors in binding the RMI to 
      * a port and name.
      */
@@ -290,13 +449,70 @@ public class CADSimulator {
             LocateRegistry.createRegistry(regPort);                             
             
             String registryURL = "rmi://localhost:" + regPort + "/coordinator";
-            Naming.rebind(registryURL, theCoordinator);
+            Naming.rebind(registryURL, theCoordinatorProxy);
         }
         catch (Exception e) {           
             throw new SimulationException(SimulationException.BINDING, e);
         }
     }
 
+    /**
+     * Returns whether a session journal is kept.
+     *
+     * @return True if changes to the simulation are journaled.
+     */
+    static boolean isJournaling() {
+        return theSessionJournal != null;
+    }
+
+    /**
+     * Appends a record to the session journal at the current simulation time,
+     * if a journal is kept.
+     *
+     * @param type Type of the record.
+     * @param args Arguments of the record.
+     * @see tmcsim.journal.JournalRecord
+     */
+    static void journal(RECORD_TYPE type, Object... args) {
+        if(theSessionJournal != null)
+            theSessionJournal.append(type, theSimulationCntrlMgr.getCurrentSimTime(), args);
+    }
+
+    /**
+     * Appends a SCRIPT record with the contents of a script file to the
+     * session journal, if a journal is kept.
+     *
+     * @param scriptFile The script file being loaded.
+     */
+    static void journalScript(File scriptFile) {
+        if(theSessionJournal == null)
+            return;
+
+        try {
+            journal(RECORD_TYPE.SCRIPT, scriptFile.getName(),
+                    Files.readAllBytes(scriptFile.toPath()));
+        }
+        catch (IOException ioe) {
+            cadSimLogger.logp(Level.WARNING, "CADSimulator", "journalScript",
+                    "Unable to journal script " + scriptFile + ".", ioe);
+        }
+    }
+
+    /**
+     * Returns a Calendar set to the current simulation clock time.  When the
+     * simulation clock is running in real time, this is the current time.
+     *
+     * @return Calendar for the simulation clock time.
+     */
+    private static Calendar simulationCalendar() {
+        Calendar rightNow = Calendar.getInstance();
+
+        if(theSimulationCntrlMgr != null)
+            rightNow.setTimeInMillis(theSimulationCntrlMgr.getSimulationClockTime());
+
+        return rightNow;
+    }
+
     /**
      * Method returns a String represetnation of the current time.  String format
      * is HHMM 
@@ -306,7 +522,7 @@ public class CADSimulator {
     public static String getCADTime() {
         String time = new String();     
 
-        Calendar rightNow = Calendar.getInstance();
+        Calendar rightNow = simulationCalendar();
         
         if(rightNow.get(Calendar.HOUR_OF_DAY) < 10)
             time += "0";
@@ -330,7 +546,7 @@ public class CADSimulator {
     public static String getCADDate() {
         String date = new String();
         
-        Calendar rightNow = Calendar.getInstance();
+        Calendar rightNow = simulationCalendar();
         
         //Months are zero referenced
         if(rightNow.get(Calendar.MONTH) + 1 < 10)
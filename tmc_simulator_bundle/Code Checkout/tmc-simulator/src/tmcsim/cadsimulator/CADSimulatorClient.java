@@ -1,11 +1,18 @@
 package tmcsim.cadsimulator;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,11 +23,17 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 import tmcsim.common.CADProtocol;
+import tmcsim.common.ManagedObjectOutputStream;
 import tmcsim.common.ObserverMessage;
+import tmcsim.common.ParamicsFrame;
 import tmcsim.common.CADEnums.CAD_KEYS;
 import tmcsim.common.CADProtocol.CAD_CLIENT_CMD;
 import tmcsim.common.CADProtocol.CAD_COMMANDS;
 import tmcsim.common.CADProtocol.CAD_SIMULATOR_CMD;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.metrics.Gauge;
+import tmcsim.metrics.MetricsRegistry;
 
 
 /**
@@ -35,52 +48,216 @@ import tmcsim.common.CADProtocol.CAD_SIMULATOR_CMD;
  * action is taken, resulting in data being transmitted to the CAD Client.
  * See the update() method description for more information.  The 
  * CADScreenManager is set up as an observer of the Coordinator to listen
- * for simulation data updates.
+ * for simulation data updates.<br>
+ * <br>
+ * The socket is a non-blocking channel owned by the CADSimulatorSocketHandler,
+ * whose selector thread performs all reads and writes.  Received bytes are
+ * passed to this object's thread, which decodes the client's objects and
+ * performs the commands.  Commands for the client are queued in a bounded
+ * CADOutboundQueue, which coalesces repeated status updates, and are written
+ * by the selector thread when the socket can accept them.  Sending a command
+ * therefore never blocks the object notifying this observer.  A client whose
+ * queue overflows, or which accepts no data for WRITE_TIMEOUT while data is
+ * waiting, is disconnected.<br>
+ * <br>
+ * While the client is connected, the number of queued commands and the
+ * bytes sent are reported in the "CADSimulatorClient.address.queueDepth"
+ * and "CADSimulatorClient.address.bytesSent" metrics.
  *
  * @author Matthew Cechini (mcechini@calpoly.edu)
  * @version $Date: 2006/06/14 00:12:38 $ $Revision: 1.5 $
  */
 public class CADSimulatorClient extends Thread implements Observer {
     
+    /** Time (ms) a client may accept no data while data is waiting before it is disconnected. */
+    public static final long WRITE_TIMEOUT = 15000;
+    
+    /** Maximum number of received bytes waiting to be decoded. */
+    public static final int MAX_INBOUND_BYTES = 1024 * 1024;
+    
+    /** Number of serialized bytes after which no more commands are added to a write. */
+    private static final int WRITE_BATCH_BYTES = 64 * 1024;
+    
     /** Error Logger. */
     private static Logger cadLogger = Logger.getLogger("tmcsim.cadsimulator");
     
     /** CADScreenManager object containing the data for managing the CAD Client's view information. */
     private CADScreenManager screenManager;
     
-    /** Socket used for communication with the CAD Client. */
-    private Socket theSocket;
+    /** Channel used for communication with the CAD Client. */
+    private SocketChannel theChannel;
+    
+    /** Address of the CAD Client, kept for logging after the channel is closed. */
+    private SocketAddress theAddress;
+    
+    /** Socket handler whose selector thread writes to the channel. */
+    private CADSimulatorSocketHandler theHandler;
+    
+    /** Commands waiting to be written to the client. */
+    private CADOutboundQueue outbound;
+    
+    /** Buffer that commands are serialized into before being written. */
+    private CommandBuffer outBuffer;
+    
+    /** ObjectOutputStream for serializing commands into the outBuffer. */
+    private ManagedObjectOutputStream out;
+    
+    /** Serialized bytes not yet written to the channel. */
+    private ByteBuffer pending;
     
-    /** ObjectOutputStream for writing objects to the socket. */
-    private ObjectOutputStream out;
+    /** Time (ms) that data was last written to the channel, or that writing began. */
+    private long lastWriteProgress;
     
-    /** ObjectInputStream for reading objects from the socket. */
+    /** Bytes received from the channel and not yet decoded. */
+    private InboundStream inbound;
+    
+    /** ObjectInputStream for reading objects from the received bytes. */
     private ObjectInputStream in;
     
+    /** Whether a write of queued commands has been requested from the handler. */
+    private AtomicBoolean writeRequested = new AtomicBoolean(false);
+    
+    /** Whether the client is connected. */
+    private AtomicBoolean connected = new AtomicBoolean(true);
+    
+    /** Prefix of the names of the client's metrics. */
+    private String metricsPrefix;
+    
+    /**
+     * ByteArrayOutputStream whose contents can be written to a channel 
+     * without being copied.
+     */
+    private static class CommandBuffer extends ByteArrayOutputStream {
+        
+        public CommandBuffer() {
+            super(WRITE_BATCH_BYTES);
+        }
+        
+        public ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+    
+    /**
+     * InputStream of the bytes received from the channel.  The selector
+     * thread adds bytes without blocking, and the client thread blocks 
+     * reading them until they arrive or the stream is closed.
+     */
+    private static class InboundStream extends InputStream {
+        
+        private byte[] data = new byte[4096];
+        private int start = 0;
+        private int end = 0;
+        private boolean closed = false;
+        
+        /**
+         * Add the remaining bytes of the buffer to the stream.
+         * 
+         * @throws IOException if more than MAX_INBOUND_BYTES would be waiting.
+         */
+        public synchronized void receive(ByteBuffer src) throws IOException {
+            int length = src.remaining();
+            
+            if(end - start + length > MAX_INBOUND_BYTES) {
+                throw new IOException("More than " + MAX_INBOUND_BYTES + 
+                        " received bytes are waiting to be read.");
+            }
+            
+            if(end + length > data.length) {
+                byte[] newData = data;
+                if(end - start + length > data.length) {
+                    newData = new byte[Math.max(data.length * 2, end - start + length)];
+                }
+                System.arraycopy(data, start, newData, 0, end - start);
+                data  = newData;
+                end   = end - start;
+                start = 0;
+            }
+            
+            src.get(data, end, length);
+            end += length;
+            notifyAll();
+        }
+        
+        public synchronized int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+        
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0) {
+                return 0;
+            }
+            
+            while(start == end && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException ie) {
+                    throw new EOFException("Interrupted while reading.");
+                }
+            }
+            
+            if(start == end) {
+                return -1;
+            }
+            
+            int count = Math.min(len, end - start);
+            System.arraycopy(data, start, b, off, count);
+            start += count;
+            return count;
+        }
+        
+        public synchronized int available() {
+            return end - start;
+        }
+        
+        public synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+    }
+    
     /**
      * Constructor.  A CADScreenManager is instantiated to manage the output
      * transmitted to the remote CAD Client.  This object is set up as an
      * observer to that manager to listen for data that will be transmitted
      * across the socket.  The CADScreenManager is set up as an observer
-     * of the Coordinator.  At construction, streams are created to handle
-     * reading and writing to the Socket.  When complete, the sendScreenRefresh()
+     * of the Coordinator.  At construction, the stream used to serialize
+     * commands is created; its header is the first data written to the client.
+     * The input stream is created when the thread starts, since its header
+     * has not been received yet.  When complete, the sendScreenRefresh()
      * method is called to initialize the client.
      * 
      *
-     * @param newSocket The socket to use for data transmission
-     * @throws IOException if there is an error in getting the output or input streams
-     * from the socket.
+     * @param newChannel The non-blocking channel to use for data transmission
+     * @param handler The socket handler that reads and writes the channel
+     * @param queueSize Maximum number of commands waiting to be written
+     * @param policy Reset policy of the output stream
+     * @throws IOException if there is an error in creating the output stream.
      */
-    CADSimulatorClient(Socket newSocket) throws IOException{
+    CADSimulatorClient(SocketChannel newChannel, CADSimulatorSocketHandler handler,
+            int queueSize, ResetPolicy policy) throws IOException{
+        
+        super("CADSimulatorClient " + newChannel.socket().getRemoteSocketAddress());
+        setDaemon(true);
+        
+        theChannel = newChannel;
+        theAddress = newChannel.socket().getRemoteSocketAddress();
+        theHandler = handler;
+        outbound   = new CADOutboundQueue(queueSize);
+        outBuffer  = new CommandBuffer();
+        out        = new ManagedObjectOutputStream(outBuffer, policy);
+        inbound    = new InboundStream();
+        out.flush();
+        pending    = outBuffer.toByteBuffer();
+        outBuffer.reset();
+        lastWriteProgress = System.currentTimeMillis();
         
         screenManager = new CADScreenManager(CADSimulator.theCoordinator);      
         CADSimulator.theCoordinator.addObserver(screenManager);
         screenManager.addObserver(this);
         
-        
-        theSocket = newSocket;        
-        out       = new ObjectOutputStream(theSocket.getOutputStream());
-        in        = new ObjectInputStream(theSocket.getInputStream());   
+        registerMetrics();
    
         //initialize the CAD client
         sendScreenRefresh();
@@ -88,13 +265,14 @@ public class CADSimulatorClient extends Thread implements Observer {
     
     /**
      * Method declaration for the Thread.run() method.  While the thread is not 
-     * interrupted, read Objects from the socket and call the receiveObject()
-     * method to parse the data.  If there is an IOException in communicating
-     * with the client, interrupt this thread and close the streams and Socket.
+     * interrupted, read Objects from the received bytes and call the 
+     * receiveObject() method to parse the data.  If there is an IOException 
+     * in communicating with the client, disconnect the client.
      */
     public void run() {
         
         try { 
+            in = new ObjectInputStream(inbound);
         
             while(!isInterrupted()) {
                 receiveObject(in.readObject());         
@@ -106,35 +284,181 @@ public class CADSimulatorClient extends Thread implements Observer {
         catch (ClassNotFoundException cnfe) {
             cnfe.printStackTrace();
         }
-        catch (IOException ioe) {                   
-            cadLogger.logp(Level.SEVERE, "CADSimulatorClient", "run", 
-                    "Error in reading from Client socket: " + 
-                    theSocket.getInetAddress() + ", dropping connection.", ioe);
-            
-            //disconnectClient();
+        catch (IOException ioe) {
+            if(connected.get()) {
+                cadLogger.logp(Level.SEVERE, "CADSimulatorClient", "run", 
+                        "Error in reading from Client socket: " + 
+                        theAddress + ", dropping connection.", ioe);
+            }
         }
+        
+        disconnectClient();
     }
     
     /**
      * This method is called to disconnect from the remote CAD Client.
-     * This object's thread is interrupted and the streams and socket
+     * This object's thread is interrupted and the streams and channel
      * are closed.  This object is removed as an observer of the 
      * CADScreenManager and the CADScreenManager is removed as an 
      * observer of the Coordinator.  The viewer is then notified
-     * of a disconnecting client.
+     * of a disconnecting client.  Only the first call has any effect, and
+     * the call does not block, so it may be made from any thread.
      */
     protected void disconnectClient() {
-        this.interrupt();
+        if(!connected.compareAndSet(true, false)) {
+            return;
+        }
+        
+        if(Thread.currentThread() != this) {
+            this.interrupt();
+        }
         
-        try { out.close(); } catch (Exception e) {}
-        try { in.close(); } catch (Exception e) {}
-        try { theSocket.close(); } catch (Exception e) {}
+        inbound.close();
+        outbound.clear();
+        try { theChannel.close(); } catch (Exception e) {}
 
         screenManager.deleteObserver(this);
         CADSimulator.theCoordinator.removeObserver(screenManager);
+        screenManager.close();
+        theHandler.clientDisconnected(this);
+        
+        MetricsRegistry.getInstance().remove(metricsPrefix + ".queueDepth");
+        MetricsRegistry.getInstance().remove(metricsPrefix + ".bytesSent");
+        
+        cadLogger.logp(Level.INFO, "CADSimulatorClient", "disconnectClient", 
+                "Client " + theAddress + " disconnected.  Output: " + 
+                out.getStatistics() + ", " + getCoalescedCommands() + " coalesced.");
         //CADSimulator.theViewer.disconnectClient();
     }
     
+    /**
+     * Registers the gauges reporting the client's queue depth and the 
+     * bytes sent to it.
+     */
+    private void registerMetrics() {
+        String address = String.valueOf(theAddress);
+        metricsPrefix = "CADSimulatorClient." + 
+                (address.startsWith("/") ? address.substring(1) : address);
+        
+        MetricsRegistry.getInstance().gauge(metricsPrefix + ".queueDepth", new Gauge() {
+            public long getValue() {
+                return outbound.size();
+            }
+        });
+        MetricsRegistry.getInstance().gauge(metricsPrefix + ".bytesSent", new Gauge() {
+            public long getValue() {
+                return out.getBytesWritten();
+            }
+        });
+    }
+    
+    /**
+     * Returns whether the client is connected.
+     */
+    public boolean isConnected() {
+        return connected.get();
+    }
+    
+    /**
+     * Returns the address of the remote CAD Client.
+     */
+    public SocketAddress getAddress() {
+        return theAddress;
+    }
+    
+    /**
+     * Returns the number of commands waiting to be written to the client.
+     */
+    public int getQueuedCommands() {
+        return outbound.size();
+    }
+    
+    /**
+     * Returns the output stream, whose counters give the number of commands
+     * and bytes written to the client.
+     */
+    public ManagedObjectOutputStream getOutputStream() {
+        return out;
+    }
+    
+    /**
+     * Returns the number of commands that were not written because a newer
+     * command of the same type replaced them.
+     */
+    public long getCoalescedCommands() {
+        return outbound.getCoalescedCount();
+    }
+    
+    /**
+     * Returns the key registering the client's channel with the selector,
+     * or null if the channel is not registered.
+     */
+    SelectionKey getChannelKey(Selector selector) {
+        return theChannel.keyFor(selector);
+    }
+    
+    /**
+     * Called by the handler's selector thread with bytes read from the
+     * channel.  The bytes are made available to this object's thread.
+     * 
+     * @param data Buffer containing the received bytes.
+     * @throws IOException if too many received bytes are waiting to be read.
+     */
+    void receiveBytes(ByteBuffer data) throws IOException {
+        inbound.receive(data);
+    }
+    
+    /**
+     * Called by the handler's selector thread to write queued commands to
+     * the channel.  Commands are serialized in batches and written until 
+     * the queue is empty or the channel cannot accept more data.
+     * 
+     * @return True if all queued commands were written, false if data is 
+     * still waiting for the channel to become writable.
+     * @throws IOException if there is an error writing to the channel.
+     */
+    boolean writeQueuedCommands() throws IOException {
+        writeRequested.set(false);
+        
+        while(true) {
+            if(!pending.hasRemaining()) {
+                Document command;
+                
+                outBuffer.reset();
+                while(outBuffer.size() < WRITE_BATCH_BYTES && 
+                        (command = outbound.poll()) != null) {
+                    out.writeMessage(command);
+                }
+                out.flush();
+                
+                if(outBuffer.size() == 0) {
+                    return true;
+                }
+                
+                pending = outBuffer.toByteBuffer();
+                lastWriteProgress = System.currentTimeMillis();
+            }
+            
+            if(theChannel.write(pending) > 0) {
+                lastWriteProgress = System.currentTimeMillis();
+            }
+            
+            if(pending.hasRemaining()) {
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Returns whether data has been waiting to be written for longer than
+     * WRITE_TIMEOUT without the client accepting any of it.
+     * 
+     * @param now The current time (ms).
+     */
+    boolean isWriteStalled(long now) {
+        return pending.hasRemaining() && now - lastWriteProgress > WRITE_TIMEOUT;
+    }
+    
     
 
     /**
@@ -304,8 +628,9 @@ public class CADSimulatorClient extends Thread implements Observer {
     /**
      * This method parses the data that has been received on the socket.  The
      * Data is cast to an XML Document and the root element determines the
-     * data content.  The possible root elements and the corresponding action
-     * are explained below. <br>
+     * data content.  When a session journal is kept, the received command is
+     * journaled before it is performed.  The possible root elements and the
+     * corresponding action are explained below. <br>
      * <code>
      * -----------<br>
      * TERMINAL_REGISTER<br>
@@ -341,11 +666,15 @@ public class CADSimulatorClient extends Thread implements Observer {
      *
      * @see CADProtocol
      */
-    private void receiveObject(Object rxData) throws IOException {
+    private void receiveObject(Object rxData) {
         
         try {   
             
             Element root  = ((Document)rxData).getDocumentElement();
+            
+            if(CADSimulator.isJournaling()) {
+                journalCommand(root);
+            }
         
             switch(CAD_CLIENT_CMD.fromString(root.getNodeName())) {
             
@@ -392,7 +721,8 @@ public class CADSimulatorClient extends Thread implements Observer {
                                 Document cmdDoc = DocumentBuilderFactory.newInstance()
                                         .newDocumentBuilder().newDocument();
                                 cmdDoc.appendChild(cmdDoc.createElement(CAD_SIMULATOR_CMD.
-                                        APP_CLOSE.type));                               transmitCommand(cmdDoc);
+                                        APP_CLOSE.type));
+                                transmitCommand(cmdDoc);
                     
                             } catch (Exception e) {
                                 cadLogger.logp(Level.SEVERE, "CADSimulatorClient", "update", 
@@ -424,25 +754,45 @@ public class CADSimulatorClient extends Thread implements Observer {
     }   
     
     /**
-     * This method transmits the Document command message to the remote 
-     * CAD Client.  If an exception occurs in writing to the socket, an 
-     * Exception is thrown and socket communication is closed.
+     * Journals a command received from the CAD Client, so the session's
+     * terminal input can be reviewed.
+     *
+     * @param root Root Element of the received command.
+     */
+    private void journalCommand(Element root) {
+        try {
+            CADSimulator.journal(RECORD_TYPE.TERMINAL, String.valueOf(theAddress),
+                    ParamicsFrame.toXML(root));
+        }
+        catch (IOException ioe) {
+            cadLogger.logp(Level.WARNING, "CADSimulatorClient", "journalCommand",
+                    "Unable to journal a command from " + theAddress + ".", ioe);
+        }
+    }
+    
+    /**
+     * This method queues the Document command message to be transmitted to
+     * the remote CAD Client and asks the socket handler to write it.  This
+     * method does not block.  If the queue is full, the client is not 
+     * reading its commands, and the client is disconnected.
      *
      * @param data The data being transmitted
-     * @throws IOException if there is an exception in writing to the socket.
      */
-    private void transmitCommand(Document data) throws IOException {
+    private void transmitCommand(Document data) {
+        
+        if(!connected.get()) {
+            return;
+        }
   
-        try {
-            out.writeObject(data);
-            out.flush();
-        } catch (IOException ioe) {
-            cadLogger.logp(Level.SEVERE, "CADSimulatorClient", 
-                    "transmitCommand",  "Error writing to Client socket: " + 
-                    theSocket.getInetAddress() + ", dropping connection.", ioe);
+        if(!outbound.offer(data)) {
+            cadLogger.logp(Level.WARNING, "CADSimulatorClient", 
+                    "transmitCommand",  "Command queue full for Client: " + 
+                    theAddress + ", dropping connection.");
 
-            //disconnectClient();
+            disconnectClient();
+        }
+        else if(writeRequested.compareAndSet(false, true)) {
+            theHandler.requestWrite(this);
         }
-            
     }
 }  
@@ -1,87 +1,339 @@
 package tmcsim.cadsimulator;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketTimeoutException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import tmcsim.common.SimulationException;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
 
 
 /**
  * CADSimulatorSocketHandler is used to accept socket connections from multiple
- * CAD Clients.  At initialization, this class binds a ServerSocket to a specific
- * port, passed in as a parameter.  This class is threaded, and when it is 'run',
- * it begins accepting connections.  When a connection is made, a Socket is created
- * for data communication with that client and a CADSimulatorClient thread
- * is spun with connection to that socket.  This thread will continue to accept
- * clients indefinitely.
+ * CAD Clients.  At initialization, this class binds a ServerSocketChannel to a
+ * specific port, passed in as a parameter.  This class is threaded, and when it
+ * is 'run', it begins accepting connections.  When a connection is made, a
+ * CADSimulatorClient is created for that client's channel and its thread
+ * is spun.  This thread will continue to accept clients indefinitely.<br>
+ * <br>
+ * All channels are non-blocking and registered with one Selector, so this
+ * thread performs every accept, read and write.  Bytes read from a client are
+ * passed to that client's thread to be decoded.  When a client queues
+ * commands it requests a write, and this thread writes the commands while the
+ * client's channel accepts them, then waits for the channel to become
+ * writable again.  A slow client therefore delays only its own commands.  A
+ * client that accepts no data for CADSimulatorClient.WRITE_TIMEOUT while data
+ * is waiting is disconnected.
  *
  * @author Matthew Cechini (mcechini@calpoly.edu)
  * @version $Date: 2006/06/06 20:46:41 $ $Revision: 1.3 $
  */
 public class CADSimulatorSocketHandler extends Thread {
-    
+
+    /** Time (ms) between checks for interruption and stalled clients. */
+    private static final long SELECT_TIMEOUT = 1000;
+
+    /** Size of the buffer used to read from the channels. */
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
     /** Error logger. */
     private Logger socketLogger = Logger.getLogger("tmcsim.cadsimulator");
 
-    /** ServerSocket used to accept connections from clients. */
-    private ServerSocket serverSocket;    
-    
+    /** ServerSocketChannel used to accept connections from clients. */
+    private ServerSocketChannel serverChannel;
+
+    /** Selector for the server channel and all client channels. */
+    private Selector selector;
+
+    /** Maximum number of commands waiting to be written to each client. */
+    private int queueSize;
+
+    /** Reset policy of each client's output stream. */
+    private ResetPolicy resetPolicy;
+
+    /** Clients that have requested a write of their queued commands. */
+    private Queue<CADSimulatorClient> writeRequests =
+        new ConcurrentLinkedQueue<CADSimulatorClient>();
+
+    /** Buffer used to read from the channels. */
+    private ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    /** Number of connected clients. */
+    private AtomicInteger clientCount = new AtomicInteger(0);
+
+    /** Number of clients disconnected. */
+    private AtomicLong disconnectCount = new AtomicLong(0);
+
     /**
-     * Constructor.  A ServerSocket is bound to the parameter port number.
+     * Constructor.  A ServerSocketChannel is bound to the parameter port number.
      *
-     * @param port Port number for ServerSocket binding.
-     * @throws SimulationException if an error occurs binding the ServerSocket.
+     * @param port Port number for ServerSocketChannel binding.
+     * @throws SimulationException if an error occurs binding the ServerSocketChannel.
      */
     public CADSimulatorSocketHandler(Integer port) throws SimulationException {
-    
-        try {   
-            serverSocket = new ServerSocket(port);
-            serverSocket.setSoTimeout(5000);  //delay for accept timeout(milliseconds)
-        } catch (IOException ioe) { 
+        this(port, CADOutboundQueue.DEFAULT_CAPACITY, ResetPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor.  A ServerSocketChannel is bound to the parameter port number.
+     *
+     * @param port Port number for ServerSocketChannel binding.
+     * @param queueSize Maximum number of commands waiting to be written to
+     * each client.
+     * @param policy Reset policy of each client's output stream.
+     * @throws SimulationException if an error occurs binding the ServerSocketChannel.
+     */
+    public CADSimulatorSocketHandler(Integer port, int queueSize, ResetPolicy policy)
+            throws SimulationException {
+
+        super("CADSimulatorSocketHandler");
+        this.queueSize   = queueSize;
+        this.resetPolicy = policy;
+
+        try {
+            selector      = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.socket().bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException ioe) {
             throw new SimulationException(SimulationException.BINDING, ioe);
         }
-    }   
+    }
 
     /**
-     * While this thread is not interrupted, connection requests are continuously
-     * accepted from CAD Clients.  When a connection is accepted, a Socket is created,
-     * passed into the CADSimulatorClient's constructor, and then that new 
-     * Client thread is spun off, and the ServerSocket returns to accepting 
-     * more clients.  The CADSimulatorViewer is notified of a successful client
-     * conection after the Socket creating completes.  If there is an error in 
-     * establishing connection to a client, the ServerSocket will continue to 
-     * accept connections.
+     * Returns the port the ServerSocketChannel is bound to.
      */
-    public void run() { 
-        
-        Socket clientSocket;
-        
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of connected clients.
+     */
+    public int getClientCount() {
+        return clientCount.get();
+    }
+
+    /**
+     * Returns the number of clients that have disconnected or been
+     * disconnected.
+     */
+    public long getDisconnectCount() {
+        return disconnectCount.get();
+    }
+
+    /**
+     * Called by a client that has queued commands.  The commands are written
+     * by this thread.  This method does not block.
+     *
+     * @param client The client with queued commands.
+     */
+    void requestWrite(CADSimulatorClient client) {
+        writeRequests.add(client);
+        selector.wakeup();
+    }
+
+    /**
+     * Called by a client when it disconnects.
+     *
+     * @param client The disconnected client.
+     */
+    void clientDisconnected(CADSimulatorClient client) {
+        clientCount.decrementAndGet();
+        disconnectCount.incrementAndGet();
+    }
+
+    /**
+     * While this thread is not interrupted, the selector waits for
+     * connection requests from CAD Clients, data from connected clients,
+     * and clients that can accept queued commands.  When a connection is
+     * accepted, a CADSimulatorClient is created for the channel and that new
+     * Client thread is spun off.  The CADSimulatorViewer is notified of a
+     * successful client conection after the client is created.  If there is
+     * an error in establishing connection to a client, or in communicating
+     * with one client, the handler continues to serve the other clients.
+     */
+    public void run() {
+
         while (!isInterrupted()) {
-            try 
+            try
             {
-                clientSocket = serverSocket.accept();
+                selector.select(SELECT_TIMEOUT);
+
+                CADSimulatorClient requested;
+                while((requested = writeRequests.poll()) != null) {
+                    write(requested.getChannelKey(selector), requested);
+                }
 
-                CADSimulatorClient theTMClient = new CADSimulatorClient(clientSocket);
-                theTMClient.start();
-                //CADSimulator.theViewer.connectClient();
-            }     
-            catch(SocketTimeoutException ste) {}
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    try {
+                        if(key.isAcceptable()) {
+                            accept();
+                        }
+                        else {
+                            CADSimulatorClient client = (CADSimulatorClient)key.attachment();
+                            if(key.isReadable()) {
+                                read(key, client);
+                            }
+                            if(key.isValid() && key.isWritable()) {
+                                write(key, client);
+                            }
+                        }
+                    }
+                    catch(CancelledKeyException cke) {}
+                }
+
+                disconnectStalledClients();
+            }
             catch(Exception e) {
-                socketLogger.logp(Level.SEVERE, "CADSimulatorSocketHandler", "run", 
-                        "Exception in creating a connection to a remote CAD Client.", e);
+                socketLogger.logp(Level.SEVERE, "CADSimulatorSocketHandler", "run",
+                        "Exception in handling remote CAD Client connections.", e);
             }
         }
-        
+
+        for(SelectionKey key : selector.keys()) {
+            if(key.attachment() instanceof CADSimulatorClient) {
+                ((CADSimulatorClient)key.attachment()).disconnectClient();
+            }
+        }
+
         try {
-            serverSocket.close();
+            serverChannel.close();
+            selector.close();
         }
         catch (IOException ioe) {
-            socketLogger.logp(Level.SEVERE, "CADSimulatorSocketHandler", "run", 
+            socketLogger.logp(Level.SEVERE, "CADSimulatorSocketHandler", "run",
                     "Exception in closing socket.", ioe);
         }
-    }   
-}
\ No newline at end of file
+    }
+
+    /**
+     * Accept a pending connection and start a CADSimulatorClient for it.
+     */
+    private void accept() {
+
+        SocketChannel channel = null;
+
+        try {
+            channel = serverChannel.accept();
+            if(channel == null) {
+                return;
+            }
+
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+
+            CADSimulatorClient theTMClient = new CADSimulatorClient(channel, this,
+                    queueSize, resetPolicy);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ, theTMClient);
+            clientCount.incrementAndGet();
+            theTMClient.start();
+
+            //write the stream header and screen refresh queued at construction
+            write(key, theTMClient);
+            //CADSimulator.theViewer.connectClient();
+        }
+        catch(Exception e) {
+            socketLogger.logp(Level.SEVERE, "CADSimulatorSocketHandler", "accept",
+                    "Exception in creating a connection to a remote CAD Client.", e);
+
+            try { if(channel != null) channel.close(); } catch (IOException ioe) {}
+        }
+    }
+
+    /**
+     * Read the available bytes from a client's channel and pass them to the
+     * client.  The client is disconnected if the channel has been closed or
+     * an error occurs.
+     */
+    private void read(SelectionKey key, CADSimulatorClient client) {
+
+        try {
+            readBuffer.clear();
+            int count = ((SocketChannel)key.channel()).read(readBuffer);
+
+            if(count == -1) {
+                client.disconnectClient();
+            }
+            else if(count > 0) {
+                readBuffer.flip();
+                client.receiveBytes(readBuffer);
+            }
+        }
+        catch(IOException ioe) {
+            socketLogger.logp(Level.SEVERE, "CADSimulatorSocketHandler", "read",
+                    "Error in reading from Client socket: " +
+                    client.getAddress() + ", dropping connection.", ioe);
+
+            client.disconnectClient();
+        }
+    }
+
+    /**
+     * Write a client's queued commands.  If the channel cannot accept all
+     * of them, the selector waits for the channel to become writable.  The
+     * client is disconnected if an error occurs.
+     */
+    private void write(SelectionKey key, CADSimulatorClient client) {
+
+        if(key == null || !key.isValid()) {
+            return;
+        }
+
+        try {
+            if(client.writeQueuedCommands()) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+            else {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+        catch(IOException ioe) {
+            socketLogger.logp(Level.SEVERE, "CADSimulatorSocketHandler", "write",
+                    "Error writing to Client socket: " +
+                    client.getAddress() + ", dropping connection.", ioe);
+
+            client.disconnectClient();
+        }
+    }
+
+    /**
+     * Disconnect every client that has not accepted any data within the
+     * write timeout while data was waiting.
+     */
+    private void disconnectStalledClients() {
+
+        long now = System.currentTimeMillis();
+
+        for(SelectionKey key : selector.keys()) {
+            if(key.isValid() && key.attachment() instanceof CADSimulatorClient) {
+                CADSimulatorClient client = (CADSimulatorClient)key.attachment();
+
+                if(client.isWriteStalled(now)) {
+                    socketLogger.logp(Level.WARNING, "CADSimulatorSocketHandler",
+                            "disconnectStalledClients", "Client socket: " +
+                            client.getAddress() + " is not reading, dropping connection.");
+
+                    client.disconnectClient();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package tmcsim.cadsimulator;
+
+import java.rmi.RemoteException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.table.DefaultTableModel;
+
+import tmcsim.client.cadclientgui.data.CADTopic;
+import tmcsim.client.cadclientgui.data.CADUpdate;
+import tmcsim.client.cadclientgui.data.TableDelta;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.INC_TABLE;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+import tmcsim.interfaces.CADClientInterface;
+
+/**
+ * CADSubscriptionManager pushes CADData changes to the CAD Clients that have
+ * subscribed to them, replacing the clients' once a second polling.  A client
+ * subscribes to topics (a CADData table, or one incident's comments and notes).
+ * When the Coordinator publishes a topic, each subscriber of that topic marks it
+ * as pending in its own outbound queue and returns immediately; the publisher
+ * never makes a remote call.<br>
+ * <br>
+ * The CADData tables are read once for each publishTables(), whatever the
+ * number of clients, and a table topic is published only when the table's
+ * version has moved.  Each subscriber has its own sender thread.  The sender
+ * takes every pending topic, builds the updates (the recorded table changes
+ * since the last version sent to that client, or the incident's current table)
+ * and sends them in one callback.
+ * A topic is queued at most once, so repeated changes between two sends are
+ * coalesced into one update.  The queue is bounded; when it is full the oldest
+ * topic is dropped.  A dropped table topic is not lost, since the next publish
+ * of the table sends all changes since the client's last version.  A client
+ * whose callback fails is removed.  If nothing changed, nothing is sent, so an
+ * idle client generates no load.
+ *
+ * @author Jonathan Molina
+ */
+public class CADSubscriptionManager
+{
+    /**
+     * Interface for the object that supplies the data sent to subscribers.
+     */
+    public static interface UpdateSource
+    {
+        /**
+         * Reads a CADData table, records a new version if it changed and
+         * returns the table's version.
+         */
+        public long refreshTable(TABLE tag);
+
+        /**
+         * Returns the changes to a CADData table since the specified version,
+         * as of the table's last refresh.
+         */
+        public TableDelta getTableDelta(TABLE tag, long sinceVersion);
+
+        /**
+         * Returns the specified incident's table, or null if the incident does
+         * not exist.
+         */
+        public DefaultTableModel getIncidentTable(INC_TABLE tag, int incidentId);
+    }
+
+    /** Default maximum number of pending topics per client. */
+    public static final int DEFAULT_QUEUE_SIZE = 32;
+
+    /** Error logger. */
+    private Logger subLogger = Logger.getLogger("tmcsim.cadsimulator");
+
+    /** Source of the data sent to subscribers. */
+    private UpdateSource source;
+
+    /** Maximum number of pending topics per client. */
+    private int queueSize;
+
+    /** Subscribers, keyed by the client's callback interface. */
+    private LinkedHashMap<CADClientInterface, Subscriber> subscribers;
+
+    /** Lock guarding the table refresh and the published versions. */
+    private final Object publishLock = new Object();
+
+    /** Version of each table when it was last published, guarded by publishLock. */
+    private EnumMap<TABLE, Long> publishedVersions = new EnumMap<TABLE, Long>(TABLE.class);
+
+    /** Number of pending topics dropped because a client's queue was full. */
+    private AtomicLong droppedUpdates = new AtomicLong();
+
+    /** Number of publishes merged into an already pending topic. */
+    private AtomicLong coalescedUpdates = new AtomicLong();
+
+    /** Number of callbacks sent to clients. */
+    private AtomicLong sentUpdates = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param theSource Source of the data sent to subscribers.
+     * @param maxPending Maximum number of pending topics per client.
+     */
+    public CADSubscriptionManager(UpdateSource theSource, int maxPending)
+    {
+        source = theSource;
+        queueSize = maxPending;
+        subscribers = new LinkedHashMap<CADClientInterface, Subscriber>();
+    }
+
+    /**
+     * Subscribes a client to the parameter topics.  The tables are refreshed,
+     * and each topic is published to the client once so that it receives the
+     * current data.
+     *
+     * @param client Interface to the CADClient for callback RMI.
+     * @param topics Topics to subscribe to.
+     */
+    public void subscribe(CADClientInterface client, Collection<CADTopic> topics)
+    {
+        publishTables();
+
+        synchronized (this)
+        {
+            Subscriber sub = subscribers.get(client);
+            if (sub == null)
+            {
+                sub = new Subscriber(client);
+                subscribers.put(client, sub);
+                sub.start();
+            }
+            for (CADTopic topic : topics)
+            {
+                sub.addTopic(topic);
+                sub.offer(topic);
+            }
+        }
+    }
+
+    /**
+     * Unsubscribes a client from the parameter topics.
+     *
+     * @param client Interface to the CADClient for callback RMI.
+     * @param topics Topics to unsubscribe from.
+     */
+    public synchronized void unsubscribe(CADClientInterface client,
+            Collection<CADTopic> topics)
+    {
+        Subscriber sub = subscribers.get(client);
+        if (sub != null)
+        {
+            for (CADTopic topic : topics)
+            {
+                sub.removeTopic(topic);
+            }
+        }
+    }
+
+    /**
+     * Removes a client and all of its subscriptions.
+     *
+     * @param client Interface to the CADClient for callback RMI.
+     */
+    public synchronized void removeClient(CADClientInterface client)
+    {
+        Subscriber sub = subscribers.remove(client);
+        if (sub != null)
+        {
+            sub.close();
+        }
+    }
+
+    /**
+     * Returns whether the client has subscribed to any topic.
+     *
+     * @param client Interface to the CADClient for callback RMI.
+     * @return True if the client is a subscriber.
+     */
+    public synchronized boolean isSubscribed(CADClientInterface client)
+    {
+        return subscribers.containsKey(client);
+    }
+
+    /**
+     * Queues the topic for every client subscribed to it.  This method does not
+     * make any remote calls.
+     *
+     * @param topic Topic that has changed.
+     */
+    public synchronized void publish(CADTopic topic)
+    {
+        for (Subscriber sub : subscribers.values())
+        {
+            sub.offer(topic);
+        }
+    }
+
+    /**
+     * Reads every CADData table once and queues the topic of each table whose
+     * version has moved since it was last published, for the clients
+     * subscribed to it.  Unchanged tables cost one read, however many clients
+     * are subscribed, and are not queued.
+     */
+    public void publishTables()
+    {
+        Vector<TABLE> changed = new Vector<TABLE>();
+        synchronized (publishLock)
+        {
+            for (TABLE table : TABLE.values())
+            {
+                long version = source.refreshTable(table);
+                Long published = publishedVersions.put(table, version);
+                if (published == null || published.longValue() != version)
+                {
+                    changed.add(table);
+                }
+            }
+        }
+        for (TABLE table : changed)
+        {
+            publish(new CADTopic(table));
+        }
+    }
+
+    /**
+     * Removes every subscriber and stops their sender threads.
+     */
+    public synchronized void shutdown()
+    {
+        for (Subscriber sub : subscribers.values())
+        {
+            sub.close();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Returns the number of subscribed clients.
+     */
+    public synchronized int getSubscriberCount()
+    {
+        return subscribers.size();
+    }
+
+    /**
+     * Returns the number of pending topics dropped because a queue was full.
+     */
+    public long getDroppedUpdates()
+    {
+        return droppedUpdates.get();
+    }
+
+    /**
+     * Returns the number of publishes merged into an already pending topic.
+     */
+    public long getCoalescedUpdates()
+    {
+        return coalescedUpdates.get();
+    }
+
+    /**
+     * Returns the number of callbacks sent to clients.
+     */
+    public long getSentUpdates()
+    {
+        return sentUpdates.get();
+    }
+
+    /**
+     * Called by a sender thread when its client's callback has failed.
+     */
+    private synchronized void clientFailed(Subscriber sub, Exception e)
+    {
+        if (subscribers.get(sub.client) == sub)
+        {
+            subscribers.remove(sub.client);
+        }
+        sub.close();
+
+        subLogger.logp(Level.WARNING, "CADSubscriptionManager", "clientFailed",
+                "Connection to CAD Client has been dropped.", e);
+    }
+
+    /**
+     * One subscribed client: its topics, the last table versions sent to it and
+     * its bounded queue of pending topics.  The queue is guarded by the
+     * Subscriber's monitor.
+     */
+    private class Subscriber implements Runnable
+    {
+        private CADClientInterface client;
+
+        private LinkedHashSet<CADTopic> topics = new LinkedHashSet<CADTopic>();
+
+        private LinkedHashSet<CADTopic> pending = new LinkedHashSet<CADTopic>();
+
+        /** Accessed only by the sender thread. */
+        private EnumMap<TABLE, Long> versions = new EnumMap<TABLE, Long>(TABLE.class);
+
+        private Thread sender;
+
+        private boolean closed = false;
+
+        Subscriber(CADClientInterface theClient)
+        {
+            client = theClient;
+        }
+
+        void start()
+        {
+            sender = new Thread(this, "CAD Subscriber");
+            sender.setDaemon(true);
+            sender.start();
+        }
+
+        synchronized void addTopic(CADTopic topic)
+        {
+            topics.add(topic);
+        }
+
+        synchronized void removeTopic(CADTopic topic)
+        {
+            topics.remove(topic);
+            pending.remove(topic);
+        }
+
+        synchronized void offer(CADTopic topic)
+        {
+            if (closed || !topics.contains(topic))
+            {
+                return;
+            }
+            if (pending.contains(topic))
+            {
+                coalescedUpdates.incrementAndGet();
+                return;
+            }
+            if (pending.size() >= queueSize)
+            {
+                Iterator<CADTopic> oldest = pending.iterator();
+                oldest.next();
+                oldest.remove();
+                droppedUpdates.incrementAndGet();
+            }
+            pending.add(topic);
+            notifyAll();
+        }
+
+        synchronized void close()
+        {
+            closed = true;
+            pending.clear();
+            notifyAll();
+        }
+
+        /**
+         * Waits for pending topics and returns them, or null if closed.
+         */
+        private synchronized Vector<CADTopic> takePending() throws InterruptedException
+        {
+            while (!closed && pending.isEmpty())
+            {
+                wait();
+            }
+            if (closed)
+            {
+                return null;
+            }
+            Vector<CADTopic> taken = new Vector<CADTopic>(pending);
+            pending.clear();
+            return taken;
+        }
+
+        public void run()
+        {
+            try
+            {
+                Vector<CADTopic> taken;
+                while ((taken = takePending()) != null)
+                {
+                    Vector<CADUpdate> updates = buildUpdates(taken);
+                    if (!updates.isEmpty())
+                    {
+                        client.publish(updates);
+                        sentUpdates.incrementAndGet();
+                    }
+                }
+            }
+            catch (RemoteException re)
+            {
+                clientFailed(this, re);
+            }
+            catch (InterruptedException ie)
+            {
+                // closed
+            }
+        }
+
+        private Vector<CADUpdate> buildUpdates(Vector<CADTopic> taken)
+        {
+            Vector<CADUpdate> updates = new Vector<CADUpdate>();
+            for (CADTopic topic : taken)
+            {
+                try
+                {
+                    if (topic.isTable())
+                    {
+                        Long version = versions.get(topic.table);
+                        TableDelta delta = source.getTableDelta(topic.table,
+                                version == null ? 0 : version.longValue());
+                        if (!delta.isEmpty())
+                        {
+                            versions.put(topic.table, delta.toVersion);
+                            updates.add(new CADUpdate(topic, delta));
+                        }
+                    }
+                    else
+                    {
+                        DefaultTableModel table = source.getIncidentTable(
+                                topic.incTable, topic.incidentId);
+                        if (table != null)
+                        {
+                            updates.add(new CADUpdate(topic, table));
+                        }
+                    }
+                }
+                catch (RuntimeException e)
+                {
+                    subLogger.logp(Level.WARNING, "CADSubscriptionManager",
+                            "buildUpdates", "Unable to read topic " + topic, e);
+                }
+            }
+            return updates;
+        }
+    }
+}
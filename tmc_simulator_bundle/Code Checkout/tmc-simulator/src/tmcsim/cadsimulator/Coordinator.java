@@ -5,17 +5,21 @@ import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Observer;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.table.DefaultTableModel;
-import javax.xml.parsers.SAXParserFactory;
 
 import tmcsim.cadmodels.CADRoutedMessage;
 import tmcsim.cadmodels.CMSInfo;
@@ -25,6 +29,7 @@ import tmcsim.cadmodels.IncidentInquiryUnitsAssigned;
 import tmcsim.cadmodels.IncidentSummaryModel_obj;
 import tmcsim.cadsimulator.db.CMSDiversionDB;
 import tmcsim.cadsimulator.managers.ATMSManager;
+import tmcsim.cadsimulator.managers.CheckpointManager;
 import tmcsim.cadsimulator.managers.IncidentManager;
 import tmcsim.cadsimulator.managers.MediaManager;
 import tmcsim.cadsimulator.managers.ParamicsSimulationManager;
@@ -32,14 +37,17 @@ import tmcsim.cadsimulator.managers.SimulationControlManager;
 import tmcsim.cadsimulator.viewer.model.CADSimulatorModel;
 import tmcsim.cadsimulator.viewer.model.SimulationStatusPanelModel;
 import tmcsim.client.cadclientgui.CardfileReader;
-import tmcsim.client.cadclientgui.ScriptHandler;
+import tmcsim.client.cadclientgui.ScriptLoader;
 import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.CADField;
+import tmcsim.client.cadclientgui.data.CADTopic;
 import tmcsim.client.cadclientgui.data.CardfileData;
 import tmcsim.client.cadclientgui.data.CardfileDataObject;
-import tmcsim.client.cadclientgui.data.CardfileList;
+import tmcsim.client.cadclientgui.data.CardfilePage;
 import tmcsim.client.cadclientgui.data.ChangeLog;
 import tmcsim.client.cadclientgui.data.Incident;
 import tmcsim.client.cadclientgui.data.IncidentEvent;
+import tmcsim.client.cadclientgui.data.TableDelta;
 import tmcsim.client.cadclientgui.enums.CADDataEnums.*;
 import tmcsim.client.cadclientgui.enums.CADScriptTags.UNIT_TAGS;
 import tmcsim.client.cadclientgui.enums.IncidentEnums;
@@ -48,11 +56,15 @@ import tmcsim.common.ObserverMessage;
 import tmcsim.common.ScriptException;
 import tmcsim.common.SimulationException;
 import tmcsim.common.XMLIncident;
+import tmcsim.common.CADEnums.CLOCK_MODE;
 import tmcsim.common.CADEnums.PARAMICS_STATUS;
 import tmcsim.common.CADEnums.SCRIPT_STATUS;
 import tmcsim.interfaces.CADClientInterface;
 import tmcsim.interfaces.CoordinatorInterface;
 import tmcsim.interfaces.SimulationManagerInterface;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
 
 /**
  * Coordinator is used to control and manage interactions between all CAD Simulator
@@ -62,6 +74,7 @@ import tmcsim.interfaces.SimulationManagerInterface;
  * the Coordinator to listen for simulation data updates.
  *
  * @see ATMSManager
+ * @see CheckpointManager
  * @see IncidentManager
  * @see MediaManager
  * @see ParamicsSimulationManager
@@ -81,9 +94,10 @@ public class Coordinator extends UnicastRemoteObject
     /**
      * List of all Observers that have been registered with the Coordinator. Due to being
      * a remote object, Coordinator cannot extend the Observable class. Therefore, the
-     * list is managed manually.
+     * list is managed manually.  The list is copied on write, so observers may be
+     * removed while they are being notified.
      */
-    private Vector<Observer> observerList = null;
+    private CopyOnWriteArrayList<Observer> observerList = null;
     /**
      * Interface object for RMI communication with the Simulation Manager. Only one
      * Simulation Manager may be connected at a time. When there is no connected Manager,
@@ -94,6 +108,31 @@ public class Coordinator extends UnicastRemoteObject
     private static CADData cadData;
     private static CardfileData cardfileData;
     private CADSimulatorModel cadSimModel;
+    /**
+     * Executor used to run simulation updates and remote notifications in order on
+     * a single worker thread.
+     */
+    private SimulationEventExecutor eventExecutor;
+    /**
+     * Pushes CADData changes to the CAD Clients that have subscribed to them.
+     */
+    private CADSubscriptionManager subscriptions;
+    /**
+     * Flag set while the simulation is being repositioned by gotoSimulationTime().
+     * Observers, the SimulationManager, and the CAD Clients are not notified of
+     * each IncidentEvent while it is set.
+     */
+    private volatile boolean seeking = false;
+    /**
+     * Topics of the CADData changes made while seeking, published once the seek
+     * has finished.
+     */
+    private Set<CADTopic> seekTopics =
+            Collections.synchronizedSet(new LinkedHashSet<CADTopic>());
+    /**
+     * Time taken to reposition the simulation.
+     */
+    private Timer seekTimer = MetricsRegistry.getInstance().timer("Coordinator.seek");
 
     /**
      * Constructor. Call UnicastRemoteObject constructor and call initializeSimulation.
@@ -118,7 +157,32 @@ public class Coordinator extends UnicastRemoteObject
             System.out.println("Could not load cardfile script");
         }
 
-        observerList = new Vector<Observer>();
+        observerList = new CopyOnWriteArrayList<Observer>();
+        eventExecutor = new SimulationEventExecutor("Coordinator",
+                new CoordinatorTickHandler());
+        subscriptions = new CADSubscriptionManager(
+                new CADSubscriptionManager.UpdateSource()
+                {
+                    public long refreshTable(TABLE tag)
+                    {
+                        return cadData.refreshTable(tag);
+                    }
+
+                    public TableDelta getTableDelta(TABLE tag, long sinceVersion)
+                    {
+                        return cadData.getRecordedTableDelta(tag, sinceVersion);
+                    }
+
+                    public DefaultTableModel getIncidentTable(INC_TABLE tag, int incidentId)
+                    {
+                        Incident inc = cadData.getIncident(incidentId);
+                        if (inc != null && tag.equals(INC_TABLE.COMMENTS_NOTES))
+                        {
+                            return inc.getCommentsNotesTable();
+                        }
+                        return null;
+                    }
+                }, CADSubscriptionManager.DEFAULT_QUEUE_SIZE);
     }
 
     public void registerForCallback(CADClientInterface client) throws RemoteException
@@ -130,9 +194,47 @@ public class Coordinator extends UnicastRemoteObject
     public void unregisterForCallback(CADClientInterface client) throws RemoteException
     {
         clientList.remove(client);
+        subscriptions.removeClient(client);
         cadSimModel.disconnectClient();
     }
 
+    /**
+     * Subscribes a CAD Client to the parameter topics.  The current data for each
+     * topic is pushed to the client, followed by every later change.
+     *
+     * @param client Interface to the CADClient for callback RMI.
+     * @param topics Topics to subscribe to.
+     * @throws RemoteException
+     */
+    public void subscribe(CADClientInterface client, Vector<CADTopic> topics)
+            throws RemoteException
+    {
+        subscriptions.subscribe(client, topics);
+    }
+
+    /**
+     * Unsubscribes a CAD Client from the parameter topics.
+     *
+     * @param client Interface to the CADClient for callback RMI.
+     * @param topics Topics to unsubscribe from.
+     * @throws RemoteException
+     */
+    public void unsubscribe(CADClientInterface client, Vector<CADTopic> topics)
+            throws RemoteException
+    {
+        subscriptions.unsubscribe(client, topics);
+    }
+
+    /**
+     * Returns the manager used to push CADData changes to subscribed clients.
+     *
+     * @return The subscription manager.
+     */
+    public CADSubscriptionManager getSubscriptionManager()
+    {
+        return subscriptions;
+    }
+
     public void registerForCallback(SimulationManagerInterface simManInt) 
             throws RemoteException
     {
@@ -183,19 +285,37 @@ public class Coordinator extends UnicastRemoteObject
                     {
                         CADSimulator.theSimulationCntrlMgr.startSimulation();
                         CADSimulator.theParamicsSimMgr.startSimulation();
-                        CADSimulator.theSoundPlayer.setAudioEnabled(true);
+                        CADSimulator.theSoundPlayer.setAudioEnabled(
+                                CADSimulator.theSimulationCntrlMgr.getClockMode()
+                                == CLOCK_MODE.REAL_TIME);
                     }
                 }
             };
 
-            Thread startThread = new Thread(startRun);
-            startThread.start();
+            eventExecutor.submit(startRun);
         }
         else
         {
             CADSimulator.theSimulationCntrlMgr.startSimulation();
-            CADSimulator.theSoundPlayer.setAudioEnabled(true);
+            CADSimulator.theSoundPlayer.setAudioEnabled(
+                    CADSimulator.theSimulationCntrlMgr.getClockMode()
+                    == CLOCK_MODE.REAL_TIME);
+        }
+    }
+
+    public void setClockMode(CLOCK_MODE mode, double acceleration) throws RemoteException
+    {
+        CADSimulator.theSimulationCntrlMgr.setClockMode(mode, acceleration);
+        CADSimulator.theParamicsSimMgr.setSimulationSpeed(
+                CADSimulator.theSimulationCntrlMgr.getClockSpeed());
+
+        if (CADSimulator.theSimulationCntrlMgr.simulationStarted())
+        {
+            CADSimulator.theSoundPlayer.setAudioEnabled(mode == CLOCK_MODE.REAL_TIME);
         }
+
+        coorLogger.logp(Level.INFO, "Coordinator", "setClockMode",
+                "Simulation clock set to " + mode.name + ".");
     }
 
     public void pauseSimulation() throws RemoteException
@@ -221,30 +341,72 @@ public class Coordinator extends UnicastRemoteObject
 
         CADSimulator.theSimulationCntrlMgr.resetSimulation();
         CADSimulator.theParamicsSimMgr.resetSimulation();
+        eventExecutor.resetTicks();
 
         notifyObservers(new ObserverMessage(
                 ObserverMessage.messageType.RESET_SIMULATION, null));
 
     }
 
+    /**
+     * Repositions the simulation to a new time after it has been reset.  The
+     * latest checkpoint at or before the new time is restored, then the
+     * IncidentManager is ticked, with audio disabled, at each time an Incident or
+     * IncidentEvent is scheduled until the new time is reached.  Observers, the
+     * SimulationManager, and the CAD Clients are not notified of each IncidentEvent
+     * during the seek.  Once it has finished, the changed tables are published to
+     * the CAD Clients and a task is queued to send the SimulationManager the
+     * started Incidents, the completed IncidentEvents, and the new time.  The time
+     * taken is recorded in the "Coordinator.seek" metric.
+     *
+     * @param newSimTime New simulation time (in seconds).
+     * @see CheckpointManager
+     */
     public void gotoSimulationTime(final long newSimTime) throws RemoteException
     {
-
+        long start = System.nanoTime();
         boolean audioWasEnabled = CADSimulator.theSoundPlayer.getAudioEnabled();
 
         CADSimulator.theSoundPlayer.setAudioEnabled(false);
-
-        long tempTime = 0;
-        while (tempTime < newSimTime)
+        seeking = true;
+        try
         {
-            tempTime++;
+            long tempTime = restoreCheckpoint(newSimTime);
 
-            CADSimulator.theIncidentMgr.tick(tempTime);
+            //only the times at which work is scheduled need to be ticked
+            tempTime = CADSimulator.theIncidentMgr.getNextEventTime(tempTime);
+            while (tempTime > 0 && tempTime <= newSimTime)
+            {
+                CADSimulator.theIncidentMgr.tick(tempTime);
+                tempTime = CADSimulator.theIncidentMgr.getNextEventTime(tempTime);
+            }
+        }
+        finally
+        {
+            seeking = false;
+            CADSimulator.theSoundPlayer.setAudioEnabled(audioWasEnabled);
         }
-        CADSimulator.theSoundPlayer.setAudioEnabled(audioWasEnabled);
-
 
         CADSimulator.theSimulationCntrlMgr.gotoSimulationTime(newSimTime);
+        eventExecutor.resetTicks();
+
+        synchronized (seekTopics)
+        {
+            for (CADTopic topic : seekTopics)
+            {
+                subscriptions.publish(topic);
+            }
+            seekTopics.clear();
+        }
+        subscriptions.publishTables();
+
+        final TreeMap<Integer, Vector<IncidentEvent>> occurredEvents =
+                new TreeMap<Integer, Vector<IncidentEvent>>();
+        for (Map.Entry<Integer, Vector<IncidentEvent>> entry
+                : CADSimulator.theIncidentMgr.getTriggeredEvents().entrySet())
+        {
+            occurredEvents.put(entry.getKey(), new Vector<IncidentEvent>(entry.getValue()));
+        }
 
         Runnable gotoRun = new Runnable()
         {
@@ -256,6 +418,15 @@ public class Coordinator extends UnicastRemoteObject
                 {
                     try
                     {
+                        for (Map.Entry<Integer, Vector<IncidentEvent>> entry
+                                : occurredEvents.entrySet())
+                        {
+                            managerInt.incidentStarted(entry.getKey());
+                            for (IncidentEvent event : entry.getValue())
+                            {
+                                managerInt.eventOccured(entry.getKey(), event);
+                            }
+                        }
                         managerInt.tick(newSimTime);
                     }
                     catch (RemoteException re)
@@ -272,14 +443,70 @@ public class Coordinator extends UnicastRemoteObject
             }
         };
 
-        Thread gotoThread = new Thread(gotoRun);
-        gotoThread.start();
+        eventExecutor.submit(gotoRun);
+
+        seekTimer.recordSince(start);
+    }
+
+    /**
+     * Restores the latest checkpoint at or before the parameter time.  The
+     * ParamicsSimulationManager, which was reset with the simulation, is sent the
+     * restored Incident updates and diversions, and the restored incident tables
+     * are published to the CAD Clients once the seek has finished.
+     *
+     * @param newSimTime New simulation time (in seconds).
+     * @return Simulation time of the restored checkpoint, or 0 if none was restored.
+     */
+    private long restoreCheckpoint(long newSimTime)
+    {
+        if (CADSimulator.theCheckpointMgr == null)
+        {
+            return 0;
+        }
+
+        long checkpointTime = CADSimulator.theCheckpointMgr.restore(newSimTime);
+        if (checkpointTime > 0)
+        {
+            for (Vector<IncidentEvent> events
+                    : CADSimulator.theIncidentMgr.getTriggeredEvents().values())
+            {
+                for (IncidentEvent event : events)
+                {
+                    updateParamicsIncident(event);
+                }
+            }
+
+            for (CMSInfo diversion : CMSDiversionDB.getInstance().getAllDiversions().values())
+            {
+                CADSimulator.theParamicsSimMgr.updateDiversion(diversion);
+            }
+
+            for (Incident inc : CADSimulator.theIncidentMgr.getIncidentList())
+            {
+                if (cadData.checkForValidId(inc.getLogNum()))
+                {
+                    seekTopics.add(new CADTopic(INC_TABLE.COMMENTS_NOTES, inc.getLogNum()));
+                }
+            }
+        }
+        return checkpointTime;
+    }
 
+    /**
+     * Discards the simulation checkpoints, as the loaded Incidents have changed.
+     */
+    private void clearCheckpoints()
+    {
+        if (CADSimulator.theCheckpointMgr != null)
+        {
+            CADSimulator.theCheckpointMgr.clear();
+        }
     }
 
     /**
-     * Sets the current script status. A thread is started to notify the
-     * CADSimulatorViewer and SimulationManager with the new status.
+     * Sets the current script status. A task is queued on the simulation event
+     * executor to notify the CADSimulatorViewer and SimulationManager with the
+     * new status.
      */
     public void setScriptStatus(final SCRIPT_STATUS status)
     {
@@ -310,13 +537,13 @@ public class Coordinator extends UnicastRemoteObject
             }
         };
 
-        Thread updateThread = new Thread(updateRun);
-        updateThread.start();
+        eventExecutor.submit(updateRun);
     }
 
     /**
-     * Sets the current paramics status. A thread is started to notify the
-     * CADSimulatorViewer and SimulationManager with the new status.
+     * Sets the current paramics status. A task is queued on the simulation event
+     * executor to notify the CADSimulatorViewer and SimulationManager with the
+     * new status.
      */
     public void setParamicsStatus(final PARAMICS_STATUS status)
     {
@@ -363,8 +590,7 @@ public class Coordinator extends UnicastRemoteObject
             }
         };
 
-        Thread updateThread = new Thread(updateRun);
-        updateThread.start();
+        eventExecutor.submit(updateRun);
 
     }
 
@@ -417,6 +643,7 @@ public class Coordinator extends UnicastRemoteObject
     public void deleteIncident(Integer incidentNumber) throws RemoteException, ScriptException
     {
         CADSimulator.theIncidentMgr.deleteIncident(incidentNumber);
+        clearCheckpoints();
 
         if (CADSimulator.theIncidentMgr.getIncidentList().size() == 0)
         {
@@ -451,12 +678,14 @@ public class Coordinator extends UnicastRemoteObject
         }
 
         CADSimulator.theIncidentMgr.rescheduleIncident(incidentNumber, newTime);
+        clearCheckpoints();
     }
 
     public void addIncident(Incident newIncident) throws RemoteException
     {
 
         CADSimulator.theIncidentMgr.addIncident(newIncident);
+        clearCheckpoints();
 
         if (managerInt != null)
         {
@@ -476,31 +705,35 @@ public class Coordinator extends UnicastRemoteObject
         }
     }
 
+    /**
+     * Loads a script file.  The current incidents and units are removed, and
+     * the script's incidents are added to the IncidentManager and, with the
+     * script's units, to the CADData.  The script is parsed once by the
+     * ScriptLoader, which returns the cached scenario if the same script has
+     * been loaded before.  A scenario file compiled by the ScriptCompiler is
+     * loaded without parsing.  The simulation checkpoints are discarded.  The
+     * script's contents are journaled, so a replay does not need the file.
+     *
+     * @param scriptFile the script file or scenario file
+     * @throws ScriptException if the script cannot be read or parsed
+     */
     public void loadScriptFile(File scriptFile) throws RemoteException, ScriptException
     {
+        CADSimulator.journalScript(scriptFile);
 
+        CADSimulator.theIncidentMgr.clearIncidents();
+        cadData.clearData();
+        clearCheckpoints();
 
-        try
-        {
-            CADSimulator.theIncidentMgr.clearIncidents();
-            cadData.clearData();
-
-            ScriptHandler sh = new ScriptHandler();
-
-            SAXParserFactory.newInstance().newSAXParser().parse(scriptFile, sh);
-
-            cadData.setIncidentsFromXML(sh.getIncidents());
-            cadData.setUnitsFromXML(sh.getUnits());
-            refreshClients();
-            CADSimulator.theIncidentMgr.addIncidents(sh.getIncidents());
+        ScriptLoader.Scenario scenario = ScriptLoader.load(scriptFile);
+        Vector<Incident> incidents = scenario.getIncidents();
 
-            resetSimulation();
-        }
-        catch (Exception e)
-        {
-            e.printStackTrace();
-        }
+        cadData.setIncidentsFromXML(incidents);
+        cadData.setUnitsFromXML(scenario.getUnits());
+        refreshClients();
+        CADSimulator.theIncidentMgr.addIncidents(incidents);
 
+        resetSimulation();
     }
 
     public Vector<Incident> getIncidentList() throws RemoteException
@@ -540,12 +773,14 @@ public class Coordinator extends UnicastRemoteObject
      * Route a message to a CAD terminal. If the new message is an incident update, the
      * current message text will be the requested incident's log number. Set the
      * message's text to the XML representation of the requested IncidentInquiry object.
-     * Notify observers with the new message.
+     * Notify observers with the new message.  The call is journaled, as it is not
+     * made through the Coordinator's remote interface.
      *
      * @param newMessage Routed message received from CAD Client.
      */
     public void routeMessage(CADRoutedMessage newMessage)
     {
+        journalCall("routeMessage", CADRoutedMessage.class, newMessage);
 
         //if this is an incidentUpdate
         /*
@@ -591,13 +826,16 @@ public class Coordinator extends UnicastRemoteObject
     /**
      * Method updates the simulation with the new Incident information. The parameter
      * IncidentInquiryModel_obj Object is used to create a new IncidentEvent Object which
-     * is finalized and sent to the IncidentManager for simulation updating.
+     * is finalized and sent to the IncidentManager for simulation updating.  The
+     * call is journaled, as it is not made through the Coordinator's remote interface.
      *
      * @param update IncidentInquiryModel_obj containing CAD line update
      * @see IncidentManager
      */
     public void commandLineUpdate(IncidentInquiryModel_obj modelInfo)
     {
+        journalCall("commandLineUpdate", IncidentInquiryModel_obj.class, modelInfo);
+
 
         long currentSimTime = CADSimulator.theSimulationCntrlMgr.getCurrentSimTime();
 
@@ -613,73 +851,130 @@ public class Coordinator extends UnicastRemoteObject
     }
 
     /**
-     * If the Simulation has started, spawn a thread to update the CADSimulatorViewer,
-     * SimulationManager, and IncidentManager with the new simulation time. If the
-     * current time is a 30 second interval, notify the ParamicsControlManager to send an
-     * IncidentUpdate.
+     * If the Simulation has started, queue a tick on the simulation event executor
+     * to update the CADSimulatorViewer, SimulationManager, and IncidentManager with
+     * the new simulation time.  Ticks are handled in order by the
+     * CoordinatorTickHandler.
      *
      * @see SimulationControlManager
-     * @see ParamicsControlManager
-     * @see IncidentManager
+     * @see SimulationEventExecutor
      */
     public void tick()
     {
         if (CADSimulator.theSimulationCntrlMgr.simulationStarted())
         {
+            eventExecutor.submitTick(
+                    CADSimulator.theSimulationCntrlMgr.getCurrentSimTime());
+        }
+    }
+
+    /**
+     * Returns the next simulation time after the parameter time at which an
+     * incident or incident event is scheduled.  Used by the simulation clock
+     * when running as fast as possible.
+     *
+     * @param currentSimTime Current simulation time (in seconds).
+     * @return Next scheduled simulation time, or -1 if nothing is scheduled.
+     */
+    public long getNextEventTime(long currentSimTime)
+    {
+        return CADSimulator.theIncidentMgr.getNextEventTime(currentSimTime);
+    }
+
+    /**
+     * Returns the CADData holding the units and incidents shown to the CAD Clients.
+     *
+     * @return The CADData.
+     */
+    public CADData getCADData()
+    {
+        return cadData;
+    }
+
+    /**
+     * Returns the executor used for the Coordinator's fan-out work.  The executor
+     * provides queue depth and tick lag information.
+     *
+     * @return The simulation event executor.
+     */
+    public SimulationEventExecutor getEventExecutor()
+    {
+        return eventExecutor;
+    }
+
+    /**
+     * Handles clock ticks on the simulation event executor.  The
+     * CADSimulatorViewer, SimulationManager, and IncidentManager are updated with
+     * the new simulation time.  The ParamicsSimulationManager is notified to flush
+     * the IncidentUpdate, which is sent as soon as incidents or diversions have
+     * changed, and otherwise once the update interval has passed since the last
+     * update.  Ticks that have been coalesced are covered by the interval, as it
+     * is measured from the last update sent.  The CheckpointManager
+     * is then given the chance to take a checkpoint.  The time taken to handle
+     * each tick is recorded in the "Coordinator.tick" metric.
+     */
+    private class CoordinatorTickHandler implements SimulationEventExecutor.TickHandler
+    {
+        /** Time taken to handle a tick. */
+        private Timer tickTimer = MetricsRegistry.getInstance().timer("Coordinator.tick");
+
+        public void handleTick(long currentSimTime, long previousSimTime)
+        {
+            long start = System.nanoTime();
+            cadSimModel.setTime(currentSimTime);
 
-            final long currentSimTime = 
-                    CADSimulator.theSimulationCntrlMgr.getCurrentSimTime();
+            //send changes now, or an update every interval
+            CADSimulator.theParamicsSimMgr.flushIncidentUpdate(currentSimTime);
 
-            Runnable timeRun = new Runnable()
+            if (managerInt != null)
             {
-                public void run()
+                try
                 {
-                    cadSimModel.setTime(currentSimTime);
+                    managerInt.tick(currentSimTime);
+                }
+                catch (RemoteException re)
+                {
+                    //Simulation Manager has disappeared
+                    managerInt = null;
+                    cadSimModel.setSimManagerStatus(false);
+
+                    coorLogger.logp(
+                        Level.SEVERE, "Coordinator", "tick:run",
+                        "Connection to Simulation Manager has been dropped.",
+                        re);
+                }
+            }
 
-                    //send an update every 30 seconds
-                    if (currentSimTime % 30 == 0)
-                    {
-                        CADSimulator.theParamicsSimMgr
-                                .sendIncidentUpdate(currentSimTime);
-                    }
+            CADSimulator.theIncidentMgr.tick(currentSimTime);
 
-                    if (managerInt != null)
-                    {
-                        try
-                        {
-                            managerInt.tick(currentSimTime);
-                        }
-                        catch (RemoteException re)
-                        {
-                            //Simulation Manager has disappeared
-                            managerInt = null;
-                            cadSimModel.setSimManagerStatus(false);
-
-                            coorLogger.logp(
-                                Level.SEVERE, "Coordinator", "tick:run",
-                                "Connection to Simulation Manager has been dropped.",
-                                re);
-                        }
-                    }
+            if (CADSimulator.theCheckpointMgr != null)
+            {
+                CADSimulator.theCheckpointMgr.tick(currentSimTime);
+            }
 
-                    CADSimulator.theIncidentMgr.tick(currentSimTime);
-                }
-            };
+            //incidents and unit timers change with time
+            subscriptions.publishTables();
 
-            Thread timeThread = new Thread(timeRun);
-            timeThread.start();
+            tickTimer.recordSince(start);
         }
     }
 
     /**
      * Method notifies observers with an IncidentSummaryModel_obj to signify that a new
-     * Incident has started. Then spawn a thread to notify the SimulationManager with the
-     * Incident's log number has started.
+     * Incident has started. Then queue a task to notify the SimulationManager with the
+     * Incident's log number has started.  While seeking, only the CADData is
+     * updated.
      *
      * @param completedEvent Completed IncidentEvent.
      */
     public void incidentStarted(final IncidentEvent completedEvent)
     {
+        if (seeking)
+        {
+            incidentStartedInGUI(completedEvent.eventInfo.getLogNumber());
+            return;
+        }
+
         notifyObservers(new ObserverMessage(ObserverMessage.messageType.INCIDENT_SUMMARY,
                 new IncidentSummaryModel_obj(completedEvent.eventInfo.getHeader())));
 
@@ -710,16 +1005,17 @@ public class Coordinator extends UnicastRemoteObject
             }
         };
 
-        Thread startThread = new Thread(startRun);
-        startThread.start();
+        eventExecutor.submit(startRun);
     }
 
     /**
      * Method notifies observers with the IncidentEvent Object to signify that a new
      * IncidentEvent has completed. All XMLIncident Objects in the completed
      * IncidentEvent is sent to the ParamicsControlManager for transmission to Paramics.
-     * All CCTVInfo Objects are sent to the MediaManager for media control. A thread is
-     * then spawned to notify the SimulationManager with the completed IncidentEvent.
+     * All CCTVInfo Objects are sent to the MediaManager for media control. A task is
+     * then queued to notify the SimulationManager with the completed IncidentEvent.
+     * While seeking, only the XMLIncident Objects are sent.  Otherwise the completed
+     * IncidentEvent is journaled.
      *
      * @param completedEvent Completed IncidentEvent.
      * @see ParamicsControlManager
@@ -727,13 +1023,19 @@ public class Coordinator extends UnicastRemoteObject
      */
     public void incidentUpdated(final IncidentEvent completedEvent)
     {
+        if (seeking)
+        {
+            updateParamicsIncident(completedEvent);
+            return;
+        }
+
+        CADSimulator.journal(RECORD_TYPE.EVENT,
+                completedEvent.eventInfo.getLogNumber(), completedEvent);
+
         notifyObservers(new ObserverMessage(ObserverMessage.messageType.INCIDENT_INQUIRY,
                 completedEvent.eventInfo));
 
-        for (XMLIncident xmlInc : completedEvent.XMLIncidents)
-        {
-            CADSimulator.theParamicsSimMgr.updateIncident(xmlInc);
-        }
+        updateParamicsIncident(completedEvent);
 
 
         /*for(CCTVInfo info : completedEvent.cctvInfos) {
@@ -767,8 +1069,7 @@ public class Coordinator extends UnicastRemoteObject
             }
         };
 
-        Thread displayThread = new Thread(displayRun);
-        displayThread.start();
+        eventExecutor.submit(displayRun);
     }
 
     /**
@@ -803,6 +1104,37 @@ public class Coordinator extends UnicastRemoteObject
         return CADSimulator.theIncidentMgr.getIncidentSummaryModelObjects();
     }
 
+    /**
+     * Journals a call to a Coordinator method with one parameter, so the
+     * call is replayed with the session.
+     *
+     * @param method Name of the method.
+     * @param type Parameter type of the method.
+     * @param arg Argument of the call.
+     */
+    private void journalCall(String method, Class<?> type, Object arg)
+    {
+        if (CADSimulator.isJournaling())
+        {
+            CADSimulator.journal(RECORD_TYPE.CALL, method,
+                    new Class<?>[] { type }, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Sends the XMLIncident Objects of a completed IncidentEvent to the
+     * ParamicsSimulationManager.
+     *
+     * @param completedEvent Completed IncidentEvent.
+     */
+    private void updateParamicsIncident(IncidentEvent completedEvent)
+    {
+        for (XMLIncident xmlInc : completedEvent.XMLIncidents)
+        {
+            CADSimulator.theParamicsSimMgr.updateIncident(xmlInc);
+        }
+    }
+
     /**
      * Adds an observer to the list of observers.
      *
@@ -840,9 +1172,14 @@ public class Coordinator extends UnicastRemoteObject
 
     public void refreshClients() throws RemoteException
     {
+        subscriptions.publishTables();
         for (int i = 0; i < clientList.size(); i++)
         {
-            clientList.get(i).refresh();
+            //subscribed clients receive the changes from the subscription manager
+            if (!subscriptions.isSubscribed(clientList.get(i)))
+            {
+                clientList.get(i).refresh();
+            }
         }
     }
 
@@ -900,6 +1237,18 @@ public class Coordinator extends UnicastRemoteObject
         }
     }
 
+    /**
+     * Returns the changes to a CADData table since the client's last version.
+     *
+     * @param tag a CADDataEnums tag
+     * @param sinceVersion the last version the client has applied
+     * @throws RemoteException
+     */
+    public TableDelta getCadDataTableDelta(TABLE tag, long sinceVersion) throws RemoteException
+    {
+        return cadData.getTableDelta(tag, sinceVersion);
+    }
+
     /**
      * Returns the specified incident's table based on the tag.
      *
@@ -930,6 +1279,14 @@ public class Coordinator extends UnicastRemoteObject
         if (tag.equals(INC_TABLE.COMMENTS_NOTES))
         {
             cadData.getIncident(incidentId).addToCommentsNotesTable(fields);
+            if (seeking)
+            {
+                seekTopics.add(new CADTopic(tag, incidentId));
+            }
+            else
+            {
+                subscriptions.publish(new CADTopic(tag, incidentId));
+            }
         }
     }
 
@@ -1003,6 +1360,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncVal(INC_VAL tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncVal(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncVal(INC_VAL tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_VAL.OAU))
         {
@@ -1129,6 +1495,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncLoc(INC_LOC tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncLoc(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncLoc(INC_LOC tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_LOC.ADDRESS))
         {
@@ -1243,6 +1618,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncCaller(INC_CALLER tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncCaller(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncCaller(INC_CALLER tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_CALLER.TYPE))
         {
@@ -1301,6 +1685,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncProblem(INC_PROBLEM tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncProblem(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncProblem(INC_PROBLEM tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_PROBLEM.PROBLEM))
         {
@@ -1355,6 +1748,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncGenInfo(INC_GEN_INFO tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncGenInfo(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncGenInfo(INC_GEN_INFO tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_GEN_INFO.JURISDICTION))
         {
@@ -1405,6 +1807,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncResp(INC_RESP tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncResp(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncResp(INC_RESP tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_RESP.PLAN))
         {
@@ -1475,6 +1886,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncAddInfo(INC_ADD_INFO tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncAddInfo(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncAddInfo(INC_ADD_INFO tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_ADD_INFO.TYPE))
         {
@@ -1557,6 +1977,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataIncActivities(INC_ACTIVITIES tag, int incidentId, String value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyIncActivities(tag, incidentId, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyIncActivities(INC_ACTIVITIES tag, int incidentId, String value) throws RemoteException
     {
         if (tag.equals(INC_ACTIVITIES.VEHICLE))
         {
@@ -1683,379 +2112,34 @@ public class Coordinator extends UnicastRemoteObject
     }
 
     /**
-     * Returns a CardfileList matching the tag.
+     * Returns a page of the Cardfile list matching the tag, the objects from
+     * offset up to offset + limit in name order, or null if the list is still
+     * at the version the caller holds.
      */
-    public CardfileList getCardfileList(CARDFILE tag) throws RemoteException
+    public CardfilePage getCardfilePage(CARDFILE tag, int offset, int limit, long version)
+            throws RemoteException
     {
-        if (tag.equals(CARDFILE.COASTAL_DIVISION_UNITS))
-        {
-            return cardfileData.getCoastalDivisionUnitList();
-        }
-        else if (tag.equals(CARDFILE.POLICE_SHERIFF_CORONER))
+        if (cardfileData.getVersion(tag) == version)
         {
-            return cardfileData.getPoliceSheriffCoronerList();
+            return null;
         }
-        else if (tag.equals(CARDFILE.COURTS))
+        return cardfileData.getPage(tag, offset, limit);
+    }
+
+    /**
+     * Receives the fields of the ChangeLog in Cardfile.java and uses those fields to
+     * make changes to its own copy of the Cardfiledata.  The change is made
+     * by the CardfileData under its lock.
+     */
+    public void editCardfile(ChangeLog log) throws RemoteException
+    {
+        CARDFILE category = CARDFILE.fromTag(log.listTitle);
+        if (category == null)
         {
-            return cardfileData.getCourtsList();
+            throw new RemoteException("Wrong Enum sent into Coordinator.editCardfileDataObject");
         }
-        else if (tag.equals(CARDFILE.PUBLIC_TRANSPORTATION))
-        {
-            return cardfileData.getPublicTransportationList();
-        }
-        else if (tag.equals(CARDFILE.GG_OTHER))
-        {
-            return cardfileData.getGgOtherList();
-        }
-        else if (tag.equals(CARDFILE.MY_MISC))
-        {
-            return cardfileData.getMyMiscList();
-        }
-        else if (tag.equals(CARDFILE.SL_MISC))
-        {
-            return cardfileData.getSlMiscList();
-        }
-        else if (tag.equals(CARDFILE.VT_MISC))
-        {
-            return cardfileData.getVlMiscList();
-        }
-        else if (tag.equals(CARDFILE.CHP_OFFICES))
-        {
-            return cardfileData.getChpOfficesList();
-        }
-        else if (tag.equals(CARDFILE.STATE_AGENCIES_FACILITIES))
-        {
-            return cardfileData.getStateAgenciesFacilitiesList();
-        }
-        else if (tag.equals(CARDFILE.GOVERNMENT_OFFICIALS))
-        {
-            return cardfileData.getGovernmentOfficialsList();
-        }
-        else if (tag.equals(CARDFILE.FEDERAL_AGENCIES))
-        {
-            return cardfileData.getFederalAgenciesList();
-        }
-        else if (tag.equals(CARDFILE.RANCHES_LIVESTOCK))
-        {
-            return cardfileData.getRanchesLivestockList();
-        }
-        else if (tag.equals(CARDFILE.FIRE_EMS))
-        {
-            return cardfileData.getFireEmsList();
-        }
-        else if (tag.equals(CARDFILE.JAILS))
-        {
-            return cardfileData.getJailsList();
-        }
-        else if (tag.equals(CARDFILE.HOSPITALS_MED_CENTERS))
-        {
-            return cardfileData.getHospitalsMedCentersList();
-        }
-        else if (tag.equals(CARDFILE.TOW_COMPANIES))
-        {
-            return cardfileData.getTowCompaniesList();
-        }
-        else if (tag.equals(CARDFILE.CALTRANS))
-        {
-            return cardfileData.getCalTransList();
-        }
-        else if (tag.equals(CARDFILE.COUNTY_ROADS))
-        {
-            return cardfileData.getCountyRoadsList();
-        }
-        else if (tag.equals(CARDFILE.UTILITIES))
-        {
-            return cardfileData.getUtilitiesList();
-        }
-        else if (tag.equals(CARDFILE.ANIMAL_CONTROL))
-        {
-            return cardfileData.getAnimalControlList();
-        }
-        else if (tag.equals(CARDFILE.AIRPORTS))
-        {
-            return cardfileData.getAirportsList();
-        }
-        else if (tag.equals(CARDFILE.CREDIT_CARDS))
-        {
-            return cardfileData.getCreditCardsList();
-        }
-        else if (tag.equals(CARDFILE.GG_CRISIS_SHELTERS))
-        {
-            return cardfileData.getGgCrisisSheltersList();
-        }
-        else if (tag.equals(CARDFILE.RANGES))
-        {
-            return cardfileData.getRangesList();
-        }
-        else if (tag.equals(CARDFILE.HOTLINES))
-        {
-            return cardfileData.getHotlinesList();
-        }
-        else if (tag.equals(CARDFILE.HWY_PATROLS_OOS))
-        {
-            return cardfileData.getHwyPatrolsOosList();
-        }
-        else if (tag.equals(CARDFILE.PARKS_RECREATION))
-        {
-            return cardfileData.getParksRecreationList();
-        }
-        else if (tag.equals(CARDFILE.SHELTERS))
-        {
-            return cardfileData.getSheltersList();
-        }
-        else if (tag.equals(CARDFILE.SL_COUNTY_SERVICES))
-        {
-            return cardfileData.getSlCountyServicesList();
-        }
-        else if (tag.equals(CARDFILE.SL_RESOURCES))
-        {
-            return cardfileData.getSlResourcesList();
-        }
-        else if (tag.equals(CARDFILE.TRUCK_TIRE_REPAIR))
-        {
-            return cardfileData.getTruckTireRepairList();
-        }
-        else if (tag.equals(CARDFILE.MCC_EMPLOYEES))
-        {
-            return cardfileData.getMccEmployeesList();
-        }
-        else if (tag.equals(CARDFILE.GATE_ACCESS_CODES))
-        {
-            return cardfileData.getGateAccessCodesList();
-        }
-        else if (tag.equals(CARDFILE.VT_CALL_SIGNS))
-        {
-            return cardfileData.getVtCallSignsList();
-        }
-        else if (tag.equals(CARDFILE.SLCC_EMPLOYEES))
-        {
-            return cardfileData.getSlccEmployeesList();
-        }
-        else
-        {
-            throw new RemoteException("Wrong Enum sent into Coordinator.getCardfileList");
-        }
-    }
-
-    /**
-     * Receives the fields of the ChangeLog in Cardfile.java and uses those fields to
-     * make changes to its own copy of the Cardfiledata.
-     */
-    public void editCardfile(ChangeLog log) throws RemoteException
-    {
-
-        CardfileList selectedList;
-
-        if (log.listTitle.equals(CARDFILE.COASTAL_DIVISION_UNITS.tag))
-        {
-            selectedList = cardfileData.getCoastalDivisionUnitList();
-        }
-        else if (log.listTitle.equals(CARDFILE.POLICE_SHERIFF_CORONER.tag))
-        {
-            selectedList = cardfileData.getPoliceSheriffCoronerList();
-        }
-        else if (log.listTitle.equals(CARDFILE.COURTS.tag))
-        {
-            selectedList = cardfileData.getCourtsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.PUBLIC_TRANSPORTATION.tag))
-        {
-            selectedList = cardfileData.getPublicTransportationList();
-        }
-        else if (log.listTitle.equals(CARDFILE.GG_OTHER.tag))
-        {
-            selectedList = cardfileData.getGgOtherList();
-        }
-        else if (log.listTitle.equals(CARDFILE.MY_MISC.tag))
-        {
-            selectedList = cardfileData.getMyMiscList();
-        }
-        else if (log.listTitle.equals(CARDFILE.SL_MISC.tag))
-        {
-            selectedList = cardfileData.getSlMiscList();
-        }
-        else if (log.listTitle.equals(CARDFILE.VT_MISC.tag))
-        {
-            selectedList = cardfileData.getVlMiscList();
-        }
-        else if (log.listTitle.equals(CARDFILE.CHP_OFFICES.tag))
-        {
-            selectedList = cardfileData.getChpOfficesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.STATE_AGENCIES_FACILITIES.tag))
-        {
-            selectedList = cardfileData.getStateAgenciesFacilitiesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.GOVERNMENT_OFFICIALS.tag))
-        {
-            selectedList = cardfileData.getGovernmentOfficialsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.FEDERAL_AGENCIES.tag))
-        {
-            selectedList = cardfileData.getFederalAgenciesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.RANCHES_LIVESTOCK.tag))
-        {
-            selectedList = cardfileData.getRanchesLivestockList();
-        }
-        else if (log.listTitle.equals(CARDFILE.FIRE_EMS.tag))
-        {
-            selectedList = cardfileData.getFireEmsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.JAILS.tag))
-        {
-            selectedList = cardfileData.getJailsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.HOSPITALS_MED_CENTERS.tag))
-        {
-            selectedList = cardfileData.getHospitalsMedCentersList();
-        }
-        else if (log.listTitle.equals(CARDFILE.TOW_COMPANIES.tag))
-        {
-            selectedList = cardfileData.getTowCompaniesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.CALTRANS.tag))
-        {
-            selectedList = cardfileData.getCalTransList();
-        }
-        else if (log.listTitle.equals(CARDFILE.COUNTY_ROADS.tag))
-        {
-            selectedList = cardfileData.getCountyRoadsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.UTILITIES.tag))
-        {
-            selectedList = cardfileData.getUtilitiesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.ANIMAL_CONTROL.tag))
-        {
-            selectedList = cardfileData.getAnimalControlList();
-        }
-        else if (log.listTitle.equals(CARDFILE.AIRPORTS.tag))
-        {
-            selectedList = cardfileData.getAirportsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.CREDIT_CARDS.tag))
-        {
-            selectedList = cardfileData.getCreditCardsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.GG_CRISIS_SHELTERS.tag))
-        {
-            selectedList = cardfileData.getGgCrisisSheltersList();
-        }
-        else if (log.listTitle.equals(CARDFILE.RANGES.tag))
-        {
-            selectedList = cardfileData.getRangesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.HOTLINES.tag))
-        {
-            selectedList = cardfileData.getHotlinesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.HWY_PATROLS_OOS.tag))
-        {
-            selectedList = cardfileData.getHwyPatrolsOosList();
-        }
-        else if (log.listTitle.equals(CARDFILE.PARKS_RECREATION.tag))
-        {
-            selectedList = cardfileData.getParksRecreationList();
-        }
-        else if (log.listTitle.equals(CARDFILE.SHELTERS.tag))
-        {
-            selectedList = cardfileData.getSheltersList();
-        }
-        else if (log.listTitle.equals(CARDFILE.SL_COUNTY_SERVICES.tag))
-        {
-            selectedList = cardfileData.getSlCountyServicesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.SL_RESOURCES.tag))
-        {
-            selectedList = cardfileData.getSlResourcesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.TRUCK_TIRE_REPAIR.tag))
-        {
-            selectedList = cardfileData.getTruckTireRepairList();
-        }
-        else if (log.listTitle.equals(CARDFILE.MCC_EMPLOYEES.tag))
-        {
-            selectedList = cardfileData.getMccEmployeesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.GATE_ACCESS_CODES.tag))
-        {
-            selectedList = cardfileData.getGateAccessCodesList();
-        }
-        else if (log.listTitle.equals(CARDFILE.VT_CALL_SIGNS.tag))
-        {
-            selectedList = cardfileData.getVtCallSignsList();
-        }
-        else if (log.listTitle.equals(CARDFILE.SLCC_EMPLOYEES.tag))
-        {
-            selectedList = cardfileData.getSlccEmployeesList();
-        }
-        else
-        {
-            throw new RemoteException("Wrong Enum sent into Coordinator.editCardfileDataObject");
-        }
-
-        CardfileDataObject cfdo = cardfileData.getCardfileDataObject(selectedList, log.id);
-        if (cfdo != null && log.command.equals(EditCommand.NAME))
-        {
-            cfdo.setName(log.newValue);
-            selectedList.resort(cardfileData.getCardfileDataIndex(selectedList, log.id));
-        }
-        else if (cfdo != null && log.command.equals(EditCommand.ADDRESS))
-        {
-            cfdo.setAddress(log.newValue);
-        }
-        else if (cfdo != null && log.command.equals(EditCommand.CITY))
-        {
-            cfdo.setCity(log.newValue);
-        }
-        else if (cfdo != null && log.command.equals(EditCommand.STATE))
-        {
-            cfdo.setState(log.newValue);
-        }
-        else if (cfdo != null && log.command.equals(EditCommand.ZIP))
-        {
-            cfdo.setZip(log.newValue);
-        }
-        else if (cfdo != null && log.command.equals(EditCommand.PHONE1))
-        {
-            cfdo.setPhone1(log.newValue);
-        }
-        else if (cfdo != null && log.command.equals(EditCommand.PHONE2))
-        {
-            cfdo.setPhone2(log.newValue);
-        }
-        else if (cfdo != null && log.command.equals(EditCommand.FAX))
-        {
-            cfdo.setFax(log.newValue);
-        }
-        else if (log.command.equals(EditCommand.OBJECT_DELETE))
-        {
-            selectedList.removeDataObject(cardfileData.getCardfileDataIndex(selectedList, log.id));
-        }
-        else if (log.command.equals(EditCommand.OBJECT_ADD))
-        {
-            selectedList.addDataObject(log.newCardfileObject);
-        }
-        else if (log.command.equals(EditCommand.TABLE_ADD))
-        {
-            if (cfdo != null)
-            {
-                cfdo.addComment(log.tableFields);
-            }
-        }
-        else if (log.command.equals(EditCommand.TABLE_DELETE))
-        {
-            if (cfdo != null)
-            {
-                cfdo.removeComment(log.timeStamp);
-            }
-        }
-        else
-        {
-        }
-
 
+        cardfileData.editCardfileDataObject(category, log);
     }
 
     /**
@@ -2166,6 +2250,15 @@ public class Coordinator extends UnicastRemoteObject
      * @throws RemoteException
      */
     public void setCadDataUnitValue(String unitNum, UNIT_TAGS tag, Object value) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            applyUnitValue(unitNum, tag, value);
+        }
+        subscriptions.publishTables();
+    }
+
+    private void applyUnitValue(String unitNum, UNIT_TAGS tag, Object value) throws RemoteException
     {
         if (tag.equals(UNIT_TAGS.MASTER_INC_NUM))
         {
@@ -2247,6 +2340,7 @@ public class Coordinator extends UnicastRemoteObject
     public void setCadDataUnitAssignedId(String unitNum, int id) throws RemoteException
     {
         cadData.getUnit(unitNum).setAssignedIncidentId(id);
+        subscriptions.publishTables();
     }
 
     /**
@@ -2259,6 +2353,7 @@ public class Coordinator extends UnicastRemoteObject
     public void addCadDataIncidentAssignedUnitNum(int incidentId, String assignedUnitNum) throws RemoteException
     {
         cadData.getIncident(incidentId).addAssignedUnitNum(assignedUnitNum);
+        subscriptions.publishTables();
     }
 
     /**
@@ -2271,10 +2366,236 @@ public class Coordinator extends UnicastRemoteObject
     public void setCadDataIncidentStatus(int incidentId, IncidentEnums status) throws RemoteException
     {
         cadData.getIncident(incidentId).setIncidentStatus(status);
+        subscriptions.publishTables();
+    }
+
+    /**
+     * Sets several fields of an incident in one call.  The fields are applied
+     * in order while holding the CADData lock, so no table delta contains only
+     * part of them, and the subscribed clients are notified once.
+     *
+     * @param incidentId the incident's ID to look up
+     * @param fields the fields to set, tagged with CADDataEnums incident tags
+     * @throws RemoteException if a tag cannot be set
+     */
+    public void setCadDataIncFields(int incidentId, Vector<CADField> fields) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            for (CADField field : fields)
+            {
+                applyIncField(incidentId, field);
+            }
+        }
+        subscriptions.publishTables();
+    }
+
+    /**
+     * Reads several fields of an incident in one call.
+     *
+     * @param incidentId the incident's ID to look up
+     * @param fields the fields to read, tagged with CADDataEnums incident tags
+     * @return the fields in the same order, with their values
+     * @throws RemoteException if a tag cannot be read
+     */
+    public Vector<CADField> getCadDataIncFields(int incidentId, Vector<CADField> fields) throws RemoteException
+    {
+        Vector<CADField> values = new Vector<CADField>(fields.size());
+        synchronized (cadData)
+        {
+            for (CADField field : fields)
+            {
+                values.add(new CADField(field.tag, readIncField(incidentId, field.tag)));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Sets several fields of a unit in one call.  The fields are applied in
+     * order while holding the CADData lock, and the subscribed clients are
+     * notified once.
+     *
+     * @param unitNum the unitNum to look up
+     * @param fields the fields to set, tagged with UNIT_TAGS
+     * @throws RemoteException if a tag cannot be set
+     */
+    public void setCadDataUnitFields(String unitNum, Vector<CADField> fields) throws RemoteException
+    {
+        synchronized (cadData)
+        {
+            for (CADField field : fields)
+            {
+                applyUnitValue(unitNum, unitTag(field.tag), field.value);
+            }
+        }
+        subscriptions.publishTables();
+    }
+
+    /**
+     * Reads several fields of a unit in one call.
+     *
+     * @param unitNum the unitNum to look up
+     * @param fields the fields to read, tagged with UNIT_TAGS
+     * @return the fields in the same order, with their values
+     * @throws RemoteException if a tag cannot be read
+     */
+    public Vector<CADField> getCadDataUnitFields(String unitNum, Vector<CADField> fields) throws RemoteException
+    {
+        Vector<CADField> values = new Vector<CADField>(fields.size());
+        synchronized (cadData)
+        {
+            for (CADField field : fields)
+            {
+                values.add(new CADField(field.tag, readUnitField(unitNum, unitTag(field.tag))));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads one field of several units in one call.  A unit that does not
+     * exist has a null value.
+     *
+     * @param unitNums the unitNums to look up
+     * @param tag a CADScriptTags tag
+     * @return the values in the same order as unitNums, strings except for
+     *         the UnitStatusEnums of UNIT_STATUS
+     * @throws RemoteException if the tag cannot be read
+     */
+    public Vector<Object> getCadDataUnitValues(Vector<String> unitNums, UNIT_TAGS tag) throws RemoteException
+    {
+        Vector<Object> values = new Vector<Object>(unitNums.size());
+        synchronized (cadData)
+        {
+            for (String unitNum : unitNums)
+            {
+                values.add(cadData.getUnit(unitNum) == null ? null
+                        : readUnitField(unitNum, tag));
+            }
+        }
+        return values;
+    }
+
+    private void applyIncField(int incidentId, CADField field) throws RemoteException
+    {
+        String value = field.getString();
+        if (field.tag instanceof INC_VAL)
+        {
+            applyIncVal((INC_VAL) field.tag, incidentId, value);
+        }
+        else if (field.tag instanceof INC_LOC)
+        {
+            applyIncLoc((INC_LOC) field.tag, incidentId, value);
+        }
+        else if (field.tag instanceof INC_CALLER)
+        {
+            applyIncCaller((INC_CALLER) field.tag, incidentId, value);
+        }
+        else if (field.tag instanceof INC_PROBLEM)
+        {
+            applyIncProblem((INC_PROBLEM) field.tag, incidentId, value);
+        }
+        else if (field.tag instanceof INC_GEN_INFO)
+        {
+            applyIncGenInfo((INC_GEN_INFO) field.tag, incidentId, value);
+        }
+        else if (field.tag instanceof INC_RESP)
+        {
+            applyIncResp((INC_RESP) field.tag, incidentId, value);
+        }
+        else if (field.tag instanceof INC_ADD_INFO)
+        {
+            applyIncAddInfo((INC_ADD_INFO) field.tag, incidentId, value);
+        }
+        else if (field.tag instanceof INC_ACTIVITIES)
+        {
+            applyIncActivities((INC_ACTIVITIES) field.tag, incidentId, value);
+        }
+        else
+        {
+            throw new RemoteException("Wrong Enum sent into Coordinator.setCadDataIncFields");
+        }
+    }
+
+    private Object readIncField(int incidentId, Enum<?> tag) throws RemoteException
+    {
+        if (tag instanceof INC_VAL)
+        {
+            return getCadDataIncVal((INC_VAL) tag, incidentId);
+        }
+        else if (tag instanceof INC_LOC)
+        {
+            return getCadDataIncLoc((INC_LOC) tag, incidentId);
+        }
+        else if (tag instanceof INC_CALLER)
+        {
+            return getCadDataIncCaller((INC_CALLER) tag, incidentId);
+        }
+        else if (tag instanceof INC_PROBLEM)
+        {
+            return getCadDataIncProblem((INC_PROBLEM) tag, incidentId);
+        }
+        else if (tag instanceof INC_GEN_INFO)
+        {
+            return getCadDataIncGenInfo((INC_GEN_INFO) tag, incidentId);
+        }
+        else if (tag instanceof INC_RESP)
+        {
+            return getCadDataIncResp((INC_RESP) tag, incidentId);
+        }
+        else if (tag instanceof INC_ADD_INFO)
+        {
+            return getCadDataIncAddInfo((INC_ADD_INFO) tag, incidentId);
+        }
+        else if (tag instanceof INC_ACTIVITIES)
+        {
+            return getCadDataIncActivities((INC_ACTIVITIES) tag, incidentId);
+        }
+        else if (tag instanceof INC_CALLBACK)
+        {
+            return getCadDataIncCallBack((INC_CALLBACK) tag, incidentId);
+        }
+        else if (tag instanceof INC_EDIT_LOG)
+        {
+            return getCadDataIncEditLog((INC_EDIT_LOG) tag, incidentId);
+        }
+        else if (tag instanceof INC_INFO)
+        {
+            return getCadDataIncInfo((INC_INFO) tag, incidentId);
+        }
+        else if (tag instanceof INC_TIMES)
+        {
+            return getCadDataIncTimes((INC_TIMES) tag, incidentId);
+        }
+        else
+        {
+            throw new RemoteException("Wrong Enum sent into Coordinator.getCadDataIncFields");
+        }
+    }
+
+    private Object readUnitField(String unitNum, UNIT_TAGS tag) throws RemoteException
+    {
+        if (tag.equals(UNIT_TAGS.UNIT_STATUS))
+        {
+            return getCadDataUnitStatus(unitNum);
+        }
+        return getCadDataUnitValue(unitNum, tag);
+    }
+
+    private UNIT_TAGS unitTag(Enum<?> tag) throws RemoteException
+    {
+        if (!(tag instanceof UNIT_TAGS))
+        {
+            throw new RemoteException("Wrong Enum sent into Coordinator unit fields");
+        }
+        return (UNIT_TAGS) tag;
     }
 
     /**
-     * Returns a LinkedList containing entries that match the search string.
+     * Returns a LinkedList containing entries that match the search string,
+     * best match first. Each word of the search matches a word of an entry
+     * that equals or starts with it.
      *
      * @param search the string entry to be searched
      * @return linked list of CardfileDataObjects matching search
@@ -2308,12 +2629,13 @@ public class Coordinator extends UnicastRemoteObject
     {
         DateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy");
         DateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+        Date date = new Date(CADSimulator.theSimulationCntrlMgr.getSimulationClockTime());
         for (int i = 0; i < completedEvent.eventInfo.getDetails().size(); i++)
         {
             String[] fields =
             {
-                dateFormat.format(new Date()),
-                timeFormat.format(new Date()),
+                dateFormat.format(date),
+                timeFormat.format(date),
                 "", "", completedEvent.eventInfo.getDetails().elementAt(i).details
             };
 
@@ -2362,7 +2684,7 @@ public class Coordinator extends UnicastRemoteObject
      */
     public void incidentStartedInGUI(Integer incidentNumber)
     {
-        Date date = new Date();
+        Date date = new Date(CADSimulator.theSimulationCntrlMgr.getSimulationClockTime());
         DateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm:ss");
         cadData.getIncident(incidentNumber).setLogTime(dateFormat.format(date));
     }
@@ -0,0 +1,492 @@
+package tmcsim.cadsimulator;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SimulationEventExecutor runs the Coordinator's fan-out work (model updates,
+ * SimulationManager callbacks, Paramics updates and IncidentManager ticks) on
+ * a single worker thread.  Tasks are executed in the order in which they were
+ * submitted, so tick N is always finished before tick N+1 begins.<br>
+ * <br>
+ * The queue is bounded.  When the worker falls behind, callers that submit
+ * ordinary tasks are blocked for up to a fixed wait period (backpressure) and
+ * the task is rejected if no room becomes available.  Tasks submitted from the
+ * worker thread itself are always accepted to avoid deadlocking on a full
+ * queue.  Clock ticks are never queued more than once in a row; if a tick is
+ * waiting to run and nothing has been submitted after it, a newer tick replaces
+ * its simulation time and the older tick is counted as coalesced.  A tick is
+ * never moved ahead of tasks submitted after it, so work for time N is always
+ * run before the tick for any later time.  The TickHandler is given the previous handled
+ * simulation time so that work scheduled on intervals is not lost when ticks
+ * are coalesced.<br>
+ * <br>
+ * Queue depth, tick lag and task counters are available through accessor
+ * methods for monitoring.
+ *
+ * @author Jonathan Molina
+ */
+public class SimulationEventExecutor
+{
+    /**
+     * Interface for the object that processes coalesced clock ticks.
+     */
+    public static interface TickHandler
+    {
+        /**
+         * Called on the worker thread for a clock tick.
+         *
+         * @param currentSimTime Simulation time (in seconds) of this tick.
+         * @param previousSimTime Simulation time (in seconds) of the last handled
+         * tick, or -1 if no tick has been handled since the last reset.
+         */
+        public void handleTick(long currentSimTime, long previousSimTime);
+    }
+
+    /** Default maximum number of queued tasks. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Default number of milliseconds a submitter waits for room in the queue. */
+    public static final long DEFAULT_SUBMIT_WAIT = 2000;
+
+    /** Error logger. */
+    private Logger execLogger = Logger.getLogger("tmcsim.cadsimulator");
+
+    /** Name used for the worker thread and log messages. */
+    private String name;
+
+    /** Maximum number of queued tasks. */
+    private int capacity;
+
+    /** Number of milliseconds a submitter waits for room in the queue. */
+    private long submitWait;
+
+    /** Handler used to process clock ticks. */
+    private TickHandler tickHandler;
+
+    /** Queue of tasks waiting to be run by the worker thread. */
+    private LinkedBlockingQueue<QueuedTask> taskQueue;
+
+    /** The worker thread. */
+    private Thread worker;
+
+    /** Lock object guarding the pending tick, the queue tail and the capacity wait. */
+    private final Object lock = new Object();
+
+    /** Tick task currently waiting in the queue, or null. */
+    private TickTask pendingTick = null;
+
+    /** Most recently queued task. */
+    private QueuedTask lastQueued = null;
+
+    /** Simulation time of the most recently submitted tick. */
+    private volatile long lastSubmittedTick = -1;
+
+    /** Simulation time of the most recently handled tick. */
+    private volatile long lastHandledTick = -1;
+
+    /** Largest queue depth observed. */
+    private volatile int maxQueueDepth = 0;
+
+    /** Number of milliseconds the most recent task waited in the queue. */
+    private volatile long lastQueueDelay = 0;
+
+    /** Largest number of milliseconds a task has waited in the queue. */
+    private volatile long maxQueueDelay = 0;
+
+    /** Number of tasks that have been run. */
+    private volatile long completedTasks = 0;
+
+    /** Number of ticks that were merged into a newer tick. */
+    private volatile long coalescedTicks = 0;
+
+    /** Number of tasks rejected because the queue stayed full. */
+    private volatile long rejectedTasks = 0;
+
+    /** Base class for queued work, timestamped at submission. */
+    private abstract class QueuedTask implements Runnable
+    {
+        long submitTime = System.currentTimeMillis();
+    }
+
+    /** Wraps a submitted Runnable. */
+    private class RunnableTask extends QueuedTask
+    {
+        private Runnable task;
+
+        RunnableTask(Runnable r)
+        {
+            task = r;
+        }
+
+        public void run()
+        {
+            task.run();
+        }
+    }
+
+    /** Queued clock tick.  The simulation time is updated when coalescing. */
+    private class TickTask extends QueuedTask
+    {
+        long simTime;
+
+        TickTask(long time)
+        {
+            simTime = time;
+        }
+
+        public void run()
+        {
+            long time;
+            synchronized (lock)
+            {
+                if (pendingTick == this)
+                {
+                    pendingTick = null;
+                }
+                time = simTime;
+            }
+            long previous = lastHandledTick;
+            try
+            {
+                tickHandler.handleTick(time, previous);
+            }
+            finally
+            {
+                synchronized (lock)
+                {
+                    lastHandledTick = time;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /** Worker loop that runs queued tasks in order. */
+    private class Worker implements Runnable
+    {
+        public void run()
+        {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                QueuedTask next;
+                try
+                {
+                    next = taskQueue.take();
+                }
+                catch (InterruptedException ie)
+                {
+                    break;
+                }
+
+                synchronized (lock)
+                {
+                    lock.notifyAll();
+                }
+
+                long delay = System.currentTimeMillis() - next.submitTime;
+                lastQueueDelay = delay;
+                if (delay > maxQueueDelay)
+                {
+                    maxQueueDelay = delay;
+                }
+
+                try
+                {
+                    next.run();
+                }
+                catch (RuntimeException re)
+                {
+                    execLogger.logp(Level.SEVERE, "SimulationEventExecutor", "run",
+                            "Exception in " + name + " task.", re);
+                }
+                completedTasks++;
+            }
+        }
+    }
+
+    /**
+     * Constructor.  Uses the default capacity and submit wait.
+     *
+     * @param execName Name of the executor, used for the worker thread.
+     * @param handler Handler used to process clock ticks.
+     */
+    public SimulationEventExecutor(String execName, TickHandler handler)
+    {
+        this(execName, handler, DEFAULT_CAPACITY, DEFAULT_SUBMIT_WAIT);
+    }
+
+    /**
+     * Constructor.  The worker thread is started immediately.
+     *
+     * @param execName Name of the executor, used for the worker thread.
+     * @param handler Handler used to process clock ticks.
+     * @param maxQueued Maximum number of queued tasks.
+     * @param maxWait Number of milliseconds a submitter waits for room in the queue.
+     */
+    public SimulationEventExecutor(String execName, TickHandler handler,
+            int maxQueued, long maxWait)
+    {
+        name        = execName;
+        tickHandler = handler;
+        capacity    = maxQueued;
+        submitWait  = maxWait;
+        taskQueue   = new LinkedBlockingQueue<QueuedTask>();
+
+        worker = new Thread(new Worker(), execName + "-events");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a task to run after all previously submitted work.  If the queue is
+     * full the caller is blocked until room is available or the submit wait
+     * expires, in which case the task is rejected.
+     *
+     * @param task Task to run.
+     * @return true if the task was queued, false if it was rejected.
+     */
+    public boolean submit(Runnable task)
+    {
+        return enqueue(new RunnableTask(task));
+    }
+
+    /**
+     * Queue a clock tick.  If a tick is waiting to run at the end of the queue,
+     * its simulation time is replaced with the parameter value instead of
+     * queueing a new tick.
+     *
+     * @param simTime Simulation time (in seconds) of the tick.
+     * @return true if the tick was queued or coalesced, false if it was rejected.
+     */
+    public boolean submitTick(long simTime)
+    {
+        lastSubmittedTick = simTime;
+
+        synchronized (lock)
+        {
+            if (pendingTick != null && pendingTick == lastQueued)
+            {
+                pendingTick.simTime = simTime;
+                coalescedTicks++;
+                return true;
+            }
+            TickTask tick = new TickTask(simTime);
+            if (!enqueue(tick))
+            {
+                return false;
+            }
+            pendingTick = tick;
+            return true;
+        }
+    }
+
+    /**
+     * Block until a tick at or after the parameter simulation time has been
+     * handled, or the timeout expires.  Must not be called from the worker thread.
+     *
+     * @param simTime Simulation time (in seconds) to wait for.
+     * @param timeout Maximum number of milliseconds to wait.
+     * @return true if the tick was handled, false if the wait timed out.
+     */
+    public boolean awaitTick(long simTime, long timeout)
+    {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (lock)
+        {
+            while (lastHandledTick < simTime)
+            {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0)
+                {
+                    return false;
+                }
+                try
+                {
+                    lock.wait(remaining);
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clears the tick history so that the next handled tick is treated as the
+     * first.  Called when the simulation is reset or the time is moved.
+     */
+    public void resetTicks()
+    {
+        lastHandledTick   = -1;
+        lastSubmittedTick = -1;
+    }
+
+    /**
+     * Stops the worker thread.  Queued tasks are discarded.
+     */
+    public void shutdown()
+    {
+        worker.interrupt();
+        taskQueue.clear();
+    }
+
+    /**
+     * Add a task to the queue, waiting for room if it is full.  The capacity
+     * check and the add are made under the lock so that concurrent submitters
+     * cannot overshoot the capacity.
+     */
+    private boolean enqueue(QueuedTask task)
+    {
+        synchronized (lock)
+        {
+            if (Thread.currentThread() != worker)
+            {
+                long deadline = System.currentTimeMillis() + submitWait;
+                while (taskQueue.size() >= capacity)
+                {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0)
+                    {
+                        rejectedTasks++;
+                        execLogger.logp(Level.WARNING, "SimulationEventExecutor",
+                                "enqueue", name + " event queue is full, task rejected.");
+                        return false;
+                    }
+                    try
+                    {
+                        lock.wait(remaining);
+                    }
+                    catch (InterruptedException ie)
+                    {
+                        Thread.currentThread().interrupt();
+                        rejectedTasks++;
+                        return false;
+                    }
+                }
+            }
+
+            taskQueue.add(task);
+            lastQueued = task;
+
+            int depth = taskQueue.size();
+            if (depth > maxQueueDepth)
+            {
+                maxQueueDepth = depth;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of tasks currently waiting to run.
+     *
+     * @return Current queue depth.
+     */
+    public int getQueueDepth()
+    {
+        return taskQueue.size();
+    }
+
+    /**
+     * Returns the largest queue depth observed.
+     *
+     * @return Maximum queue depth.
+     */
+    public int getMaxQueueDepth()
+    {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Returns the maximum number of queued tasks.
+     *
+     * @return Queue capacity.
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Returns how many simulation seconds the handled ticks are behind the
+     * submitted ticks.
+     *
+     * @return Tick lag in simulation seconds.
+     */
+    public long getTickLag()
+    {
+        long submitted = lastSubmittedTick;
+        long handled = lastHandledTick;
+        if (submitted < 0 || handled < 0 || submitted <= handled)
+        {
+            return 0;
+        }
+        return submitted - handled;
+    }
+
+    /**
+     * Returns the simulation time of the most recently handled tick.
+     *
+     * @return Last handled simulation time, or -1 if none.
+     */
+    public long getLastHandledTick()
+    {
+        return lastHandledTick;
+    }
+
+    /**
+     * Returns the number of milliseconds the most recent task waited in the queue.
+     *
+     * @return Last queue delay (milliseconds).
+     */
+    public long getLastQueueDelay()
+    {
+        return lastQueueDelay;
+    }
+
+    /**
+     * Returns the largest number of milliseconds a task has waited in the queue.
+     *
+     * @return Maximum queue delay (milliseconds).
+     */
+    public long getMaxQueueDelay()
+    {
+        return maxQueueDelay;
+    }
+
+    /**
+     * Returns the number of tasks that have been run.
+     *
+     * @return Completed task count.
+     */
+    public long getCompletedTasks()
+    {
+        return completedTasks;
+    }
+
+    /**
+     * Returns the number of ticks that were merged into a newer tick.
+     *
+     * @return Coalesced tick count.
+     */
+    public long getCoalescedTicks()
+    {
+        return coalescedTicks;
+    }
+
+    /**
+     * Returns the number of tasks rejected because the queue stayed full.
+     *
+     * @return Rejected task count.
+     */
+    public long getRejectedTasks()
+    {
+        return rejectedTasks;
+    }
+}
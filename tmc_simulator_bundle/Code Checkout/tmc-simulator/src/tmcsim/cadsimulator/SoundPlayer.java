@@ -19,6 +19,8 @@ import javax.media.PlugInManager;
 import javax.media.format.AudioFormat;
 
 import tmcsim.client.cadclientgui.data.IncidentEvent;
+import tmcsim.metrics.Gauge;
+import tmcsim.metrics.MetricsRegistry;
 
 /**
  * SoundPlayer is used to play audio files associated with IncidentEvents that 
@@ -30,7 +32,8 @@ import tmcsim.client.cadclientgui.data.IncidentEvent;
  * playing audio clip to stop and be requeued at the front of the queue.  
  * Re-enabling the audio will then continue playing all queued clips.  The
  * deQueueAll() method is used to clear the list of audio clips that have 
- * been queued.
+ * been queued.  The number of queued clips is reported in the 
+ * "SoundPlayer.queueLength" metric.
  *
  * @author Matthew Cechini (mcechini@calpoly.edu)
  * @version $Date: 2006/06/06 20:46:41 $ $Revision: 1.3 $
@@ -174,6 +177,12 @@ public class SoundPlayer extends Thread {
         timer         = new Timer();                        
         enqueuedClips = new Vector<AudioClipInfo>();
         player = new AudioPlayerJMF();
+        
+        MetricsRegistry.getInstance().gauge("SoundPlayer.queueLength", new Gauge() {
+            public long getValue() {
+                return getQueueLength();
+            }
+        });
     }
 
     /**
@@ -206,6 +215,13 @@ public class SoundPlayer extends Thread {
         }       
     }  
     
+    /**
+     * Returns the number of audio clips waiting to be played.
+     */
+    public int getQueueLength() {
+        return enqueuedClips.size();
+    }
+    
     /** 
      * Get the current audio enabled status.
      *
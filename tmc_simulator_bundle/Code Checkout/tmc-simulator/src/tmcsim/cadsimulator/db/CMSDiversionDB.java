@@ -1,5 +1,8 @@
 package tmcsim.cadsimulator.db;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.TreeMap;
 
 import org.w3c.dom.Document;
@@ -14,7 +17,8 @@ import tmcsim.cadmodels.CMSInfo;
  * file.  This object is accessed to get current CMS diversion information
  * and to be updated with new diversions as they are set by the user.  
  * Diversions may be reset to their original values (0) through the
- * resetDiversions() method. 
+ * resetDiversions() method, and may be written to and read from a simulation
+ * checkpoint.
  *
  * @author Matthew Cechini (mcechini@calpoly.edu)
  * @version $Date: 2006/06/14 00:12:38 $ $Revision: 1.4 $
@@ -177,6 +181,33 @@ public class CMSDiversionDB {
         }
     }
     
+    /**
+     * Write the current diversions to a simulation checkpoint.
+     *
+     * @param out Stream of the checkpoint.
+     * @throws IOException if the diversions cannot be written.
+     */
+    public void writeCheckpoint(ObjectOutputStream out) throws IOException {
+        out.writeObject(diversionMap);
+    }
+
+    /**
+     * Replace the current diversions with those read from a simulation 
+     * checkpoint written by writeCheckpoint().
+     *
+     * @param in Stream of the checkpoint.
+     * @throws IOException if the diversions cannot be read.
+     * @throws ClassNotFoundException if a class of the data cannot be found.
+     */
+    @SuppressWarnings("unchecked")
+    public void readCheckpoint(ObjectInputStream in) 
+            throws IOException, ClassNotFoundException {
+        TreeMap<String, CMSInfo> diversions = (TreeMap<String, CMSInfo>)in.readObject();
+
+        diversionMap.clear();
+        diversionMap.putAll(diversions);
+    }
+    
     /**
      * Get the CMS Diversion map.
      *
@@ -0,0 +1,224 @@
+package tmcsim.cadsimulator.managers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tmcsim.cadsimulator.db.CMSDiversionDB;
+import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.metrics.Gauge;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
+
+/**
+ * CheckpointManager is a CAD Simulator Manager that keeps checkpoints of the
+ * simulation data, so the Coordinator can reposition the simulation without
+ * replaying it from the beginning.  A checkpoint holds the IncidentManager,
+ * CADData, and CMSDiversionDB data at one simulation time, serialized to a
+ * byte array in a single object stream so the Incidents shared by the
+ * IncidentManager and the CADData remain shared when restored.<br>
+ * <br>
+ * The tick() method is called as the simulation runs, and a checkpoint is
+ * taken once the checkpoint interval has passed since the previous one.  A
+ * checkpoint is not taken while IncidentEvents are waiting for their audio,
+ * as those events could not complete after a restore; it is taken at the
+ * next tick with no active events instead.  The restore() method restores
+ * the latest checkpoint at or before a simulation time and discards the
+ * later checkpoints, which the simulation will take again as it continues.
+ * The checkpoints must be cleared whenever the loaded Incidents change.<br>
+ * <br>
+ * The time taken to take and to restore a checkpoint are recorded in the
+ * "CheckpointManager.capture" and "CheckpointManager.restore" metrics.
+ *
+ * @author Jonathan Molina
+ */
+public class CheckpointManager {
+
+    /** Error Logger. */
+    private static Logger checkpointLogger = Logger.getLogger("tmcsim.cadsimulator.managers");
+
+    /** Reference to the IncidentManager Object. */
+    private IncidentManager theIncidentMgr;
+
+    /** Reference to the CADData Object. */
+    private CADData theCADData;
+
+    /** Simulation seconds between two checkpoints, 0 if none are taken. */
+    private long interval;
+
+    /** Serialized checkpoints(values), referenced by simulation time(key). */
+    private TreeMap<Long, byte[]> checkpoints;
+
+    /** Total size (bytes) of the checkpoints. */
+    private volatile long totalBytes = 0;
+
+    /** Time taken to take a checkpoint. */
+    private Timer captureTimer;
+
+    /** Time taken to restore a checkpoint. */
+    private Timer restoreTimer;
+
+    /**
+     * Constructor.
+     *
+     * @param incidentMgr IncidentManager Object.
+     * @param data CADData Object.
+     * @param seconds Simulation seconds between two checkpoints, 0 if none are taken.
+     */
+    public CheckpointManager(IncidentManager incidentMgr, CADData data, long seconds) {
+        theIncidentMgr = incidentMgr;
+        theCADData     = data;
+        interval       = Math.max(0, seconds);
+        checkpoints    = new TreeMap<Long, byte[]>();
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        captureTimer = metrics.timer("CheckpointManager.capture");
+        restoreTimer = metrics.timer("CheckpointManager.restore");
+
+        metrics.gauge("CheckpointManager.bytes", new Gauge() {
+            public long getValue() {
+                return totalBytes;
+            }
+        });
+    }
+
+    /**
+     * Takes a checkpoint if the checkpoint interval has passed since the
+     * latest checkpoint at or before the parameter time, and no IncidentEvents
+     * are waiting for their audio.
+     *
+     * @param currentSimTime Current simulation time (in seconds).
+     */
+    public synchronized void tick(long currentSimTime) {
+
+        if(interval == 0)
+            return;
+
+        Long previous = checkpoints.floorKey(currentSimTime);
+        long due = (previous == null ? 0 : previous) + interval;
+
+        if(currentSimTime >= due && !theIncidentMgr.hasActiveEvents())
+            capture(currentSimTime);
+    }
+
+    /**
+     * Takes a checkpoint of the simulation data at the parameter time,
+     * replacing any checkpoint already taken at that time.  The CADData lock
+     * is held while the data is written, so a batch of CADData updates is
+     * not split by the checkpoint.  A checkpoint that cannot be written is
+     * logged and discarded.
+     *
+     * @param currentSimTime Current simulation time (in seconds).
+     */
+    public synchronized void capture(long currentSimTime) {
+
+        long start = System.nanoTime();
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+
+            synchronized(theCADData) {
+                theIncidentMgr.writeCheckpoint(out);
+                theCADData.writeCheckpoint(out);
+                CMSDiversionDB.getInstance().writeCheckpoint(out);
+            }
+            out.close();
+
+            put(currentSimTime, bytes.toByteArray());
+        }
+        catch (IOException ioe) {
+            checkpointLogger.logp(Level.WARNING, "CheckpointManager", "capture",
+                    "Unable to take a checkpoint at " + currentSimTime + ".", ioe);
+        }
+
+        captureTimer.recordSince(start);
+    }
+
+    /**
+     * Restores the latest checkpoint at or before the parameter time and
+     * discards the checkpoints after it.  If there is no such checkpoint, the
+     * simulation data is not changed and 0 is returned, as the data is
+     * expected to have been reset to the start of the simulation.
+     *
+     * @param targetSimTime Simulation time (in seconds) being repositioned to.
+     * @return Simulation time of the restored checkpoint, or 0 if none was restored.
+     */
+    public synchronized long restore(long targetSimTime) {
+
+        long start = System.nanoTime();
+
+        while(!checkpoints.isEmpty() && checkpoints.lastKey() > targetSimTime) {
+            totalBytes -= checkpoints.pollLastEntry().getValue().length;
+        }
+
+        Map.Entry<Long, byte[]> latest = checkpoints.lastEntry();
+
+        while(latest != null) {
+            try {
+                ObjectInputStream in = new ObjectInputStream(
+                        new ByteArrayInputStream(latest.getValue()));
+
+                synchronized(theCADData) {
+                    theIncidentMgr.readCheckpoint(in);
+                    theCADData.readCheckpoint(in);
+                    CMSDiversionDB.getInstance().readCheckpoint(in);
+                }
+
+                restoreTimer.recordSince(start);
+                return latest.getKey();
+            }
+            catch (Exception e) {
+                checkpointLogger.logp(Level.WARNING, "CheckpointManager", "restore",
+                        "Unable to restore the checkpoint at " + latest.getKey() + ".", e);
+
+                totalBytes -= checkpoints.pollLastEntry().getValue().length;
+                latest = checkpoints.lastEntry();
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Discards all checkpoints.
+     */
+    public synchronized void clear() {
+        checkpoints.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Returns the simulation times of the checkpoints, in order.
+     *
+     * @return Simulation times (in seconds) of the checkpoints.
+     */
+    public synchronized TreeSet<Long> getCheckpointTimes() {
+        return new TreeSet<Long>(checkpoints.keySet());
+    }
+
+    /**
+     * Returns the number of simulation seconds between two checkpoints.
+     *
+     * @return Checkpoint interval (in seconds), 0 if no checkpoints are taken.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Add a checkpoint, replacing the one at the same time.
+     */
+    private void put(long simTime, byte[] checkpoint) {
+        byte[] replaced = checkpoints.put(simTime, checkpoint);
+
+        totalBytes += checkpoint.length - (replaced == null ? 0 : replaced.length);
+    }
+}
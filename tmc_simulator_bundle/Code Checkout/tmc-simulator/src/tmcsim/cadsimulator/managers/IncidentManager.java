@@ -1,7 +1,11 @@
 package tmcsim.cadsimulator.managers;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import tmcsim.cadmodels.IncidentBoardModel_obj;
 import tmcsim.cadmodels.IncidentInquiryModel_obj;
@@ -12,6 +16,8 @@ import tmcsim.cadsimulator.SoundPlayer;
 import tmcsim.client.cadclientgui.data.Incident;
 import tmcsim.client.cadclientgui.data.IncidentEvent;
 import tmcsim.common.ScriptException;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
 
 /**
  * IncidentManager is a CAD Simulator Manager containing the Incident data 
@@ -21,9 +27,11 @@ import tmcsim.common.ScriptException;
  * the Incidents to begin a new simulation.  The IncidentBoard, IncidentInquiry, 
  * IncidentSummary, and IncidentEvent object lists are viewable through accessor methods.
  * The tick() method is called when the simulation time changes.  This method will then
- * update all loaded Incidents. Any events that occur will be enqueued on the SoundPlayer.
+ * update the Incidents and IncidentEvents that are due at the new time, as indexed by
+ * an IncidentScheduler. Any events that occur will be enqueued on the SoundPlayer.
  * Any events that have completed are updated into the simulation data.  The Coordinator
- * is notified when an Incident starts or is updated.
+ * is notified when an Incident starts or is updated.  The Incident data can be
+ * written to and read from a simulation checkpoint.
  * 
  * @author Matthew Cechini
  * @version
@@ -38,7 +46,7 @@ public class IncidentManager {
     
     /**
      * Synchronization lock object used to avoid race conditions in accessing the
-     * incidentList Vector.
+     * incidentList Vector and the incident schedule.
      */
     private Object lock = new Object();    
     
@@ -53,6 +61,18 @@ public class IncidentManager {
      */     
     private Vector<Incident> incidentList;    
     
+    /**
+     * Schedule of Incident starts and IncidentEvent triggers indexed by
+     * simulation time.
+     */
+    private IncidentScheduler scheduler;
+    
+    /**
+     * Map of loaded Incident objects(values) for each Incident log number(key).
+     * Index over the incidentList Vector, modified while holding the lock.
+     */
+    private ConcurrentHashMap<Integer, Vector<Incident>> incidentsByLogNumber;
+    
     /**
      * Vector of IncidentBoardModel_obj objects containing the data for
      * incident board messages.
@@ -65,6 +85,12 @@ public class IncidentManager {
      */    
     private Vector<IncidentInquiryModel_obj> IncidentInquiryModelObjects;
 
+    /**
+     * Map of IncidentInquiryModel_obj objects(values) for each Incident log
+     * number(key).  Index over the IncidentInquiryModelObjects Vector.
+     */
+    private ConcurrentHashMap<Integer, IncidentInquiryModel_obj> inquiryByLogNumber;
+
     /**
      * Vector of IncidentSummaryModel_obj objects containing the data 
      * for incident summary requests.
@@ -74,6 +100,9 @@ public class IncidentManager {
     /** Boolean flag to designate whether incidents are loaded. */
     private boolean incidentsLoaded;
     
+    /** Time taken by the tick() method. */
+    private Timer tickTimer = MetricsRegistry.getInstance().timer("IncidentManager.tick");
+    
     
     /**
      * Constructor. Initialize data members.
@@ -86,6 +115,9 @@ public class IncidentManager {
         theSoundPlayer = soundPlayer;
         
         incidentList                = new Vector<Incident>();
+        scheduler                   = new IncidentScheduler();
+        incidentsByLogNumber        = new ConcurrentHashMap<Integer, Vector<Incident>>();
+        inquiryByLogNumber          = new ConcurrentHashMap<Integer, IncidentInquiryModel_obj>();
         completedEvents             = new TreeMap<Integer, Vector<IncidentEvent>>();    
         IncidentBoardModelObjects   = new Vector<IncidentBoardModel_obj>();
         IncidentInquiryModelObjects = new Vector<IncidentInquiryModel_obj>();
@@ -111,9 +143,14 @@ public class IncidentManager {
     public void clearIncidents() {
         IncidentBoardModelObjects.clear();
         IncidentInquiryModelObjects.clear();
+        inquiryByLogNumber.clear();
         IncidentSummaryModelObjects.clear();    
         
-        incidentList.clear();
+        synchronized (lock) {
+            incidentList.clear();
+            incidentsByLogNumber.clear();
+            scheduler.clear();
+        }
             
         completedEvents.clear();   
 
@@ -129,10 +166,16 @@ public class IncidentManager {
     public void resetIncidents() {
         IncidentBoardModelObjects.clear();
         IncidentInquiryModelObjects.clear();
+        inquiryByLogNumber.clear();
         IncidentSummaryModelObjects.clear();    
         
-        for(Incident inc : incidentList) {
-            inc.resetSimulation();
+        synchronized (lock) {
+            scheduler.clear();
+
+            for(Incident inc : incidentList) {
+                inc.resetSimulation();
+                scheduler.schedule(inc);
+            }
         }
         
         completedEvents.clear();        
@@ -149,24 +192,26 @@ public class IncidentManager {
     public void deleteIncident(Integer incidentNumber) throws ScriptException {
 
         synchronized (lock) {
-            Vector<Incident> incToRemove = new Vector<Incident>();
-
-            for (Incident inc : incidentList) {
+            Vector<Incident> incToRemove = incidentsByLogNumber.get(incidentNumber);
 
-                if (inc.getLogNumber().compareTo(incidentNumber) == 0) {
-                    if (inc.hasOccured())
-                        throw new ScriptException(
-                                ScriptException.INCIDENT_ALREADY_STARTED);
+            if (incToRemove == null)
+                return;
 
-                    incToRemove.add(inc);
-                }
+            for (Incident inc : incToRemove) {
+                if (inc.hasOccured())
+                    throw new ScriptException(
+                            ScriptException.INCIDENT_ALREADY_STARTED);
             }
 
-            for (Incident inc : incToRemove)
+            incidentsByLogNumber.remove(incidentNumber);
+
+            for (Incident inc : incToRemove) {
                 incidentList.remove(inc);
-        }
+                scheduler.remove(inc);
+            }
 
-        incidentsLoaded = incidentList.size() > 0;
+            incidentsLoaded = incidentList.size() > 0;
+        }
     }
 
     /**
@@ -181,16 +226,18 @@ public class IncidentManager {
             throws ScriptException {
 
         synchronized (lock) {
+            Vector<Incident> matches = incidentsByLogNumber.get(incidentNumber);
 
-            for (Incident inc : incidentList) {
+            if (matches == null)
+                return;
 
-                if (inc.getLogNumber().equals(incidentNumber)) {
-                    if (inc.hasOccured()) {
-                        throw new ScriptException(
-                                ScriptException.INCIDENT_ALREADY_STARTED);
-                    }
-                    inc.setSecondsToStart(newTime);
+            for (Incident inc : matches) {
+                if (inc.hasOccured()) {
+                    throw new ScriptException(
+                            ScriptException.INCIDENT_ALREADY_STARTED);
                 }
+                inc.setSecondsToStart(newTime);
+                scheduler.schedule(inc);
             }
         }
     }
@@ -205,6 +252,8 @@ public class IncidentManager {
 
         synchronized (lock) {
             incidentList.add(newIncident);
+            indexIncident(newIncident);
+            scheduler.schedule(newIncident);
             incidentsLoaded = true;
         }
     }
@@ -219,40 +268,177 @@ public class IncidentManager {
 
         synchronized (lock) {
             incidentList.addAll(vector);
+
+            for (Incident inc : vector) {
+                indexIncident(inc);
+                scheduler.schedule(inc);
+            }
+
             incidentsLoaded = true;
         }
     }
     
     /**
-     * This method calls the tick() method on all loaded Incidents.  If the 
-     * clock tick causes IncidentEvents to be triggered, the events are 
-     * enqueued in the SoundPlayer.  If any IncidentEvents have completed,
-     * they are finalized with the current simulation and CAD time.  The local
-     * IncidentInquiry and IncidentSummary lists are updated with the completed
-     * IncidentEvent Objects and then the Coordinator is notified with the
-     * IncidentEvent.  
+     * This method starts the Incidents and triggers the IncidentEvents that are
+     * due at or before the current simulation time.  Only scheduled work that
+     * is due is visited.  If the clock tick causes IncidentEvents to be
+     * triggered, the events are enqueued in the SoundPlayer.  Incidents are
+     * started and IncidentEvents triggered at the time they were scheduled
+     * for rather than the tick time, so a tick that skips seconds does not
+     * delay an Incident's start or the later events of the Incident.  If any
+     * IncidentEvents have completed, they are finalized with the current
+     * simulation and CAD time.  The local IncidentInquiry and IncidentSummary
+     * lists are updated with the completed IncidentEvent Objects and then the
+     * Coordinator is notified with the IncidentEvent.  The time taken is
+     * recorded in the "IncidentManager.tick" metric.
      * 
      * @param currentSimTime Current simulation time (in seconds).
      */
     public void tick(long currentSimTime) {
         
-        for(Incident inc : incidentList) {
+        long start = System.nanoTime();
+        IncidentScheduler.ScheduledEntry entry;
+
+        while(true) {
+            boolean triggered = false;
+
+            synchronized (lock) {
+                entry = scheduler.pollDue(currentSimTime);
+                if(entry == null)
+                    break;
+
+                if(entry.type == IncidentScheduler.ENTRY_TYPE.INCIDENT_START) {
+                    if(entry.incident.tick(entry.time))
+                        scheduler.schedule(entry.incident);
+                }
+                else {
+                    triggered = entry.event.triggerEvent(
+                            entry.incident.getSecondsIncidentStarted(), entry.time);
+                    scheduler.addActive(entry);
+                }
+            }
 
-            inc.tick(currentSimTime);
-            
             //For all events that occur with this tick, enqueue them in the sound player.
-            for(IncidentEvent event : inc.getTriggeredEvents(currentSimTime)) {
-                theSoundPlayer.enqueueClip(event);   
-            }                   
-                
-            for(IncidentEvent event : inc.getCompletedEvents()) {
-                event.finalizeEvent(currentSimTime, CADSimulator.getCADTime());
-                updateIncident(inc.getLogNumber(), event);
-                theCoordinator.updateIncidentInGUI(inc.getLogNumber(), event);
-            }                       
-        }       
+            if(triggered)
+                theSoundPlayer.enqueueClip(entry.event);
+        }
+
+        Vector<IncidentScheduler.ScheduledEntry> completed;
+        synchronized (lock) {
+            completed = scheduler.getCompletedEvents();
+        }
+
+        for(IncidentScheduler.ScheduledEntry done : completed) {
+            done.event.finalizeEvent(currentSimTime, CADSimulator.getCADTime());
+            updateIncident(done.incident.getLogNumber(), done.event);
+            theCoordinator.updateIncidentInGUI(done.incident.getLogNumber(), done.event);
+        }
+        
+        tickTimer.recordSince(start);
     }
     
+    /**
+     * Returns the next simulation time after the parameter time at which an
+     * Incident will start or an IncidentEvent will be triggered or completed.
+     *
+     * @param currentSimTime Current simulation time (in seconds).
+     * @return Next scheduled simulation time, or -1 if nothing is scheduled.
+     */
+    public long getNextEventTime(long currentSimTime) {
+
+        synchronized (lock) {
+            return scheduler.getNextTime(currentSimTime);
+        }
+    }
+
+    /**
+     * Returns whether IncidentEvents have been triggered and are waiting for
+     * their audio to complete.
+     *
+     * @return true if there are active IncidentEvents, false if not.
+     */
+    public boolean hasActiveEvents() {
+
+        synchronized (lock) {
+            return scheduler.hasActiveEvents();
+        }
+    }
+
+    /**
+     * Writes the Incidents, the completed IncidentEvents, and the 
+     * IncidentBoard, IncidentInquiry, and IncidentSummary lists to a 
+     * simulation checkpoint.  Objects shared with other data written to the
+     * same stream, such as the CADData incidents, are written once.  Triggered
+     * IncidentEvents waiting for their audio are not restored, so a checkpoint
+     * should only be written when there are no active IncidentEvents.
+     *
+     * @param out Stream of the checkpoint.
+     * @throws IOException if the data cannot be written.
+     */
+    public void writeCheckpoint(ObjectOutputStream out) throws IOException {
+
+        synchronized (lock) {
+            out.writeObject(incidentList);
+            out.writeObject(completedEvents);
+            out.writeObject(IncidentBoardModelObjects);
+            out.writeObject(IncidentInquiryModelObjects);
+            out.writeObject(IncidentSummaryModelObjects);
+        }
+    }
+
+    /**
+     * Replaces the Incident data with the data read from a simulation 
+     * checkpoint written by writeCheckpoint().  The log number indexes and
+     * the incident schedule are rebuilt from the restored Incidents.
+     *
+     * @param in Stream of the checkpoint.
+     * @throws IOException if the data cannot be read.
+     * @throws ClassNotFoundException if a class of the data cannot be found.
+     */
+    @SuppressWarnings("unchecked")
+    public void readCheckpoint(ObjectInputStream in) 
+            throws IOException, ClassNotFoundException {
+
+        Vector<Incident> incidents = (Vector<Incident>)in.readObject();
+        TreeMap<Integer, Vector<IncidentEvent>> events = 
+                (TreeMap<Integer, Vector<IncidentEvent>>)in.readObject();
+        Vector<IncidentBoardModel_obj> boardObjs = 
+                (Vector<IncidentBoardModel_obj>)in.readObject();
+        Vector<IncidentInquiryModel_obj> inquiryObjs = 
+                (Vector<IncidentInquiryModel_obj>)in.readObject();
+        Vector<IncidentSummaryModel_obj> summaryObjs = 
+                (Vector<IncidentSummaryModel_obj>)in.readObject();
+
+        synchronized (lock) {
+            incidentList.clear();
+            incidentList.addAll(incidents);
+            incidentsByLogNumber.clear();
+            scheduler.clear();
+
+            for(Incident inc : incidentList) {
+                indexIncident(inc);
+                scheduler.schedule(inc);
+            }
+
+            incidentsLoaded = incidentList.size() > 0;
+        }
+
+        completedEvents.clear();
+        completedEvents.putAll(events);
+
+        IncidentBoardModelObjects.clear();
+        IncidentBoardModelObjects.addAll(boardObjs);
+        IncidentSummaryModelObjects.clear();
+        IncidentSummaryModelObjects.addAll(summaryObjs);
+
+        IncidentInquiryModelObjects.clear();
+        IncidentInquiryModelObjects.addAll(inquiryObjs);
+        inquiryByLogNumber.clear();
+        for(IncidentInquiryModel_obj iimo : inquiryObjs) {
+            inquiryByLogNumber.put(iimo.getLogNumber(), iimo);
+        }
+    }
+
     /**
      * This method forces an Incident to trigger.  If the Incident corresponding
      * to the parameter log number has not occured it is manually triggered.
@@ -262,13 +448,20 @@ public class IncidentManager {
      */
     public void triggerIncident(Integer incidentNumber, Long currentSimTime) {
 
-        for(Incident inc : incidentList) {
-            
-            if(inc.getLogNumber().equals(incidentNumber) 
-                && !inc.hasOccured()) {                                         
+        synchronized (lock) {
+            Vector<Incident> matches = incidentsByLogNumber.get(incidentNumber);
+
+            if(matches == null)
+                return;
 
-                inc.manualTrigger(currentSimTime);
-            }   
+            for(Incident inc : matches) {
+                
+                if(!inc.hasOccured()) {                                         
+
+                    inc.manualTrigger(currentSimTime);
+                    scheduler.schedule(inc);
+                }   
+            }
         }
 
     }
@@ -298,14 +491,10 @@ public class IncidentManager {
             completedEvents.put(incidentNumber, temp);
         }
         
-        for(IncidentInquiryModel_obj iimo : IncidentInquiryModelObjects) {
+        targetIncident = inquiryByLogNumber.get(incidentNumber);
 
-            if(iimo.getLogNumber().compareTo(incidentNumber) == 0) {
-                targetIncident = iimo;
-                
-                targetIncident.update(completedEvent.eventInfo);                
-                break;
-            }
+        if(targetIncident != null) {
+            targetIncident.update(completedEvent.eventInfo);
         }
         
         if(targetIncident == null) {
@@ -315,6 +504,7 @@ public class IncidentManager {
             
             targetIncident = new IncidentInquiryModel_obj(completedEvent.eventInfo);
             IncidentInquiryModelObjects.add(targetIncident);    
+            inquiryByLogNumber.put(incidentNumber, targetIncident);
             IncidentSummaryModelObjects.add(new IncidentSummaryModel_obj(completedEvent.eventInfo.getHeader()));    
             
             theCoordinator.incidentStarted(completedEvent);     
@@ -331,16 +521,22 @@ public class IncidentManager {
      * @return true if Incident exists, false if not.
      */
     public boolean incidentExists(Integer incidentNumber) {
-        boolean found = false;
-        
-        for(IncidentInquiryModel_obj iimo : IncidentInquiryModelObjects) {
-            if(iimo.getLogNumber().compareTo(incidentNumber) == 0) {
-                found = true;
-                break;
-            }           
+        return inquiryByLogNumber.containsKey(incidentNumber);
+    }
+    
+    /**
+     * Add an Incident to the log number index.  Must be called while holding
+     * the lock.
+     */
+    private void indexIncident(Incident inc) {
+        Vector<Incident> matches = incidentsByLogNumber.get(inc.getLogNumber());
+
+        if(matches == null) {
+            matches = new Vector<Incident>();
+            incidentsByLogNumber.put(inc.getLogNumber(), matches);
         }
 
-        return found;
+        matches.add(inc);
     }
     
     /**
@@ -380,17 +576,9 @@ public class IncidentManager {
     public Vector<IncidentInquiryModel_obj> getIncidentInquiryModelObjects(Integer logNumber) {
         Vector<IncidentInquiryModel_obj> modelObjs = new Vector<IncidentInquiryModel_obj>();
 
-        synchronized(lock) {
-            
-            for(IncidentInquiryModel_obj iimo : IncidentInquiryModelObjects) {
-                
-                //Find the model object in the private vector of incidents that matches
-                //the incident in the parameter's model.
-                
-                if(iimo.getLogNumber().compareTo(logNumber) == 0) {
-                    modelObjs.add(iimo);
-                }
-            }    
+        IncidentInquiryModel_obj iimo = inquiryByLogNumber.get(logNumber);
+        if(iimo != null) {
+            modelObjs.add(iimo);
         }
         
 
@@ -0,0 +1,320 @@
+package tmcsim.cadsimulator.managers;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.IncidentEvent;
+import tmcsim.client.cadclientgui.data.IncidentEvent.EVENT_STATUS;
+
+/**
+ * IncidentScheduler is used by the IncidentManager to index Incidents and
+ * IncidentEvents by the absolute simulation time at which they are due.  An
+ * Incident that has not occured is scheduled at its start time.  Once an
+ * Incident has occured, each of its WAITING IncidentEvents is scheduled at
+ * the first simulation time that satisfies IncidentEvent.triggerEvent().
+ * IncidentEvents that have been triggered but not yet finalized are kept in
+ * an active list until their audio has completed.<br>
+ * <br>
+ * Entries are not removed from the schedule when an Incident is rescheduled,
+ * manually triggered, or deleted.  Instead, each Incident has a schedule
+ * generation which is incremented when it is scheduled again.  Entries with
+ * an old generation are discarded when they reach the front of the schedule.
+ * This keeps the cost of a clock tick proportional to the number of entries
+ * that are due.<br>
+ * <br>
+ * This class is not synchronized.  The IncidentManager guards access with its
+ * lock object.
+ *
+ * @author Jonathan Molina
+ */
+public class IncidentScheduler {
+
+    /**
+     * Enumeration of the types of scheduled entries.
+     */
+    public static enum ENTRY_TYPE {
+        /** An Incident is due to start. */
+        INCIDENT_START,
+        /** An IncidentEvent is due to be triggered. */
+        EVENT_TRIGGER;
+    }
+
+    /**
+     * A scheduled Incident start or IncidentEvent trigger.
+     */
+    public static class ScheduledEntry {
+
+        /** Type of entry. */
+        public ENTRY_TYPE type;
+
+        /** Incident that the entry belongs to. */
+        public Incident incident;
+
+        /** IncidentEvent to trigger, null for INCIDENT_START entries. */
+        public IncidentEvent event;
+
+        /** Simulation time (in seconds) at which the entry is due. */
+        public long time;
+
+        /** Schedule generation of the Incident when this entry was created. */
+        private long generation;
+
+        private ScheduledEntry(ENTRY_TYPE t, Incident inc, IncidentEvent evt,
+                long dueTime, long gen) {
+            type       = t;
+            incident   = inc;
+            event      = evt;
+            time       = dueTime;
+            generation = gen;
+        }
+    }
+
+    /** Map of scheduled entries keyed by the simulation time they are due. */
+    private TreeMap<Long, LinkedList<ScheduledEntry>> schedule;
+
+    /** Current schedule generation of each scheduled Incident. */
+    private IdentityHashMap<Incident, Long> generations;
+
+    /** Triggered IncidentEvents that have not yet been finalized, in trigger order. */
+    private LinkedList<ScheduledEntry> activeEvents;
+
+    /** Counter used to assign schedule generations. */
+    private long nextGeneration = 0;
+
+
+    /**
+     * Constructor.  Initializes an empty schedule.
+     */
+    public IncidentScheduler() {
+        schedule     = new TreeMap<Long, LinkedList<ScheduledEntry>>();
+        generations  = new IdentityHashMap<Incident, Long>();
+        activeEvents = new LinkedList<ScheduledEntry>();
+    }
+
+    /**
+     * Schedule the parameter Incident according to its current state.  Any
+     * previous entries for the Incident are invalidated.  If the Incident has
+     * not occured, it is scheduled at its start time.  Otherwise each WAITING
+     * IncidentEvent is scheduled at its trigger time, and each IncidentEvent
+     * that has been triggered but not finalized is added to the active list.
+     *
+     * @param inc Incident to schedule.
+     */
+    public void schedule(Incident inc) {
+        long gen = nextGeneration++;
+        generations.put(inc, gen);
+        removeActive(inc);
+
+        if (!inc.hasOccured()) {
+            add(new ScheduledEntry(ENTRY_TYPE.INCIDENT_START, inc, null,
+                    inc.getSecondsToStart(), gen));
+            return;
+        }
+
+        for (IncidentEvent evt : inc.getEvents()) {
+            if (evt.eventStatus == EVENT_STATUS.WAITING) {
+                add(new ScheduledEntry(ENTRY_TYPE.EVENT_TRIGGER, inc, evt,
+                        triggerTime(inc, evt), gen));
+            } else if (evt.eventStatus != EVENT_STATUS.FINALIZED) {
+                activeEvents.add(new ScheduledEntry(ENTRY_TYPE.EVENT_TRIGGER,
+                        inc, evt, inc.getSecondsIncidentStarted(), gen));
+            }
+        }
+    }
+
+    /**
+     * Remove the parameter Incident from the schedule.
+     *
+     * @param inc Incident to remove.
+     */
+    public void remove(Incident inc) {
+        generations.remove(inc);
+        removeActive(inc);
+    }
+
+    /**
+     * Remove all Incidents from the schedule.
+     */
+    public void clear() {
+        schedule.clear();
+        generations.clear();
+        activeEvents.clear();
+    }
+
+    /**
+     * Removes and returns the next valid entry that is due at or before the
+     * parameter simulation time.
+     *
+     * @param currentSimTime Current simulation time (in seconds).
+     * @return Next due entry, or null if no entries are due.
+     */
+    public ScheduledEntry pollDue(long currentSimTime) {
+        ScheduledEntry entry = peekValid();
+
+        if (entry == null || entry.time > currentSimTime) {
+            return null;
+        }
+
+        Map.Entry<Long, LinkedList<ScheduledEntry>> first = schedule.firstEntry();
+        first.getValue().removeFirst();
+        if (first.getValue().isEmpty()) {
+            schedule.remove(first.getKey());
+        }
+
+        return entry;
+    }
+
+    /**
+     * Add an IncidentEvent that has been triggered to the active list.  The
+     * event is kept until it has been returned by getCompletedEvents().
+     *
+     * @param entry Entry for the triggered IncidentEvent.
+     */
+    public void addActive(ScheduledEntry entry) {
+        activeEvents.add(entry);
+    }
+
+    /**
+     * Removes and returns the active IncidentEvents that have COMPLETED, in
+     * the order they were triggered.
+     *
+     * @return List of entries for completed IncidentEvents.
+     */
+    public Vector<ScheduledEntry> getCompletedEvents() {
+        Vector<ScheduledEntry> completed = new Vector<ScheduledEntry>();
+
+        Iterator<ScheduledEntry> iter = activeEvents.iterator();
+        while (iter.hasNext()) {
+            ScheduledEntry entry = iter.next();
+
+            if (entry.event.eventStatus == EVENT_STATUS.COMPLETED) {
+                completed.add(entry);
+                iter.remove();
+            } else if (entry.event.eventStatus == EVENT_STATUS.FINALIZED
+                    || entry.event.eventStatus == EVENT_STATUS.WAITING) {
+                iter.remove();
+            }
+        }
+
+        return completed;
+    }
+
+    /**
+     * Returns whether any triggered IncidentEvents are waiting to complete.
+     *
+     * @return true if there are active IncidentEvents, false if not.
+     */
+    public boolean hasActiveEvents() {
+        return !activeEvents.isEmpty();
+    }
+
+    /**
+     * Returns the next simulation time after the parameter time at which
+     * scheduled work exists.  If triggered IncidentEvents are waiting to
+     * complete, the next second is returned.
+     *
+     * @param currentSimTime Current simulation time (in seconds).
+     * @return Next scheduled simulation time, or -1 if nothing is scheduled.
+     */
+    public long getNextTime(long currentSimTime) {
+        if (!activeEvents.isEmpty()) {
+            return currentSimTime + 1;
+        }
+
+        ScheduledEntry entry = peekValid();
+        if (entry == null) {
+            return -1;
+        }
+
+        return Math.max(entry.time, currentSimTime + 1);
+    }
+
+    /**
+     * Returns the number of entries in the schedule, including entries that
+     * have been invalidated but not yet discarded.
+     *
+     * @return Number of scheduled entries.
+     */
+    public int size() {
+        int size = 0;
+        for (LinkedList<ScheduledEntry> entries : schedule.values()) {
+            size += entries.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the first simulation time at which IncidentEvent.triggerEvent()
+     * will trigger the parameter event.
+     */
+    private long triggerTime(Incident inc, IncidentEvent evt) {
+        return inc.getSecondsIncidentStarted() + evt.secondsToOccurInIncident + 1;
+    }
+
+    /**
+     * Add an entry to the schedule.
+     */
+    private void add(ScheduledEntry entry) {
+        LinkedList<ScheduledEntry> entries = schedule.get(entry.time);
+        if (entries == null) {
+            entries = new LinkedList<ScheduledEntry>();
+            schedule.put(entry.time, entries);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Returns the first entry in the schedule, discarding invalid entries.
+     */
+    private ScheduledEntry peekValid() {
+        while (!schedule.isEmpty()) {
+            Map.Entry<Long, LinkedList<ScheduledEntry>> first = schedule.firstEntry();
+            ScheduledEntry entry = first.getValue().getFirst();
+
+            if (isValid(entry)) {
+                return entry;
+            }
+
+            first.getValue().removeFirst();
+            if (first.getValue().isEmpty()) {
+                schedule.remove(first.getKey());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns whether an entry still applies to its Incident.
+     */
+    private boolean isValid(ScheduledEntry entry) {
+        Long gen = generations.get(entry.incident);
+
+        if (gen == null || gen.longValue() != entry.generation) {
+            return false;
+        }
+
+        if (entry.type == ENTRY_TYPE.INCIDENT_START) {
+            return !entry.incident.hasOccured();
+        }
+
+        return entry.event.eventStatus == EVENT_STATUS.WAITING;
+    }
+
+    /**
+     * Remove the active IncidentEvents belonging to an Incident.
+     */
+    private void removeActive(Incident inc) {
+        Iterator<ScheduledEntry> iter = activeEvents.iterator();
+        while (iter.hasNext()) {
+            if (iter.next().incident == inc) {
+                iter.remove();
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ import tmcsim.cadsimulator.paramicscontrol.ParamicsStatusReader;
 import tmcsim.common.SimulationException;
 import tmcsim.common.XMLIncident;
 import tmcsim.common.CADEnums.PARAMICS_STATUS;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
 
 /**
  * ParamicsSimulationManager is a CAD Simulator Manager used to handle all
@@ -28,9 +29,9 @@ import tmcsim.common.CADEnums.PARAMICS_STATUS;
  * information to cause Paramics to begin loading a traffic network.  When the
  * status becomes LOADED, the ParamicsCameraStatusReader is registered and
  * begins reading.  All camera speed updates are received through the
- * updateCameraInfo() method.  The startSimulation(), resetSimulation(), and 
- * sendIncidentUpdate() methods are used to control the flow of Incident 
- * update information to Paramics.  The updateIncident() and updateDiversion() 
+ * updateCameraInfo() method.  The startSimulation(), resetSimulation(), 
+ * flushIncidentUpdate(), and sendIncidentUpdate() methods are used to control 
+ * the flow of Incident update information to Paramics.  The updateIncident() and updateDiversion() 
  * methods are used to update the information that is sent to Paramics.
  *  
  *      
@@ -52,6 +53,7 @@ public class ParamicsSimulationManager {
         PARAMICS_PORT        ("ParamicsCommPort"),
         INCIDENT_UPDATE_INT  ("IncidentUpdateInterval"),
         INCIDENT_UPDATE_FILE ("IncidentUpdateFile"),
+        INCIDENT_DELTA       ("IncidentDeltaUpdates"),
         PARAMICS_STATUS_INT  ("ParamicsStatusInterval"),
         PARAMICS_STATUS_FILE ("ParamicsStatusFile"),
         CAMERA_STATUS_INT    ("CameraStatusInterval"),
@@ -106,13 +108,17 @@ public class ParamicsSimulationManager {
             theCommunicator = new ParamicsCommunicator(this, 
                     paramicsProperties.getProperty(PROPERTIES.PARAMICS_HOST.name),
                     Integer.parseInt(paramicsProperties.getProperty(
-                            PROPERTIES.PARAMICS_PORT.name).trim()));
+                            PROPERTIES.PARAMICS_PORT.name).trim()),
+                    ResetPolicy.fromProperties(paramicsProperties));
                     
             paramicsIncidentWriter = new ParamicsIncidentWriter(Integer.parseInt(
                     paramicsProperties.getProperty(PROPERTIES.INCIDENT_UPDATE_INT.name).trim()));  
             paramicsIncidentWriter.writerID   = theCommunicator.nextID();
             paramicsIncidentWriter.targetFile = paramicsProperties.getProperty(
                     PROPERTIES.INCIDENT_UPDATE_FILE.name);      
+            paramicsIncidentWriter.setDeltaEncoding(Boolean.parseBoolean(
+                    paramicsProperties.getProperty(
+                            PROPERTIES.INCIDENT_DELTA.name, "false").trim()));
             
             paramicsStatusReader = new ParamicsStatusReader(this);
             paramicsStatusReader.readerID   = theCommunicator.nextID();
@@ -189,6 +195,14 @@ public class ParamicsSimulationManager {
         paramicsIncidentWriter.resetSimulation();
     }
 
+    /**
+     * Updates the ParamicsIncidentWriter with the current simulation speed.
+     * @param simSpeed Simulation seconds per real second, 0 if not paced by real time.
+     */
+    public void setSimulationSpeed(double simSpeed) {
+        paramicsIncidentWriter.setSimulationSpeed((int)Math.round(simSpeed));
+    }
+
     /**
      * Notifies the ParamicsIncidentWriter to send an Incident update.
      * @param currentSimTime Current simulation time (in seconds).
@@ -197,6 +211,15 @@ public class ParamicsSimulationManager {
         paramicsIncidentWriter.sendUpdate(currentSimTime);
     }
     
+    /**
+     * Notifies the ParamicsIncidentWriter to send an Incident update if there
+     * are changes to send or the update interval has passed.
+     * @param currentSimTime Current simulation time (in seconds).
+     */
+    public void flushIncidentUpdate(long currentSimTime) {
+        paramicsIncidentWriter.flush(currentSimTime);
+    }
+    
     /**
      * Establish a connection to the remote ParamicsCommunicator.  Register
      * the ParamicsStatusReader and update the current status to CONNECTED.
@@ -0,0 +1,220 @@
+package tmcsim.cadsimulator.managers;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+import tmcsim.common.CADEnums.CLOCK_MODE;
+
+/**
+ * SimulationClock is used by the SimulationControlManager to advance the
+ * simulation time.  The clock is pluggable; the create() method returns an
+ * implementation for the requested CLOCK_MODE:<br>
+ * <ul>
+ * <li>REAL_TIME - the simulation advances one second every second.</li>
+ * <li>ACCELERATED - the simulation advances a multiple of real time.</li>
+ * <li>AS_FAST_AS_POSSIBLE - the simulation jumps directly to the next time at
+ *     which an IncidentEvent is scheduled, waiting only for each tick to be
+ *     processed.</li>
+ * </ul>
+ * The clock advances time through a ClockTarget, which owns the current
+ * simulation time and knows when the next event is scheduled.
+ *
+ * @author Jonathan Molina
+ */
+public abstract class SimulationClock {
+
+    /**
+     * Interface for the object whose simulation time is advanced by the clock.
+     */
+    public static interface ClockTarget {
+
+        /**
+         * Returns the current simulation time.
+         * @return Current simulation time (in seconds).
+         */
+        public long getCurrentSimTime();
+
+        /**
+         * Advance the simulation to the parameter time and notify listeners.
+         * @param newSimTime New simulation time (in seconds).
+         */
+        public void advanceTo(long newSimTime);
+
+        /**
+         * Returns the next simulation time after the parameter time at which
+         * scheduled work exists.
+         * @param currentSimTime Current simulation time (in seconds).
+         * @return Next scheduled simulation time, or -1 if nothing is scheduled.
+         */
+        public long getNextEventTime(long currentSimTime);
+
+        /**
+         * Block until the tick for the parameter time has been processed.
+         * @param simTime Simulation time (in seconds) of the tick.
+         */
+        public void awaitTick(long simTime);
+    }
+
+    /** Target whose time is advanced by this clock. */
+    protected ClockTarget target;
+
+    /**
+     * Create a clock for the parameter mode.
+     *
+     * @param mode Clock mode.
+     * @param acceleration Number of simulation seconds per real second, used
+     *        by the ACCELERATED mode.
+     * @return New SimulationClock.
+     */
+    public static SimulationClock create(CLOCK_MODE mode, double acceleration) {
+        switch(mode) {
+            case ACCELERATED:
+                return new FixedRateClock(mode, acceleration > 0 ? acceleration : 1);
+            case AS_FAST_AS_POSSIBLE:
+                return new DiscreteEventClock();
+            case REAL_TIME:
+            default:
+                return new FixedRateClock(CLOCK_MODE.REAL_TIME, 1);
+        }
+    }
+
+    /**
+     * Begin advancing the target's simulation time.
+     * @param theTarget Target whose time is advanced.
+     */
+    public abstract void start(ClockTarget theTarget);
+
+    /**
+     * Stop advancing simulation time.  The clock may be started again.
+     */
+    public abstract void stop();
+
+    /**
+     * Returns the mode of this clock.
+     * @return Clock mode.
+     */
+    public abstract CLOCK_MODE getMode();
+
+    /**
+     * Returns the number of simulation seconds per real second, or 0 if the
+     * clock is not paced by real time.
+     * @return Clock speed.
+     */
+    public abstract double getSpeed();
+
+    /**
+     * Clock that advances simulation time on a fixed rate java.util.Timer.  A
+     * speed of 1 is real time.
+     */
+    private static class FixedRateClock extends SimulationClock {
+
+        /** Clock mode. */
+        private CLOCK_MODE mode;
+
+        /** Simulation seconds per real second. */
+        private double speed;
+
+        /** Timer used to advance simulation time. */
+        private Timer clockTimer = null;
+
+        FixedRateClock(CLOCK_MODE theMode, double theSpeed) {
+            mode  = theMode;
+            speed = theSpeed;
+        }
+
+        public synchronized void start(ClockTarget theTarget) {
+            target = theTarget;
+
+            long period = Math.max(1, Math.round(1000 / speed));
+            final long step = Math.max(1, Math.round(speed * period / 1000));
+
+            clockTimer = new Timer("SimulationClock");
+            clockTimer.scheduleAtFixedRate(new TimerTask() {
+                public void run() {
+                    target.advanceTo(target.getCurrentSimTime() + step);
+                }
+            }, 0, period);
+        }
+
+        public synchronized void stop() {
+            if(clockTimer != null) {
+                clockTimer.cancel();
+                clockTimer = null;
+            }
+        }
+
+        public CLOCK_MODE getMode() {
+            return mode;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+    }
+
+    /**
+     * Clock that jumps directly to the next scheduled event time.  Each tick is
+     * processed before the next is generated.  When no events are scheduled the
+     * clock advances one second every real second so that manual changes to the
+     * simulation are still picked up.
+     */
+    private static class DiscreteEventClock extends SimulationClock implements Runnable {
+
+        /** Thread advancing simulation time. */
+        private volatile Thread clockThread = null;
+
+        /** Flag to designate whether the clock is running. */
+        private volatile boolean running = false;
+
+        public synchronized void start(ClockTarget theTarget) {
+            target  = theTarget;
+            running = true;
+
+            clockThread = new Thread(this, "SimulationClock");
+            clockThread.setDaemon(true);
+            clockThread.start();
+        }
+
+        public synchronized void stop() {
+            running = false;
+
+            if(clockThread != null) {
+                clockThread.interrupt();
+                clockThread = null;
+            }
+        }
+
+        public void run() {
+            while(running && Thread.currentThread() == clockThread) {
+                long now  = target.getCurrentSimTime();
+                long next = target.getNextEventTime(now);
+
+                if(next < 0) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException ie) {
+                        break;
+                    }
+                    next = now + 1;
+                }
+                else if(next <= now) {
+                    next = now + 1;
+                }
+
+                if(!running)
+                    break;
+
+                target.advanceTo(next);
+                target.awaitTick(next);
+            }
+        }
+
+        public CLOCK_MODE getMode() {
+            return CLOCK_MODE.AS_FAST_AS_POSSIBLE;
+        }
+
+        public double getSpeed() {
+            return 0;
+        }
+    }
+}
@@ -1,26 +1,24 @@
 package tmcsim.cadsimulator.managers;
 
 import java.rmi.RemoteException;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import tmcsim.cadsimulator.Coordinator;
+import tmcsim.common.CADEnums.CLOCK_MODE;
 import tmcsim.common.CADEnums.SCRIPT_STATUS;
+import tmcsim.metrics.Gauge;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
 
-public class SimulationControlManager  {
+public class SimulationControlManager implements SimulationClock.ClockTarget {
 
     /** 
-     * 
+     * Maximum number of milliseconds the clock waits for a tick to be processed
+     * before advancing again.
      */
-    private class ClockTask extends TimerTask {     
-        public void run() {
-            currentSimTime++;
-            theCoordinator.tick();
-        }
-    }
+    private static final long TICK_WAIT = 5000;
     
-    /** The SimulationTimer used to keep track of simulation time. */
-    private Timer simTimer = null;
+    /** The SimulationClock used to advance simulation time. */
+    private SimulationClock simClock = null;
     
     /**  */
     private Coordinator theCoordinator;
@@ -28,14 +26,41 @@ public class SimulationControlManager  {
         /**
      * Boolean flag to designate whether the simulation has been started or not.
      */    
-    private boolean simulationStarted;
+    private volatile boolean simulationStarted;
     
     /**
      * Object used to count the number of seconds that the simulation has run.
      * The value is initialized to 0, and is reset to 0 every time a new simulation
      * is loaded, or the current simulation is stopped and reset.
      */
-    private long currentSimTime;    
+    private volatile long currentSimTime;
+
+    /**
+     * Wall clock time (in milliseconds) that corresponds to simulation time 0.
+     * Set when the simulation is started so that CAD times and dates follow
+     * the simulation clock when it is not running in real time.
+     */
+    private volatile long simulationEpoch;
+
+    /** Flag to designate whether the simulation epoch has been set. */
+    private volatile boolean epochSet;
+
+    /** Time the clock spends advancing the simulation by one tick. */
+    private Timer tickTimer;
+
+    /** Real time between two ticks. */
+    private Timer tickIntervalTimer;
+
+    /** Time (ns) of the previous tick, or 0 if the clock was just started. */
+    private long lastTickNanos = 0;
+
+    /**
+     * Time (ns) and simulation time from which the drift of a paced clock is
+     * measured, set whenever the clock is started or the time is changed.
+     * A pace start of 0 designates a clock that is not running.
+     */
+    private volatile long paceStartNanos = 0;
+    private volatile long paceStartSimTime = 0;
     
     
     public SimulationControlManager(Coordinator coor) {
@@ -43,6 +68,23 @@ public class SimulationControlManager  {
         theCoordinator    = coor;       
         simulationStarted = false;
         currentSimTime    = 0;    
+        epochSet          = false;
+        simClock          = SimulationClock.create(CLOCK_MODE.REAL_TIME, 1);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        tickTimer         = metrics.timer("SimulationControl.tick");
+        tickIntervalTimer = metrics.timer("SimulationControl.tickInterval");
+
+        metrics.gauge("SimulationControl.driftMillis", new Gauge() {
+            public long getValue() {
+                return getDriftMillis();
+            }
+        });
+        metrics.gauge("SimulationControl.tickLag", new Gauge() {
+            public long getValue() {
+                return theCoordinator.getEventExecutor().getTickLag();
+            }
+        });
     }
     
     public boolean simulationStarted() {
@@ -55,36 +97,165 @@ public class SimulationControlManager  {
     
     public void gotoSimulationTime(long newSimTime) {
         currentSimTime = newSimTime;
+
+        if(simulationStarted)
+            restartPace();
     }
     
     public void startSimulation() {
             
-        simTimer = new Timer();     
-        simTimer.scheduleAtFixedRate(new ClockTask(), 0, 1000);
+        if(!epochSet) {
+            simulationEpoch = System.currentTimeMillis() - currentSimTime * 1000;
+            epochSet        = true;
+        }
         
         simulationStarted = true;   
+
+        synchronized(this) {
+            restartPace();
+            simClock.start(this);
+        }
         
         theCoordinator.setScriptStatus(SCRIPT_STATUS.SCRIPT_RUNNING);
     }
     
     public void pauseSimulation() {  
         
-        if(simTimer != null)
-            simTimer.cancel();          
+        synchronized(this) {
+            simClock.stop();
+        }
             
         simulationStarted = false;              
+        paceStartNanos    = 0;
         
         theCoordinator.setScriptStatus(SCRIPT_STATUS.SCRIPT_PAUSED_STARTED);
     }
     
     public void resetSimulation() throws RemoteException {      
         
-        if(simTimer != null)
-            simTimer.cancel(); 
+        synchronized(this) {
+            simClock.stop();
+        }
          
         currentSimTime = 0;              
+        epochSet       = false;
+        paceStartNanos = 0;
         
         theCoordinator.setScriptStatus(SCRIPT_STATUS.SCRIPT_STOPPED_NOT_STARTED);
     }
     
+    /**
+     * Change the clock used to advance simulation time.  If the simulation is
+     * running, the current clock is stopped and the new clock is started at
+     * the current simulation time.
+     *
+     * @param mode New clock mode.
+     * @param acceleration Number of simulation seconds per real second, used
+     *        by the ACCELERATED mode.
+     */
+    public synchronized void setClockMode(CLOCK_MODE mode, double acceleration) {
+        setClock(SimulationClock.create(mode, acceleration));
+    }
+
+    /**
+     * Change the clock used to advance simulation time to the parameter
+     * clock, such as the clock of a replayed session.  If the simulation is
+     * running, the current clock is stopped and the new clock is started at
+     * the current simulation time.
+     *
+     * @param clock New simulation clock.
+     */
+    public synchronized void setClock(SimulationClock clock) {
+
+        if(simClock != null)
+            simClock.stop();
+        simClock = clock;
+
+        if(simulationStarted) {
+            restartPace();
+            simClock.start(this);
+        }
+    }
+
+    /**
+     * Returns the mode of the current simulation clock.
+     * @return Clock mode.
+     */
+    public synchronized CLOCK_MODE getClockMode() {
+        return simClock.getMode();
+    }
+
+    /**
+     * Returns the number of simulation seconds per real second, or 0 if the
+     * clock is not paced by real time.
+     * @return Clock speed.
+     */
+    public synchronized double getClockSpeed() {
+        return simClock.getSpeed();
+    }
+
+    /**
+     * Returns the wall clock time (in milliseconds) of the current simulation
+     * time.  In real time mode this is the current system time.  Otherwise
+     * it is the time the simulation was started plus the elapsed simulation time.
+     *
+     * @return Simulation clock time in milliseconds.
+     */
+    public long getSimulationClockTime() {
+
+        if(!epochSet || getClockMode() == CLOCK_MODE.REAL_TIME)
+            return System.currentTimeMillis();
+
+        return simulationEpoch + currentSimTime * 1000;
+    }
+
+    public void advanceTo(long newSimTime) {
+        long start = System.nanoTime();
+        if(lastTickNanos != 0)
+            tickIntervalTimer.record(start - lastTickNanos);
+        lastTickNanos = start;
+
+        currentSimTime = newSimTime;
+        theCoordinator.tick();
+
+        tickTimer.recordSince(start);
+    }
+
+    /**
+     * Returns how far (in milliseconds) the simulation time is behind the
+     * time a paced clock should have reached since it was started, or 0 if
+     * the clock is stopped or not paced by real time.  Time advances in
+     * whole ticks, so the drift of a clock that keeps pace stays within one
+     * tick; a drift that grows means ticks are late.
+     *
+     * @return Drift in milliseconds, negative if the simulation is ahead.
+     */
+    public long getDriftMillis() {
+        long startNanos = paceStartNanos;
+        double speed    = getClockSpeed();
+
+        if(startNanos == 0 || speed <= 0)
+            return 0;
+
+        double expected = (System.nanoTime() - startNanos) / 1000000.0 * speed;
+        return Math.round(expected - (currentSimTime - paceStartSimTime) * 1000.0);
+    }
+
+    /**
+     * Begin measuring the drift and tick interval from the current time.
+     */
+    private void restartPace() {
+        paceStartSimTime = currentSimTime;
+        paceStartNanos   = System.nanoTime();
+        lastTickNanos    = 0;
+    }
+
+    public long getNextEventTime(long simTime) {
+        return theCoordinator.getNextEventTime(simTime);
+    }
+
+    public void awaitTick(long simTime) {
+        theCoordinator.getEventExecutor().awaitTick(simTime, TICK_WAIT);
+    }
+
 }
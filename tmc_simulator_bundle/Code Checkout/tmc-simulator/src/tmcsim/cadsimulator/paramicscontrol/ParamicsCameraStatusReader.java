@@ -5,7 +5,6 @@ import java.util.logging.Level;
 
 import javax.xml.parsers.SAXParserFactory;
 
-import org.w3c.dom.Node;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -44,22 +43,22 @@ public class ParamicsCameraStatusReader extends ParamicsReader {
     }
     
     /**
-     * This method parses the received XML node with the local CameraStatusHandler.
+     * This method parses the received XML message with the local CameraStatusHandler.
      * All updated camera information is sent to the ParamicsSimulationManager.
      */
-    public void receive(Node rxMessage) {
+    public void receive(String rxMessage) {
         
         try {           
-            if(rxMessage.getTextContent().length() > 0) {
+            if(rxMessage.length() > 0) {
                 SAXParserFactory.newInstance().newSAXParser().parse(
-                        new ByteArrayInputStream(rxMessage.getTextContent().getBytes()), csh);
+                        new ByteArrayInputStream(rxMessage.getBytes()), csh);
             }
         }
         catch (Exception e) {
             paramLogger.logp(Level.SEVERE, "ParamicsCameraStatusReader", "receive",
                     "Exception in parsing received ParamicsCommMessage.", e);
             paramLogger.logp(Level.INFO, "ParamicsCameraStatusReader", "receive",
-                    "Invalid received bytes", rxMessage.getTextContent().getBytes());
+                    "Invalid received bytes", rxMessage.getBytes());
         }
     }
     
@@ -2,7 +2,6 @@ package tmcsim.cadsimulator.paramicscontrol;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
@@ -12,15 +11,18 @@ import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import tmcsim.cadsimulator.managers.ParamicsSimulationManager;
+import tmcsim.common.ManagedObjectOutputStream;
+import tmcsim.common.ParamicsFrame;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
 import tmcsim.common.CADEnums.PARAMICS_STATUS;
 import tmcsim.common.CADProtocol.PARAMICS_ACTIONS;
 import tmcsim.common.CADProtocol.PARAMICS_COMM_TAGS;
+import tmcsim.metrics.Histogram;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
 
 /**
  * The ParamicsCommunicator is a singleton object used to handle communication
@@ -35,13 +37,32 @@ import tmcsim.common.CADProtocol.PARAMICS_COMM_TAGS;
  * created reader are sent to the local ParamicsReader object.  After a writer is 
  * registered, this object is set as an Observer.  When message are to be sent,
  * they are received through the update() method and transmitted to the remote
- * ParamicsCommunicator.    
+ * ParamicsCommunicator.<br>
+ * <br>
+ * When connecting, the framed protocol is requested with a RESET message (see
+ * ParamicsFrame).  If the remote ParamicsCommunicator accepts it, messages are
+ * sent as compact length-prefixed frames.  If it does not respond within 
+ * NEGOTIATE_TIMEOUT, messages are sent as XML Documents.<br>
+ * <br>
+ * The time to write each message and its size in bytes are recorded in the
+ * "Paramics.write" and "Paramics.writeBytes" metrics.  The time a reader
+ * takes to handle each received message and the message length are recorded
+ * in the "Paramics.receive" and "Paramics.receiveChars" metrics.
  * 
  * @author 
  * @version
  */
 public class ParamicsCommunicator extends Thread implements Observer {
     
+    /** 
+     * Time (in ms) to wait for the remote Paramics Communicator to accept 
+     * the framed protocol.
+     */
+    private static final int NEGOTIATE_TIMEOUT = 2000;
+    
+    /** Read timeout (in ms) used for the XML Document protocol. */
+    private static final int READ_TIMEOUT = 5000;
+    
     /** Error Logger. */
     private Logger paramLogger = Logger.getLogger("tmcsim.cadsimulator.paramicscontrol");
     
@@ -61,7 +82,10 @@ public class ParamicsCommunicator extends Thread implements Observer {
     private ObjectInputStream in     = null;
     
     /** Output stream for writing to the socket. */
-    private ObjectOutputStream out = null;
+    private ManagedObjectOutputStream out = null;
+    
+    /** Reset policy of the output stream. */
+    private ResetPolicy resetPolicy = null;
     
     /** Map of all registered paramics readers, indexed by a unique  id. */
     private TreeMap<String, ParamicsReader> paramicsReaders = null;
@@ -75,17 +99,45 @@ public class ParamicsCommunicator extends Thread implements Observer {
      */ 
     private boolean connected = false;
     
+    /** 
+     * Boolean flag to designate whether the framed protocol was accepted by
+     * the remote Paramics Communicator.
+     */
+    private boolean framed = false;
+    
+    /** Time to write a message. */
+    private Timer writeTimer = MetricsRegistry.getInstance().timer("Paramics.write");
+    
+    /** Bytes written for a message. */
+    private Histogram writeBytes = MetricsRegistry.getInstance().histogram("Paramics.writeBytes");
+    
+    /** Time for a reader to handle a received message. */
+    private Timer receiveTimer = MetricsRegistry.getInstance().timer("Paramics.receive");
+    
+    /** Length of a received message. */
+    private Histogram receiveChars = MetricsRegistry.getInstance().histogram("Paramics.receiveChars");
+    
     /** Counter for assigning unique ids. */
     private int nextIdentifier = 0;     
     
 
     /**
-     * Constructor.  Initialize member data.
+     * Constructor.  Initialize member data.  The output stream uses the
+     * default reset policy.
      */
     public ParamicsCommunicator(ParamicsSimulationManager cntrl, 
             String newHost, Integer newPort) {
+        this(cntrl, newHost, newPort, ResetPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor.  Initialize member data.
+     */
+    public ParamicsCommunicator(ParamicsSimulationManager cntrl, 
+            String newHost, Integer newPort, ResetPolicy policy) {
 
         theController  = cntrl;
+        resetPolicy    = policy;
         paramicsHost   = newHost;
         paramicsPort   = newPort;   
         
@@ -107,18 +159,19 @@ public class ParamicsCommunicator extends Thread implements Observer {
     /**
      * Method connects to host and port where the remote paramics communicator 
      * has connected.  Input and Output streams are created on the new Socket
-     * connection.  A RESET message is sent transmitted on the socket and this
-     * thread is started.  
+     * connection.  A RESET message requesting the framed protocol is 
+     * transmitted on the socket and this thread is started.  
      */
     public void connect() throws IOException {
         
         try {
             paramicsSocket = new Socket();
-            paramicsSocket.setSoTimeout(5000);
+            paramicsSocket.setSoTimeout(READ_TIMEOUT);
             paramicsSocket.connect(new InetSocketAddress(paramicsHost, paramicsPort));
 
             //** out must be performed before in to unlock for connected socket **//
-            out = new ObjectOutputStream(paramicsSocket.getOutputStream());
+            out = new ManagedObjectOutputStream(paramicsSocket.getOutputStream(),
+                    resetPolicy);
             in  = new ObjectInputStream(paramicsSocket.getInputStream());
         }
         catch (IOException e) {
@@ -132,7 +185,7 @@ public class ParamicsCommunicator extends Thread implements Observer {
 
         connected = true;
         
-        reset();
+        negotiate();
         
         if(getState() == State.NEW)
             start();
@@ -164,6 +217,14 @@ public class ParamicsCommunicator extends Thread implements Observer {
         return connected; 
     }
     
+    /**
+     * Returns whether messages are sent with the framed protocol.
+     * @return True if the framed protocol is used, false if XML Documents are sent.
+     */
+    public boolean isFramed() {
+        return framed;
+    }
+    
     /**
      * While a connection is established to the remote paramics communicator,
      * read messages from the input stream.  Get the ParamicsReader from the
@@ -174,14 +235,19 @@ public class ParamicsCommunicator extends Thread implements Observer {
         
         while(connected) {
             try {               
-                Document rxMessage = (Document)in.readObject();
-                Element docElement = rxMessage.getDocumentElement();
+                ParamicsFrame rxMessage = framed ? ParamicsFrame.read(in) : 
+                    ParamicsFrame.fromDocument((Document)in.readObject());
 
-                String readerID         = docElement.getAttribute(PARAMICS_COMM_TAGS.ID.tag);               
-                ParamicsReader rxReader = paramicsReaders.get(readerID);
+                ParamicsReader rxReader = paramicsReaders.get(rxMessage.id);
                 
-                if(rxReader != null) {
-                    rxReader.receive(docElement.getChildNodes().item(0));
+                if(rxReader != null && rxMessage.action == PARAMICS_ACTIONS.READ_FILE) {
+                    long start = System.nanoTime();
+                    rxReader.receive(rxMessage.message);
+                    receiveTimer.recordSince(start);
+                    
+                    if(rxMessage.message != null) {
+                        receiveChars.record(rxMessage.message.length());
+                    }
                 }
             }   
             catch(SocketTimeoutException ste) {
@@ -200,11 +266,11 @@ public class ParamicsCommunicator extends Thread implements Observer {
     /**
      * Observer/Observable update method.  The Paramics Communicator observers
      * registered ParamicsWriters.  When messages are to be sent, they are sent
-     * through this method.  All messages are ParamicsCommMessage objects.  Send 
+     * through this method.  All messages are ParamicsFrame objects.  Send 
      * these messages to the write() method for transmission on the socket.
      */
     public void update(Observable o, Object arg) {      
-        write((Document)arg);               
+        write((ParamicsFrame)arg);               
     }
     
     
@@ -219,25 +285,8 @@ public class ParamicsCommunicator extends Thread implements Observer {
         if(connected && !paramicsReaders.containsKey(reader.readerID)) {
             
             try {
-                Document readerDoc = DocumentBuilderFactory.newInstance()
-                    .newDocumentBuilder().newDocument();
-        
-                Element readerElem = readerDoc.createElement(PARAMICS_COMM_TAGS.READER.tag);
-                readerElem.setAttribute(PARAMICS_COMM_TAGS.ID.tag, reader.readerID);
-                readerElem.setAttribute(PARAMICS_COMM_TAGS.ACTION.tag, 
-                        PARAMICS_ACTIONS.REGISTER.action);
-                
-                Element intElem = readerDoc.createElement(PARAMICS_COMM_TAGS.INTERVAL.tag);
-                intElem.appendChild(readerDoc.createTextNode(reader.interval));
-                readerElem.appendChild(intElem);    
-                
-                Element fileElem = readerDoc.createElement(PARAMICS_COMM_TAGS.TARGET_FILE.tag);
-                fileElem.appendChild(readerDoc.createTextNode(reader.targetFile));
-                readerElem.appendChild(fileElem);
-        
-                readerDoc.appendChild(readerElem);          
-                    
-                write(readerDoc);
+                write(ParamicsFrame.registerReader(reader.readerID, 
+                        reader.interval, reader.targetFile));
 
                 paramicsReaders.put(reader.readerID, reader);
             }
@@ -259,17 +308,8 @@ public class ParamicsCommunicator extends Thread implements Observer {
         if(connected && paramicsReaders.containsKey(reader.readerID)) {
             
             try {
-                Document readerDoc = DocumentBuilderFactory.newInstance()
-                    .newDocumentBuilder().newDocument();
-        
-                Element readerElem = readerDoc.createElement(PARAMICS_COMM_TAGS.READER.tag);
-                readerElem.setAttribute(PARAMICS_COMM_TAGS.ID.tag, reader.readerID);
-                readerElem.setAttribute(PARAMICS_COMM_TAGS.ACTION.tag, 
-                        PARAMICS_ACTIONS.UNREGISTER.action);
-        
-                readerDoc.appendChild(readerElem);          
-                    
-                write(readerDoc);
+                write(new ParamicsFrame(PARAMICS_COMM_TAGS.READER, 
+                        PARAMICS_ACTIONS.UNREGISTER, reader.readerID));
 
                 paramicsReaders.remove(reader.readerID);
             }
@@ -292,22 +332,7 @@ public class ParamicsCommunicator extends Thread implements Observer {
         
         if(connected && !paramicsWriters.containsKey(writer.writerID)) {
             try {
-                Document writerDoc = DocumentBuilderFactory.newInstance()
-                    .newDocumentBuilder().newDocument();
-        
-                Element writerElem = writerDoc.createElement(PARAMICS_COMM_TAGS.WRITER.tag);
-                writerElem.setAttribute(PARAMICS_COMM_TAGS.ID.tag, writer.writerID);
-                writerElem.setAttribute(PARAMICS_COMM_TAGS.ACTION.tag,
-                        PARAMICS_ACTIONS.REGISTER.action);
-                
-                Element fileElem = writerDoc.createElement(PARAMICS_COMM_TAGS.TARGET_FILE.tag);
-                fileElem.appendChild(writerDoc.createTextNode(writer.targetFile));
-                writerElem.appendChild(fileElem);
-        
-                writerDoc.appendChild(writerElem);          
-                    
-                write(writerDoc);
-
+                write(ParamicsFrame.registerWriter(writer.writerID, writer.targetFile));
                 
                 paramicsWriters.put(writer.writerID, writer);
                 
@@ -332,17 +357,8 @@ public class ParamicsCommunicator extends Thread implements Observer {
         if(connected && paramicsWriters.containsKey(writer.writerID)) {
             
             try {
-                Document writerDoc = DocumentBuilderFactory.newInstance()
-                    .newDocumentBuilder().newDocument();
-        
-                Element writerElem = writerDoc.createElement(PARAMICS_COMM_TAGS.WRITER.tag);
-                writerElem.setAttribute(PARAMICS_COMM_TAGS.ID.tag, writer.writerID);
-                writerElem.setAttribute(PARAMICS_COMM_TAGS.ACTION.tag, 
-                        PARAMICS_ACTIONS.UNREGISTER.action);
-        
-                writerDoc.appendChild(writerElem);          
-                    
-                write(writerDoc);
+                write(new ParamicsFrame(PARAMICS_COMM_TAGS.WRITER, 
+                        PARAMICS_ACTIONS.UNREGISTER, writer.writerID));
                     
                 paramicsWriters.remove(writer.writerID);
                 
@@ -356,22 +372,42 @@ public class ParamicsCommunicator extends Thread implements Observer {
     }   
     
     protected void reset() {
+        write(ParamicsFrame.reset());
+    }
+    
+    /**
+     * Transmit a RESET message as an XML Document requesting the framed 
+     * protocol, and wait up to NEGOTIATE_TIMEOUT for the remote Paramics 
+     * Communicator to accept it.  If it is not accepted, the XML Document 
+     * protocol is used.
+     */
+    protected void negotiate() {
+        framed = false;
         
+        ParamicsFrame request = ParamicsFrame.reset();
+        request.protocol = ParamicsFrame.FRAMED_PROTOCOL;
+        write(request);
+
         try {
-            Document resetDoc = DocumentBuilderFactory.newInstance()
-                .newDocumentBuilder().newDocument();
-        
-            Element resetElem = resetDoc.createElement(PARAMICS_COMM_TAGS.RESET.tag);
-        
-            resetDoc.appendChild(resetElem);        
-                
-            write(resetDoc);
+            paramicsSocket.setSoTimeout(NEGOTIATE_TIMEOUT);
+            
+            ParamicsFrame response = ParamicsFrame.fromDocument((Document)in.readObject());
+            framed = response.type == PARAMICS_COMM_TAGS.RESET && 
+                ParamicsFrame.FRAMED_PROTOCOL.equals(response.protocol);
+            
+            //frames are read without a timeout so a partial frame is never abandoned
+            paramicsSocket.setSoTimeout(framed ? 0 : READ_TIMEOUT);
+        }
+        catch (SocketTimeoutException ste) {
+            paramLogger.logp(Level.INFO, "ParamicsCommunicator", "negotiate", 
+                    "Framed protocol not accepted, using XML Documents.");
+            try { paramicsSocket.setSoTimeout(READ_TIMEOUT); } catch (Exception e) {}
         }
         catch (Exception e) {
-            paramLogger.logp(Level.SEVERE, "ParamicsCommunicator", 
-                    "reset", "Exception in reseting.", e);
+            paramLogger.logp(Level.SEVERE, "ParamicsCommunicator", "negotiate", 
+                    "Exception in negotiating the protocol.", e);
+            try { paramicsSocket.setSoTimeout(READ_TIMEOUT); } catch (Exception ex) {}
         }
-
     }
     
     /**
@@ -380,6 +416,11 @@ public class ParamicsCommunicator extends Thread implements Observer {
      */
     protected void cleanup() {
         
+        if(out != null) {
+            paramLogger.logp(Level.INFO, "ParamicsCommunicator", "cleanup", 
+                    "Socket output: " + out.getStatistics());
+        }
+        
         try {out.close();} catch (Exception e) {}
         try {in.close();} catch (Exception e) {}
         try {paramicsSocket.close();} catch (Exception e) {}
@@ -390,16 +431,28 @@ public class ParamicsCommunicator extends Thread implements Observer {
     }   
     
     /**
-     * Write the parameter ParamicsCommMessage to the output stream.  Flush 
-     * the stream to be sure all data is transmitted.
+     * Write the parameter ParamicsFrame to the output stream, as a frame if the
+     * framed protocol is used or else as an XML Document.  Flush the stream to 
+     * be sure all data is transmitted.
      * 
-     * @param message The message to transmit.
+     * @param output The message to transmit.
      */
-    protected synchronized void write(Document output) {
+    protected synchronized void write(ParamicsFrame output) {
         
         try {
-            out.writeObject(output);
+            long start = System.nanoTime();
+            long bytesBefore = out.getBytesWritten();
+            
+            if(framed) {
+                output.write(out);
+            }
+            else {
+                out.writeMessage(output.toDocument());
+            }
             out.flush();        
+            
+            writeTimer.recordSince(start);
+            writeBytes.record(out.getBytesWritten() - bytesBefore);
         }
         catch (Exception e) {
             paramLogger.logp(Level.SEVERE, "ParamicsCommunicator", "write", 
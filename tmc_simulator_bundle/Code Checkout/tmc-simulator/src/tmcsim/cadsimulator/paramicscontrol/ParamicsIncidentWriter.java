@@ -1,6 +1,7 @@
 package tmcsim.cadsimulator.paramicscontrol;
 
 import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeMap;
 
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -8,8 +9,12 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import tmcsim.cadmodels.CMSDiversion;
 import tmcsim.cadmodels.CMSInfo;
 import tmcsim.common.XMLIncident;
+import tmcsim.metrics.Counter;
+import tmcsim.metrics.Histogram;
+import tmcsim.metrics.MetricsRegistry;
 
 /**
  * ParamicsIncidentWriter extends from ParamicsWriter to manage the current 
@@ -21,7 +26,25 @@ import tmcsim.common.XMLIncident;
  * called.  This method will not transmit simulation updates until a network is 
  * loaded.  To load a network, call the loadNetwork() method to transmit the 
  * registration information to paramics, and when paramics has finished warming up, 
- * call the networkLoaded() method to begin update transmission.
+ * call the networkLoaded() method to begin update transmission.<br>
+ * <br>
+ * Updates may be delta encoded.  Every change to an incident or diversion is
+ * given a new version, and an update only contains the incidents and
+ * diversions changed since the last update that was passed to the
+ * ParamicsCommunicator.  Delta encoding is off unless it is turned on with
+ * setDeltaEncoding(), as a Paramics plugin that does not read the Update
+ * attribute would take a DELTA update for all current data; with it off,
+ * every update is FULL.  The CAD_DATA element's Update attribute is FULL or
+ * DELTA, and its Version attribute is the version of the newest change
+ * sent.  A FULL update contains every current incident and diversion and
+ * replaces all data Paramics holds; one is sent when a network is loaded
+ * and after the network has finished loading.  A DELTA update contains the
+ * changed incidents, including those being cleared, and every diversion
+ * path of each changed CMS, with a percentage of 0 for cleared paths.<br>
+ * <br>
+ * The flush() method is called with each simulation time.  It sends an
+ * update as soon as there are changes to send, and otherwise every
+ * interval, so Paramics still receives the CAD clock.
  *
  * @author Matthew Cechini (mcechini@calpoly.edu)
  * @version $Date: 2006/06/06 20:46:40 $ $Revision: 1.4 $
@@ -60,7 +83,13 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
         /** Current CAD clock minutes value. */
         MINUTE          ("minute"),
         /** Current CAD clock seconds value. */
-        SECOND          ("second");
+        SECOND          ("second"),
+        /** Diversion info of one diversion path. */
+        DIVERSION       ("DIVERSION"),
+        /** Attribute with the update type, FULL or DELTA. */
+        UPDATE          ("Update"),
+        /** Attribute with the version of the newest change in the update. */
+        VERSION         ("Version");
         
         /** Tag name */
         public String tag;
@@ -70,7 +99,12 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
         }
 
     }
-        
+    
+    /** Update attribute value of an update containing all current data. */
+    private static final String FULL_UPDATE  = "FULL";
+    
+    /** Update attribute value of an update containing changed data. */
+    private static final String DELTA_UPDATE = "DELTA";
     
     /** Flag to designate whether a network has been loaded */
     private boolean networkLoaded = false;
@@ -95,6 +129,21 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
     
     /** Current simulation time. */
     private long    simTime      = 0;
+    
+    /** Simulation time of the last update sent, or -1 if none has been. */
+    private long    lastSentTime = -1;
+    
+    /** Version of the newest change to an incident or diversion. */
+    private long    version      = 0;
+    
+    /** Version of the newest change passed to the ParamicsCommunicator. */
+    private long    sentVersion  = 0;
+    
+    /** Flag to designate whether the next update must contain all data. */
+    private boolean resync       = true;
+    
+    /** Flag to designate whether DELTA updates may be sent. */
+    private boolean deltaEncoding = false;
 
     /**
      * A map containing XMLIncident objects for each incident that is being updated.
@@ -116,6 +165,27 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
      */
     private TreeMap<String, XMLIncident> queuedIncidentEvents;
     
+    /** Version of the last change to each incident in the incident map. */
+    private TreeMap<String, Long> incidentVersions;
+    
+    /** 
+     * Version of the last change to each CMS.  Cleared CMS remain in this
+     * map until their clearing has been sent.
+     */
+    private TreeMap<String, Long> diversionVersions;
+    
+    /** A map containing the CMS that have been cleared since the last update sent. */
+    private TreeMap<String, CMSInfo> clearedDiversions;
+    
+    /** Number of FULL updates sent. */
+    private Counter fullUpdates;
+    
+    /** Number of DELTA updates sent. */
+    private Counter deltaUpdates;
+    
+    /** Number of incidents and CMS in each update sent. */
+    private Histogram updateSize;
+    
 
     /**
      * Constructor.  Initializes private members.
@@ -130,33 +200,65 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
         incidentsMap         = new TreeMap<String, XMLIncident>();
         diversionsMap        = new TreeMap<String, CMSInfo>();      
         queuedIncidentEvents = new TreeMap<String, XMLIncident>();  
-    
+        incidentVersions     = new TreeMap<String, Long>();
+        diversionVersions    = new TreeMap<String, Long>();
+        clearedDiversions    = new TreeMap<String, CMSInfo>();
+        
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        fullUpdates  = metrics.counter("ParamicsIncidentWriter.fullUpdates");
+        deltaUpdates = metrics.counter("ParamicsIncidentWriter.deltaUpdates");
+        updateSize   = metrics.histogram("ParamicsIncidentWriter.updateSize");
     }
     
     /**
      * This method sets the local network ID to the parameter value and sends
-     * an updated XML message to load the network.
+     * a FULL XML update to load the network.
      * 
      * @param newID Paramics network id.
      */
-    public void loadNetwork(int newID) {
+    public synchronized void loadNetwork(int newID) {
         networkID = newID;
+        resync    = true;
 
         transmitXMLUpdate();
     }
     
     /**
-     * Updates the networkLoaded flag to true.
+     * Sets the simulation speed sent to Paramics in each XML update.  A
+     * speed of 1 is real time.  A speed of 0 designates that the simulation
+     * is not paced by real time.
+     *
+     * @param newSpeed Simulation seconds per real second.
+     */
+    public synchronized void setSimulationSpeed(int newSpeed) {
+        speed = newSpeed;
+    }
+
+    /**
+     * Sets whether DELTA updates may be sent.  Turn this on only for a
+     * Paramics plugin that reads the Update attribute.  With it off, every
+     * update is FULL.
+     *
+     * @param enabled True to send DELTA updates, false to send only FULL.
+     */
+    public synchronized void setDeltaEncoding(boolean enabled) {
+        deltaEncoding = enabled;
+    }
+
+    /**
+     * Updates the networkLoaded flag to true.  The next update is a FULL
+     * update, sent at the next flush().
      */
-    public void networkLoaded() {
+    public synchronized void networkLoaded() {
         networkLoaded = true;
+        resync        = true;
     }
     
     /**
      * Set the simulation started flag to true.  If a network has been
      * loaded, send an update to the ParamicsCommunicator.
      */
-    public void startSimulation() {
+    public synchronized void startSimulation() {
         
         simulation = true;
 
@@ -168,14 +270,20 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
     /**
      * This method resets current simulation data.  All maps of incident data
      * are cleared.  The incident, simulation, and management flags are set to 
-     * false.  If a network has been previously loaded, send an update to the 
-     * ParamicsCommunicator.
+     * false.  If a network has been previously loaded, send a FULL update to 
+     * the ParamicsCommunicator.
      */
-    public void resetSimulation() {
+    public synchronized void resetSimulation() {
         
         incidentsMap.clear();
         diversionsMap.clear();      
         queuedIncidentEvents.clear();
+        incidentVersions.clear();
+        diversionVersions.clear();
+        clearedDiversions.clear();
+        
+        lastSentTime = -1;
+        resync       = true;
 
         simulation = false;
         incident   = false;
@@ -186,26 +294,57 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
         }
     }   
     
+    /**
+     * Returns whether an update is due at the parameter simulation time.  An
+     * update is due if a network has been loaded and there are changes that
+     * have not been sent, a FULL update is needed, or the interval has passed
+     * since the last update.
+     * 
+     * @param simulationTime Current simulation time (in seconds).
+     * @return True if an update is due, false if not.
+     */
+    public synchronized boolean isUpdateDue(long simulationTime) {
+        
+        if(!networkLoaded) return false;
+        
+        return resync || version > sentVersion || lastSentTime < 0 ||
+               simulationTime < lastSentTime ||
+               simulationTime - lastSentTime >= commInterval;
+    }
+    
+    /**
+     * Sends an update if one is due at the parameter simulation time.
+     * 
+     * @param simulationTime Current simulation time (in seconds).
+     * @see #isUpdateDue(long)
+     */
+    public synchronized void flush(long simulationTime) {
+        
+        if(isUpdateDue(simulationTime))
+            sendUpdate(simulationTime);
+    }
+    
     /**
      * This method is transmits an XML update object to the ParamicsCommunicator
-     * if a network has ben loaded.  After the update object has been formed and 
-     * sent, the incident list is updated to remove all cleared Incidents.
-     * Any queued IncidentEvents are placed into the map of incidents that will 
-     * be used for update creation.  The incident flag is set to true if there
-     * are still ongoing incidents, false if not.
+     * if a network has ben loaded.  If the update was passed to the 
+     * ParamicsCommunicator, the incident list is updated to remove all cleared 
+     * Incidents.  Any queued IncidentEvents are placed into the map of 
+     * incidents that will be used for update creation.  The incident flag is 
+     * set to true if there are still ongoing incidents, false if not.
      */ 
-    public void sendUpdate(long simulationTime) {
+    public synchronized void sendUpdate(long simulationTime) {
         simTime = simulationTime;       
 
         if(!networkLoaded) return;      
                 
-        transmitXMLUpdate();
-    
-        updateIncidentList();
+        if(transmitXMLUpdate())
+            updateIncidentList();
         
-        for(String key : queuedIncidentEvents.keySet()) {
-            incidentsMap.put(key, queuedIncidentEvents.remove(key));
+        for(XMLIncident queued : queuedIncidentEvents.values()) {
+            incidentsMap.put(queued.getIdentifier(), queued);
+            incidentVersions.put(queued.getIdentifier(), ++version);
         }
+        queuedIncidentEvents.clear();
         
         incident = incidentsMap.size() != 0;
         
@@ -222,10 +361,11 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
      * @param newXML The XMLIncident object that will be used to update
      *               an existing incident.
      */
-    public void updateIncident(XMLIncident newXML) {
+    public synchronized void updateIncident(XMLIncident newXML) {
         
         if(incidentsMap.get(newXML.getIdentifier()) == null ) {  
             incidentsMap.put(newXML.getIdentifier(), newXML);               
+            incidentVersions.put(newXML.getIdentifier(), ++version);
         }
         else {
              queuedIncidentEvents.put(newXML.getIdentifier(), newXML);
@@ -239,25 +379,35 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
      * for updating the Paramics modeler.  If the diversion is being cleared, 
      * remove it from the map of diversions.  If it is not being cleared, 
      * update the map with the new CMSInfo object. Set the management flag to be 
-     * true if there are diversions remaining, false if not.
+     * true if there are diversions remaining, false if not.  The CMS is
+     * given a new version whether or not it is cleared, so the change is sent.
      * 
      * @param theDiversion A new CMSDiversion object containing new diversion info.
      */
-    public void updateDiversion(CMSInfo theDiversion) {
+    public synchronized void updateDiversion(CMSInfo theDiversion) {
                 
-        if(theDiversion.isCleared())
+        if(theDiversion.isCleared()) {
             diversionsMap.remove(theDiversion.cmsID);
-        else
+            clearedDiversions.put(theDiversion.cmsID, theDiversion);
+        }
+        else {
             diversionsMap.put(theDiversion.cmsID, theDiversion);
+            clearedDiversions.remove(theDiversion.cmsID);
+        }
+        
+        diversionVersions.put(theDiversion.cmsID, ++version);
             
         management = diversionsMap.size() > 0;  
     
     }   
     
     /**
-     * Update the current map of incidents. If an incident
-     * has been cleared, remove it from the list.  Otherwise,
-     * call its update() method to set its status to ON_GOING.
+     * Update the current map of incidents after an update has been passed to
+     * the ParamicsCommunicator. If an incident has been cleared, remove it 
+     * from the list.  Otherwise, call its update() method to set its status 
+     * to ON_GOING.  The status change is not given a new version, as Paramics
+     * treats a sent incident as ongoing.  Cleared CMS are removed from the map 
+     * of diversion versions.
      *
      * Set the incident flag to true if there are incidents still
      * in the incident map, false if not.
@@ -269,12 +419,17 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
         while(incIter.hasNext()) {
             XMLIncident inc = incIter.next();
             
-            if(inc.isCleared()) 
+            if(inc.isCleared()) {
                 incIter.remove();
+                incidentVersions.remove(inc.getIdentifier());
+            }
             else
                 inc.update();
         }
         
+        diversionVersions.keySet().retainAll(diversionsMap.keySet());
+        clearedDiversions.clear();
+        
         incident = incidentsMap.size() != 0;
     }
     
@@ -285,9 +440,13 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
      * for transmission to the Paramics Communicator.  Helper methods are used 
      * to create each individual section.  The simulation, incident, and 
      * diversion secions will only appear if they are currently active in the 
-     * simulation.  The format of the resulting XML object is as follows:<br>
+     * simulation, or in a DELTA update, if they have changed since the last
+     * update sent.  If the update is passed to the ParamicsCommunicator, all 
+     * changes up to the current version have been sent, and the next update 
+     * is a DELTA update.  The format of the resulting XML object is as 
+     * follows:<br>
      * <br>
-     * <CAD_DATA><br>
+     * <CAD_DATA Update="FULL" Version="0"><br>
      *    <Basic><br>
      *       <Comm_Interval/><br/>
      *       <Network_ID/><br/>
@@ -337,8 +496,13 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
      *  
      * </CAD_DATA>
      * 
+     * @return True if the update was passed to the ParamicsCommunicator,
+     *         false if not.
      */
-    private void transmitXMLUpdate() {
+    private boolean transmitXMLUpdate() {
+
+        if(!deltaEncoding)
+            resync = true;
 
         try {
             
@@ -346,6 +510,9 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
                 .newDocumentBuilder().newDocument();
             
             Element cadDataElement = theDoc.createElement(XML_TAGS.CAD_DATA.tag);
+            cadDataElement.setAttribute(XML_TAGS.UPDATE.tag, 
+                    resync ? FULL_UPDATE : DELTA_UPDATE);
+            cadDataElement.setAttribute(XML_TAGS.VERSION.tag, String.valueOf(version));
             theDoc.appendChild(cadDataElement);
             
             //***** BASIC *****//
@@ -357,18 +524,31 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
             
             
             //***** INCIDENTS *****//
+            int incidentsSent = 0;
             if(incident)
-                writeIncidents(cadDataElement);             
+                incidentsSent = writeIncidents(cadDataElement);             
             
             
             //***** MANAGEMENT *****//
-            if(management)
-                writeManagement(cadDataElement);
+            int diversionsSent = 0;
+            if(resync ? management : diversionVersions.size() > 0)
+                diversionsSent = writeManagement(cadDataElement);
+            
+            if(!writeXML(theDoc))
+                return false;
+            
+            (resync ? fullUpdates : deltaUpdates).increment();
+            updateSize.record(incidentsSent + diversionsSent);
             
-            writeXML(theDoc);
+            sentVersion  = version;
+            lastSentTime = simTime;
+            resync       = false;
+            
+            return true;
             
         } catch (Exception e) {
             e.printStackTrace();
+            return false;
         }
     }
     
@@ -455,9 +635,11 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
     }
     
     /**
-     * Appends the <Simulation_Data> XML Element to the parameter Element root.
-     * This is done by converting all current XMLIncident objects
-     * to their XML output.  The format for this section is as follows:<br>
+     * Appends the <CAD_Incidents> XML Element to the parameter Element root.
+     * This is done by converting all current XMLIncident objects, or in a 
+     * DELTA update the XMLIncident objects changed since the last update 
+     * sent, to their XML output.  The format for this section is as 
+     * follows:<br>
      * 
      * <CAD_Incidents>
      *    <Incident><br/>
@@ -479,24 +661,33 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
      * </CAD_Incidents>
      * 
      * @param currElem XML Element to use as a root.
+     * @return Number of incidents written.
      */
-    private void writeIncidents(Element currElem) {
+    private int writeIncidents(Element currElem) {
 
         Document theDoc = currElem.getOwnerDocument();
         
         Element incidentElem = theDoc.createElement(XML_TAGS.CAD_INCIDENTS.tag);
         currElem.appendChild(incidentElem);
 
+        int written = 0;
         for(XMLIncident incident : incidentsMap.values()) {
-            incident.toXML(incidentElem);
+            if(resync || incidentVersions.get(incident.getIdentifier()) > sentVersion) {
+                incident.toXML(incidentElem);
+                written++;
+            }
         }
-
+        
+        return written;
     }
 
     /**
-     * Appends the <Simulation_Data> XML Element to the parameter Element root.
-     * This is done by converting all current CMS Diversion objects
-     * to their XML output.  The format for this section is as follows:<br>
+     * Appends the <Management> XML Element to the parameter Element root.
+     * In a FULL update, this is done by converting all current CMS Diversion 
+     * objects to their XML output.  In a DELTA update, every diversion path 
+     * of each CMS changed since the last update sent is written, with a 
+     * percentage of 0 if the path has been cleared.  The format for this 
+     * section is as follows:<br>
      * 
      * <Management>
      *    <Diversion>
@@ -510,17 +701,40 @@ public class ParamicsIncidentWriter extends ParamicsWriter {
      * </Management>
      * 
      * @param currElem XML Element to use as a root.
+     * @return Number of CMS written.
      */
-    private void writeManagement(Element currElem) {
+    private int writeManagement(Element currElem) {
 
         Document theDoc = currElem.getOwnerDocument();
         
         Element mgmtElem = theDoc.createElement(XML_TAGS.MANAGEMENT.tag);
         currElem.appendChild(mgmtElem);
 
-        for(CMSInfo div : diversionsMap.values()) {
-            div.toXML(mgmtElem);
-        }                       
+        if(resync) {
+            for(CMSInfo div : diversionsMap.values()) {
+                div.toXML(mgmtElem);
+            }
+            return diversionsMap.size();
+        }
+        
+        int written = 0;
+        for(Map.Entry<String, Long> entry : diversionVersions.entrySet()) {
+            if(entry.getValue() <= sentVersion) 
+                continue;
+            
+            CMSInfo div = diversionsMap.containsKey(entry.getKey()) 
+                    ? diversionsMap.get(entry.getKey()) 
+                    : clearedDiversions.get(entry.getKey());
+            
+            for(CMSDiversion path : div.possibleDiversions) {
+                Element divElem = theDoc.createElement(XML_TAGS.DIVERSION.tag);
+                mgmtElem.appendChild(divElem);
+                path.toXML(divElem);
+            }
+            written++;
+        }
+        
+        return written;
     }
         
 }
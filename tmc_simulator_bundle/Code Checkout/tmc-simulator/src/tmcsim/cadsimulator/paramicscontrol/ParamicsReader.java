@@ -29,6 +29,14 @@ public abstract class ParamicsReader {
     /** Target file being read by the ParamicsCommunicator. */
     public String targetFile = null;
     
-    /** Abstract method to receive a XML Node object containing message data.*/
-    public abstract void receive(Node rxMessage);
+    /**
+     * Receive a XML Node object containing message data.  The node's text
+     * content is passed to receive(String).
+     */
+    public void receive(Node rxMessage) {
+        receive(rxMessage.getTextContent());
+    }
+    
+    /** Abstract method to receive the XML text read from the target file.*/
+    public abstract void receive(String rxMessage);
 }
@@ -5,7 +5,6 @@ import java.util.logging.Level;
 
 import javax.xml.parsers.SAXParserFactory;
 
-import org.w3c.dom.Node;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -70,22 +69,22 @@ public class ParamicsStatusReader extends ParamicsReader {
     }
     
     /**
-     * This method parses the received XML Node with the local 
+     * This method parses the received XML message with the local 
      * ParamicsStatusHandler.  The parsed Paramics Status is sent to the 
      * ParamicsSimulationManager.
      */
-    public void receive(Node rxMessage) {
+    public void receive(String rxMessage) {
         
         try {           
-            if(rxMessage.getTextContent().length() > 0)
+            if(rxMessage.length() > 0)
                 SAXParserFactory.newInstance().newSAXParser().parse(
-                        new ByteArrayInputStream(rxMessage.getTextContent().getBytes()), psh);  
+                        new ByteArrayInputStream(rxMessage.getBytes()), psh);  
         }
         catch (Exception e) {
             paramLogger.logp(Level.SEVERE, "ParamicsStatusReader", "receive",
                     "Exception in parsing received ParamicsCommMessage.", e);
             paramLogger.logp(Level.INFO, "ParamicsStatusReader", "receive",
-                    "Invalid received bytes", rxMessage.getTextContent().getBytes());           
+                    "Invalid received bytes", rxMessage.getBytes());           
         }
                 
         paramicsSimMgr.updateParamicsStatus(currentStatus);
@@ -4,13 +4,9 @@ import java.util.Observable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
-import tmcsim.common.CADProtocol.PARAMICS_ACTIONS;
-import tmcsim.common.CADProtocol.PARAMICS_COMM_TAGS;
+import tmcsim.common.ParamicsFrame;
 
 /**
  * ParamicsWriter is an abstract class to define objects that may
@@ -36,33 +32,29 @@ public abstract class ParamicsWriter extends Observable {
     public String targetFile = null;
         
     /**
-     * This method adopts the parameter message data Document into 
-     * a new document that has tags for the writer's id, the action 
-     * (WRITE_FILE) being performed.  This new Document is then sent 
-     * to the observing ParamicsCommunicator for transmission.
+     * This method wraps the parameter message data Document in a 
+     * WRITE_FILE ParamicsFrame with the writer's id.  The frame is then 
+     * sent to the observing ParamicsCommunicator for transmission.
      * 
      * @param xmlDoc Output Document containing message data.
+     * @return True if the message was passed to an observing
+     *         ParamicsCommunicator, false if the writer is not registered
+     *         or the message could not be written.
      */
-    public void writeXML(Document xmlDoc) {
+    public boolean writeXML(Document xmlDoc) {
         
         try {
-            Document writerDoc = DocumentBuilderFactory.newInstance()
-                .newDocumentBuilder().newDocument();
-            
-            Element writerElem = writerDoc.createElement(PARAMICS_COMM_TAGS.WRITER.tag);
-            writerElem.setAttribute(PARAMICS_COMM_TAGS.ID.tag, writerID.toString());
-            writerElem.setAttribute(PARAMICS_COMM_TAGS.ACTION.tag,
-                    PARAMICS_ACTIONS.WRITE_FILE.action);
+            if(countObservers() == 0)
+                return false;
             
-            writerElem.appendChild(writerDoc.adoptNode(xmlDoc.getDocumentElement()));
-        
-            writerDoc.appendChild(writerElem);      
-                    
             setChanged();
-            notifyObservers(writerDoc);
+            notifyObservers(ParamicsFrame.writeFile(writerID, 
+                    xmlDoc.getDocumentElement()));
+            return true;
         } catch(Exception e) {
             paramLogger.logp(Level.SEVERE, "ParamicsWriter", "writeXML", 
                     "Exception in writing XML for writer " + writerID, e);
+            return false;
         }
             
     };
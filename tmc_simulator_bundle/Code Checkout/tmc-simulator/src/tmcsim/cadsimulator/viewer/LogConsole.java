@@ -0,0 +1,237 @@
+package tmcsim.cadsimulator.viewer;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ * LogConsole is a GUI object used for displaying logged messages.  The most
+ * recent messages are kept in a fixed capacity ring buffer, so the console
+ * holds at most that many lines however long the simulation runs.
+ *
+ * Messages may be appended from any thread.  They are added to the text area
+ * on the event dispatch thread in batches, at most MAX_FRAMES_PER_SECOND times
+ * a second, so a burst of messages costs one update of the text area rather
+ * than one for each message.  Each batch inserts only the new lines and
+ * removes the lines that have fallen out of the buffer.  Messages below the
+ * console's level are kept in the buffer but not shown, so lowering the level
+ * shows them again.
+ *
+ * @author Jonathan Molina
+ */
+@SuppressWarnings("serial")
+public class LogConsole extends JScrollPane
+{
+    /** Maximum number of times a second the text area is updated. */
+    public static final int MAX_FRAMES_PER_SECOND = 10;
+
+    /** Messages in the buffer, oldest first from position start. */
+    private final String[] lines;
+
+    /** Levels of the messages in the buffer. */
+    private final Level[] levels;
+
+    /** Position of the oldest message in the buffer. */
+    private int start = 0;
+
+    /** Number of messages in the buffer. */
+    private int size = 0;
+
+    /** Number of messages in the buffer not yet added to the text area. */
+    private int pending = 0;
+
+    /** Number of shown lines in the text area. */
+    private int shown = 0;
+
+    /** Minimum level of the messages shown. */
+    private Level level = Level.ALL;
+
+    /** Timer adding the pending messages, started by the first of a batch. */
+    private final Timer frameTimer;
+
+    private final JTextArea textArea;
+
+    /**
+     * Constructor.
+     *
+     * @param rows number of rows shown in the text area
+     * @param columns number of columns shown in the text area
+     * @param capacity maximum number of messages kept
+     */
+    public LogConsole(int rows, int columns, int capacity)
+    {
+        lines = new String[capacity];
+        levels = new Level[capacity];
+
+        textArea = new JTextArea(rows, columns);
+        textArea.setEditable(false);
+        setViewportView(textArea);
+
+        frameTimer = new Timer(1000 / MAX_FRAMES_PER_SECOND, new ActionListener()
+        {
+            public void actionPerformed(ActionEvent e)
+            {
+                flush();
+            }
+        });
+        frameTimer.setRepeats(false);
+    }
+
+    /**
+     * Adds the LogRecord's message to the buffer, replacing the oldest message
+     * if the buffer is full, and schedules it to be shown.  May be called from
+     * any thread.
+     *
+     * @param rec the logged record
+     */
+    public void append(LogRecord rec)
+    {
+        String line = rec.getSourceClassName() + "."
+                + rec.getSourceMethodName() + " = "
+                + rec.getMessage() + "\n";
+
+        synchronized (this)
+        {
+            int end = (start + size) % lines.length;
+            lines[end] = line;
+            levels[end] = rec.getLevel();
+            if (size < lines.length)
+            {
+                size++;
+            }
+            else
+            {
+                start = (start + 1) % lines.length;
+            }
+            pending = Math.min(pending + 1, size);
+
+            if (pending == 1)
+            {
+                frameTimer.start();
+            }
+        }
+    }
+
+    /**
+     * Adds the pending messages to the text area, and removes the lines that
+     * are no longer in the buffer.  Called on the event dispatch thread by the
+     * frame timer.
+     */
+    public void flush()
+    {
+        StringBuilder text = new StringBuilder();
+        int added = 0;
+
+        synchronized (this)
+        {
+            for (int i = size - pending; i < size; i++)
+            {
+                int index = (start + i) % lines.length;
+                if (isShown(levels[index]))
+                {
+                    text.append(lines[index]);
+                    added++;
+                }
+            }
+            pending = 0;
+        }
+
+        if (added == 0)
+        {
+            return;
+        }
+
+        Document doc = textArea.getDocument();
+        try
+        {
+            doc.insertString(doc.getLength(), text.toString(), null);
+            shown += added;
+
+            int excess = shown - lines.length;
+            if (excess > 0)
+            {
+                doc.remove(0, textArea.getLineEndOffset(excess - 1));
+                shown -= excess;
+            }
+        }
+        catch (BadLocationException e)
+        {
+            rebuild();
+        }
+        textArea.setCaretPosition(doc.getLength());
+    }
+
+    /**
+     * Sets the minimum level of the messages shown, and shows the messages in
+     * the buffer at or above it.  Called on the event dispatch thread.
+     *
+     * @param newLevel minimum level shown
+     */
+    public void setLevel(Level newLevel)
+    {
+        synchronized (this)
+        {
+            level = newLevel;
+        }
+        rebuild();
+    }
+
+    /**
+     * Returns the minimum level of the messages shown.
+     *
+     * @return minimum level shown
+     */
+    public synchronized Level getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Returns the text area the messages are shown in.
+     *
+     * @return the text area
+     */
+    public JTextArea getTextArea()
+    {
+        return textArea;
+    }
+
+    /**
+     * Replaces the text of the text area with every message in the buffer at
+     * or above the level.
+     */
+    private void rebuild()
+    {
+        StringBuilder text = new StringBuilder();
+        int count = 0;
+
+        synchronized (this)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                int index = (start + i) % lines.length;
+                if (isShown(levels[index]))
+                {
+                    text.append(lines[index]);
+                    count++;
+                }
+            }
+            pending = 0;
+        }
+
+        textArea.setText(text.toString());
+        shown = count;
+    }
+
+    private boolean isShown(Level recLevel)
+    {
+        return recLevel.intValue() >= level.intValue();
+    }
+}
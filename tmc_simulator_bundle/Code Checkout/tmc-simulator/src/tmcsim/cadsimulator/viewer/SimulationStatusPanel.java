@@ -4,6 +4,8 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -12,9 +14,9 @@ import java.util.logging.Logger;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.border.EtchedBorder;
@@ -48,8 +50,8 @@ public class SimulationStatusPanel extends JPanel
 {
     /**
      * Logging Handler to listen for Information and Error messages logged for the CAD
-     * Simulator. Received LogRecords are displayed in the info or error message Text
-     * Area.
+     * Simulator. Received LogRecords are displayed in the info or error message
+     * LogConsole.
      *
      * @author Matthew Cechini
      */
@@ -70,22 +72,14 @@ public class SimulationStatusPanel extends JPanel
 
         public void publish(LogRecord rec)
         {
-            StringBuffer msgBuffer = new StringBuffer();
-
-            msgBuffer.append(rec.getSourceClassName() + "."
-                    + rec.getSourceMethodName() + " = "
-                    + rec.getMessage());
-
             // log info
             if (rec.getLevel() == Level.INFO)
             {
-                infoMessagesTA.setText(infoMessagesTA.getText()
-                        + msgBuffer.toString() + "\n");
+                infoMessagesPane.append(rec);
             }
             else
             {
-                errorMessagesTA.setText(errorMessagesTA.getText()
-                        + msgBuffer.toString() + "\n");
+                errorMessagesPane.append(rec);
             }
         }
     }
@@ -115,6 +109,7 @@ public class SimulationStatusPanel extends JPanel
         networkLoadedTF.setName("networkLoadedTF");
         errorMessagesPane.setName("errorMessagesPane");
         errorMessagesTA.setName("errorMessagesTA");
+        errorLevelCB.setName("errorLevelCB");
         simulationClockLabel.setName("simulationClockLabel");
         // Project 2.2 added code (end)
 
@@ -124,6 +119,7 @@ public class SimulationStatusPanel extends JPanel
         cadSimulatorViewerBox.add(additionalInfoBox);
         cadSimulatorViewerBox.add(infoMessagesPane);
         cadSimulatorViewerBox.add(errorMessagesPane);
+        cadSimulatorViewerBox.add(errorLevelBox);
 
         add(cadSimulatorViewerBox);
     }
@@ -416,9 +412,8 @@ public class SimulationStatusPanel extends JPanel
     private void initMessagesPanes()
     {
 
-        infoMessagesTA = new JTextArea(6, 30);
-        infoMessagesTA.setEditable(true);
-        infoMessagesPane = new JScrollPane(infoMessagesTA);
+        infoMessagesPane = new LogConsole(6, 30, MESSAGES_CAPACITY);
+        infoMessagesTA = infoMessagesPane.getTextArea();
         infoMessagesPane.setPreferredSize(new Dimension(300, 100));
 
         infoMessagesPane.setBorder(BorderFactory.createTitledBorder(
@@ -426,16 +421,29 @@ public class SimulationStatusPanel extends JPanel
                 "Info Messages"));
 
 
-        errorMessagesTA = new JTextArea(6, 30);
+        errorMessagesPane = new LogConsole(6, 30, MESSAGES_CAPACITY);
+        errorMessagesTA = errorMessagesPane.getTextArea();
         errorMessagesTA.setForeground(Color.RED);
-        errorMessagesTA.setEditable(false);
-        errorMessagesPane = new JScrollPane(errorMessagesTA);
         errorMessagesPane.setPreferredSize(new Dimension(300, 150));
 
         errorMessagesPane.setBorder(BorderFactory.createTitledBorder(
                 BorderFactory.createEtchedBorder(EtchedBorder.LOWERED), 
                 "Error Messages"));
 
+        errorLevelLabel = new JLabel("Show Errors At Or Above: ");
+        errorLevelCB = new JComboBox<Level>(ERROR_LEVELS);
+        errorLevelCB.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent e)
+            {
+                errorMessagesPane.setLevel((Level) errorLevelCB.getSelectedItem());
+            }
+        });
+
+        errorLevelBox = new Box(BoxLayout.X_AXIS);
+        errorLevelBox.add(errorLevelLabel);
+        errorLevelBox.add(Box.createHorizontalGlue());
+        errorLevelBox.add(errorLevelCB);
     }
     
     /**
@@ -452,6 +460,15 @@ public class SimulationStatusPanel extends JPanel
         setParamicsNetworkLoaded(simModel.getNetworkLoaded());
     }
     
+    /**
+     * Maximum number of messages kept in each of the message panes.
+     */
+    private static final int MESSAGES_CAPACITY = 1000;
+    /**
+     * Levels selectable as the minimum level of the shown error messages.
+     */
+    private static final Level[] ERROR_LEVELS = { Level.ALL, Level.CONFIG,
+            Level.WARNING, Level.SEVERE };
     /**
      * Count of how many CAD clients have connected.
      */
@@ -465,6 +482,7 @@ public class SimulationStatusPanel extends JPanel
     private Box managerConnectedBox;
     private Box paramicsConnectedBox;
     private Box networkLoadedBox;
+    private Box errorLevelBox;
     private Box cadSimulatorViewerBox;
     private Box simulationTimeAndStatusBox;
     private Box simulationStatusBox;
@@ -477,14 +495,16 @@ public class SimulationStatusPanel extends JPanel
     private JLabel simulationStatusText;
     private JLabel terminalsConnectedLabel;
     private JLabel networkLoadedLabel;
+    private JLabel errorLevelLabel;
+    private JComboBox<Level> errorLevelCB;
     private JPanel simulationTime;
     private JPanel simulationClock;
     private JTextField managerConnectedTF;
     private JTextField paramicsConnectedTF;
     private JTextField termConnectedTF;
     private JTextField networkLoadedTF;
-    private JScrollPane infoMessagesPane;
-    private JScrollPane errorMessagesPane;
+    private LogConsole infoMessagesPane;
+    private LogConsole errorMessagesPane;
     private JTextArea infoMessagesTA;
     private JTextArea errorMessagesTA;
 }
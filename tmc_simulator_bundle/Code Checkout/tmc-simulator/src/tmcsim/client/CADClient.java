@@ -16,16 +16,19 @@ import java.util.logging.Logger;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JWindow;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 import tmcsim.client.cadclientgui.CADClientGUI;
 import tmcsim.client.cadclientgui.CardfileReader;
 import tmcsim.client.cadclientgui.GUIScriptReader;
 import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.CADUpdate;
 import tmcsim.client.cadclientgui.screens.Login;
 import tmcsim.client.cadclientgui.screens.ScreenManager;
 import tmcsim.common.CADEnums;
 import tmcsim.common.SimulationException;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
 import tmcsim.interfaces.CADClientInterface;
 import tmcsim.interfaces.CoordinatorInterface;
 
@@ -46,6 +49,8 @@ import tmcsim.interfaces.CoordinatorInterface;
  * Port Number   The port number that the CAD Simulator is bound on.<br>
  * CAD Position  The integer (>= 0) position for this CAD Client.<br>
  * CAD User ID   The unique user id for this CAD Client.<br>
+ * StreamResetMessages (Optional) Commands sent between resets of the socket's object stream, 0 for no limit.  Defaults to 64.<br>
+ * StreamResetBytes    (Optional) Bytes sent between resets of the socket's object stream, 0 for no limit.  Defaults to 1048576.<br>
  * Error File    Filename of error logging file.<br>
  * -----------------------------------------------------------------------------<br>
  * Example File: <br>
@@ -143,7 +148,8 @@ public class CADClient extends UnicastRemoteObject implements
                         PROPERTIES.CAD_SIM_PORT.name).trim()));
         theClientScreenModel = new CADClientModel();
         theClientScreenModel.initializeScreen(theClientSocket.getInputStream(),
-                theClientSocket.getOutputStream());
+                theClientSocket.getOutputStream(),
+                ResetPolicy.fromProperties(cadClientProp));
 
         // Register this CAD Client with the Simulation Manager
         theClientScreenModel.register(Integer.parseInt(cadClientProp
@@ -169,6 +175,9 @@ public class CADClient extends UnicastRemoteObject implements
         theClientGUI.login = new Login();
         theClientGUI.client = this;
 
+        // Table changes are pushed by the Coordinator instead of being polled
+        ScreenManager.subscribe(this);
+
         // setup keyboard settings for CAD Client
         if (cadClientProp.getProperty(PROPERTIES.KEYBOARD_TYPE.name).trim()
                 .equals("CAD")) {
@@ -501,6 +510,22 @@ public class CADClient extends UnicastRemoteObject implements
         theClientGUI.screen.refreshScreens();
     }
 
+    /**
+     * Receives the updates for the subscribed topics from the Coordinator and
+     * applies them to the screens on the event dispatch thread, so the
+     * Coordinator's sender thread is released immediately.
+     * 
+     * @param updates
+     *            coalesced updates, one per changed topic
+     */
+    public void publish(final Vector<CADUpdate> updates) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                ScreenManager.applyUpdates(updates);
+            }
+        });
+    }
+
     public void ensureProperShutdown() {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             public void run() {
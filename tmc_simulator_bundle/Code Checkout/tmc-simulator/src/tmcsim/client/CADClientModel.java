@@ -1,10 +1,8 @@
 package tmcsim.client;
 
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.Observable;
 import java.util.logging.Level;
@@ -22,12 +20,15 @@ import tmcsim.cadmodels.IncidentBoardModel;
 import tmcsim.cadmodels.IncidentInquiryModel;
 import tmcsim.cadmodels.IncidentSummaryModel;
 import tmcsim.cadmodels.RoutedMessageModel;
+import tmcsim.common.LatencyStats;
+import tmcsim.common.ManagedObjectOutputStream;
 import tmcsim.common.ObserverMessage;
 import tmcsim.common.SimulationException;
 import tmcsim.common.CADProtocol.CAD_CLIENT_CMD;
 import tmcsim.common.CADProtocol.CAD_COMMANDS;
 import tmcsim.common.CADProtocol.CAD_SIMULATOR_CMD;
 import tmcsim.common.CADProtocol.DATA_TAGS;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
 
 
 /**
@@ -35,7 +36,12 @@ import tmcsim.common.CADProtocol.DATA_TAGS;
  * Simulator.  Data is read from the input stream and parsed for message updates
  * from the CAD Simulator.  These updates are described in the receiveObject()
  * method description.  The transmit() method is called to send Document objects
- * to the CAD Simulator.
+ * to the CAD Simulator.<br>
+ * <br>
+ * The time between sending a terminal command or function key and the view
+ * redrawing the screen is recorded.  The view calls screenRedrawn() after it
+ * draws a new screen, and the latency since the oldest unanswered command is
+ * added to the redraw latency statistics.
  *
  * @author Matthew Cechini (mcechini@calpoly.edu)
  * @version $Date: 2009/04/20 17:58:27 $ $Revision: 1.5 $
@@ -46,13 +52,22 @@ public class CADClientModel extends Observable implements Runnable {
     private Logger clientLogger = Logger.getLogger("tmcsim.client");
     
     /** Output stream for writing data to the CAD Simulator. */    
-    private ObjectOutputStream out = null;
+    private ManagedObjectOutputStream out = null;
 
     /** Input Stream for reading data to the CAD Simulator. */
     private ObjectInputStream in = null;    
    
     /** Boolean flag to designate if Runnable object is running. */
-    private boolean running = true;
+    private volatile boolean running = true;
+    
+    /** Time (ms) after which an unanswered command is no longer timed. */
+    private static final long REDRAW_TIMEOUT = 5000;
+    
+    /** Time (ns) the oldest unanswered command was sent, or 0 if none. */
+    private volatile long commandSentTime = 0;
+    
+    /** Latency between sending a command and redrawing the screen. */
+    private LatencyStats redrawLatency = new LatencyStats();
 
 
     /**
@@ -62,7 +77,8 @@ public class CADClientModel extends Observable implements Runnable {
     
     /**
      * This method sets the streams that are used for communication
-     * to and from the CAD Simulator.
+     * to and from the CAD Simulator.  The output stream uses the default
+     * reset policy.
      *
      * @param theIS The input stream to read packets from.
      * @param theOS The output stream to write packets to.
@@ -71,9 +87,24 @@ public class CADClientModel extends Observable implements Runnable {
      */
     public void initializeScreen(InputStream theIS,
                                  OutputStream theOS) throws SimulationException {
+        initializeScreen(theIS, theOS, ResetPolicy.DEFAULT);
+    }
+    
+    /**
+     * This method sets the streams that are used for communication
+     * to and from the CAD Simulator.
+     *
+     * @param theIS The input stream to read packets from.
+     * @param theOS The output stream to write packets to.
+     * @param policy The reset policy of the output stream.
+     * @throws SimulationException if there is an exception in 
+     * creating the Object(Input/Output)Streams.
+     */
+    public void initializeScreen(InputStream theIS, OutputStream theOS,
+                                 ResetPolicy policy) throws SimulationException {
         
         try  {
-            out = new ObjectOutputStream(theOS);
+            out = new ManagedObjectOutputStream(theOS, policy);
             in  = new ObjectInputStream(theIS);
         }
         catch (Exception e) {
@@ -117,25 +148,24 @@ public class CADClientModel extends Observable implements Runnable {
     
     /**
      * Run method that must be defined in Runnable interface.  
-     * This method continuously calls the receiveObject() method 
-     * to check the input stream for data.  If an exception occurs
-     * reading from the input stream, the streams are closed and 
-     * observers are notified with a null object that the model has
-     * disconnected.
+     * This method blocks reading objects from the input stream and passes
+     * each object to the receiveObject() method as soon as it arrives.  If 
+     * an exception occurs reading from the input stream, including the end
+     * of the stream, the streams are closed and observers are notified with
+     * a null object that the model has disconnected.
      */
     public void run() {
         
         while(running)  {
             
             try {               
-                Thread.sleep(250);
                 receiveObject(in.readObject());                 
             }
-            catch (EOFException eofe) {
-                clientLogger.logp(Level.SEVERE, "CADClientModel", "run()", 
-                        "Exception in reading object from input stream.", eofe);
-            }
             catch (Exception e) {
+                if(!running) {
+                    break;
+                }
+                
                 clientLogger.logp(Level.SEVERE, "CADClientModel", "run()", 
                         "Exception in reading object from input stream. " +
                         "Shutting down client.", e);
@@ -163,7 +193,14 @@ public class CADClientModel extends Observable implements Runnable {
     public void transmitCommand(Document command) {     
         
         try {
-            out.writeObject(command);
+            String type = command.getDocumentElement().getNodeName();
+            if(commandSentTime == 0 && 
+                    (type.equals(CAD_CLIENT_CMD.TERMINAL_CMD_LINE.type) ||
+                     type.equals(CAD_CLIENT_CMD.TERMINAL_FUNCTION.type))) {
+                commandSentTime = System.nanoTime();
+            }
+            
+            out.writeMessage(command);
             out.flush();
         }
         catch (IOException ioe) {
@@ -180,6 +217,44 @@ public class CADClientModel extends Observable implements Runnable {
         }
     }
     
+    /**
+     * Called by the view after it has drawn a new screen.  If a command is
+     * waiting for its response, the time since it was sent is recorded as
+     * a redraw latency.  Commands unanswered for REDRAW_TIMEOUT are not 
+     * recorded, since they did not cause this screen.
+     */
+    public void screenRedrawn() {
+        long sent = commandSentTime;
+        
+        if(sent != 0) {
+            commandSentTime = 0;
+            
+            long latency = (System.nanoTime() - sent) / 1000000;
+            if(latency <= REDRAW_TIMEOUT) {
+                redrawLatency.record(latency);
+                
+                clientLogger.logp(Level.FINE, "CADClientModel", "screenRedrawn()", 
+                        "Keypress to redraw latency: " + latency + " ms.");
+            }
+        }
+    }
+    
+    /**
+     * Returns the statistics of the latency between sending a command and
+     * redrawing the screen.
+     */
+    public LatencyStats getRedrawLatency() {
+        return redrawLatency;
+    }
+    
+    /**
+     * Returns the output stream, whose counters give the number of commands
+     * and bytes sent to the CAD Simulator.
+     */
+    public ManagedObjectOutputStream getOutputStream() {
+        return out;
+    }
+    
     /**
      *<table cellpadding="2" cellspacing="2" border="1"
      * style="text-align: left; width: 250px;">
@@ -315,6 +390,8 @@ public class CADClientModel extends Observable implements Runnable {
      */
     private void closeStreams() {
         
+        clientLogger.logp(Level.INFO, "CADClientModel", "closeStreams()", 
+                "Keypress to redraw latency: " + redrawLatency);
         
         try {
             out.close();
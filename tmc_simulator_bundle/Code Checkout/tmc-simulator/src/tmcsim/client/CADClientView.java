@@ -2,8 +2,13 @@ package tmcsim.client;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.TreeMap;
@@ -17,6 +22,8 @@ import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.w3c.dom.Document;
@@ -92,6 +99,34 @@ public class CADClientView extends JFrame implements KeyListener, Observer {
     
     /** Flag designating whether the screen's page location has been saved. */
     private boolean pageLocationSaved = false;
+    
+    /** Minimum time (ms) between showing two sets of pending updates. */
+    private static final int FRAME_INTERVAL = 16;
+    
+    /** Lock for the pending updates. */
+    private final Object pendingLock = new Object();
+    
+    /** Newest screen model update not yet shown. */
+    private ObserverMessage pendingScreen = null;
+    
+    /** Newest footer value updates not yet shown, by message type. */
+    private EnumMap<ObserverMessage.messageType, ObserverMessage> pendingFooter =
+        new EnumMap<ObserverMessage.messageType, ObserverMessage>(ObserverMessage.messageType.class);
+    
+    /** Information messages not yet shown. */
+    private List<ObserverMessage> pendingInfo = new ArrayList<ObserverMessage>();
+    
+    /** Flag designating whether the model has reported a lost connection. */
+    private boolean connectionLost = false;
+    
+    /** Flag designating whether the Swing thread will show the pending updates. */
+    private boolean showScheduled = false;
+    
+    /** Number of screen models replaced by a newer one before being shown. */
+    private int coalescedScreens = 0;
+    
+    /** Time (ms) the pending updates were last shown.  Used on the Swing thread. */
+    private long lastShown = 0;
 
     /**
      * Constructor. Build panes, add key listeners, and set up observer
@@ -556,7 +591,135 @@ public class CADClientView extends JFrame implements KeyListener, Observer {
 
     /**
      * Observable update method.  The CADClientView class is an observer of the 
-     * CADClientModel.  If the model sends a null object, it is signifying that
+     * CADClientModel, and this method is called on the model's reading thread.
+     * The update is added to the pending updates and the Swing thread is asked
+     * to show them.  Updates that replace a value are coalesced: only the
+     * newest screen model and the newest value of each footer field are kept,
+     * and a new screen model discards the footer values received before it,
+     * since the model contains them.  Information messages are all kept.
+     * Pending updates are shown at most once per FRAME_INTERVAL, so a burst
+     * of updates redraws the screen once.
+     */
+    public void update(Observable o, Object arg) {
+        
+        synchronized(pendingLock) {
+            if(arg == null) {
+                connectionLost = true;
+            }
+            else {
+                ObserverMessage oMessage = (ObserverMessage)arg;
+                
+                switch(oMessage.type) {
+                    case INCIDENT_INQUIRY:
+                    case INCIDENT_SUMMARY:
+                    case INCIDENT_BOARD:
+                    case ROUTED_MESSAGE:
+                    case BLANK_SCREEN:
+                        if(pendingScreen != null) {
+                            coalescedScreens++;
+                        }
+                        pendingScreen = oMessage;
+                        pendingFooter.clear();
+                        break;
+                        
+                    case CAD_INFO_MESSAGE:
+                        pendingInfo.add(oMessage);
+                        break;
+                        
+                    default:
+                        pendingFooter.put(oMessage.type, oMessage);
+                        break;
+                }
+            }
+            
+            if(!showScheduled) {
+                showScheduled = true;
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        scheduleShowPending();
+                    }
+                });
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of screen models that were not shown because a
+     * newer screen model replaced them.
+     */
+    public int getCoalescedScreens() {
+        synchronized(pendingLock) {
+            return coalescedScreens;
+        }
+    }
+    
+    /**
+     * Called on the Swing thread.  Show the pending updates now, or when
+     * FRAME_INTERVAL has passed since they were last shown.
+     */
+    private void scheduleShowPending() {
+        
+        long wait = FRAME_INTERVAL - (System.currentTimeMillis() - lastShown);
+        
+        if(wait <= 0) {
+            showPending();
+        }
+        else {
+            Timer frameTimer = new Timer((int)wait, new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    showPending();
+                }
+            });
+            frameTimer.setRepeats(false);
+            frameTimer.start();
+        }
+    }
+    
+    /**
+     * Called on the Swing thread.  Take the pending updates and show them:
+     * the screen model first, then the footer values and information 
+     * messages received after it.
+     */
+    private void showPending() {
+        
+        boolean lost;
+        ObserverMessage screen;
+        List<ObserverMessage> footer;
+        List<ObserverMessage> info;
+        
+        synchronized(pendingLock) {
+            lost   = connectionLost;
+            screen = pendingScreen;
+            footer = new ArrayList<ObserverMessage>(pendingFooter.values());
+            info   = new ArrayList<ObserverMessage>(pendingInfo);
+            
+            connectionLost = false;
+            pendingScreen  = null;
+            pendingFooter.clear();
+            pendingInfo.clear();
+            showScheduled  = false;
+        }
+        
+        lastShown = System.currentTimeMillis();
+        
+        if(screen != null) {
+            showUpdate(screen);
+            theModel.screenRedrawn();
+        }
+        for(ObserverMessage message : footer) {
+            showUpdate(message);
+        }
+        for(ObserverMessage message : info) {
+            showUpdate(message);
+        }
+        if(lost) {
+            showUpdate(null);
+        }
+    }
+
+    /**
+     * Show an update from the CADClientModel, on the Swing thread.  
+     * If the model sends a null object, it is signifying that
      * it has shut down.  In this case, an error message should be shown to prompt
      * the user to restart the CAD Client.  If the update object is an
      * ObserverMessage object, the following actions are to be taken:
@@ -637,7 +800,7 @@ public class CADClientView extends JFrame implements KeyListener, Observer {
      *  </tbody>
      *</table>
      */
-    public void update(Observable o, Object arg) {
+    private void showUpdate(Object arg) {
         
         
         if(arg == null) 
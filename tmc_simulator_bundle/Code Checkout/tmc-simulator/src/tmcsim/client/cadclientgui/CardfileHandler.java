@@ -14,7 +14,6 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import tmcsim.client.cadclientgui.data.CardfileData;
 import tmcsim.client.cadclientgui.data.CardfileDataObject;
-import tmcsim.client.cadclientgui.data.CardfileList;
 import tmcsim.client.cadclientgui.enums.CADDataEnums.CARDFILE;
 import tmcsim.client.cadclientgui.enums.CADScriptTags.CARDFILE_TAGS;
 import tmcsim.client.cadclientgui.screens.ScreenManager;
@@ -40,12 +39,12 @@ public class CardfileHandler extends DefaultHandler {
 
     private CardfileData cardfileData;
 
-    private CardfileList cfdList;
+    private LinkedList<CardfileDataObject> cfdList;
 
     public CardfileHandler(CardfileData cfd) {
         cardfileData = cfd;
         currentTitle = "";
-        cfdList = new CardfileList();
+        cfdList = new LinkedList<CardfileDataObject>();
     }
 
     /*
@@ -105,10 +104,10 @@ public class CardfileHandler extends DefaultHandler {
             } else if (qName.equals(CARDFILE_TAGS.FAX.tag)) {
                 cfdObj.setFax(parsedValue.toString());
             } else if (qName.equals(CARDFILE_TAGS.CARDFILE_OBJ.tag)) {
-                cfdList.addDataObject(cfdObj);
+                cfdList.add(cfdObj);
             } else if (qName.equals(CARDFILE_TAGS.TAB.tag)) {
                 addToCardfileData();
-                cfdList = new CardfileList();
+                cfdList = new LinkedList<CardfileDataObject>();
             }
         } catch (Exception e) {
             System.out.println("endElement error" + e.getLocalizedMessage());
@@ -117,76 +116,9 @@ public class CardfileHandler extends DefaultHandler {
     }
 
     private void addToCardfileData() {
-        if (currentTitle.equals(CARDFILE.COASTAL_DIVISION_UNITS.tag)) {
-            cardfileData.setCoastalDivisionUnitsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.POLICE_SHERIFF_CORONER.tag)) {
-            cardfileData.setPoliceSheriffCoronerList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.COURTS.tag)) {
-            cardfileData.setCourtsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.PUBLIC_TRANSPORTATION.tag)) {
-            cardfileData.setPublicTransportationList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.GG_OTHER.tag)) {
-            cardfileData.setGgOtherList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.MY_MISC.tag)) {
-            cardfileData.setMyMiscList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.SL_MISC.tag)) {
-            cardfileData.setSlMiscList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.VT_MISC.tag)) {
-            cardfileData.setVlMiscList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.CHP_OFFICES.tag)) {
-            cardfileData.setChpOfficesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.STATE_AGENCIES_FACILITIES.tag)) {
-            cardfileData.setStateAgenciesFacilitiesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.GOVERNMENT_OFFICIALS.tag)) {
-            cardfileData.setGovernmentOfficialsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.FEDERAL_AGENCIES.tag)) {
-            cardfileData.setFederalAgenciesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.FIRE_EMS.tag)) {
-            cardfileData.setFireEmsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.JAILS.tag)) {
-            cardfileData.setJailsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.HOSPITALS_MED_CENTERS.tag)) {
-            cardfileData.setHospitalsMedCentersList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.TOW_COMPANIES.tag)) {
-            cardfileData.setTowCompaniesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.CALTRANS.tag)) {
-            cardfileData.setCalTransList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.COUNTY_ROADS.tag)) {
-            cardfileData.setCountyRoadsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.UTILITIES.tag)) {
-            cardfileData.setUtilitiesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.ANIMAL_CONTROL.tag)) {
-            cardfileData.setAnimalControlList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.AIRPORTS.tag)) {
-            cardfileData.setAirportsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.CREDIT_CARDS.tag)) {
-            cardfileData.setCreditCardsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.GG_CRISIS_SHELTERS.tag)) {
-            cardfileData.setGgCrisisSheltersList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.RANGES.tag)) {
-            cardfileData.setRangesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.HOTLINES.tag)) {
-            cardfileData.setHotlinesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.HWY_PATROLS_OOS.tag)) {
-            cardfileData.setHwyPatrolsOosList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.PARKS_RECREATION.tag)) {
-            cardfileData.setParksRecreationList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.SHELTERS)) {
-            cardfileData.setSheltersList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.SL_COUNTY_SERVICES.tag)) {
-            cardfileData.setSlCountyServicesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.SL_RESOURCES.tag)) {
-            cardfileData.setSlResourcesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.TRUCK_TIRE_REPAIR.tag)) {
-            cardfileData.setTruckTireRepairList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.MCC_EMPLOYEES.tag)) {
-            cardfileData.setMccEmployeesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.GATE_ACCESS_CODES.tag)) {
-            cardfileData.setGateAccessCodesList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.VT_CALL_SIGNS.tag)) {
-            cardfileData.setVtCallSignsList(cfdList);
-        } else if (currentTitle.equals(CARDFILE.SLCC_EMPLOYEES.tag)) {
-            cardfileData.setSlccEmployeesList(cfdList);
+        CARDFILE category = CARDFILE.fromTag(currentTitle);
+        if (category != null) {
+            cardfileData.setList(category, cfdList);
         }
     }
 
@@ -3,12 +3,10 @@ package tmcsim.client.cadclientgui;
 import java.io.File;
 import java.rmi.RemoteException;
 
-import javax.xml.parsers.SAXParserFactory;
-
 import tmcsim.client.cadclientgui.data.CADData;
 
 /**
- * This class loads the XML script and parses through it in the ScriptHandler. Finally it stores the data from the XML 
+ * This class loads the XML script and parses through it in the ScriptLoader. Finally it stores the data from the XML 
  * into the CADData.
  * @author Nicholas
  *
@@ -22,14 +20,15 @@ public class GUIScriptReader {
     
     /*
      * loads the script from the XML and stores the data in the CADData class.
+     * The script is parsed by the ScriptLoader, which shares the parsed
+     * scenario with the simulator.
      */
     public static void loadScriptFile(File scriptFile,CADData cadData) throws RemoteException {     
         try {
                 
-            ScriptHandler sh = new ScriptHandler();
-            SAXParserFactory.newInstance().newSAXParser().parse(scriptFile, sh);
-            //cadData.setUnitsFromXML(sh.getUnits());
-            cadData.setIncidentsFromXML(sh.getIncidents());
+            ScriptLoader.Scenario scenario = ScriptLoader.load(scriptFile);
+            //cadData.setUnitsFromXML(scenario.getUnits());
+            cadData.setIncidentsFromXML(scenario.getIncidents());
                
         }
         catch (Exception e) {e.printStackTrace();}
@@ -0,0 +1,68 @@
+package tmcsim.client.cadclientgui;
+
+import java.io.File;
+
+import tmcsim.client.cadclientgui.ScriptLoader.Scenario;
+import tmcsim.common.ScriptException;
+
+
+/**
+ * ScriptCompiler is the command line tool that compiles a simulation script
+ * into a scenario file, which the CAD Simulator loads without parsing XML.
+ * The script is validated against the DTD named in its DOCTYPE, and with
+ * -strict any validation error fails the compile.  The scenario file is
+ * written next to the script, with the COMPILED_EXTENSION, unless another
+ * file is given.<br>
+ * <br>
+ * Usage: ScriptCompiler [-strict] scriptFile [scenarioFile]
+ *
+ * @author Jonathan Molina
+ */
+public class ScriptCompiler {
+
+    /**
+     * Returns the default scenario file for a script file.
+     *
+     * @param scriptFile The script file.
+     * @return The script file with its extension replaced by the
+     * COMPILED_EXTENSION.
+     */
+    public static File scenarioFileFor(File scriptFile) {
+        String name = scriptFile.getName();
+        int dot     = name.lastIndexOf('.');
+        if(dot > 0) {
+            name = name.substring(0, dot);
+        }
+
+        return new File(scriptFile.getAbsoluteFile().getParentFile(),
+                name + "." + ScriptLoader.COMPILED_EXTENSION);
+    }
+
+    public static void main(String[] args) {
+
+        boolean strict = args.length > 0 && args[0].equals("-strict");
+        int first      = strict ? 1 : 0;
+
+        if(args.length - first < 1 || args.length - first > 2) {
+            System.err.println("Usage: ScriptCompiler [-strict] scriptFile [scenarioFile]");
+            System.exit(1);
+        }
+
+        File scriptFile   = new File(args[first]);
+        File scenarioFile = args.length - first > 1 ? new File(args[first + 1])
+                                                    : scenarioFileFor(scriptFile);
+
+        try {
+            Scenario scenario = ScriptLoader.compile(scriptFile, scenarioFile, strict);
+
+            System.out.println(scriptFile + " -> " + scenarioFile + ": " + scenario);
+        }
+        catch (ScriptException se) {
+            System.err.println(se.getMessage() + " " + scriptFile);
+            if(se.getCause() != null) {
+                System.err.println(se.getCause());
+            }
+            System.exit(1);
+        }
+    }
+}
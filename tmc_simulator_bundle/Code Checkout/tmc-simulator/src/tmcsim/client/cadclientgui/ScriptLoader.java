@@ -0,0 +1,566 @@
+package tmcsim.client.cadclientgui;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+import tmcsim.client.cadclientgui.data.Incident;
+import tmcsim.client.cadclientgui.data.Unit;
+import tmcsim.common.ScriptException;
+
+
+/**
+ * ScriptLoader is the single place a simulation script is loaded.  The script
+ * is parsed once with the ScriptHandler into a Scenario, which holds the
+ * parsed incidents and units in serialized form.  The Scenario cannot be
+ * changed; each call to getIncidents() or getUnits() returns new objects, so
+ * the IncidentManager and CADData can run and edit them while the Scenario
+ * stays as loaded.<br>
+ * <br>
+ * Scenarios are cached by the SHA-1 hash of the script file's contents, so
+ * loading a script that has been loaded before, or a copy of it, only reads
+ * and hashes the file.  The CACHE_SIZE most recently loaded scripts are kept.<br>
+ * <br>
+ * A script may be compiled ahead of time into a scenario file (see
+ * ScriptCompiler).  A scenario file holds the Scenario in a versioned binary
+ * format and is loaded by memory-mapping it, without parsing any XML.  The
+ * load() method accepts either kind of file.  Scenario files hold serialized
+ * data classes, so they must be compiled again after those classes change.
+ * The header names every class in the file with a hash of their serialized
+ * fields, and a file whose classes have changed since it was compiled is
+ * rejected rather than read into the wrong fields.
+ *
+ * @author Jonathan Molina
+ */
+public class ScriptLoader {
+
+    /** Number of scenarios kept in the cache. */
+    public static final int CACHE_SIZE = 4;
+
+    /** File extension of compiled scenario files. */
+    public static final String COMPILED_EXTENSION = "tmcs";
+
+    /** First four bytes of a scenario file, "TMCS". */
+    public static final int MAGIC = 0x544D4353;
+
+    /** Version of the scenario file format. */
+    public static final int FORMAT_VERSION = 2;
+
+    /** Error Logger. */
+    private static Logger scriptLogger = Logger.getLogger("tmcsim.common");
+
+    /** Cached scenarios, least recently loaded first.  Keys = file hash. */
+    private static Map<String, Scenario> cache =
+        new LinkedHashMap<String, Scenario>(CACHE_SIZE + 1, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, Scenario> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+    /** Number of scripts parsed. */
+    private static long parseCount = 0;
+
+    /**
+     * A parsed script.  The incidents and units are stored serialized, which
+     * keeps the Scenario immutable and compact.
+     */
+    public static class Scenario {
+
+        /** SHA-1 hash of the script file's contents. */
+        private final String hash;
+
+        /** Serialized Vector of the parsed incidents. */
+        private final byte[] incidentData;
+
+        /** Serialized Vector of the parsed units. */
+        private final byte[] unitData;
+
+        /** Number of incidents in the script. */
+        private final int incidentCount;
+
+        /** Number of units in the script. */
+        private final int unitCount;
+
+        /** Names of the classes in the serialized data. */
+        private final Set<String> classes;
+
+        private Scenario(String hash, Vector<Incident> incidents, Vector<Unit> units)
+                throws IOException {
+            this(hash, incidents, units, new TreeSet<String>());
+        }
+
+        private Scenario(String hash, Vector<Incident> incidents, Vector<Unit> units,
+                Set<String> classes) throws IOException {
+            this(hash, serialize(incidents, classes), serialize(units, classes),
+                    incidents.size(), units.size(), classes);
+        }
+
+        private Scenario(String hash, byte[] incidentData, byte[] unitData,
+                int incidentCount, int unitCount, Set<String> classes) {
+            this.hash          = hash;
+            this.incidentData  = incidentData;
+            this.unitData      = unitData;
+            this.incidentCount = incidentCount;
+            this.unitCount     = unitCount;
+            this.classes       = classes;
+        }
+
+        /**
+         * Reads a Scenario from the contents of a scenario file.  The buffer
+         * is positioned after the MAGIC number.
+         */
+        private static Scenario read(ByteBuffer buffer) throws IOException {
+            try {
+                int version = buffer.getInt();
+                if(version != FORMAT_VERSION) {
+                    throw new IOException("Scenario file version " + version +
+                            " is not supported, expected " + FORMAT_VERSION);
+                }
+
+                String hash       = new String(readBlock(buffer, buffer.getShort() & 0xFFFF), "US-ASCII");
+                String schema     = new String(readBlock(buffer, buffer.getShort() & 0xFFFF), "US-ASCII");
+                String names      = new String(readBlock(buffer, buffer.getInt()), "UTF-8");
+
+                Set<String> classes = new TreeSet<String>();
+                for(String name : names.split("\n")) {
+                    if(!name.isEmpty()) {
+                        classes.add(name);
+                    }
+                }
+                if(!schema.equals(schemaHash(classes))) {
+                    throw new IOException("Scenario file was compiled with " +
+                            "other versions of the data classes, compile the " +
+                            "script again");
+                }
+
+                int incidentCount = buffer.getInt();
+                int unitCount     = buffer.getInt();
+                byte[] incidents  = readBlock(buffer, buffer.getInt());
+                byte[] units      = readBlock(buffer, buffer.getInt());
+
+                return new Scenario(hash, incidents, units, incidentCount,
+                        unitCount, classes);
+            }
+            catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Scenario file is truncated", e);
+            }
+        }
+
+        /**
+         * Writes the Scenario to a scenario file.
+         */
+        private void write(File file) throws IOException {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(file)));
+            try {
+                byte[] hashBytes   = hash.getBytes("US-ASCII");
+                byte[] schemaBytes = getSchemaHash().getBytes("US-ASCII");
+
+                StringBuilder names = new StringBuilder();
+                for(String name : classes) {
+                    names.append(name).append('\n');
+                }
+                byte[] nameBytes = names.toString().getBytes("UTF-8");
+
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeShort(hashBytes.length);
+                out.write(hashBytes);
+                out.writeShort(schemaBytes.length);
+                out.write(schemaBytes);
+                out.writeInt(nameBytes.length);
+                out.write(nameBytes);
+                out.writeInt(incidentCount);
+                out.writeInt(unitCount);
+                out.writeInt(incidentData.length);
+                out.write(incidentData);
+                out.writeInt(unitData.length);
+                out.write(unitData);
+            }
+            finally {
+                out.close();
+            }
+        }
+
+        /**
+         * Returns the SHA-1 hash of the script file's contents.  For a
+         * scenario file, this is the hash of the script it was compiled from.
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Returns the SHA-1 hash of the serialized fields of the classes in
+         * the scenario, as they are in the running program.
+         */
+        public String getSchemaHash() {
+            return schemaHash(classes);
+        }
+
+        /**
+         * Returns the number of incidents in the script.
+         */
+        public int getIncidentCount() {
+            return incidentCount;
+        }
+
+        /**
+         * Returns the number of units in the script.
+         */
+        public int getUnitCount() {
+            return unitCount;
+        }
+
+        /**
+         * Returns the number of bytes used to store the scenario.
+         */
+        public int getSize() {
+            return incidentData.length + unitData.length;
+        }
+
+        /**
+         * Returns new Incident objects for the script's incidents, ordered
+         * by log number.
+         *
+         * @throws ScriptException if the incidents cannot be created.
+         */
+        @SuppressWarnings("unchecked")
+        public Vector<Incident> getIncidents() throws ScriptException {
+            return (Vector<Incident>)deserialize(incidentData);
+        }
+
+        /**
+         * Returns new Unit objects for the script's units, ordered by unit
+         * number.
+         *
+         * @throws ScriptException if the units cannot be created.
+         */
+        @SuppressWarnings("unchecked")
+        public Vector<Unit> getUnits() throws ScriptException {
+            return (Vector<Unit>)deserialize(unitData);
+        }
+
+        public String toString() {
+            return "Scenario[" + incidentCount + " incidents, " + unitCount +
+                    " units, " + getSize() + " bytes]";
+        }
+    }
+
+    /**
+     * Returns the Scenario for a script file or a compiled scenario file.  A
+     * script file is parsed only if no script with the same contents is in
+     * the cache.
+     *
+     * @param scriptFile The script file or scenario file.
+     * @return The parsed script.
+     * @throws ScriptException if the file cannot be read or parsed.
+     */
+    public static Scenario load(File scriptFile) throws ScriptException {
+
+        Scenario scenario;
+        try {
+            if(isScenarioFile(scriptFile)) {
+                MappedByteBuffer mapped;
+                try (FileChannel channel = FileChannel.open(scriptFile.toPath(),
+                        StandardOpenOption.READ)) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                mapped.position(4);
+                scenario = cached(Scenario.read(mapped));
+            }
+            else {
+                byte[] contents = Files.readAllBytes(scriptFile.toPath());
+                String hash = hash(contents);
+
+                synchronized(cache) {
+                    scenario = cache.get(hash);
+                    if(scenario != null) {
+                        return scenario;
+                    }
+                }
+
+                scenario = cached(parse(scriptFile, contents, hash, false, false));
+            }
+        }
+        catch (IOException ioe) {
+            throw new ScriptException(ScriptException.INVALID_SCRIPT, scriptFile, ioe);
+        }
+
+        scriptLogger.logp(Level.INFO, "ScriptLoader", "load", "Loaded " +
+                scriptFile.getName() + ": " + scenario);
+
+        return scenario;
+    }
+
+    /**
+     * Parses a script file, validating it against the DTD named in its
+     * DOCTYPE, and writes the Scenario to a scenario file.  Validation errors
+     * are logged.  They fail the compile only if it is strict, as scripts
+     * written for the current ScriptHandler do not all match their DTD.
+     *
+     * @param scriptFile The script file.
+     * @param scenarioFile The scenario file to write.
+     * @param strict Whether a validation error fails the compile.
+     * @return The parsed script.
+     * @throws ScriptException if the script cannot be parsed, or is not valid
+     * in a strict compile, or if either file cannot be read or written.
+     */
+    public static Scenario compile(File scriptFile, File scenarioFile, boolean strict)
+            throws ScriptException {
+
+        try {
+            byte[] contents = Files.readAllBytes(scriptFile.toPath());
+            Scenario scenario = cached(parse(scriptFile, contents, hash(contents),
+                    true, strict));
+            scenario.write(scenarioFile);
+
+            scriptLogger.logp(Level.INFO, "ScriptLoader", "compile", "Compiled " +
+                    scriptFile.getName() + " to " + scenarioFile.getName() + ": " +
+                    scenario);
+
+            return scenario;
+        }
+        catch (IOException ioe) {
+            throw new ScriptException(ScriptException.INVALID_SCRIPT, scriptFile, ioe);
+        }
+    }
+
+    /**
+     * Returns the number of script files parsed.  A load served from the
+     * cache is not counted.
+     */
+    public static long getParseCount() {
+        synchronized(cache) {
+            return parseCount;
+        }
+    }
+
+    /**
+     * Removes every scenario from the cache.
+     */
+    public static void clearCache() {
+        synchronized(cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns whether the file starts with the MAGIC number of a scenario
+     * file.  Only the first four bytes are read, so a script file is not
+     * mapped.
+     */
+    private static boolean isScenarioFile(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        }
+        catch (EOFException eof) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses the contents of a script file into a Scenario.  If the parse is
+     * strict, the first validation error fails it.
+     */
+    private static Scenario parse(File scriptFile, byte[] contents, String hash,
+            boolean validate, boolean strict) throws ScriptException {
+
+        final SAXParseException[] invalid = new SAXParseException[1];
+        final int[] errors = new int[1];
+        try {
+            ScriptHandler sh = new ScriptHandler() {
+                public void error(SAXParseException e) {
+                    super.error(e);
+                    errors[0]++;
+                    if(invalid[0] == null) {
+                        invalid[0] = e;
+                    }
+                }
+            };
+
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setValidating(validate);
+            InputSource source = new InputSource(new ByteArrayInputStream(contents));
+            source.setSystemId(scriptFile.toURI().toString());
+            factory.newSAXParser().parse(source, sh);
+
+            if(strict && invalid[0] != null) {
+                throw invalid[0];
+            }
+            else if(validate && errors[0] > 0) {
+                scriptLogger.logp(Level.WARNING, "ScriptLoader", "parse",
+                        errors[0] + " validation errors in " + scriptFile.getName());
+            }
+
+            synchronized(cache) {
+                parseCount++;
+            }
+
+            return new Scenario(hash, sh.getIncidents(), sh.getUnits());
+        }
+        catch (Exception e) {
+            throw new ScriptException(ScriptException.INVALID_SCRIPT, scriptFile, e);
+        }
+    }
+
+    /**
+     * Returns the cached Scenario with the same hash, or caches the
+     * scenario.
+     */
+    private static Scenario cached(Scenario scenario) {
+        synchronized(cache) {
+            Scenario cachedScenario = cache.get(scenario.getHash());
+            if(cachedScenario != null) {
+                return cachedScenario;
+            }
+            cache.put(scenario.getHash(), scenario);
+            return scenario;
+        }
+    }
+
+    private static byte[] readBlock(ByteBuffer buffer, int length) {
+        byte[] block = new byte[length];
+        buffer.get(block);
+        return block;
+    }
+
+    /**
+     * Returns the hash of the serialized form of the classes: each class's
+     * serialVersionUID and the names and types of its serialized fields.  A
+     * class that is missing or no longer serializable gives a hash no file
+     * was written with.
+     */
+    private static String schemaHash(Set<String> classes) {
+        StringBuilder schema = new StringBuilder();
+        for(String name : classes) {
+            schema.append(name);
+
+            ObjectStreamClass desc = null;
+            try {
+                desc = ObjectStreamClass.lookup(Class.forName(name, false,
+                        ScriptLoader.class.getClassLoader()));
+            }
+            catch (ClassNotFoundException cnfe) {
+            }
+
+            if(desc == null) {
+                schema.append(" missing\n");
+                continue;
+            }
+
+            schema.append(' ').append(desc.getSerialVersionUID());
+            for(ObjectStreamField field : desc.getFields()) {
+                schema.append(' ').append(field.getName()).append(':')
+                      .append(field.getType().getName());
+            }
+            schema.append('\n');
+        }
+
+        try {
+            return hash(schema.toString().getBytes("UTF-8"));
+        }
+        catch (IOException ioe) {
+            //every Java platform supports UTF-8
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    private static String hash(byte[] contents) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for(byte b : MessageDigest.getInstance("SHA-1").digest(contents)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException nsae) {
+            //every Java platform supports SHA-1
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    /**
+     * Serializes the data.  Equal strings are written once, so scripts that
+     * repeat the same locations, statuses and descriptions stay small, and
+     * the strings are shared again when the data is read back.  The name of
+     * each class written is added to the classes.
+     */
+    private static byte[] serialize(Object data, final Set<String> classes)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes) {
+            private Map<String, String> strings = new HashMap<String, String>();
+
+            {
+                enableReplaceObject(true);
+            }
+
+            protected void annotateClass(Class<?> cl) {
+                classes.add(cl.getName());
+            }
+
+            protected Object replaceObject(Object obj) {
+                if(obj instanceof String) {
+                    String string = strings.get(obj);
+                    if(string == null) {
+                        string = (String)obj;
+                        strings.put(string, string);
+                    }
+                    return string;
+                }
+                return obj;
+            }
+        };
+        out.writeObject(data);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws ScriptException {
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+            try {
+                return in.readObject();
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException | ClassNotFoundException e) {
+            throw new ScriptException(ScriptException.INVALID_SCRIPT, e);
+        }
+    }
+}
@@ -2,17 +2,24 @@ package tmcsim.client.cadclientgui.data;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.Timer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
 import tmcsim.client.cadclientgui.enums.IncidentEnums;
 import tmcsim.client.cadclientgui.enums.TableHeaders;
 import tmcsim.client.cadclientgui.enums.UnitStatusEnums;
@@ -45,9 +52,27 @@ public class CADData implements Serializable {
     private static DefaultTableModel assignedIncidentsTableModel;
     private static DefaultTableModel incidentEditorModel;
 
+    /*
+     * Hash indexes over the units and incidents vectors. The vectors remain the
+     * ordered views used for the tables; the indexes are rebuilt whenever the
+     * vectors are replaced. An index hit is checked against the object's key,
+     * and a miss or a stale hit rebuilds the index from the vectors before
+     * trying again, so a key changed after loading is still found. Vectors
+     * are replaced and indexes rebuilt while holding this object's lock.
+     */
+    private static volatile ConcurrentHashMap<String, Unit> unitsByNum;
+    private static volatile ConcurrentHashMap<Integer, Incident> incidentsByLogNum;
+    private static volatile ConcurrentHashMap<String, Incident> incidentsByMasterInc;
+
+    // Versioned change feeds for the tables that clients poll.
+    private static EnumMap<TABLE, CADTableFeed> tableFeeds;
+
     public CADData() {
         units = new Vector<Unit>();
         incidents = new Vector<Incident>();
+        unitsByNum = new ConcurrentHashMap<String, Unit>();
+        incidentsByLogNum = new ConcurrentHashMap<Integer, Incident>();
+        incidentsByMasterInc = new ConcurrentHashMap<String, Incident>();
 
         toUnitTableVector = new Vector<Object>();
         toPendingTableVector = new Vector<Object>();
@@ -62,13 +87,15 @@ public class CADData implements Serializable {
         initializeUnitStatusSettings();
         initializePendingIncidentsSettings();
         initializeIncidentEditorSettings();
+        initializeTableFeeds();
 
         handleUpdateTimes();
     }
     
-    public void clearData(){
+    public synchronized void clearData(){
         units = new Vector<Unit>();
         incidents = new Vector<Incident>();
+        reindex();
     }
     
     public void resetSimulation(){
@@ -129,8 +156,9 @@ public class CADData implements Serializable {
      * @param unit
      *            the new list of units.
      */
-    public void setUnitsFromXML(Vector<Unit> unit) {
+    public synchronized void setUnitsFromXML(Vector<Unit> unit) {
         units = unit;
+        reindexUnits();
     }
 
     /**
@@ -139,32 +167,74 @@ public class CADData implements Serializable {
      * @param incident
      *            the new list of incidents.
      */
-    public void setIncidentsFromXML(Vector<Incident> incident) {
+    public synchronized void setIncidentsFromXML(Vector<Incident> incident) {
         incidents = incident;
+        reindexIncidents();
+    }
+
+    /**
+     * Rebuilds the unit and incident indexes from the current vectors. Must be
+     * called if a unit number, log number or master incident number is
+     * changed after the data has been loaded.
+     */
+    public synchronized void reindex() {
+        reindexUnits();
+        reindexIncidents();
+    }
+
+    /**
+     * Writes the units and incidents to a simulation checkpoint. Incidents
+     * shared with other data written to the same stream are written once.
+     * 
+     * @param out
+     *            stream of the checkpoint
+     * @throws IOException
+     *             if the data cannot be written
+     */
+    public synchronized void writeCheckpoint(ObjectOutputStream out) throws IOException {
+        out.writeObject(units);
+        out.writeObject(incidents);
+    }
+
+    /**
+     * Replaces the units and incidents with those read from a simulation
+     * checkpoint written by writeCheckpoint(), and rebuilds the indexes.
+     * 
+     * @param in
+     *            stream of the checkpoint
+     * @throws IOException
+     *             if the data cannot be read
+     * @throws ClassNotFoundException
+     *             if a class of the data cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void readCheckpoint(ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+        units = (Vector<Unit>) in.readObject();
+        incidents = (Vector<Incident>) in.readObject();
+        reindex();
     }
 
     /**
      * Returns the specified unitNum
      */
     public Unit getUnit(String unitNum) {
-        for (int i = 0; i < units.size(); i++) {
-            if (units.get(i).getUnitNum().equals(unitNum)) {
-                return units.get(i);
-            }
+        if (unitNum == null) {
+            return null;
+        }
+        Unit unit = unitsByNum.get(unitNum);
+        if (unit == null || !unitNum.equals(unit.getUnitNum())) {
+            reindexUnits();
+            unit = unitsByNum.get(unitNum);
         }
-        return null;
+        return unit;
     }
 
     /**
      * Check if it contains an incident with the specified Id.
      */
     public boolean checkForValidId(int incidentId) {
-        for (int i = 0; i < incidents.size(); i++) {
-            if (incidents.get(i).getLogNum() == incidentId) {
-                return true;
-            }
-        }
-        return false;
+        return getIncident(incidentId) != null;
     }
 
     /**
@@ -175,24 +245,155 @@ public class CADData implements Serializable {
      * @return the Incident's ID, -1 if invalid masterInc
      */
     public int getIncidentId(String masterInc) {
-        for (int i = 0; i < incidents.size(); i++) {
-            if (incidents.get(i).getMasterInc().equals(masterInc)) {
-                return incidents.get(i).getLogNum();
-            }
+        if (masterInc == null) {
+            return -1;
         }
-        return -1;
+        Incident inc = incidentsByMasterInc.get(masterInc);
+        if (inc == null || !masterInc.equals(inc.getMasterInc())) {
+            reindexIncidents();
+            inc = incidentsByMasterInc.get(masterInc);
+        }
+        return inc == null ? -1 : inc.getLogNum();
     }
 
     /**
      * Returns the specified incident
      */
     public Incident getIncident(int incidentId) {
-        for (int i = 0; i < incidents.size(); i++) {
-            if (incidents.get(i).getLogNum() == incidentId) {
-                return incidents.get(i);
+        Incident inc = incidentsByLogNum.get(incidentId);
+        if (inc == null || inc.getLogNum() != incidentId) {
+            reindexIncidents();
+            inc = incidentsByLogNum.get(incidentId);
+        }
+        return inc;
+    }
+
+    /**
+     * Rebuilds the unit index. The first unit with a given number wins, as
+     * with the previous linear search.
+     */
+    private synchronized void reindexUnits() {
+        ConcurrentHashMap<String, Unit> index = new ConcurrentHashMap<String, Unit>();
+        for (int i = units.size() - 1; i >= 0; i--) {
+            Unit unit = units.get(i);
+            if (unit.getUnitNum() != null) {
+                index.put(unit.getUnitNum(), unit);
+            }
+        }
+        unitsByNum = index;
+    }
+
+    /**
+     * Rebuilds the incident indexes. The first incident with a given log or
+     * master incident number wins, as with the previous linear search.
+     */
+    private synchronized void reindexIncidents() {
+        ConcurrentHashMap<Integer, Incident> byLogNum = new ConcurrentHashMap<Integer, Incident>();
+        ConcurrentHashMap<String, Incident> byMasterInc = new ConcurrentHashMap<String, Incident>();
+        for (int i = incidents.size() - 1; i >= 0; i--) {
+            Incident inc = incidents.get(i);
+            byLogNum.put(inc.getLogNum(), inc);
+            if (inc.getMasterInc() != null) {
+                byMasterInc.put(inc.getMasterInc(), inc);
             }
         }
-        return null;
+        incidentsByLogNum = byLogNum;
+        incidentsByMasterInc = byMasterInc;
+    }
+
+    /**
+     * Returns the changes to the specified table since the client's last
+     * version. A client with no version (0) receives the whole table. The
+     * rows are collected while holding this object's lock, which the
+     * Coordinator holds while it applies a batch of field updates, so a delta
+     * never contains part of a batch.
+     * 
+     * @param tag
+     *            the table to read
+     * @param sinceVersion
+     *            the last version the client has applied
+     * @return TableDelta for the table
+     */
+    public synchronized TableDelta getTableDelta(TABLE tag, long sinceVersion) {
+        return tableFeeds.get(tag).getDelta(sinceVersion);
+    }
+
+    /**
+     * Reads the specified table and records a new version if it changed. The
+     * rows are collected while holding this object's lock, as in
+     * getTableDelta.
+     * 
+     * @param tag
+     *            the table to read
+     * @return the table's version after the refresh
+     */
+    public synchronized long refreshTable(TABLE tag) {
+        return tableFeeds.get(tag).refresh();
+    }
+
+    /**
+     * Returns the changes to the specified table since the client's last
+     * version, as of the table's last refresh. The table is not read again,
+     * so this does not wait for a batch of field updates to finish.
+     * 
+     * @param tag
+     *            the table to read
+     * @param sinceVersion
+     *            the last version the client has applied
+     * @return TableDelta for the table
+     */
+    public TableDelta getRecordedTableDelta(TABLE tag, long sinceVersion) {
+        return tableFeeds.get(tag).getRecordedDelta(sinceVersion);
+    }
+
+    private void initializeTableFeeds() {
+        tableFeeds = new EnumMap<TABLE, CADTableFeed>(TABLE.class);
+        tableFeeds.put(TABLE.UNIT_STATUS, new CADTableFeed(TABLE.UNIT_STATUS,
+                unitStatusHeaders, new CADTableFeed.RowSource() {
+                    public void collectRows(LinkedHashMap<Object, Vector<Object>> rows) {
+                        for (int i = 0; i < units.size(); i++) {
+                            Unit unit = units.get(i);
+                            rows.put(unit.getUnitNum(), new Vector<Object>(unit.toVector()));
+                        }
+                    }
+                }));
+        tableFeeds.put(TABLE.ASSIGNED_INCIDENTS, new CADTableFeed(TABLE.ASSIGNED_INCIDENTS,
+                assignedIncidentsHeaders, new CADTableFeed.RowSource() {
+                    public void collectRows(LinkedHashMap<Object, Vector<Object>> rows) {
+                        for (int i = 0; i < incidents.size(); i++) {
+                            Incident inc = incidents.get(i);
+                            if (inc.hasOccured()
+                                    && inc.getIncidentStatus() == IncidentEnums.Assigned) {
+                                rows.put(inc.getLogNum(), new Vector<Object>(
+                                        inc.toVectorForAssignedIncidents()));
+                            }
+                        }
+                    }
+                }));
+        tableFeeds.put(TABLE.PENDING_INCIDENTS, new CADTableFeed(TABLE.PENDING_INCIDENTS,
+                pendingIncidentsHeaders, new CADTableFeed.RowSource() {
+                    public void collectRows(LinkedHashMap<Object, Vector<Object>> rows) {
+                        for (int i = 0; i < incidents.size(); i++) {
+                            Incident inc = incidents.get(i);
+                            if (inc.hasOccured()
+                                    && inc.getIncidentStatus() == IncidentEnums.Pending) {
+                                rows.put(inc.getLogNum(), inc.toVectorForPendingIncidents());
+                            }
+                        }
+                    }
+                }));
+        tableFeeds.put(TABLE.INCIDENT_EDITOR, new CADTableFeed(TABLE.INCIDENT_EDITOR,
+                incidentEditorHeaders, new CADTableFeed.RowSource() {
+                    public void collectRows(LinkedHashMap<Object, Vector<Object>> rows) {
+                        for (int i = 0; i < incidents.size(); i++) {
+                            Incident inc = incidents.get(i);
+                            if (inc.hasOccured()) {
+                                rows.put(inc.getLogNum(), new Vector<Object>(
+                                        inc.toVectorForIncidentEditor()));
+                            }
+                        }
+                    }
+                }));
     }
 
     /**
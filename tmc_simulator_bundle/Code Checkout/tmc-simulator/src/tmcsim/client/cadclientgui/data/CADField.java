@@ -0,0 +1,45 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.io.Serializable;
+
+/**
+ * One tagged field of an incident or a unit, used to read or write several
+ * fields in a single remote call. The tag is one of the incident field enums
+ * in CADDataEnums (INC_VAL, INC_LOC, INC_CALLER, ...) or, for a unit,
+ * CADScriptTags.UNIT_TAGS. A field to be read is created without a value,
+ * and the coordinator returns it with the value filled in.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class CADField implements Serializable {
+
+    public Enum<?> tag;
+    public Object value;
+
+    /**
+     * Field to be read.
+     */
+    public CADField(Enum<?> tag) {
+        this(tag, null);
+    }
+
+    /**
+     * Field to be written with the value.
+     */
+    public CADField(Enum<?> tag, Object value) {
+        this.tag = tag;
+        this.value = value;
+    }
+
+    /**
+     * Returns the value as a string, or null if there is no value.
+     */
+    public String getString() {
+        return value == null ? null : value.toString();
+    }
+
+    public String toString() {
+        return tag + "=" + value;
+    }
+}
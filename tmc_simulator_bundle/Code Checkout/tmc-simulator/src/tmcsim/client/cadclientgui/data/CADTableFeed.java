@@ -0,0 +1,138 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Vector;
+
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+
+/**
+ * Versioned change feed for one CADData table. Each refresh compares the
+ * current rows with the last snapshot. If anything changed, the version is
+ * incremented and the change is kept in a bounded history. A client sends the
+ * last version it has applied and receives the merged changes since that
+ * version, or the full table if the version is too old to be covered by the
+ * history. getRecordedDelta reads only the history, so any number of clients
+ * can be served from one refresh.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class CADTableFeed {
+
+    /**
+     * Supplies the current rows of the table, keyed by the row's unit number
+     * or incident log number, in display order.
+     */
+    public static interface RowSource {
+        public void collectRows(LinkedHashMap<Object, Vector<Object>> rows);
+    }
+
+    /** Number of deltas kept for clients that are behind. */
+    public static final int HISTORY_SIZE = 64;
+
+    private TABLE table;
+    private Vector<String> headers;
+    private RowSource source;
+    private long version;
+    private LinkedHashMap<Object, Vector<Object>> snapshot;
+    private LinkedList<TableDelta> history;
+
+    public CADTableFeed(TABLE table, Vector<String> headers, RowSource source) {
+        this.table = table;
+        this.headers = headers;
+        this.source = source;
+        this.version = 0;
+        this.snapshot = new LinkedHashMap<Object, Vector<Object>>();
+        this.history = new LinkedList<TableDelta>();
+    }
+
+    /**
+     * Returns the changes since the specified version. A version of 0 or a
+     * version that is no longer in the history results in a reset delta
+     * containing every row.
+     *
+     * @param sinceVersion
+     *            the last version the client has applied
+     * @return the changes from sinceVersion to the current version
+     */
+    public synchronized TableDelta getDelta(long sinceVersion) {
+        refresh();
+        return getRecordedDelta(sinceVersion);
+    }
+
+    /**
+     * Returns the changes since the specified version as of the last refresh,
+     * without reading the table again.
+     *
+     * @param sinceVersion
+     *            the last version the client has applied
+     * @return the changes from sinceVersion to the current version
+     */
+    public synchronized TableDelta getRecordedDelta(long sinceVersion) {
+        if (sinceVersion == version && sinceVersion > 0) {
+            return new TableDelta(table, version, version);
+        }
+
+        if (sinceVersion > 0 && sinceVersion < version && !history.isEmpty()
+                && history.getFirst().fromVersion <= sinceVersion) {
+            TableDelta merged = new TableDelta(table, sinceVersion, sinceVersion);
+            for (TableDelta delta : history) {
+                if (delta.fromVersion >= sinceVersion) {
+                    merged.merge(delta);
+                }
+            }
+            return merged;
+        }
+
+        TableDelta full = new TableDelta(table, sinceVersion, version);
+        full.reset = true;
+        full.headers = new Vector<String>(headers);
+        full.upserts.putAll(snapshot);
+        return full;
+    }
+
+    /**
+     * Returns the current version of the table.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Compares the current rows with the snapshot and records a new version if
+     * they differ.
+     *
+     * @return the version after the refresh
+     */
+    public synchronized long refresh() {
+        LinkedHashMap<Object, Vector<Object>> rows = new LinkedHashMap<Object, Vector<Object>>();
+        source.collectRows(rows);
+
+        TableDelta delta = new TableDelta(table, version, version + 1);
+        for (Map.Entry<Object, Vector<Object>> entry : rows.entrySet()) {
+            Vector<Object> old = snapshot.get(entry.getKey());
+            if (old == null || !old.equals(entry.getValue())) {
+                delta.upserts.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Object key : snapshot.keySet()) {
+            if (!rows.containsKey(key)) {
+                delta.deletes.add(key);
+            }
+        }
+
+        if (delta.isEmpty() && version > 0) {
+            return version;
+        }
+
+        version++;
+        snapshot = rows;
+        history.add(delta);
+        while (history.size() > HISTORY_SIZE) {
+            history.removeFirst();
+        }
+        return version;
+    }
+}
@@ -0,0 +1,68 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.io.Serializable;
+
+import tmcsim.client.cadclientgui.enums.CADDataEnums.INC_TABLE;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+
+/**
+ * A part of the CADData that a client can subscribe to. A topic is either one
+ * of the CADData tables (unit status, pending incidents, ...) or one of a
+ * single incident's tables (comments and notes).
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class CADTopic implements Serializable {
+
+    public TABLE table;
+    public INC_TABLE incTable;
+    public int incidentId;
+
+    /**
+     * Topic for one of the CADData tables.
+     */
+    public CADTopic(TABLE table) {
+        this.table = table;
+        this.incTable = null;
+        this.incidentId = -1;
+    }
+
+    /**
+     * Topic for one of an incident's tables.
+     */
+    public CADTopic(INC_TABLE incTable, int incidentId) {
+        this.table = null;
+        this.incTable = incTable;
+        this.incidentId = incidentId;
+    }
+
+    /**
+     * Returns true if this topic is one of the CADData tables.
+     */
+    public boolean isTable() {
+        return table != null;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof CADTopic)) {
+            return false;
+        }
+        CADTopic other = (CADTopic) o;
+        return table == other.table && incTable == other.incTable
+                && incidentId == other.incidentId;
+    }
+
+    public int hashCode() {
+        int hash = table == null ? 0 : table.hashCode();
+        hash = 31 * hash + (incTable == null ? 0 : incTable.hashCode());
+        return 31 * hash + incidentId;
+    }
+
+    public String toString() {
+        if (isTable()) {
+            return table.tag;
+        }
+        return incTable.tag + "[" + incidentId + "]";
+    }
+}
@@ -0,0 +1,32 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.io.Serializable;
+
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * An update pushed by the Coordinator to a subscribed client. Table topics
+ * carry the changes since the last delta sent to the client, incident topics
+ * carry the incident's current table.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class CADUpdate implements Serializable {
+
+    public CADTopic topic;
+    public TableDelta delta;
+    public DefaultTableModel incidentTable;
+
+    public CADUpdate(CADTopic topic, TableDelta delta) {
+        this.topic = topic;
+        this.delta = delta;
+        this.incidentTable = null;
+    }
+
+    public CADUpdate(CADTopic topic, DefaultTableModel incidentTable) {
+        this.topic = topic;
+        this.delta = null;
+        this.incidentTable = incidentTable;
+    }
+}
@@ -0,0 +1,142 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tmcsim.client.cadclientgui.enums.CADDataEnums.CARDFILE;
+import tmcsim.interfaces.CADInterface;
+
+/**
+ * This class keeps the client's copy of the pages of each Cardfile list it
+ * has read from the server. Pages are read one at a time, only when they are
+ * asked for. A cached list is validated with one call carrying its version,
+ * which returns nothing if the list has not changed since, so opening a list
+ * costs the same however large it is. The pages of a list are dropped and
+ * read again only after it has changed on the server. The cache may be used
+ * from any thread, so pages can be read off the event dispatch thread.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class CardfileCache {
+
+    public static final int PAGE_SIZE = 256;
+
+    // version that no list on the server has
+    private static final long NO_VERSION = -1;
+
+    private CADInterface theCoordinator;
+
+    private int pageSize;
+
+    // version of each cached list
+    private EnumMap<CARDFILE, Long> versions;
+
+    // number of objects of each cached list
+    private EnumMap<CARDFILE, Integer> totals;
+
+    // pages of each cached list read so far, by page number
+    private EnumMap<CARDFILE, Map<Integer, CardfilePage>> pages;
+
+    public CardfileCache(CADInterface theCoordinator) {
+        this(theCoordinator, PAGE_SIZE);
+    }
+
+    public CardfileCache(CADInterface theCoordinator, int pageSize) {
+        this.theCoordinator = theCoordinator;
+        this.pageSize = pageSize;
+        versions = new EnumMap<CARDFILE, Long>(CARDFILE.class);
+        totals = new EnumMap<CARDFILE, Integer>(CARDFILE.class);
+        pages = new EnumMap<CARDFILE, Map<Integer, CardfilePage>>(
+                CARDFILE.class);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Validates the cached list with one call, and returns its number of
+     * objects. If the list is not cached or has changed, the call reads its
+     * first page.
+     */
+    public synchronized int getSize(CARDFILE category) throws RemoteException {
+        CardfilePage page = theCoordinator.getCardfilePage(category, 0,
+                pageSize, getVersion(category));
+        if (page != null) {
+            cache(page, 0);
+        }
+        return totals.get(category);
+    }
+
+    /**
+     * Returns a page holding copies of the objects of the page with the
+     * number, which can be edited without changing the cached page. The page
+     * is read from the server only if it is not cached. If the list has
+     * changed since it was validated, the page read has a new version and
+     * total, and the pages cached before are dropped.
+     */
+    public synchronized CardfilePage getPage(CARDFILE category, int number)
+            throws RemoteException {
+        CardfilePage page = null;
+        Map<Integer, CardfilePage> cached = pages.get(category);
+        if (cached != null) {
+            page = cached.get(number);
+        }
+        if (page == null) {
+            page = theCoordinator.getCardfilePage(category, number * pageSize,
+                    pageSize, NO_VERSION);
+            cache(page, number);
+        }
+
+        List<CardfileDataObject> objects = new ArrayList<CardfileDataObject>(
+                page.getObjects().size());
+        for (CardfileDataObject cfdo : page.getObjects()) {
+            objects.add(new CardfileDataObject(cfdo));
+        }
+        return new CardfilePage(category, page.getOffset(), page.getLimit(),
+                page.getVersion(), page.getTotal(), objects);
+    }
+
+    /**
+     * Returns the version of the cached list, or -1 if it is not cached.
+     */
+    public synchronized long getVersion(CARDFILE category) {
+        Long version = versions.get(category);
+        return version == null ? NO_VERSION : version;
+    }
+
+    /**
+     * Removes every list from the cache.
+     */
+    public synchronized void clear() {
+        versions.clear();
+        totals.clear();
+        pages.clear();
+    }
+
+    /**
+     * Caches the page read from the server, first dropping the pages of the
+     * list if the page has a later version. Versions only grow, so a page of
+     * an earlier version is not cached.
+     */
+    private void cache(CardfilePage page, int number) {
+        CARDFILE category = page.getCategory();
+        if (page.getVersion() < getVersion(category)) {
+            return;
+        }
+        Map<Integer, CardfilePage> cached = pages.get(category);
+        if (cached == null || page.getVersion() != getVersion(category)) {
+            cached = new HashMap<Integer, CardfilePage>();
+            pages.put(category, cached);
+            versions.put(category, page.getVersion());
+            totals.put(category, page.getTotal());
+        }
+        cached.put(number, page);
+    }
+
+}
@@ -1,566 +1,249 @@
 package tmcsim.client.cadclientgui.data;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.LinkedList;
 
+import tmcsim.client.cadclientgui.enums.CADDataEnums.CARDFILE;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.EditCommand;
+
 /**
  * This class holds all the necessarily data for the Cardfile. It contains a
- * CardfileList for each tabbed panel in Cardfile.
- * 
+ * list of CardfileDataObjects for each tabbed panel in Cardfile, kept in name
+ * order, and a CardfileIndex of the objects in every list for searching.
+ * Lists are read a page at a time with getPage. Each list has a version that
+ * changes whenever one of its objects is added, removed or updated, so a
+ * client can tell whether the pages it holds are current. Pages hold copies
+ * of the objects, and edits are made with editCardfileDataObject, so the
+ * objects of a list are only read and changed while holding its lock.
+ *
  * @author Vincent
- * 
+ *
  */
 public class CardfileData implements Serializable {
 
     private int newestId = 0;
 
-    private static CardfileList coastalDivisionUnitsList;
-    private static CardfileList policeSheriffCoronerList;
-    private static CardfileList courtsList;
-    private static CardfileList publicTransportationList;
-    private static CardfileList ggOtherList;
-    private static CardfileList myMiscList;
-    private static CardfileList slMiscList;
-    private static CardfileList vtMiscList;
-    private static CardfileList chpOfficesList;
-    private static CardfileList stateAgenciesFacilitiesList;
-    private static CardfileList governmentOfficialsList;
-    private static CardfileList federalAgenciesList;
-    private static CardfileList ranchesLivestockList;
-    private static CardfileList fireEmsList;
-    private static CardfileList jailsList;
-    private static CardfileList hospitalsMedCentersList;
-    private static CardfileList towCompaniesList;
-    private static CardfileList calTransList;
-    private static CardfileList countyRoadsList;
-    private static CardfileList utilitiesList;
-    private static CardfileList animalControlList;
-    private static CardfileList airportsList;
-    private static CardfileList creditCardsList;
-    private static CardfileList ggCrisisSheltersList;
-    private static CardfileList rangesList;
-    private static CardfileList hotlinesList;
-    private static CardfileList hwyPatrolsOosList;
-    private static CardfileList parksRecreationList;
-    private static CardfileList sheltersList;
-    private static CardfileList slCountyServicesList;
-    private static CardfileList slResourcesList;
-    private static CardfileList truckTireRepairList;
-    private static CardfileList mccEmployeesList;
-    private static CardfileList gateAccessCodesList;
-    private static CardfileList vtCallSignsList;
-    private static CardfileList slccEmployeesList;
+    // version given to the next change of a list
+    private long newestVersion = 0;
+
+    private CardfileIndex index;
+
+    // objects of each list, in name order
+    private EnumMap<CARDFILE, ArrayList<CardfileDataObject>> lists;
+
+    // version of the last change to each list
+    private EnumMap<CARDFILE, Long> versions;
 
     public CardfileData() {
-        coastalDivisionUnitsList = new CardfileList();
-        policeSheriffCoronerList = new CardfileList();
-        courtsList = new CardfileList();
-        publicTransportationList = new CardfileList();
-        ggOtherList = new CardfileList();
-        myMiscList = new CardfileList();
-        slMiscList = new CardfileList();
-        vtMiscList = new CardfileList();
-        chpOfficesList = new CardfileList();
-        stateAgenciesFacilitiesList = new CardfileList();
-        governmentOfficialsList = new CardfileList();
-        federalAgenciesList = new CardfileList();
-        ranchesLivestockList = new CardfileList();
-        fireEmsList = new CardfileList();
-        jailsList = new CardfileList();
-        hospitalsMedCentersList = new CardfileList();
-        towCompaniesList = new CardfileList();
-        calTransList = new CardfileList();
-        countyRoadsList = new CardfileList();
-        utilitiesList = new CardfileList();
-        animalControlList = new CardfileList();
-        airportsList = new CardfileList();
-        creditCardsList = new CardfileList();
-        ggCrisisSheltersList = new CardfileList();
-        rangesList = new CardfileList();
-        hotlinesList = new CardfileList();
-        hwyPatrolsOosList = new CardfileList();
-        parksRecreationList = new CardfileList();
-        sheltersList = new CardfileList();
-        slCountyServicesList = new CardfileList();
-        slResourcesList = new CardfileList();
-        truckTireRepairList = new CardfileList();
-        mccEmployeesList = new CardfileList();
-        gateAccessCodesList = new CardfileList();
-        vtCallSignsList = new CardfileList();
-        slccEmployeesList = new CardfileList();
+        index = new CardfileIndex();
+        lists = new EnumMap<CARDFILE, ArrayList<CardfileDataObject>>(
+                CARDFILE.class);
+        versions = new EnumMap<CARDFILE, Long>(CARDFILE.class);
+        for (CARDFILE category : CARDFILE.values()) {
+            lists.put(category, new ArrayList<CardfileDataObject>());
+            versions.put(category, newestVersion);
+        }
     }
 
-    public int obtainNewUniqueId() {
+    public synchronized int obtainNewUniqueId() {
         int temp = newestId;
         newestId++;
         return temp;
     }
 
-    public CardfileList getCoastalDivisionUnitList() {
-        return coastalDivisionUnitsList;
-    }
-
-    public void setCoastalDivisionUnitsList(CardfileList objList) {
-        coastalDivisionUnitsList = objList;
-    }
-
-    public CardfileList getPoliceSheriffCoronerList() {
-        return policeSheriffCoronerList;
-    }
-
-    public void setPoliceSheriffCoronerList(CardfileList objList) {
-        policeSheriffCoronerList = objList;
-    }
-
-    public CardfileList getCourtsList() {
-        return courtsList;
-    }
-
-    public void setCourtsList(CardfileList objList) {
-        courtsList = objList;
-    }
-
-    public CardfileList getPublicTransportationList() {
-        return publicTransportationList;
-    }
-
-    public void setPublicTransportationList(CardfileList objList) {
-        publicTransportationList = objList;
-    }
-
-    public CardfileList getGgOtherList() {
-        return ggOtherList;
-    }
-
-    public void setGgOtherList(CardfileList objList) {
-        ggOtherList = objList;
-    }
-
-    public CardfileList getMyMiscList() {
-        return myMiscList;
-    }
-
-    public void setMyMiscList(CardfileList objList) {
-        myMiscList = objList;
-    }
-
-    public CardfileList getSlMiscList() {
-        return slMiscList;
-    }
-
-    public void setSlMiscList(CardfileList objList) {
-        slMiscList = objList;
-    }
-
-    public CardfileList getVlMiscList() {
-        return vtMiscList;
-    }
-
-    public void setVlMiscList(CardfileList objList) {
-        vtMiscList = objList;
-    }
-
-    public CardfileList getChpOfficesList() {
-        return chpOfficesList;
-    }
-
-    public void setChpOfficesList(CardfileList objList) {
-        chpOfficesList = objList;
-    }
-
-    public CardfileList getStateAgenciesFacilitiesList() {
-        return stateAgenciesFacilitiesList;
-    }
-
-    public void setStateAgenciesFacilitiesList(CardfileList objList) {
-        stateAgenciesFacilitiesList = objList;
-    }
-
-    public CardfileList getGovernmentOfficialsList() {
-        return governmentOfficialsList;
-    }
-
-    public void setGovernmentOfficialsList(CardfileList objList) {
-        governmentOfficialsList = objList;
-    }
-
-    public CardfileList getFederalAgenciesList() {
-        return federalAgenciesList;
-    }
-
-    public void setFederalAgenciesList(CardfileList objList) {
-        federalAgenciesList = objList;
-    }
-
-    public CardfileList getRanchesLivestockList() {
-        return ranchesLivestockList;
-    }
-
-    public void setRanchesLivestockList(CardfileList objList) {
-        ranchesLivestockList = objList;
-    }
-
-    public CardfileList getFireEmsList() {
-        return fireEmsList;
-    }
-
-    public void setFireEmsList(CardfileList objList) {
-        fireEmsList = objList;
-    }
-
-    public CardfileList getJailsList() {
-        return jailsList;
-    }
-
-    public void setJailsList(CardfileList objList) {
-        jailsList = objList;
-    }
-
-    public CardfileList getHospitalsMedCentersList() {
-        return hospitalsMedCentersList;
-    }
-
-    public void setHospitalsMedCentersList(CardfileList objList) {
-        hospitalsMedCentersList = objList;
-    }
-
-    public CardfileList getTowCompaniesList() {
-        return towCompaniesList;
-    }
-
-    public void setTowCompaniesList(CardfileList objList) {
-        towCompaniesList = objList;
-    }
-
-    public CardfileList getCalTransList() {
-        return calTransList;
-    }
-
-    public void setCalTransList(CardfileList objList) {
-        calTransList = objList;
-    }
-
-    public CardfileList getCountyRoadsList() {
-        return countyRoadsList;
-    }
-
-    public void setCountyRoadsList(CardfileList objList) {
-        countyRoadsList = objList;
-    }
-
-    public CardfileList getUtilitiesList() {
-        return utilitiesList;
-    }
-
-    public void setUtilitiesList(CardfileList objList) {
-        utilitiesList = objList;
-    }
-
-    public CardfileList getAnimalControlList() {
-        return animalControlList;
-    }
-
-    public void setAnimalControlList(CardfileList objList) {
-        animalControlList = objList;
-    }
-
-    public CardfileList getAirportsList() {
-        return airportsList;
-    }
-
-    public void setAirportsList(CardfileList objList) {
-        airportsList = objList;
-    }
-
-    public CardfileList getCreditCardsList() {
-        return creditCardsList;
-    }
-
-    public void setCreditCardsList(CardfileList objList) {
-        creditCardsList = objList;
-    }
-
-    public CardfileList getGgCrisisSheltersList() {
-        return ggCrisisSheltersList;
-    }
-
-    public void setGgCrisisSheltersList(CardfileList objList) {
-        ggCrisisSheltersList = objList;
-    }
-
-    public CardfileList getRangesList() {
-        return rangesList;
-    }
-
-    public void setRangesList(CardfileList objList) {
-        rangesList = objList;
-    }
-
-    public CardfileList getHotlinesList() {
-        return hotlinesList;
-    }
-
-    public void setHotlinesList(CardfileList objList) {
-        hotlinesList = objList;
-    }
-
-    public CardfileList getHwyPatrolsOosList() {
-        return hwyPatrolsOosList;
-    }
-
-    public void setHwyPatrolsOosList(CardfileList objList) {
-        hwyPatrolsOosList = objList;
-    }
-
-    public CardfileList getParksRecreationList() {
-        return parksRecreationList;
-    }
-
-    public void setParksRecreationList(CardfileList objList) {
-        parksRecreationList = objList;
-    }
-
-    public CardfileList getSheltersList() {
-        return sheltersList;
-    }
-
-    public void setSheltersList(CardfileList objList) {
-        sheltersList = objList;
-    }
-
-    public CardfileList getSlCountyServicesList() {
-        return slCountyServicesList;
-    }
-
-    public void setSlCountyServicesList(CardfileList objList) {
-        slCountyServicesList = objList;
-    }
-
-    public CardfileList getSlResourcesList() {
-        return slResourcesList;
-    }
-
-    public void setSlResourcesList(CardfileList objList) {
-        slResourcesList = objList;
-    }
-
-    public CardfileList getTruckTireRepairList() {
-        return truckTireRepairList;
-    }
-
-    public void setTruckTireRepairList(CardfileList objList) {
-        truckTireRepairList = objList;
+    /**
+     * Replaces the objects of a list, in the list and the search index.
+     */
+    public synchronized void setList(CARDFILE category,
+            Collection<CardfileDataObject> objects) {
+        ArrayList<CardfileDataObject> list = lists.get(category);
+        for (CardfileDataObject cfdo : list) {
+            index.remove(cfdo.getId());
+        }
+        list.clear();
+        for (CardfileDataObject cfdo : objects) {
+            list.add(insertPosition(list, cfdo.getName()), cfdo);
+            index.add(cfdo);
+        }
+        changed(category);
     }
 
-    public CardfileList getMccEmployeesList() {
-        return mccEmployeesList;
+    /**
+     * Returns the version of the last change to the list.
+     */
+    public synchronized long getVersion(CARDFILE category) {
+        return versions.get(category);
     }
 
-    public void setMccEmployeesList(CardfileList objList) {
-        mccEmployeesList = objList;
+    /**
+     * Returns copies of the objects of the list from offset up to offset +
+     * limit, in name order, with the list's version and size.
+     */
+    public synchronized CardfilePage getPage(CARDFILE category, int offset,
+            int limit) {
+        ArrayList<CardfileDataObject> list = lists.get(category);
+        int start = Math.min(Math.max(offset, 0), list.size());
+        int end = start + Math.min(Math.max(limit, 0), list.size() - start);
+        ArrayList<CardfileDataObject> copies = new ArrayList<CardfileDataObject>(
+                end - start);
+        for (CardfileDataObject cfdo : list.subList(start, end)) {
+            copies.add(new CardfileDataObject(cfdo));
+        }
+        return new CardfilePage(category, start, limit, versions.get(category),
+                list.size(), copies);
     }
 
-    public CardfileList getGateAccessCodesList() {
-        return gateAccessCodesList;
+    /**
+     * Loops through the list until it finds a matching object with the
+     * specified id.
+     *
+     * @returns the CardfileDataObject with the specified id, or null.
+     */
+    public synchronized CardfileDataObject getCardfileDataObject(
+            CARDFILE category, int id) {
+        for (CardfileDataObject cfdo : lists.get(category)) {
+            if (cfdo.getId() == id) {
+                return cfdo;
+            }
+        }
+        return null;
     }
 
-    public void setGateAccessCodesList(CardfileList objList) {
-        gateAccessCodesList = objList;
+    /**
+     * Inserts the object into the list and the search index.
+     *
+     * @returns the inserted position in the list.
+     */
+    public synchronized int addCardfileDataObject(CARDFILE category,
+            CardfileDataObject cfdo) {
+        ArrayList<CardfileDataObject> list = lists.get(category);
+        int position = insertPosition(list, cfdo.getName());
+        list.add(position, cfdo);
+        index.add(cfdo);
+        changed(category);
+        return position;
     }
 
-    public CardfileList getVtCallSignsList() {
-        return vtCallSignsList;
+    /**
+     * Removes the object with the specified id from the list and the search
+     * index.
+     */
+    public synchronized void removeCardfileDataObject(CARDFILE category,
+            int id) {
+        CardfileDataObject cfdo = getCardfileDataObject(category, id);
+        if (cfdo != null) {
+            lists.get(category).remove(cfdo);
+            index.remove(id);
+            changed(category);
+        }
     }
 
-    public void setVtCallSignsList(CardfileList objList) {
-        vtCallSignsList = objList;
+    /**
+     * Sorts and indexes the object again after one of its fields changed.
+     */
+    public synchronized void updateCardfileDataObject(CARDFILE category,
+            CardfileDataObject cfdo) {
+        ArrayList<CardfileDataObject> list = lists.get(category);
+        if (list.remove(cfdo)) {
+            list.add(insertPosition(list, cfdo.getName()), cfdo);
+        }
+        index.add(cfdo);
+        changed(category);
     }
 
-    public CardfileList getSlccEmployeesList() {
-        return slccEmployeesList;
+    /**
+     * Makes the edit recorded in the change log to the list: adds or removes
+     * an object, or sets one field or adds or removes one comment of the
+     * object with the log's id, which is then sorted and indexed again.
+     */
+    public synchronized void editCardfileDataObject(CARDFILE category,
+            ChangeLog log) {
+        if (log.command == EditCommand.OBJECT_ADD) {
+            addCardfileDataObject(category, log.newCardfileObject);
+            return;
+        }
+        if (log.command == EditCommand.OBJECT_DELETE) {
+            removeCardfileDataObject(category, log.id);
+            return;
+        }
+
+        CardfileDataObject cfdo = getCardfileDataObject(category, log.id);
+        if (cfdo == null) {
+            return;
+        }
+        switch (log.command) {
+        case NAME:
+            cfdo.setName(log.newValue);
+            break;
+        case ADDRESS:
+            cfdo.setAddress(log.newValue);
+            break;
+        case CITY:
+            cfdo.setCity(log.newValue);
+            break;
+        case STATE:
+            cfdo.setState(log.newValue);
+            break;
+        case ZIP:
+            cfdo.setZip(log.newValue);
+            break;
+        case PHONE1:
+            cfdo.setPhone1(log.newValue);
+            break;
+        case PHONE2:
+            cfdo.setPhone2(log.newValue);
+            break;
+        case FAX:
+            cfdo.setFax(log.newValue);
+            break;
+        case TABLE_ADD:
+            cfdo.addComment(log.tableFields);
+            break;
+        case TABLE_DELETE:
+            cfdo.removeComment(log.timeStamp);
+            break;
+        default:
+            break;
+        }
+        updateCardfileDataObject(category, cfdo);
     }
 
-    public void setSlccEmployeesList(CardfileList objList) {
-        slccEmployeesList = objList;
+    /**
+     * Returns the objects in every list that best match the search string,
+     * up to CardfileIndex.MAX_RESULTS, best match first. See CardfileIndex
+     * for how objects are matched and ranked.
+     */
+    public LinkedList<CardfileDataObject> getSearchList(String search) {
+        return index.search(search);
     }
 
     /**
-     * Loops through the list until it finds a matching object with the
-     * specified id.
-     * 
-     * @returns the CardfileDataObject with the specified id.
+     * Gives the list a new version.
      */
-    public CardfileDataObject getCardfileDataObject(CardfileList list, int id) {
-        for (int i = 0; i < list.getItemCount(); i++) {
-            if (list.getCFDO(i).getId() == id) {
-                return list.getCFDO(i);
-            }
-        }
-        return null;
+    private void changed(CARDFILE category) {
+        versions.put(category, ++newestVersion);
     }
 
     /**
-     * Loops through the list until it finds a matching object with the
-     * specified id.
-     * 
-     * @returns the index of CardfileDataObject with the specified id.
+     * Returns the position of the first object in the list whose name is not
+     * before the name, lexicographically.
      */
-    public int getCardfileDataIndex(CardfileList list, int id) {
-        for (int i = 0; i < list.getItemCount(); i++) {
-            if (list.getCFDO(i).getId() == id) {
-                return i;
+    private static int insertPosition(ArrayList<CardfileDataObject> list,
+            String name) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (name.compareTo(list.get(mid).getName()) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
-        return -1;
+        return low;
     }
 
-    public LinkedList<CardfileDataObject> getSearchList(String search){
-        LinkedList<CardfileDataObject> returnList = new LinkedList<CardfileDataObject>();
-        LinkedList<CardfileDataObject> tempList = coastalDivisionUnitsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = policeSheriffCoronerList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = courtsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = publicTransportationList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = ggOtherList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = myMiscList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = slMiscList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = vtMiscList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = chpOfficesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = stateAgenciesFacilitiesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = governmentOfficialsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = federalAgenciesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = ranchesLivestockList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = fireEmsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = jailsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = hospitalsMedCentersList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = towCompaniesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = calTransList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = countyRoadsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = utilitiesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = animalControlList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = airportsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = creditCardsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = ggCrisisSheltersList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = rangesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = hotlinesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = hwyPatrolsOosList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = parksRecreationList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = sheltersList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = slCountyServicesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = slResourcesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = truckTireRepairList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = mccEmployeesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = gateAccessCodesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = vtCallSignsList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        tempList = slccEmployeesList.search(search);
-        for(int i = 0; i < tempList.size(); i++){
-            returnList.add(tempList.get(i));
-        }
-        return returnList;
-    }
-    
 }
@@ -34,6 +34,24 @@ public class CardfileDataObject implements Serializable {
         commentsTableFields = new LinkedList<String[]>();
     }
 
+    /**
+     * Creates a copy of the object that can be edited without changing the
+     * original, including its comments.
+     */
+    public CardfileDataObject(CardfileDataObject cfdo) {
+        this(cfdo.category, cfdo.name, cfdo.idTag);
+        address = cfdo.address;
+        city = cfdo.city;
+        state = cfdo.state;
+        zip = cfdo.zip;
+        phone1 = cfdo.phone1;
+        phone2 = cfdo.phone2;
+        fax = cfdo.fax;
+        for (String[] fields : cfdo.commentsTableFields) {
+            commentsTableFields.add(fields.clone());
+        }
+    }
+
     public int getId() {
         return idTag;
     }
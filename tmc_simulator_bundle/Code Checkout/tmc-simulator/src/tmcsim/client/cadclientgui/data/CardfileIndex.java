@@ -0,0 +1,326 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index over the searchable fields of every CardfileDataObject,
+ * used to search the whole Cardfile without scanning its lists. Each field is
+ * lower-cased and split into tokens of letters and digits once, when the
+ * object is indexed. An object must be indexed again after one of its fields
+ * changes.
+ *
+ * A search matches the objects that have, for every token of the search, a
+ * token that equals it or starts with it. Results are ranked by score, then
+ * by name. A token equal to a search token scores EXACT_TOKEN and one that
+ * only starts with it scores PREFIX_TOKEN. An object with a field equal to
+ * the whole search scores EXACT_FIELD more. Only the best matches, up to a
+ * limit, are ranked and returned, so a search matching much of the Cardfile
+ * costs little more than counting its matches.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class CardfileIndex implements Serializable {
+
+    public static final int EXACT_FIELD = 4;
+    public static final int EXACT_TOKEN = 2;
+    public static final int PREFIX_TOKEN = 1;
+
+    // most results returned by a search without a limit
+    public static final int MAX_RESULTS = 100;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // indexed objects, keyed by id
+    private Map<Integer, CardfileDataObject> objects;
+    // lower-cased field values of each object when it was indexed
+    private Map<Integer, String[]> fields;
+    // ids of the objects with a field containing each token
+    private TreeMap<String, Set<Integer>> tokens;
+    // ids of the objects with each lower-cased field value
+    private Map<String, Set<Integer>> values;
+
+    public CardfileIndex() {
+        objects = new HashMap<Integer, CardfileDataObject>();
+        fields = new HashMap<Integer, String[]>();
+        tokens = new TreeMap<String, Set<Integer>>();
+        values = new HashMap<String, Set<Integer>>();
+    }
+
+    /**
+     * Adds the object to the index, replacing the entries of an object with
+     * the same id.
+     */
+    public synchronized void add(CardfileDataObject cfdo) {
+        remove(cfdo.getId());
+
+        String[] values = fieldsOf(cfdo);
+        objects.put(cfdo.getId(), cfdo);
+        fields.put(cfdo.getId(), values);
+        for (String value : values) {
+            if (value.length() > 0) {
+                add(this.values, value, cfdo.getId());
+            }
+            for (String token : tokenize(value)) {
+                add(tokens, token, cfdo.getId());
+            }
+        }
+    }
+
+    /**
+     * Removes the object with the id from the index.
+     */
+    public synchronized void remove(int id) {
+        String[] values = fields.remove(id);
+        if (values == null) {
+            return;
+        }
+        objects.remove(id);
+        for (String value : values) {
+            remove(this.values, value, id);
+            for (String token : tokenize(value)) {
+                remove(tokens, token, id);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of indexed objects.
+     */
+    public synchronized int size() {
+        return objects.size();
+    }
+
+    /**
+     * Returns the MAX_RESULTS best objects that match the search, best match
+     * first. An empty search matches nothing.
+     */
+    public LinkedList<CardfileDataObject> search(String search) {
+        return search(search, MAX_RESULTS);
+    }
+
+    /**
+     * Returns the best objects that match the search, up to the limit, best
+     * match first. An empty search matches nothing.
+     */
+    public synchronized LinkedList<CardfileDataObject> search(String search,
+            int limit) {
+        LinkedList<CardfileDataObject> returnList = new LinkedList<CardfileDataObject>();
+        String whole = search.trim().toLowerCase();
+        List<String> searchTokens = tokenize(whole);
+        if (searchTokens.isEmpty() || limit <= 0) {
+            return returnList;
+        }
+
+        // the search token matching the fewest objects is matched first,
+        // and the others are only checked against the objects it matched
+        List<Range> ranges = new ArrayList<Range>();
+        for (String searchToken : searchTokens) {
+            ranges.add(new Range(searchToken));
+        }
+        Collections.sort(ranges);
+
+        Map<Integer, Integer> scores = null;
+        for (Range range : ranges) {
+            if (scores == null) {
+                scores = range.match();
+            } else if ((long) scores.size() * range.tokens.size() < range.postings) {
+                Iterator<Map.Entry<Integer, Integer>> it = scores.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Integer, Integer> entry = it.next();
+                    int score = range.score(entry.getKey());
+                    if (score == 0) {
+                        it.remove();
+                    } else {
+                        entry.setValue(entry.getValue() + score);
+                    }
+                }
+            } else {
+                Map<Integer, Integer> matches = range.match();
+                Iterator<Map.Entry<Integer, Integer>> it = scores.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Integer, Integer> entry = it.next();
+                    Integer score = matches.get(entry.getKey());
+                    if (score == null) {
+                        it.remove();
+                    } else {
+                        entry.setValue(entry.getValue() + score);
+                    }
+                }
+            }
+            if (scores.isEmpty()) {
+                return returnList;
+            }
+        }
+
+        Set<Integer> exact = values.get(whole);
+        if (exact != null) {
+            for (Integer id : exact) {
+                Integer score = scores.get(id);
+                if (score != null) {
+                    scores.put(id, score + EXACT_FIELD);
+                }
+            }
+        }
+
+        Comparator<Map.Entry<Integer, Integer>> ranking =
+                new Comparator<Map.Entry<Integer, Integer>>() {
+            public int compare(Map.Entry<Integer, Integer> match1,
+                    Map.Entry<Integer, Integer> match2) {
+                int compare = match2.getValue().compareTo(match1.getValue());
+                if (compare == 0) {
+                    compare = fields.get(match1.getKey())[1].compareTo(
+                            fields.get(match2.getKey())[1]);
+                }
+                if (compare == 0) {
+                    compare = match1.getKey().compareTo(match2.getKey());
+                }
+                return compare;
+            }
+        };
+
+        // the best matches so far, worst first. Once there are limit of them,
+        // a match scoring below the worst is passed over without comparing
+        // names, and only the best limit matches are ever ranked
+        PriorityQueue<Map.Entry<Integer, Integer>> best =
+                new PriorityQueue<Map.Entry<Integer, Integer>>(
+                        Math.min(limit, scores.size()),
+                        Collections.reverseOrder(ranking));
+        for (Map.Entry<Integer, Integer> match : scores.entrySet()) {
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (match.getValue() >= best.peek().getValue()
+                    && ranking.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> matches =
+                new ArrayList<Map.Entry<Integer, Integer>>(best);
+        Collections.sort(matches, ranking);
+        for (Map.Entry<Integer, Integer> match : matches) {
+            returnList.add(objects.get(match.getKey()));
+        }
+        return returnList;
+    }
+
+    /**
+     * The indexed tokens that start with one search token.
+     */
+    private class Range implements Comparable<Range> {
+
+        private String searchToken;
+        private SortedMap<String, Set<Integer>> tokens;
+        // number of ids in the postings of the tokens
+        private long postings;
+
+        private Range(String searchToken) {
+            this.searchToken = searchToken;
+            tokens = CardfileIndex.this.tokens.subMap(searchToken,
+                    searchToken + Character.MAX_VALUE);
+            for (Set<Integer> ids : tokens.values()) {
+                postings += ids.size();
+            }
+        }
+
+        /**
+         * Returns the ids of the objects with a token in the range, and the
+         * score of the best such token.
+         */
+        private Map<Integer, Integer> match() {
+            Map<Integer, Integer> matches = new HashMap<Integer, Integer>();
+            for (Map.Entry<String, Set<Integer>> entry : tokens.entrySet()) {
+                int score = entry.getKey().equals(searchToken) ? EXACT_TOKEN
+                        : PREFIX_TOKEN;
+                for (Integer id : entry.getValue()) {
+                    Integer best = matches.get(id);
+                    if (best == null || best < score) {
+                        matches.put(id, score);
+                    }
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * Returns the score of the best token in the range of the object with
+         * the id, or 0 if it has none.
+         */
+        private int score(Integer id) {
+            Set<Integer> exact = tokens.get(searchToken);
+            if (exact != null && exact.contains(id)) {
+                return EXACT_TOKEN;
+            }
+            for (Set<Integer> ids : tokens.values()) {
+                if (ids.contains(id)) {
+                    return PREFIX_TOKEN;
+                }
+            }
+            return 0;
+        }
+
+        public int compareTo(Range other) {
+            return postings < other.postings ? -1
+                    : postings > other.postings ? 1 : 0;
+        }
+    }
+
+    private static void add(Map<String, Set<Integer>> postings, String key,
+            int id) {
+        Set<Integer> ids = postings.get(key);
+        if (ids == null) {
+            ids = new HashSet<Integer>();
+            postings.put(key, ids);
+        }
+        ids.add(id);
+    }
+
+    private static void remove(Map<String, Set<Integer>> postings, String key,
+            int id) {
+        Set<Integer> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // the name is second, for sorting results with the same score
+    private static String[] fieldsOf(CardfileDataObject cfdo) {
+        return new String[] { lower(cfdo.getCategory()), lower(cfdo.getName()),
+                lower(cfdo.getAddress()), lower(cfdo.getCity()),
+                lower(cfdo.getState()), lower(cfdo.getZip()),
+                lower(cfdo.getPhone1()), lower(cfdo.getPhone2()),
+                lower(cfdo.getFax()) };
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    private static List<String> tokenize(String value) {
+        List<String> tokenList = new ArrayList<String>();
+        for (String token : SEPARATORS.split(value)) {
+            if (token.length() > 0) {
+                tokenList.add(token);
+            }
+        }
+        return tokenList;
+    }
+}
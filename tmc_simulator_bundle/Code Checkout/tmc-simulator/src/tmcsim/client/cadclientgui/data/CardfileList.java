@@ -1,84 +1,161 @@
 package tmcsim.client.cadclientgui.data;
 
-import java.awt.List;
-import java.io.Serializable;
-import java.util.LinkedList;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+
+import tmcsim.client.cadclientgui.enums.CADDataEnums.CARDFILE;
 
 /**
- * This class extends a list and holds a list of CardfileDataObject alongside a
- * list of CardfileDataObject's Name Field. The index of the CFDO and Name field
- * should match at all times. Each instance of this class is meant to display
- * any one list in the Cardfile's tabbed panel.
- * 
+ * This class extends a list and holds a list of CardfileDataObject, displaying
+ * each CardfileDataObject's Name Field at the same index. Each instance of
+ * this class is meant to display any one list in the Cardfile's tabbed panel.
+ * <br>
+ * A list read from a CardfileCache starts with only its size. Every row has a
+ * fixed size, so the list only asks for the names in view. The first time an
+ * object is asked for, its page is read from the cache by a SwingWorker, and
+ * a placeholder is shown until it arrives. The first edit of the list reads
+ * the pages not yet read, since an added or removed object moves the objects
+ * after it. Must be used on the event dispatch thread.
+ *
  * @author Vincent
- * 
+ *
  */
 
-public class CardfileList extends List implements Serializable {
+public class CardfileList extends JList<String> {
+
+    // name each row is sized for
+    private static final String PROTOTYPE_NAME = "MMMMMMMMMMMMMMMMMMMM";
+
+    // name shown for an object whose page has not arrived
+    private static final String PLACEHOLDER = "...";
+
+    // cache the pages are read from, null once every page is read
+    private CardfileCache cache;
+
+    private CARDFILE category;
+
+    // version of the list the objects were read from
+    private long version;
 
-    LinkedList<CardfileDataObject> list;
+    // objects of the list, null where their page has not been read
+    ArrayList<CardfileDataObject> list;
+
+    // numbers of the pages being read
+    private Set<Integer> reading = new HashSet<Integer>();
+
+    private NameModel model;
+
+    /**
+     * Model of the names of the objects in the list.
+     */
+    private class NameModel extends AbstractListModel<String> {
+
+        public int getSize() {
+            return list.size();
+        }
+
+        public String getElementAt(int index) {
+            CardfileDataObject cfdo = getCFDO(index);
+            return cfdo == null ? PLACEHOLDER : cfdo.getName();
+        }
+
+        void added(int first, int last) {
+            fireIntervalAdded(this, first, last);
+        }
+
+        void removed(int first, int last) {
+            fireIntervalRemoved(this, first, last);
+        }
+
+        void changed(int first, int last) {
+            fireContentsChanged(this, first, last);
+        }
+    }
 
     public CardfileList() {
         super();
-        list = new LinkedList<CardfileDataObject>();
+        list = new ArrayList<CardfileDataObject>();
+        init();
+    }
+
+    /**
+     * Creates a list of the objects of the category, validating the cached
+     * list with one call. The objects are read a page at a time as they are
+     * shown.
+     *
+     * @param cache
+     *            the client copy of the server cardfile data
+     * @param category
+     *            the list to be displayed
+     */
+    public CardfileList(CardfileCache cache, CARDFILE category)
+            throws RemoteException {
+        super();
+        this.cache = cache;
+        this.category = category;
+        list = unread(cache.getSize(category));
+        version = cache.getVersion(category);
+        init();
     }
 
     /**
      * Inserts the object so it remains in sorted order lexicographically.
-     * 
+     *
      * @param cfdo
      *            the object to be inserted
      * @return the inserted position
      */
     public int addDataObject(CardfileDataObject cfdo) {
+        readAll();
         int insertPosition = 0;
-        if (list.size() == 0) {
-            super.add(cfdo.getName());
-            list.add(cfdo);
-            return 0;
-        }
-        if (cfdo.getName().compareTo(list.get(insertPosition).getName()) < 0) {
-            super.add(cfdo.getName(), insertPosition);
-            list.add(insertPosition, cfdo);
-            return insertPosition;
-        }
         while (insertPosition < list.size()
                 && cfdo.getName().compareTo(list.get(insertPosition).getName()) > 0) {
             insertPosition++;
         }
-        if (insertPosition < list.size()) {
-            super.add(cfdo.getName(), insertPosition);
-            list.add(insertPosition, cfdo);
-        } else {
-            super.add(cfdo.getName());
-            list.add(cfdo);
-        }
+        list.add(insertPosition, cfdo);
+        model.added(insertPosition, insertPosition);
         return insertPosition;
     }
 
     /**
-     * Removes the CFDO and name field from both lists at the specified index.
-     * 
+     * Removes the CFDO and its name at the specified index.
+     *
      * @param index
      */
     public void removeDataObject(int index) {
+        readAll();
         if (index >= 0 && index < list.size()) {
-            super.remove(index);
             list.remove(index);
+            model.removed(index, index);
         }
     }
 
     /**
-     * returns the CFDO as the specified index, null if a bad index was sent.
-     * 
+     * returns the CFDO as the specified index, null if a bad index was sent
+     * or its page has not arrived yet, in which case the page is read.
+     *
      * @param index
      * @return the CFDO at the given index, or null if a bad index.
      */
     public CardfileDataObject getCFDO(int index) {
-        if (!(index < 0)) {
-            return list.get(index);
+        if (index < 0 || index >= list.size()) {
+            return null;
         }
-        return null;
+        CardfileDataObject cfdo = list.get(index);
+        if (cfdo == null && cache != null) {
+            readLater(index / cache.getPageSize());
+        }
+        return cfdo;
     }
 
     /**
@@ -86,29 +163,115 @@ public class CardfileList extends List implements Serializable {
      * into the list.
      */
     public int resort(int index) {
+        readAll();
         CardfileDataObject cfdoToInsert = list.remove(index);
-        super.remove(index);
+        model.removed(index, index);
         return addDataObject(cfdoToInsert);
     }
-    
+
+    private void init() {
+        model = new NameModel();
+        setModel(model);
+        setPrototypeCellValue(PROTOTYPE_NAME);
+        setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    }
+
+    /**
+     * Reads the page with the number from the cache off the event dispatch
+     * thread, unless it is already being read, and puts it into the list
+     * when it arrives.
+     */
+    private void readLater(final int number) {
+        if (!reading.add(number)) {
+            return;
+        }
+        final CardfileCache pageCache = cache;
+        new SwingWorker<CardfilePage, Void>() {
+            protected CardfilePage doInBackground() throws RemoteException {
+                return pageCache.getPage(category, number);
+            }
+
+            protected void done() {
+                reading.remove(number);
+                try {
+                    CardfilePage page = get();
+                    if (cache != null) {
+                        put(page);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
     /**
-     * Returns a LinkedList of CFDO that contain the search string.
+     * Puts the objects of the page into the list. A page of a later version
+     * of the list than the objects read before replaces them with
+     * placeholders, resizing the list to the page's total, and a page of an
+     * earlier version is dropped.
      */
-    public LinkedList<CardfileDataObject> search(String search){
-        LinkedList<CardfileDataObject> returnList = new LinkedList<CardfileDataObject>();
-        for(int i = 0; i < list.size(); i++){
-            if(search.toLowerCase().equals(list.get(i).getCategory().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getName().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getAddress().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getCity().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getState().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getZip().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getPhone1().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getPhone2().toLowerCase()) ||
-               search.toLowerCase().equals(list.get(i).getFax().toLowerCase())){
-                returnList.add(list.get(i));
-               }
-        }
-        return returnList;
+    private void put(CardfilePage page) {
+        if (page.getVersion() < version) {
+            return;
+        }
+        if (page.getVersion() > version) {
+            version = page.getVersion();
+            int size = list.size();
+            list = unread(page.getTotal());
+            if (list.size() < size) {
+                model.removed(list.size(), size - 1);
+            } else if (list.size() > size) {
+                model.added(size, list.size() - 1);
+            }
+            if (Math.min(size, list.size()) > 0) {
+                model.changed(0, Math.min(size, list.size()) - 1);
+            }
+        }
+        List<CardfileDataObject> objects = page.getObjects();
+        for (int i = 0; i < objects.size(); i++) {
+            list.set(page.getOffset() + i, objects.get(i));
+        }
+        if (!objects.isEmpty()) {
+            model.changed(page.getOffset(), page.getOffset() + objects.size() - 1);
+        }
+    }
+
+    /**
+     * Reads every page not yet read, so the list can be edited. Pages that
+     * cannot be read are left out of the list.
+     */
+    private void readAll() {
+        if (cache == null) {
+            return;
+        }
+        int pageSize = cache.getPageSize();
+        for (int i = 0; i < list.size(); i += pageSize) {
+            if (list.get(i) == null) {
+                long readVersion = version;
+                try {
+                    put(cache.getPage(category, i / pageSize));
+                } catch (RemoteException e) {
+                    e.printStackTrace();
+                }
+                if (version != readVersion) {
+                    i = -pageSize;
+                }
+            }
+        }
+        cache = null;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == null) {
+                list.remove(i);
+                model.removed(i, i);
+            }
+        }
+    }
+
+    private static ArrayList<CardfileDataObject> unread(int size) {
+        return new ArrayList<CardfileDataObject>(Collections
+                .<CardfileDataObject> nCopies(size, null));
     }
 }
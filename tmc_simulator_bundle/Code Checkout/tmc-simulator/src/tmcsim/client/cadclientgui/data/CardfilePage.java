@@ -0,0 +1,82 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import tmcsim.client.cadclientgui.enums.CADDataEnums.CARDFILE;
+
+/**
+ * An immutable page of one Cardfile category, the objects from offset up to
+ * offset + limit in name order. The version identifies the state of the
+ * category the page was taken from; it changes whenever an object of the
+ * category is added, removed or edited, so pages with the same version can
+ * be combined and a cached page can be validated by its version alone.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public final class CardfilePage implements Serializable {
+
+    private final CARDFILE category;
+    private final int offset;
+    private final int limit;
+    private final long version;
+    private final int total;
+    private final List<CardfileDataObject> objects;
+
+    /**
+     * Creates a page holding a copy of the objects.
+     *
+     * @param total
+     *            the number of objects in the category
+     */
+    public CardfilePage(CARDFILE category, int offset, int limit,
+            long version, int total, List<CardfileDataObject> objects) {
+        this.category = category;
+        this.offset = offset;
+        this.limit = limit;
+        this.version = version;
+        this.total = total;
+        this.objects = Collections
+                .unmodifiableList(new ArrayList<CardfileDataObject>(objects));
+    }
+
+    public CARDFILE getCategory() {
+        return category;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of objects in the whole category.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the objects of the page, in name order.
+     */
+    public List<CardfileDataObject> getObjects() {
+        return objects;
+    }
+
+    /**
+     * Returns true if this is the last page of the category.
+     */
+    public boolean isLast() {
+        return offset + objects.size() >= total;
+    }
+}
@@ -0,0 +1,131 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Long-lived, non-editable table model that is kept up to date by applying
+ * TableDeltas from the Coordinator. Only the rows that changed are inserted,
+ * updated or removed, so the table's selection, sorting and column settings
+ * are kept between refreshes. The rows are kept as sent as well, since they
+ * may carry values past the model's columns, such as the unit status used
+ * to color a row. Must be used on the event dispatch thread.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class DeltaTableModel extends DefaultTableModel {
+
+    private long version;
+    private Map<Object, Integer> rowIndex;
+    private Vector<Object> rowKeys;
+
+    // rows as sent by the Coordinator, in model order
+    private Vector<Vector<Object>> sentRows;
+
+    public DeltaTableModel(Object[] headers) {
+        super(headers, 0);
+        version = 0;
+        rowIndex = new HashMap<Object, Integer>();
+        rowKeys = new Vector<Object>();
+        sentRows = new Vector<Vector<Object>>();
+    }
+
+    public boolean isCellEditable(int row, int column) {
+        return false;// This causes all cells to be not editable
+    }
+
+    /**
+     * Returns the last version applied to this model, 0 if none.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the model row with the key, or -1 if there is none.
+     */
+    public int getRow(Object key) {
+        Integer row = rowIndex.get(key);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Returns the value at the index of the model row as sent by the
+     * Coordinator, which may be past the model's columns, or null if the row
+     * has no such value.
+     */
+    public Object getSentValue(int row, int index) {
+        if (row < 0 || row >= sentRows.size()) {
+            return null;
+        }
+        Vector<Object> values = sentRows.get(row);
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    /**
+     * Applies the changes in the delta to the model.
+     *
+     * @param delta
+     *            changes from the Coordinator
+     * @return true if the table structure was replaced, false if only rows
+     *         changed
+     */
+    public boolean applyDelta(TableDelta delta) {
+        if (delta.reset) {
+            Vector<Vector<Object>> data = new Vector<Vector<Object>>();
+            rowKeys.clear();
+            sentRows.clear();
+            for (Map.Entry<Object, Vector<Object>> entry : delta.upserts.entrySet()) {
+                rowKeys.add(entry.getKey());
+                sentRows.add(new Vector<Object>(entry.getValue()));
+                data.add(new Vector<Object>(entry.getValue()));
+            }
+            setDataVector(data, delta.headers);
+            rebuildIndex();
+            version = delta.toVersion;
+            return true;
+        }
+
+        if (!delta.deletes.isEmpty()) {
+            for (Object key : delta.deletes) {
+                Integer row = rowIndex.get(key);
+                if (row != null) {
+                    removeRow(row);
+                    rowKeys.remove((int) row);
+                    sentRows.remove((int) row);
+                    rebuildIndex();
+                }
+            }
+        }
+
+        for (Map.Entry<Object, Vector<Object>> entry : delta.upserts.entrySet()) {
+            Integer row = rowIndex.get(entry.getKey());
+            Vector<Object> values = new Vector<Object>(entry.getValue());
+            if (row == null) {
+                rowIndex.put(entry.getKey(), getRowCount());
+                rowKeys.add(entry.getKey());
+                sentRows.add(new Vector<Object>(values));
+                addRow(values);
+            } else {
+                sentRows.set(row, new Vector<Object>(values));
+                values.setSize(getColumnCount());
+                dataVector.set(row, values);
+                fireTableRowsUpdated(row, row);
+            }
+        }
+
+        version = delta.toVersion;
+        return false;
+    }
+
+    private void rebuildIndex() {
+        rowIndex.clear();
+        for (int i = 0; i < rowKeys.size(); i++) {
+            rowIndex.put(rowKeys.get(i), i);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.util.LinkedList;
 import java.util.TreeMap;
 import java.util.Vector;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import javax.swing.ImageIcon;
@@ -23,6 +25,8 @@ import tmcsim.common.ParamicsLocation;
  * 
  */
 public class Incident implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     public Integer logNum;
     private String masterInc;
@@ -40,7 +44,12 @@ public class Incident implements Serializable {
     private String init_rpType = "";
     private String init_media = "";
     
-    private ImageIcon alert;
+    /* The alert icon is a Swing object, loaded from the image file.  It is
+     * not serialized, so an Incident can be written without the image, and
+     * is loaded again when the Incident is read.
+     */
+    private static final String ALERT_IMAGE = "images/IncidentPanelsImages/blank.png";
+    private transient ImageIcon alert;
     private String oau;
     private String logTime;
     private String p;
@@ -85,7 +94,7 @@ public class Incident implements Serializable {
      */
     /*public Incident(int logNum) {
         masterInc = "";
-        alert = new ImageIcon("images/IncidentPanelsImages/blank.png");
+        alert = new ImageIcon(ALERT_IMAGE);
         oau = "";
         p = "";
         description = "";
@@ -116,6 +125,8 @@ public class Incident implements Serializable {
         toTableVector = new Vector<Object>();
 
         commentsNotesTable = new DefaultTableModel() {
+            private static final long serialVersionUID = 1L;
+
             public boolean isCellEditable(int row, int column) {
                 return false;// This causes all cells to be not editable
             }
@@ -135,7 +146,7 @@ public class Incident implements Serializable {
         eventList    = new Vector<IncidentEvent>();
         
         masterInc = "";
-        alert = new ImageIcon("images/IncidentPanelsImages/blank.png");
+        alert = new ImageIcon(ALERT_IMAGE);
         oau = "";
         p = "";
         incidentLocation = new IncidentLocation();
@@ -164,6 +175,8 @@ public class Incident implements Serializable {
         toTableVector = new Vector<Object>();
         
         commentsNotesTable = new DefaultTableModel() {
+            private static final long serialVersionUID = 1L;
+
             public boolean isCellEditable(int row, int column) {
                 return false;// This causes all cells to be not editable
             }
@@ -253,6 +266,14 @@ public class Incident implements Serializable {
         incidentOccured = true;
     }
 
+    public long getSecondsIncidentStarted() {
+        return secondsIncidentStarted;
+    }
+
+    public Vector<IncidentEvent> getEvents() {
+        return eventList;
+    }
+
     public long getSecondsToStart() {
         return startTime;
     }
@@ -674,4 +695,10 @@ public class Incident implements Serializable {
         } 
 
     }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+        in.defaultReadObject();
+        alert = new ImageIcon(ALERT_IMAGE);
+    }
 }
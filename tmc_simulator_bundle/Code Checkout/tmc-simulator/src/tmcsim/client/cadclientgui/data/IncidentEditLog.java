@@ -12,6 +12,8 @@ import tmcsim.client.cadclientgui.enums.CADDataEnums;
  * 
  */
 public class IncidentEditLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     /* The init variables are set only from the XML script (readXMLNode method)
      * and are only used for resetCADDataSimulation purposes
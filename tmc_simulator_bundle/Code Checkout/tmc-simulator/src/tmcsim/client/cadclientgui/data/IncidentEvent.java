@@ -35,6 +35,8 @@ import tmcsim.common.XMLIncident;
  */
 @SuppressWarnings("serial")
 public class IncidentEvent implements Comparable<IncidentEvent>, Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     /**
      * Enumeration
@@ -11,6 +11,8 @@ import tmcsim.client.cadclientgui.enums.CADScriptTags.INCIDENT_LOCATION_TAGS;
  * 
  */
 public class IncidentLocation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     /* The init variables are set only from the XML script (readXMLNode method)
      * and are only used for resetCADDataSimulation purposes
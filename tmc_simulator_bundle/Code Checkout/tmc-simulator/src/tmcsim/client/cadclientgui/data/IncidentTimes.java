@@ -12,6 +12,9 @@ import tmcsim.client.cadclientgui.enums.CADDataEnums;
  * 
  */
 public class IncidentTimes implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private String unit;
     private String alarm;
     private String assigned;
@@ -11,6 +11,9 @@ import java.io.Serializable;
  * 
  */
 public class IncidentTransportInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private String toCity;
     private String toLocation;
@@ -14,6 +14,8 @@ import javax.swing.table.DefaultTableModel;
  */
 public class IncidentVehicle implements Serializable {
 
+    private static final long serialVersionUID = 1L;
+
     private LinkedList<String> plate;
     private LinkedList<String> state;
     private LinkedList<String> type;
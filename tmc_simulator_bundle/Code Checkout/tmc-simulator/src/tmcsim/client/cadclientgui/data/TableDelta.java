@@ -0,0 +1,66 @@
+package tmcsim.client.cadclientgui.data;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Vector;
+
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+
+/**
+ * Holds the changes to one of the CADData tables between two versions. Rows
+ * are identified by a key (unit number or incident log number). A row in
+ * upserts is inserted if the client does not have its key, otherwise it
+ * replaces the existing row. If reset is true, the client should discard its
+ * rows and use the headers and upserts as the complete table.
+ *
+ * @author Jonathan Molina
+ *
+ */
+public class TableDelta implements Serializable {
+
+    public TABLE table;
+    public long fromVersion;
+    public long toVersion;
+    public boolean reset;
+    public Vector<String> headers;
+    public LinkedHashMap<Object, Vector<Object>> upserts;
+    public LinkedHashSet<Object> deletes;
+
+    public TableDelta(TABLE table, long fromVersion, long toVersion) {
+        this.table = table;
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.reset = false;
+        this.headers = null;
+        this.upserts = new LinkedHashMap<Object, Vector<Object>>();
+        this.deletes = new LinkedHashSet<Object>();
+    }
+
+    /**
+     * Returns true if the delta contains no changes.
+     */
+    public boolean isEmpty() {
+        return !reset && upserts.isEmpty() && deletes.isEmpty();
+    }
+
+    /**
+     * Folds a later delta into this one, so that applying the result has the
+     * same effect as applying both in order.
+     *
+     * @param later
+     *            the delta that follows this one
+     */
+    public void merge(TableDelta later) {
+        for (Object key : later.deletes) {
+            upserts.remove(key);
+            deletes.add(key);
+        }
+        for (Map.Entry<Object, Vector<Object>> entry : later.upserts.entrySet()) {
+            deletes.remove(entry.getKey());
+            upserts.put(entry.getKey(), entry.getValue());
+        }
+        toVersion = later.toVersion;
+    }
+}
@@ -1,5 +1,6 @@
 package tmcsim.client.cadclientgui.data;
 
+import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.Vector;
 
@@ -13,7 +14,9 @@ import tmcsim.client.cadclientgui.screens.ScreenManager;
  * @author Vincent
  * 
  */
-public class Unit {
+public class Unit implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /* The init variables are set only from the XML script (readXMLNode method)
      * and are only used for resetCADDataSimulation purposes
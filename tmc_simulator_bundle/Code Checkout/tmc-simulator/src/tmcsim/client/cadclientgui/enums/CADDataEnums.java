@@ -282,6 +282,22 @@ public class CADDataEnums {
         {
             tag = t;
         }
+        
+        /**
+         * Returns the CARDFILE with the tag, the title of its tab, or null if
+         * there is none.
+         */
+        public static CARDFILE fromTag(String t)
+        {
+            for (CARDFILE cardfile : values())
+            {
+                if (cardfile.tag.equals(t))
+                {
+                    return cardfile;
+                }
+            }
+            return null;
+        }
     }
     
     public enum EditCommand{
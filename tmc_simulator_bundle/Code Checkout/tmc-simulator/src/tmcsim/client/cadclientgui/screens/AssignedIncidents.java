@@ -28,6 +28,8 @@ import javax.swing.RowSorter.SortKey;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
+import tmcsim.client.cadclientgui.data.DeltaTableModel;
+import tmcsim.client.cadclientgui.data.TableDelta;
 import tmcsim.client.cadclientgui.enums.CADDataEnums;
 import tmcsim.client.cadclientgui.enums.CADScriptTags.UNIT_TAGS;
 import tmcsim.client.cadclientgui.enums.IncidentEnums;
@@ -62,6 +64,9 @@ public class AssignedIncidents extends JFrame {
     private final String LABEL_SPACING = "     ";
 
     private JTable assignedIncidentsTable;
+
+    private DeltaTableModel assignedIncidentsModel;
+
     private JFrame assignedIncidentsMenu;
 
     // labels for the drop down menu
@@ -112,9 +117,10 @@ public class AssignedIncidents extends JFrame {
                   System.out.println("Commenting this line breaks the client");
                     comp.setBackground(Color.BLACK);
                     int primaryColumn = 3;
-                    try {
-                        switch(ScreenManager.theCoordinator.getCadDataUnitStatus(
-                               (String) assignedIncidentsTable.getValueAt(row,primaryColumn))){
+                    UnitStatusEnums status = ScreenManager.getUnitStatus(
+                            assignedIncidentsTable.getValueAt(row,primaryColumn));
+                    if(status != null){
+                        switch(status){
                             case Assignable:
                                 comp.setForeground(Color.GREEN);
                                 break;
@@ -125,8 +131,6 @@ public class AssignedIncidents extends JFrame {
                                 comp.setForeground(Color.CYAN);
                                 break;
                         } 
-                    }catch (RemoteException e){
-                      e.printStackTrace();
                     }
                 }
                 
@@ -151,9 +155,8 @@ public class AssignedIncidents extends JFrame {
         assignedIncidentsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         assignedIncidentsTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
         assignedIncidentsTable.setAutoCreateRowSorter(true);
-        assignedIncidentsTable.setModel(new DefaultTableModel());
-        
-        ((DefaultTableModel) assignedIncidentsTable.getModel()).setColumnIdentifiers(TableHeaders.ASSIGNED_INCIDENTS_HEADERS);
+        assignedIncidentsModel = new DeltaTableModel(TableHeaders.ASSIGNED_INCIDENTS_HEADERS);
+        assignedIncidentsTable.setModel(assignedIncidentsModel);
         
         assignedIncidentsTable.setTransferHandler(new TransferHandler(){
             
@@ -468,29 +471,54 @@ public class AssignedIncidents extends JFrame {
      * and applies them to the updated model it receives from the server.
      */
     public void refreshTable() {
-        
         if(assignedIncidentsTable.getTableHeader().getResizingColumn() == null){//only update info if resize not in progress
-              try {
-                int index = assignedIncidentsTable.getSelectedRow();
-                int[] columnWidths = new int[20];
-                List<? extends SortKey> keys = assignedIncidentsTable.getRowSorter().getSortKeys();
-                for(int i = 0; i < assignedIncidentsTable.getColumnCount(); i++){
-                    columnWidths[i] = assignedIncidentsTable.getColumnModel().getColumn(i).getWidth();
-                }
-                
-                assignedIncidentsTable.setModel(ScreenManager.theCoordinator.getCadDataTable(CADDataEnums.TABLE.ASSIGNED_INCIDENTS));
-                
-                for(int i = 0; i < assignedIncidentsTable.getColumnCount(); i++){
-                    assignedIncidentsTable.getColumnModel().getColumn(i).setPreferredWidth(columnWidths[i]);
-                }
-                assignedIncidentsTable.getRowSorter().setSortKeys(keys);
-                assignedIncidentsTable.getSelectionModel().setSelectionInterval(index, index);
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                }
-                revalidate();
-                repaint();
-          }
+            try {
+                applyDelta(ScreenManager.theCoordinator.getCadDataTableDelta(
+                        CADDataEnums.TABLE.ASSIGNED_INCIDENTS, assignedIncidentsModel.getVersion()));
+            } catch (RemoteException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Applies the changes to the table, either pulled by refreshTable or pushed
+     * by the Coordinator. A pushed delta that is older than the table is
+     * ignored, and one that does not follow the table's version is replaced by
+     * a refresh.
+     */
+    public void applyDelta(TableDelta delta) {
+        if(!delta.reset && delta.toVersion <= assignedIncidentsModel.getVersion()){
+            return;
+        }
+        if(!delta.reset && delta.fromVersion != assignedIncidentsModel.getVersion()){
+            refreshTable();
+            return;
+        }
+        if(assignedIncidentsTable.getTableHeader().getResizingColumn() != null){//applied by a later refresh
+            return;
+        }
+        if(!delta.reset){
+            //only changed rows are applied, so the selection, sorting and column sizes are kept
+            assignedIncidentsModel.applyDelta(delta);
+            return;
+        }
+        int index = assignedIncidentsTable.getSelectedRow();
+        int[] columnWidths = new int[20];
+        List<? extends SortKey> keys = assignedIncidentsTable.getRowSorter().getSortKeys();
+        for(int i = 0; i < assignedIncidentsTable.getColumnCount(); i++){
+            columnWidths[i] = assignedIncidentsTable.getColumnModel().getColumn(i).getWidth();
+        }
+
+        assignedIncidentsModel.applyDelta(delta);
+
+        for(int i = 0; i < assignedIncidentsTable.getColumnCount(); i++){
+            assignedIncidentsTable.getColumnModel().getColumn(i).setPreferredWidth(columnWidths[i]);
+        }
+        assignedIncidentsTable.getRowSorter().setSortKeys(keys);
+        assignedIncidentsTable.getSelectionModel().setSelectionInterval(index, index);
+        revalidate();
+        repaint();
     }
 
     /*
@@ -15,10 +15,11 @@ import java.rmi.RemoteException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.LinkedList;
-import java.awt.List;
 
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -28,6 +29,7 @@ import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.table.DefaultTableModel;
 
+import tmcsim.client.cadclientgui.data.CardfileCache;
 import tmcsim.client.cadclientgui.data.CardfileDataObject;
 import tmcsim.client.cadclientgui.data.CardfileList;
 import tmcsim.client.cadclientgui.data.ChangeLog;
@@ -46,43 +48,16 @@ public class Cardfile extends javax.swing.JFrame {
 
     private boolean saveFields;
 
-    // local copies of the cardfile data
-    private CardfileList coastalDivisionUnitsList;
-    private CardfileList policeSheriffCoronerList;
-    private CardfileList courtsList;
-    private CardfileList publicTransportationList;
-    private CardfileList ggOtherList;
-    private CardfileList myMiscList;
-    private CardfileList slMiscList;
-    private CardfileList vtMiscList;
-    private CardfileList chpOfficesList;
-    private CardfileList stateAgenciesFacilitiesList;
-    private CardfileList governmentOfficialsList;
-    private CardfileList federalAgenciesList;
-    private CardfileList ranchesLivestockList;
-    private CardfileList fireEmsList;
-    private CardfileList jailsList;
-    private CardfileList hospitalsMedCentersList;
-    private CardfileList towCompaniesList;
-    private CardfileList calTransList;
-    private CardfileList countyRoadsList;
-    private CardfileList utilitiesList;
-    private CardfileList animalControlList;
-    private CardfileList airportsList;
-    private CardfileList creditCardsList;
-    private CardfileList ggCrisisSheltersList;
-    private CardfileList rangesList;
-    private CardfileList hotlinesList;
-    private CardfileList hwyPatrolsOosList;
-    private CardfileList parksRecreationList;
-    private CardfileList sheltersList;
-    private CardfileList slCountyServicesList;
-    private CardfileList slResourcesList;
-    private CardfileList truckTireRepairList;
-    private CardfileList mccEmployeesList;
-    private CardfileList gateAccessCodesList;
-    private CardfileList vtCallSignsList;
-    private CardfileList slccEmployeesList;
+    // local copies of the cardfile data, loaded when their tab is first shown
+    private EnumMap<CARDFILE, CardfileList> lists = new EnumMap<CARDFILE, CardfileList>(
+            CARDFILE.class);
+
+    // panel of each tab
+    private EnumMap<CARDFILE, JPanel> panes = new EnumMap<CARDFILE, JPanel>(
+            CARDFILE.class);
+
+    // client copy of the server cardfile data
+    private CardfileCache cardfileCache;
 
     private boolean changesMade = false;
 
@@ -117,6 +92,7 @@ public class Cardfile extends javax.swing.JFrame {
         declareComponents();
         initControllers();
         initView();
+        loadPanes();
     }
 
     /**
@@ -202,113 +178,9 @@ public class Cardfile extends javax.swing.JFrame {
     private ChangeListener newChangeListener() {
         return new ChangeListener() {
             public void stateChanged(ChangeEvent e) {
-                if (cardfileTabs.getTitleAt(cardfileTabs.getSelectedIndex()) == CARDFILE.COASTAL_DIVISION_UNITS.tag) {
-                    selectedList = coastalDivisionUnitsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.POLICE_SHERIFF_CORONER.tag) {
-                    selectedList = policeSheriffCoronerList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.COURTS.tag) {
-                    selectedList = courtsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.PUBLIC_TRANSPORTATION.tag) {
-                    selectedList = publicTransportationList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.GG_OTHER.tag) {
-                    selectedList = ggOtherList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.MY_MISC.tag) {
-                    selectedList = myMiscList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.SL_MISC.tag) {
-                    selectedList = slMiscList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.VT_MISC.tag) {
-                    selectedList = vtMiscList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.CHP_OFFICES.tag) {
-                    selectedList = chpOfficesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.STATE_AGENCIES_FACILITIES.tag) {
-                    selectedList = stateAgenciesFacilitiesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.GOVERNMENT_OFFICIALS.tag) {
-                    selectedList = governmentOfficialsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.FEDERAL_AGENCIES.tag) {
-                    selectedList = federalAgenciesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.RANCHES_LIVESTOCK.tag) {
-                    selectedList = ranchesLivestockList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.FIRE_EMS.tag) {
-                    selectedList = fireEmsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.JAILS.tag) {
-                    selectedList = jailsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.HOSPITALS_MED_CENTERS.tag) {
-                    selectedList = hospitalsMedCentersList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.TOW_COMPANIES.tag) {
-                    selectedList = towCompaniesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.CALTRANS.tag) {
-                    selectedList = calTransList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.COUNTY_ROADS.tag) {
-                    selectedList = countyRoadsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.UTILITIES.tag) {
-                    selectedList = utilitiesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.ANIMAL_CONTROL.tag) {
-                    selectedList = animalControlList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.AIRPORTS.tag) {
-                    selectedList = airportsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.CREDIT_CARDS.tag) {
-                    selectedList = creditCardsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.GG_CRISIS_SHELTERS.tag) {
-                    selectedList = ggCrisisSheltersList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.RANGES.tag) {
-                    selectedList = rangesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.HOTLINES.tag) {
-                    selectedList = hotlinesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.HWY_PATROLS_OOS.tag) {
-                    selectedList = hwyPatrolsOosList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.PARKS_RECREATION.tag) {
-                    selectedList = parksRecreationList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.SHELTERS.tag) {
-                    selectedList = sheltersList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.SL_COUNTY_SERVICES.tag) {
-                    selectedList = slCountyServicesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.SL_RESOURCES.tag) {
-                    selectedList = slResourcesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.TRUCK_TIRE_REPAIR.tag) {
-                    selectedList = truckTireRepairList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.MCC_EMPLOYEES.tag) {
-                    selectedList = mccEmployeesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.GATE_ACCESS_CODES.tag) {
-                    selectedList = gateAccessCodesList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.VT_CALL_SIGNS.tag) {
-                    selectedList = vtCallSignsList;
-                } else if (cardfileTabs.getTitleAt(cardfileTabs
-                        .getSelectedIndex()) == CARDFILE.SLCC_EMPLOYEES.tag) {
-                    selectedList = slccEmployeesList;
+                if (cardfileCache != null) {
+                    selectedList = showList(CARDFILE.fromTag(cardfileTabs
+                            .getTitleAt(cardfileTabs.getSelectedIndex())));
                 }
             }
         };
@@ -469,7 +341,7 @@ public class Cardfile extends javax.swing.JFrame {
                 cfdo.setPhone1(phone1Field.getText());
                 cfdo.setPhone2(phone2Field.getText());
                 cfdo.setFax(faxField.getText());
-                selectedList.select(selectedList.addDataObject(cfdo));
+                selectedList.setSelectedIndex(selectedList.addDataObject(cfdo));
                 cardfileObjectAdds.add(new ChangeLog(
                         EditCommand.OBJECT_ADD,
                         cardfileTabs.getTitleAt(cardfileTabs.getSelectedIndex()),
@@ -483,7 +355,7 @@ public class Cardfile extends javax.swing.JFrame {
     private ActionListener newCancelActionListener(){
         return new ActionListener() {
             public void actionPerformed(ActionEvent arg0) {
-                selectedList.deselect(selectedList.getSelectedIndex());
+                selectedList.clearSelection();
                 saveFields = false;
                 addButton.setEnabled(true);
                 addCommentButton.setEnabled(false);
@@ -533,7 +405,7 @@ public class Cardfile extends javax.swing.JFrame {
     private ActionListener newAddActionListener(){
         return new ActionListener() {
             public void actionPerformed(ActionEvent arg0) {
-                selectedList.deselect(selectedList.getSelectedIndex());
+                selectedList.clearSelection();
                 addCommentButton.setEnabled(false);
                 addButton.setEnabled(false);
                 deleteButton.setEnabled(false);
@@ -1403,170 +1275,42 @@ public class Cardfile extends javax.swing.JFrame {
     }// </editor-fold>//GEN-END:initComponents
 
     /*
-     * Loads server data onto the client copy.
+     * Maps each tab to its panel by the tab's title.
      */
-    public void loadData() {
-        try {
-            coastalDivisionUnitsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.COASTAL_DIVISION_UNITS);
-            policeSheriffCoronerList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.POLICE_SHERIFF_CORONER);
-            courtsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.COURTS);
-            publicTransportationList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.PUBLIC_TRANSPORTATION);
-            ggOtherList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.GG_OTHER);
-            myMiscList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.MY_MISC);
-            slMiscList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.SL_MISC);
-            vtMiscList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.VT_MISC);
-            chpOfficesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.CHP_OFFICES);
-            stateAgenciesFacilitiesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.STATE_AGENCIES_FACILITIES);
-            governmentOfficialsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.GOVERNMENT_OFFICIALS);
-            federalAgenciesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.FEDERAL_AGENCIES);
-            ranchesLivestockList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.RANCHES_LIVESTOCK);
-            fireEmsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.FIRE_EMS);
-            jailsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.JAILS);
-            hospitalsMedCentersList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.HOSPITALS_MED_CENTERS);
-            towCompaniesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.TOW_COMPANIES);
-            calTransList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.CALTRANS);
-            countyRoadsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.COUNTY_ROADS);
-            utilitiesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.UTILITIES);
-            animalControlList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.ANIMAL_CONTROL);
-            airportsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.AIRPORTS);
-            creditCardsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.CREDIT_CARDS);
-            ggCrisisSheltersList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.GG_CRISIS_SHELTERS);
-            rangesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.RANGES);
-            hotlinesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.HOTLINES);
-            hwyPatrolsOosList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.HWY_PATROLS_OOS);
-            parksRecreationList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.PARKS_RECREATION);
-            sheltersList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.SHELTERS);
-            slCountyServicesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.SL_COUNTY_SERVICES);
-            slResourcesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.SL_RESOURCES);
-            truckTireRepairList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.TRUCK_TIRE_REPAIR);
-            mccEmployeesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.MCC_EMPLOYEES);
-            gateAccessCodesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.GATE_ACCESS_CODES);
-            vtCallSignsList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.VT_CALL_SIGNS);
-            slccEmployeesList = ScreenManager.theCoordinator
-                    .getCardfileList(CARDFILE.SLCC_EMPLOYEES);
-        } catch (RemoteException e) {
-            e.printStackTrace();
+    private void loadPanes() {
+        for (int i = 0; i < cardfileTabs.getTabCount(); i++) {
+            panes.put(CARDFILE.fromTag(cardfileTabs.getTitleAt(i)),
+                    (JPanel) cardfileTabs.getComponentAt(i));
         }
     }
 
     /*
-     * Puts the lists into the scrollpanes into the tabbedpane screens.
+     * Returns the local copy of the list. The first time the list is shown
+     * after opening, it is created from the cached server data and put into
+     * the scrollpane of its tab. Its objects are read as they are shown.
      */
-    public void loadJLists() {
-        coastalDivisionUnitsPane.removeAll();
-        coastalDivisionUnitsPane.add(createPane(coastalDivisionUnitsList));
-        policeSheriffCoronerPane.removeAll();
-        policeSheriffCoronerPane.add(createPane(policeSheriffCoronerList));
-        courtsPane.removeAll();
-        courtsPane.add(createPane(courtsList));
-        publicTransportationPane.removeAll();
-        publicTransportationPane.add(createPane(publicTransportationList));
-        ggOtherPane.removeAll();
-        ggOtherPane.add(createPane(ggOtherList));
-        myMiscPane.removeAll();
-        myMiscPane.add(createPane(myMiscList));
-        slMiscPane.removeAll();
-        slMiscPane.add(createPane(slMiscList));
-        vtMiscPane.removeAll();
-        vtMiscPane.add(createPane(vtMiscList));
-        chpOfficesPane.removeAll();
-        chpOfficesPane.add(createPane(chpOfficesList));
-        stateAgenciesFacilitiesPane.removeAll();
-        stateAgenciesFacilitiesPane
-                .add(createPane(stateAgenciesFacilitiesList));
-        governmentOfficialsPane.removeAll();
-        governmentOfficialsPane.add(createPane(governmentOfficialsList));
-        federalAgenciesPane.removeAll();
-        federalAgenciesPane.add(createPane(federalAgenciesList));
-        ranchesLivestockPane.removeAll();
-        ranchesLivestockPane.add(createPane(ranchesLivestockList));
-        fireEmsPane.removeAll();
-        fireEmsPane.add(createPane(fireEmsList));
-        jailsPane.removeAll();
-        jailsPane.add(createPane(jailsList));
-        hospitalsMedCentersPane.removeAll();
-        hospitalsMedCentersPane.add(createPane(hospitalsMedCentersList));
-        towCompaniesPane.removeAll();
-        towCompaniesPane.add(createPane(towCompaniesList));
-        calTransPane.removeAll();
-        calTransPane.add(createPane(calTransList));
-        countyRoadsPane.removeAll();
-        countyRoadsPane.add(createPane(countyRoadsList));
-        utilitiesPane.removeAll();
-        utilitiesPane.add(createPane(utilitiesList));
-        animalControlPane.removeAll();
-        animalControlPane.add(createPane(animalControlList));
-        airportsPane.removeAll();
-        airportsPane.add(createPane(airportsList));
-        creditCardsPane.removeAll();
-        creditCardsPane.add(createPane(creditCardsList));
-        ggCrisisSheltersPane.removeAll();
-        ggCrisisSheltersPane.add(createPane(ggCrisisSheltersList));
-        rangesPane.removeAll();
-        rangesPane.add(createPane(rangesList));
-        hotlinesPane.removeAll();
-        hotlinesPane.add(createPane(hotlinesList));
-        hwyPatrolsOosPane.removeAll();
-        hwyPatrolsOosPane.add(createPane(hwyPatrolsOosList));
-        parksRecreationPane.removeAll();
-        parksRecreationPane.add(createPane(parksRecreationList));
-        sheltersPane.removeAll();
-        sheltersPane.add(createPane(sheltersList));
-        slCountyServicesPane.removeAll();
-        slCountyServicesPane.add(createPane(slCountyServicesList));
-        slResourcesPane.removeAll();
-        slResourcesPane.add(createPane(slResourcesList));
-        truckTireRepairPane.removeAll();
-        truckTireRepairPane.add(createPane(truckTireRepairList));
-        mccEmployeesPane.removeAll();
-        mccEmployeesPane.add(createPane(mccEmployeesList));
-        gateAccessCodesPane.removeAll();
-        gateAccessCodesPane.add(createPane(gateAccessCodesList));
-        vtCallSignsPane.removeAll();
-        vtCallSignsPane.add(createPane(vtCallSignsList));
-        slccEmployeesPane.removeAll();
-        slccEmployeesPane.add(createPane(slccEmployeesList));
+    public CardfileList showList(CARDFILE category) {
+        CardfileList list = lists.get(category);
+        if (list == null) {
+            try {
+                list = new CardfileList(cardfileCache, category);
+            } catch (RemoteException e) {
+                e.printStackTrace();
+                list = new CardfileList();
+            }
+            lists.put(category, list);
+            JPanel pane = panes.get(category);
+            pane.removeAll();
+            pane.add(createPane(list));
+            pane.revalidate();
+        }
+        return list;
     }
 
     /*
      * Adds a list the scrollpane with mouse listeners.
      */
-    private JScrollPane createPane(List list) {
+    private JScrollPane createPane(CardfileList list) {
         list.addMouseListener(mouseListener);
         JScrollPane pane = new JScrollPane(list);
         pane.setPreferredSize(new Dimension(200, 250));
@@ -1580,132 +1324,10 @@ public class Cardfile extends javax.swing.JFrame {
      * corresponding list and selected index to obtain the last clicked object.
      */
     public CardfileDataObject getSelectedCardfileDataObject(String title) {
-        if (title == CARDFILE.COASTAL_DIVISION_UNITS.tag) {
-            selectedList = coastalDivisionUnitsList;
-            return coastalDivisionUnitsList.getCFDO(coastalDivisionUnitsList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.POLICE_SHERIFF_CORONER.tag) {
-            selectedList = policeSheriffCoronerList;
-            return policeSheriffCoronerList.getCFDO(policeSheriffCoronerList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.COURTS.tag) {
-            selectedList = courtsList;
-            return courtsList.getCFDO(courtsList.getSelectedIndex());
-        } else if (title == CARDFILE.PUBLIC_TRANSPORTATION.tag) {
-            selectedList = publicTransportationList;
-            return publicTransportationList.getCFDO(publicTransportationList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.GG_OTHER.tag) {
-            selectedList = ggOtherList;
-            return ggOtherList.getCFDO(ggOtherList.getSelectedIndex());
-        } else if (title == CARDFILE.MY_MISC.tag) {
-            selectedList = myMiscList;
-            return myMiscList.getCFDO(myMiscList.getSelectedIndex());
-        } else if (title == CARDFILE.SL_MISC.tag) {
-            selectedList = slMiscList;
-            return slMiscList.getCFDO(slMiscList.getSelectedIndex());
-        } else if (title == CARDFILE.VT_MISC.tag) {
-            selectedList = vtMiscList;
-            return vtMiscList.getCFDO(vtMiscList.getSelectedIndex());
-        } else if (title == CARDFILE.CHP_OFFICES.tag) {
-            selectedList = chpOfficesList;
-            return chpOfficesList.getCFDO(chpOfficesList.getSelectedIndex());
-        } else if (title == CARDFILE.STATE_AGENCIES_FACILITIES.tag) {
-            selectedList = stateAgenciesFacilitiesList;
-            return stateAgenciesFacilitiesList
-                    .getCFDO(stateAgenciesFacilitiesList.getSelectedIndex());
-        } else if (title == CARDFILE.GOVERNMENT_OFFICIALS.tag) {
-            selectedList = governmentOfficialsList;
-            return governmentOfficialsList.getCFDO(governmentOfficialsList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.FEDERAL_AGENCIES.tag) {
-            selectedList = federalAgenciesList;
-            return federalAgenciesList.getCFDO(federalAgenciesList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.RANCHES_LIVESTOCK.tag) {
-            selectedList = ranchesLivestockList;
-            return ranchesLivestockList.getCFDO(ranchesLivestockList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.FIRE_EMS.tag) {
-            selectedList = fireEmsList;
-            return fireEmsList.getCFDO(fireEmsList.getSelectedIndex());
-        } else if (title == CARDFILE.JAILS.tag) {
-            selectedList = jailsList;
-            return jailsList.getCFDO(jailsList.getSelectedIndex());
-        } else if (title == CARDFILE.HOSPITALS_MED_CENTERS.tag) {
-            selectedList = hospitalsMedCentersList;
-            return hospitalsMedCentersList.getCFDO(hospitalsMedCentersList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.TOW_COMPANIES.tag) {
-            selectedList = towCompaniesList;
-            return towCompaniesList
-                    .getCFDO(towCompaniesList.getSelectedIndex());
-        } else if (title == CARDFILE.CALTRANS.tag) {
-            selectedList = calTransList;
-            return calTransList.getCFDO(calTransList.getSelectedIndex());
-        } else if (title == CARDFILE.COUNTY_ROADS.tag) {
-            selectedList = countyRoadsList;
-            return countyRoadsList.getCFDO(countyRoadsList.getSelectedIndex());
-        } else if (title == CARDFILE.UTILITIES.tag) {
-            selectedList = utilitiesList;
-            return utilitiesList.getCFDO(utilitiesList.getSelectedIndex());
-        } else if (title == CARDFILE.ANIMAL_CONTROL.tag) {
-            selectedList = animalControlList;
-            return animalControlList.getCFDO(animalControlList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.AIRPORTS.tag) {
-            selectedList = airportsList;
-            return airportsList.getCFDO(airportsList.getSelectedIndex());
-        } else if (title == CARDFILE.CREDIT_CARDS.tag) {
-            selectedList = creditCardsList;
-            return creditCardsList.getCFDO(creditCardsList.getSelectedIndex());
-        } else if (title == CARDFILE.GG_CRISIS_SHELTERS.tag) {
-            selectedList = ggCrisisSheltersList;
-            return ggCrisisSheltersList.getCFDO(ggCrisisSheltersList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.RANGES.tag) {
-            selectedList = rangesList;
-            return rangesList.getCFDO(rangesList.getSelectedIndex());
-        } else if (title == CARDFILE.HOTLINES.tag) {
-            selectedList = hotlinesList;
-            return hotlinesList.getCFDO(hotlinesList.getSelectedIndex());
-        } else if (title == CARDFILE.HWY_PATROLS_OOS.tag) {
-            selectedList = hwyPatrolsOosList;
-            return hwyPatrolsOosList.getCFDO(hwyPatrolsOosList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.PARKS_RECREATION.tag) {
-            selectedList = parksRecreationList;
-            return parksRecreationList.getCFDO(parksRecreationList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.SHELTERS.tag) {
-            selectedList = sheltersList;
-            return sheltersList.getCFDO(sheltersList.getSelectedIndex());
-        } else if (title == CARDFILE.SL_COUNTY_SERVICES.tag) {
-            selectedList = slCountyServicesList;
-            return slCountyServicesList.getCFDO(slCountyServicesList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.SL_RESOURCES.tag) {
-            selectedList = slResourcesList;
-            return slResourcesList.getCFDO(slResourcesList.getSelectedIndex());
-        } else if (title == CARDFILE.TRUCK_TIRE_REPAIR.tag) {
-            selectedList = truckTireRepairList;
-            return truckTireRepairList.getCFDO(truckTireRepairList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.MCC_EMPLOYEES.tag) {
-            selectedList = mccEmployeesList;
-            return mccEmployeesList
-                    .getCFDO(mccEmployeesList.getSelectedIndex());
-        } else if (title == CARDFILE.GATE_ACCESS_CODES.tag) {
-            selectedList = gateAccessCodesList;
-            return gateAccessCodesList.getCFDO(gateAccessCodesList
-                    .getSelectedIndex());
-        } else if (title == CARDFILE.VT_CALL_SIGNS.tag) {
-            selectedList = vtCallSignsList;
-            return vtCallSignsList.getCFDO(vtCallSignsList.getSelectedIndex());
-        } else if (title == CARDFILE.SLCC_EMPLOYEES.tag) {
-            selectedList = slccEmployeesList;
-            return slccEmployeesList.getCFDO(slccEmployeesList
-                    .getSelectedIndex());
+        CARDFILE category = CARDFILE.fromTag(title);
+        if (category != null) {
+            selectedList = showList(category);
+            return selectedList.getCFDO(selectedList.getSelectedIndex());
         }
         try {
             throw new Exception();
@@ -1842,10 +1464,12 @@ public class Cardfile extends javax.swing.JFrame {
         if (isVisible()) {
             requestFocus();
         } else {
-            loadData();
-            loadJLists();
+            if (cardfileCache == null) {
+                cardfileCache = new CardfileCache(ScreenManager.theCoordinator);
+            }
+            lists.clear();
             cardfileTabs.setSelectedIndex(0);
-            selectedList = coastalDivisionUnitsList;
+            selectedList = showList(CARDFILE.fromTag(cardfileTabs.getTitleAt(0)));
             saveFields = false;
             changesMade = false;
             cardfileObjectEdits.clear();
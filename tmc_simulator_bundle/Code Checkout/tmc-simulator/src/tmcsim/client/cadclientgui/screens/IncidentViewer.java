@@ -13,8 +13,11 @@ import java.awt.event.WindowEvent;
 import java.rmi.RemoteException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Stack;
 import java.util.Date;
+import java.util.Vector;
 
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -26,6 +29,7 @@ import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 
 import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.CADField;
 import tmcsim.client.cadclientgui.enums.CADDataEnums.*;
 import tmcsim.client.cadclientgui.enums.ComboBoxConstants;
 
@@ -1835,147 +1839,125 @@ public class IncidentViewer extends javax.swing.JFrame {
     }
     
     /*
-     * Updates the data stored in the incidents class upon exit.
+     * Updates the data stored in the incidents class upon exit. All fields are
+     * sent to the Coordinator in one call.
      */
     public void saveInformation(int incidentId) {
+        Vector<CADField> fields = new Vector<CADField>();
+        fields.add(new CADField(INC_LOC.ADDRESS, addressField.getText()));
+        fields.add(new CADField(INC_LOC.LOC, locationField.getText()));
+        fields.add(new CADField(INC_LOC.APT, aptField.getText()));
+        fields.add(new CADField(INC_LOC.CROSS_ST, crossStField.getText()));
+        fields.add(new CADField(INC_VAL.RP, rpField.getText()));
+        fields.add(new CADField(INC_CALLER.PHONE, phoneField.getText()));
+        fields.add(new CADField(INC_CALLER.EXT, extField.getText()));
+        fields.add(new CADField(INC_LOC.LAW, lawField.getText()));
+        fields.add(new CADField(INC_LOC.FIRE, fireField.getText()));
+        fields.add(new CADField(INC_LOC.EMS, emsField.getText()));
+        // cadData.getIncident(incidentId).getCallBacks().setComment(callBackCommentField.getText());
+
+        fields.add(new CADField(INC_GEN_INFO.AGY, agencyComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_ADD_INFO.TYPE, typeCodeComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_VAL.P, priComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_VAL.MEDIA, mediaComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_LOC.CITY, cityComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_LOC.COUNTY, countyComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_VAL.RP_TYPE, rpTypeComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_LOC.SECTOR, sectorComboBox.getSelectedItem()));
+        fields.add(new CADField(INC_LOC.BEAT, beatComboBox.getSelectedItem()));
         try {
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.ADDRESS,
-                    incidentId, addressField.getText());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.LOC,
-                    incidentId, locationField.getText());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.APT,
-                    incidentId, aptField.getText());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.CROSS_ST,
-                    incidentId, crossStField.getText());
-            ScreenManager.theCoordinator.setCadDataIncVal(INC_VAL.RP,
-                    incidentId, rpField.getText());
-            ScreenManager.theCoordinator.setCadDataIncCaller(INC_CALLER.PHONE,
-                    incidentId, phoneField.getText());
-            ScreenManager.theCoordinator.setCadDataIncCaller(INC_CALLER.EXT,
-                    incidentId, extField.getText());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.LAW,
-                    incidentId, lawField.getText());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.FIRE,
-                    incidentId, fireField.getText());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.EMS,
-                    incidentId, emsField.getText());
-            // cadData.getIncident(incidentId).getCallBacks().setComment(callBackCommentField.getText());
-
-            ScreenManager.theCoordinator.setCadDataIncGenInfo(INC_GEN_INFO.AGY,
-                    incidentId, (String) agencyComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncAddInfo(
-                    INC_ADD_INFO.TYPE, incidentId,
-                    (String) typeCodeComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncVal(INC_VAL.P,
-                    incidentId, (String) priComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncVal(INC_VAL.MEDIA,
-                    incidentId, (String) mediaComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.CITY,
-                    incidentId, (String) cityComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.COUNTY,
-                    incidentId, (String) countyComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncVal(INC_VAL.RP_TYPE,
-                    incidentId, (String) rpTypeComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.SECTOR,
-                    incidentId, (String) sectorComboBox.getSelectedItem());
-            ScreenManager.theCoordinator.setCadDataIncLoc(INC_LOC.BEAT,
-                    incidentId, (String) beatComboBox.getSelectedItem());
+            ScreenManager.theCoordinator.setCadDataIncFields(incidentId, fields);
         } catch (RemoteException e) {
             e.printStackTrace();
         }
     }
 
     /*
-     * Updates all the strings.
+     * Updates all the strings and the title. All fields are read from the
+     * Coordinator in one call.
      * 
      * @see tmcsimulator.cadclient.data.cadData.vectorForIncidentViewer(String
      * incidentId) for matching up strings.
      */
     public void refreshInformation(int incidentId) {
         this.incidentId = incidentId;
+        Map<Enum<?>, String> values;
         try {
-            addressField.setText(ScreenManager.theCoordinator.getCadDataIncLoc(
-                    INC_LOC.ADDRESS, incidentId));
-            locationField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncLoc(INC_LOC.LOC, incidentId));
-            aptField.setText(ScreenManager.theCoordinator.getCadDataIncLoc(
-                    INC_LOC.APT, incidentId));
-            crossStField.setText(ScreenManager.theCoordinator.getCadDataIncLoc(
-                    INC_LOC.CROSS_ST, incidentId));
-            rpField.setText((String) ScreenManager.theCoordinator
-                    .getCadDataIncVal(INC_VAL.RP, incidentId));
-            phoneField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncCaller(INC_CALLER.PHONE, incidentId));
-            extField.setText(ScreenManager.theCoordinator.getCadDataIncCaller(
-                    INC_CALLER.EXT, incidentId));
-            aliField.setText((String) ScreenManager.theCoordinator
-                    .getCadDataIncVal(INC_VAL.ALI, incidentId));
-            lawField.setText(ScreenManager.theCoordinator.getCadDataIncLoc(
-                    INC_LOC.LAW, incidentId));
-            fireField.setText(ScreenManager.theCoordinator.getCadDataIncLoc(
-                    INC_LOC.FIRE, incidentId));
-            emsField.setText(ScreenManager.theCoordinator.getCadDataIncLoc(
-                    INC_LOC.EMS, incidentId));
-            addInfoIncidentNumField
-                    .setText((String) ScreenManager.theCoordinator
-                            .getCadDataIncVal(INC_VAL.MASTER_INC, incidentId));
-            addInfoIncidentTypeField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncAddInfo(INC_ADD_INFO.TYPE, incidentId));
-            addInfoCallTakenField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncInfo(INC_INFO.CALL_TAKEN, incidentId));
-            addInfoMachineNameField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncAddInfo(INC_ADD_INFO.MACHINE, incidentId));
-            addInfoCallTakerPhoneExtField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncAddInfo(INC_ADD_INFO.CALL_TAKER_EXT,
-                            incidentId));
-            addInfoCallStatusField
-                    .setText(ScreenManager.theCoordinator.getCadDataIncAddInfo(
-                            INC_ADD_INFO.CALL_STATUS, incidentId));
-            addInfoAlarmLevelField
-                    .setText(ScreenManager.theCoordinator.getCadDataIncAddInfo(
-                            INC_ADD_INFO.ALARM_LEVEL, incidentId));
-            addInfoRotationProviderAreaField
-                    .setText(ScreenManager.theCoordinator.getCadDataIncAddInfo(
-                            INC_ADD_INFO.ROTATION_PROVIDER_AREA, incidentId));
-            addInfoCommentsField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncAddInfo(INC_ADD_INFO.COMMENT, incidentId));
-            callBackCommentField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncCallBack(INC_CALLBACK.COMMENT, incidentId));
-            timesRingField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncTimes(INC_TIMES.RING, incidentId));
-            timesInQueueField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncTimes(INC_TIMES.IN_QUEUE, incidentId));
-            timesAllAvailableField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncTimes(INC_TIMES.ALL_AVAILABLE, incidentId));
-            timesCallClosedField.setText(ScreenManager.theCoordinator
-                    .getCadDataIncTimes(INC_TIMES.CALL_CLOSED, incidentId));
-
-            agencyComboBox.setSelectedItem(ScreenManager.theCoordinator
-                    .getCadDataIncGenInfo(INC_GEN_INFO.AGY, incidentId));
-            typeCodeComboBox.setSelectedItem(ScreenManager.theCoordinator
-                    .getCadDataIncAddInfo(INC_ADD_INFO.TYPE, incidentId));
-            priComboBox.setSelectedItem((String) ScreenManager.theCoordinator
-                    .getCadDataIncVal(INC_VAL.P, incidentId));
-            mediaComboBox.setSelectedItem((String) ScreenManager.theCoordinator
-                    .getCadDataIncVal(INC_VAL.MEDIA, incidentId));
-            cityComboBox.setSelectedItem(ScreenManager.theCoordinator
-                    .getCadDataIncLoc(INC_LOC.CITY, incidentId));
-            countyComboBox.setSelectedItem(ScreenManager.theCoordinator
-                    .getCadDataIncLoc(INC_LOC.COUNTY, incidentId));
-            rpTypeComboBox
-                    .setSelectedItem((String) ScreenManager.theCoordinator
-                            .getCadDataIncVal(INC_VAL.RP_TYPE, incidentId));
-            sectorComboBox.setSelectedItem(ScreenManager.theCoordinator
-                    .getCadDataIncLoc(INC_LOC.SECTOR, incidentId));
-            beatComboBox.setSelectedItem(ScreenManager.theCoordinator
-                    .getCadDataIncLoc(INC_LOC.BEAT, incidentId));
-
-            // callBackCommentTable.setModel(cadData.getIncident(incidentId).getCallBackCommentTable());
+            values = readFields(incidentId, INC_VAL.LOG_NUM, INC_VAL.MASTER_INC,
+                    INC_LOC.ADDRESS, INC_LOC.LOC, INC_LOC.APT, INC_LOC.CROSS_ST,
+                    INC_VAL.RP, INC_CALLER.PHONE, INC_CALLER.EXT, INC_VAL.ALI,
+                    INC_LOC.LAW, INC_LOC.FIRE, INC_LOC.EMS, INC_ADD_INFO.TYPE,
+                    INC_INFO.CALL_TAKEN, INC_ADD_INFO.MACHINE,
+                    INC_ADD_INFO.CALL_TAKER_EXT, INC_ADD_INFO.CALL_STATUS,
+                    INC_ADD_INFO.ALARM_LEVEL, INC_ADD_INFO.ROTATION_PROVIDER_AREA,
+                    INC_ADD_INFO.COMMENT, INC_CALLBACK.COMMENT, INC_TIMES.RING,
+                    INC_TIMES.IN_QUEUE, INC_TIMES.ALL_AVAILABLE,
+                    INC_TIMES.CALL_CLOSED, INC_GEN_INFO.AGY, INC_VAL.P,
+                    INC_VAL.MEDIA, INC_LOC.CITY, INC_LOC.COUNTY, INC_VAL.RP_TYPE,
+                    INC_LOC.SECTOR, INC_LOC.BEAT);
         } catch (RemoteException e) {
             e.printStackTrace();
+            return;
         }
+        addressField.setText(values.get(INC_LOC.ADDRESS));
+        locationField.setText(values.get(INC_LOC.LOC));
+        aptField.setText(values.get(INC_LOC.APT));
+        crossStField.setText(values.get(INC_LOC.CROSS_ST));
+        rpField.setText(values.get(INC_VAL.RP));
+        phoneField.setText(values.get(INC_CALLER.PHONE));
+        extField.setText(values.get(INC_CALLER.EXT));
+        aliField.setText(values.get(INC_VAL.ALI));
+        lawField.setText(values.get(INC_LOC.LAW));
+        fireField.setText(values.get(INC_LOC.FIRE));
+        emsField.setText(values.get(INC_LOC.EMS));
+        addInfoIncidentNumField.setText(values.get(INC_VAL.MASTER_INC));
+        addInfoIncidentTypeField.setText(values.get(INC_ADD_INFO.TYPE));
+        addInfoCallTakenField.setText(values.get(INC_INFO.CALL_TAKEN));
+        addInfoMachineNameField.setText(values.get(INC_ADD_INFO.MACHINE));
+        addInfoCallTakerPhoneExtField.setText(values.get(INC_ADD_INFO.CALL_TAKER_EXT));
+        addInfoCallStatusField.setText(values.get(INC_ADD_INFO.CALL_STATUS));
+        addInfoAlarmLevelField.setText(values.get(INC_ADD_INFO.ALARM_LEVEL));
+        addInfoRotationProviderAreaField.setText(values
+                .get(INC_ADD_INFO.ROTATION_PROVIDER_AREA));
+        addInfoCommentsField.setText(values.get(INC_ADD_INFO.COMMENT));
+        callBackCommentField.setText(values.get(INC_CALLBACK.COMMENT));
+        timesRingField.setText(values.get(INC_TIMES.RING));
+        timesInQueueField.setText(values.get(INC_TIMES.IN_QUEUE));
+        timesAllAvailableField.setText(values.get(INC_TIMES.ALL_AVAILABLE));
+        timesCallClosedField.setText(values.get(INC_TIMES.CALL_CLOSED));
+
+        agencyComboBox.setSelectedItem(values.get(INC_GEN_INFO.AGY));
+        typeCodeComboBox.setSelectedItem(values.get(INC_ADD_INFO.TYPE));
+        priComboBox.setSelectedItem(values.get(INC_VAL.P));
+        mediaComboBox.setSelectedItem(values.get(INC_VAL.MEDIA));
+        cityComboBox.setSelectedItem(values.get(INC_LOC.CITY));
+        countyComboBox.setSelectedItem(values.get(INC_LOC.COUNTY));
+        rpTypeComboBox.setSelectedItem(values.get(INC_VAL.RP_TYPE));
+        sectorComboBox.setSelectedItem(values.get(INC_LOC.SECTOR));
+        beatComboBox.setSelectedItem(values.get(INC_LOC.BEAT));
+
+        // callBackCommentTable.setModel(cadData.getIncident(incidentId).getCallBackCommentTable());
         // refreshLicenseTable(incidentId);
 
+        setTitle("Incident Viewer- Incident ID [" + values.get(INC_VAL.LOG_NUM)
+                + "]   Master Incident ID[" + values.get(INC_VAL.MASTER_INC) + "]");
+    }
+
+    /*
+     * Reads the tagged fields of an incident in one call to the Coordinator.
+     */
+    private Map<Enum<?>, String> readFields(int incidentId, Enum<?>... tags)
+            throws RemoteException {
+        Vector<CADField> fields = new Vector<CADField>(tags.length);
+        for (Enum<?> tag : tags) {
+            fields.add(new CADField(tag));
+        }
+        Map<Enum<?>, String> values = new HashMap<Enum<?>, String>();
+        for (CADField field : ScreenManager.theCoordinator.getCadDataIncFields(
+                incidentId, fields)) {
+            values.put(field.tag, field.getString());
+        }
+        return values;
     }
 
     /*
@@ -1990,22 +1972,12 @@ public class IncidentViewer extends javax.swing.JFrame {
 
             stack.push(incidentId);
             refreshInformation(incidentId);
-            setTitle("Incident Viewer- Incident ID ["
-                    + ScreenManager.theCoordinator.getCadDataIncVal(
-                            INC_VAL.LOG_NUM, incidentId)
-                    + "]   Master Incident ID["
-                    + ScreenManager.theCoordinator.getCadDataIncVal(
-                            INC_VAL.MASTER_INC, incidentId) + "]");
             setVisible(true);
             bottomTabbedPane.setSelectedIndex(4);
-            commentsNotesTable.setModel(ScreenManager.theCoordinator
+            setCommentsNotesModel(ScreenManager.theCoordinator
                     .getCadDataIncidentTable(INC_TABLE.COMMENTS_NOTES,
                             incidentId));
-            commentsNotesTable.getColumnModel().getColumn(0).setPreferredWidth(50);
-            commentsNotesTable.getColumnModel().getColumn(1).setPreferredWidth(50);
-            commentsNotesTable.getColumnModel().getColumn(2).setPreferredWidth(15);
-            commentsNotesTable.getColumnModel().getColumn(3).setPreferredWidth(15);
-            commentsNotesTable.getColumnModel().getColumn(4).setPreferredWidth(400);
+            ScreenManager.watchIncident(incidentId);
             commentsNotesField.setText("");
             commentsNotesField.setEditable(false);
             commentsNotesAddButton.setEnabled(true);
@@ -2016,6 +1988,25 @@ public class IncidentViewer extends javax.swing.JFrame {
         }
     }
 
+    /*
+     * Replaces the comments and notes of the displayed incident with the table
+     * pushed by the Coordinator.
+     */
+    public void applyCommentsNotes(int id, DefaultTableModel model) {
+        if (!stack.empty() && id == incidentId) {
+            setCommentsNotesModel(model);
+        }
+    }
+
+    private void setCommentsNotesModel(DefaultTableModel model) {
+        commentsNotesTable.setModel(model);
+        commentsNotesTable.getColumnModel().getColumn(0).setPreferredWidth(50);
+        commentsNotesTable.getColumnModel().getColumn(1).setPreferredWidth(50);
+        commentsNotesTable.getColumnModel().getColumn(2).setPreferredWidth(15);
+        commentsNotesTable.getColumnModel().getColumn(3).setPreferredWidth(15);
+        commentsNotesTable.getColumnModel().getColumn(4).setPreferredWidth(400);
+    }
+
     /*
      * Closes the information of the latest incident clicked. Closes screen if
      * there were no previous incidents in the stack.
@@ -2025,18 +2016,10 @@ public class IncidentViewer extends javax.swing.JFrame {
         stack.pop();
         if (stack.empty()) {
             setVisible(false);
+            ScreenManager.watchIncident(-1);
         } else {
             refreshInformation(stack.peek());
-            try {
-                setTitle("Incident Viewer- Incident ID ["
-                        + ScreenManager.theCoordinator.getCadDataIncVal(
-                                INC_VAL.LOG_NUM, incidentId)
-                        + "]   Master Incident ID["
-                        + ScreenManager.theCoordinator.getCadDataIncVal(
-                                INC_VAL.MASTER_INC, incidentId) + "]");
-            } catch (RemoteException e) {
-                e.printStackTrace();
-            }
+            ScreenManager.watchIncident(stack.peek());
         }
         ScreenManager.refreshScreens();
         ScreenManager.refreshIncidentEditor();
@@ -13,6 +13,7 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.Vector;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -28,6 +29,9 @@ import javax.swing.RowSorter.SortKey;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
+import tmcsim.client.cadclientgui.data.CADField;
+import tmcsim.client.cadclientgui.data.DeltaTableModel;
+import tmcsim.client.cadclientgui.data.TableDelta;
 import tmcsim.client.cadclientgui.enums.CADDataEnums;
 import tmcsim.client.cadclientgui.enums.IncidentEnums;
 import tmcsim.client.cadclientgui.enums.TableHeaders;
@@ -60,6 +64,8 @@ public class PendingIncidents extends JFrame {
     private final String LABEL_SPACING = "     ";
     
     private JTable pendingIncidentsTable;
+    
+    private DeltaTableModel pendingIncidentsModel;
     private JFrame pendingIncidentsMenu;
     
     //labels for the drop down menu
@@ -127,8 +133,8 @@ public class PendingIncidents extends JFrame {
         pendingIncidentsTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
         pendingIncidentsTable.setAutoCreateRowSorter(true);
         
-        pendingIncidentsTable.setModel(new DefaultTableModel());
-        ((DefaultTableModel) pendingIncidentsTable.getModel()).setColumnIdentifiers(TableHeaders.PENDING_INCIDENTS_HEADERS);
+        pendingIncidentsModel = new DeltaTableModel(TableHeaders.PENDING_INCIDENTS_HEADERS);
+        pendingIncidentsTable.setModel(pendingIncidentsModel);
         
         pendingIncidentsTable.setTransferHandler(new TransferHandler(){
             
@@ -163,12 +169,12 @@ public class PendingIncidents extends JFrame {
                 try {
                 String masterInc = (String) ScreenManager.theCoordinator.
                         getCadDataIncVal(INC_VAL.MASTER_INC, incidentId);
-                ScreenManager.theCoordinator.setCadDataUnitValue(data,
-                          UNIT_TAGS.MASTER_INC_NUM, masterInc);
+                Vector<CADField> fields = new Vector<CADField>();
+                fields.add(new CADField(UNIT_TAGS.MASTER_INC_NUM, masterInc));
+                fields.add(new CADField(UNIT_TAGS.UNIT_STATUS, UnitStatusEnums.Arrived));
+                ScreenManager.theCoordinator.setCadDataUnitFields(data, fields);
                 
                         ScreenManager.theCoordinator.setCadDataUnitAssignedId(data, incidentId);
-                        ScreenManager.theCoordinator.setCadDataUnitValue(data,
-                      UNIT_TAGS.UNIT_STATUS, UnitStatusEnums.Arrived);
                      ScreenManager.theCoordinator.addCadDataIncidentAssignedUnitNum(incidentId, data);
                      ScreenManager.theCoordinator.setCadDataIncidentStatus(incidentId, IncidentEnums.Assigned);
                      } catch (RemoteException e) {
@@ -399,30 +405,58 @@ public class PendingIncidents extends JFrame {
      * screen. It saves user preferences(like column sizes, selected row, sorted preferences) 
      * and applies them to the updated model it receives from the server.
      */
-    public void refreshTable(){
-    
-      if(pendingIncidentsTable.getTableHeader().getResizingColumn() == null){//only update info if resize not in progress
-          try {
-            int index = pendingIncidentsTable.getSelectedRow();
-            int[] columnWidths = new int[20];
-            List<? extends SortKey> keys = pendingIncidentsTable.getRowSorter().getSortKeys();
-            for(int i = 0; i < pendingIncidentsTable.getColumnCount(); i++){
-                columnWidths[i] = pendingIncidentsTable.getColumnModel().getColumn(i).getWidth();
-            }
-            
-            pendingIncidentsTable.setModel(ScreenManager.theCoordinator.getCadDataTable(CADDataEnums.TABLE.PENDING_INCIDENTS));
-            
-            for(int i = 0; i < pendingIncidentsTable.getColumnCount(); i++){
-                pendingIncidentsTable.getColumnModel().getColumn(i).setPreferredWidth(columnWidths[i]);
-            }
-            pendingIncidentsTable.getRowSorter().setSortKeys(keys);
-            pendingIncidentsTable.getSelectionModel().setSelectionInterval(index, index);
+    public void refreshTable() {
+        if(pendingIncidentsTable.getTableHeader().getResizingColumn() == null){//only update info if resize not in progress
+            try {
+                applyDelta(ScreenManager.theCoordinator.getCadDataTableDelta(
+                        CADDataEnums.TABLE.PENDING_INCIDENTS, pendingIncidentsModel.getVersion()));
             } catch (RemoteException e) {
                 e.printStackTrace();
             }
-            revalidate();
-            repaint();
-      }
+        }
+    }
+
+    /*
+     * Applies the changes to the table, either pulled by refreshTable or pushed
+     * by the Coordinator. A pushed delta that is older than the table is
+     * ignored, and one that does not follow the table's version is replaced by
+     * a refresh.
+     */
+    public void applyDelta(TableDelta delta) {
+        if(!delta.reset && delta.toVersion <= pendingIncidentsModel.getVersion()){
+            return;
+        }
+        if(!delta.reset && delta.fromVersion != pendingIncidentsModel.getVersion()){
+            refreshTable();
+            return;
+        }
+        if(pendingIncidentsTable.getTableHeader().getResizingColumn() != null){//applied by a later refresh
+            return;
+        }
+        if(delta.isEmpty()){
+            return;
+        }
+        if(!delta.reset){
+            //only changed rows are applied, so the selection, sorting and column sizes are kept
+            pendingIncidentsModel.applyDelta(delta);
+            return;
+        }
+        int index = pendingIncidentsTable.getSelectedRow();
+        int[] columnWidths = new int[20];
+        List<? extends SortKey> keys = pendingIncidentsTable.getRowSorter().getSortKeys();
+        for(int i = 0; i < pendingIncidentsTable.getColumnCount(); i++){
+            columnWidths[i] = pendingIncidentsTable.getColumnModel().getColumn(i).getWidth();
+        }
+
+        pendingIncidentsModel.applyDelta(delta);
+
+        for(int i = 0; i < pendingIncidentsTable.getColumnCount(); i++){
+            pendingIncidentsTable.getColumnModel().getColumn(i).setPreferredWidth(columnWidths[i]);
+        }
+        pendingIncidentsTable.getRowSorter().setSortKeys(keys);
+        pendingIncidentsTable.getSelectionModel().setSelectionInterval(index, index);
+        revalidate();
+        repaint();
     }
     
     /* 
@@ -7,7 +7,13 @@ import javax.swing.table.DefaultTableModel;
 
 import tmcsim.cadsimulator.Coordinator;
 import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.CADTopic;
+import tmcsim.client.cadclientgui.data.CADUpdate;
 import tmcsim.client.cadclientgui.data.Unit;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.INC_TABLE;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+import tmcsim.client.cadclientgui.enums.UnitStatusEnums;
+import tmcsim.interfaces.CADClientInterface;
 import tmcsim.interfaces.CoordinatorInterface;
 
 import java.awt.KeyEventDispatcher;
@@ -57,6 +63,12 @@ public class ScreenManager {
     //Reference to the Coordinator to use RMI methods
     protected static CoordinatorInterface theCoordinator;
     
+    //Reference to this client for pushed updates, null while the screens poll
+    private static CADClientInterface theClient;
+    
+    //Incident whose comments and notes are pushed to the IncidentViewer
+    private static CADTopic watchedIncident;
+    
     public ScreenManager(CoordinatorInterface theCoor){
         theCoordinator = theCoor;
         activityLogViewer = new ActivityLogViewer();
@@ -281,6 +293,12 @@ public class ScreenManager {
     public static void openUnitStatus(){ unitStatus.open(); }
     public static void closeUnitStatus(){ unitStatus.close(); }
     
+    /**
+     * Returns the unit status of the unit as last received by the Unit Status
+     * screen, or null if the unit is not in its table.
+     */
+    public static UnitStatusEnums getUnitStatus(Object unitNum){ return unitStatus.getUnitStatus(unitNum); }
+    
     //public static void openVehicleInformationEntry(){ vehicleInformationEntry.open(); }
     //public static void closeVehicleInformationEntry(){ vehicleInformationEntry.close(); }
     
@@ -303,19 +321,89 @@ public class ScreenManager {
         pendingIncidents.refreshTable();
     }
     
+    /**
+     * Subscribes this client to the tables shown on the screens. Once subscribed
+     * the Coordinator pushes the changes to the tables and the screens no longer
+     * poll for them every second.
+     */
+    public static void subscribe(CADClientInterface client){
+        Vector<CADTopic> topics = new Vector<CADTopic>();
+        topics.add(new CADTopic(TABLE.UNIT_STATUS));
+        topics.add(new CADTopic(TABLE.ASSIGNED_INCIDENTS));
+        topics.add(new CADTopic(TABLE.PENDING_INCIDENTS));
+        try {
+            theCoordinator.subscribe(client, topics);
+            theClient = client;
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Subscribes to the comments and notes of the incident shown in the
+     * IncidentViewer, replacing the previous incident. An id of -1 only
+     * unsubscribes.
+     */
+    public static void watchIncident(int incidentId){
+        if(theClient == null){
+            return;
+        }
+        CADTopic topic = incidentId < 0 ? null : new CADTopic(INC_TABLE.COMMENTS_NOTES, incidentId);
+        if(topic == null ? watchedIncident == null : topic.equals(watchedIncident)){
+            return;
+        }
+        try {
+            if(watchedIncident != null){
+                Vector<CADTopic> old = new Vector<CADTopic>();
+                old.add(watchedIncident);
+                theCoordinator.unsubscribe(theClient, old);
+            }
+            watchedIncident = topic;
+            if(topic != null){
+                Vector<CADTopic> topics = new Vector<CADTopic>();
+                topics.add(topic);
+                theCoordinator.subscribe(theClient, topics);
+            }
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Applies the updates pushed by the Coordinator. Must be called on the event
+     * dispatch thread.
+     */
+    public static void applyUpdates(Vector<CADUpdate> updates){
+        for(CADUpdate update : updates){
+            if(!update.topic.isTable()){
+                incidentViewer.applyCommentsNotes(update.topic.incidentId, update.incidentTable);
+            }else if(update.topic.table == TABLE.UNIT_STATUS){
+                unitStatus.applyDelta(update.delta);
+                assignedIncidents.repaint();
+            }else if(update.topic.table == TABLE.ASSIGNED_INCIDENTS){
+                assignedIncidents.applyDelta(update.delta);
+            }else if(update.topic.table == TABLE.PENDING_INCIDENTS){
+                pendingIncidents.applyDelta(update.delta);
+            }
+        }
+    }
+    
     public static void setUserName(String username){
         cadMenu.setName(username);
     }
     
     /**
-     * This method calls CADMenu's and UnitStatus's update time method.
+     * This method calls CADMenu's and UnitStatus's update time method. The
+     * tables are only polled until the client has subscribed to them.
      */
     public static void handleUpdateTimes(){
         Timer timer = new Timer(ONE_SECOND, new ActionListener(){
             public void actionPerformed(ActionEvent e) {
-                refreshScreens();
+                if(theClient == null){
+                    refreshScreens();
+                    unitStatus.handleUpdateTime();
+                }
                 cadMenu.handleUpdateTime();
-                unitStatus.handleUpdateTime();
             }
         });
         timer.start();
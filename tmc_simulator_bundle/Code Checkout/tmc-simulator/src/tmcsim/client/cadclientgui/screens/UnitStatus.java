@@ -16,6 +16,7 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.Vector;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -34,6 +35,9 @@ import javax.swing.TransferHandler;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
+import tmcsim.client.cadclientgui.data.CADField;
+import tmcsim.client.cadclientgui.data.DeltaTableModel;
+import tmcsim.client.cadclientgui.data.TableDelta;
 import tmcsim.client.cadclientgui.enums.CADDataEnums;
 import tmcsim.client.cadclientgui.enums.CADScriptTags.UNIT_TAGS;
 import tmcsim.client.cadclientgui.enums.TableHeaders;
@@ -82,6 +86,12 @@ public class UnitStatus extends JFrame {
     private Box unitStatusFrame;
 
     private JTable unitStatusTable;
+
+    private DeltaTableModel unitStatusModel;
+
+    // index of the unit status in the rows sent by the Coordinator, past the columns
+    private static final int UNIT_STATUS_INDEX = 18;
+
     private JFrame unitStatusMenu;
     private JFrame unitStatusWithAssignedIncMenu;
 
@@ -149,11 +159,11 @@ public class UnitStatus extends JFrame {
                     int row, int column) {
                 Component comp = super.prepareRenderer(renderer, row, column);
 
-                int unitNumColumn = 2;
-                try {
-                    switch (ScreenManager.theCoordinator
-                            .getCadDataUnitStatus((String) unitStatusTable
-                                    .getValueAt(row, unitNumColumn))) {
+                UnitStatusEnums status = (UnitStatusEnums) unitStatusModel
+                        .getSentValue(convertRowIndexToModel(row),
+                                UNIT_STATUS_INDEX);
+                if (status != null) {
+                    switch (status) {
                     case Assignable:
                         comp.setForeground(Color.GREEN);
                         comp.setBackground(Color.BLACK);
@@ -171,8 +181,6 @@ public class UnitStatus extends JFrame {
                         comp.setBackground(Color.BLACK);
                         break;
                     }
-                } catch (RemoteException e) {
-                    e.printStackTrace();
                 }
 
                 if (getSelectedRow() == row) {
@@ -193,9 +201,8 @@ public class UnitStatus extends JFrame {
         unitStatusTable.setAutoCreateRowSorter(true);
         unitStatusTable.setDragEnabled(true);
 
-        unitStatusTable.setModel(new DefaultTableModel());
-        ((DefaultTableModel) unitStatusTable.getModel())
-                .setColumnIdentifiers(TableHeaders.UNIT_STATUS_HEADERS);
+        unitStatusModel = new DeltaTableModel(TableHeaders.UNIT_STATUS_HEADERS);
+        unitStatusTable.setModel(unitStatusModel);
 
         unitStatusTable.setTransferHandler(new TransferHandler() {
 
@@ -235,10 +242,10 @@ public class UnitStatus extends JFrame {
                         unitStatusTable.getSelectedRow(), unitColumn);
                 if (SwingUtilities.isRightMouseButton(e)) {
                     try {
-                        if (ScreenManager.theCoordinator
-                                .getCadDataUnitStatus(unitNum) == UnitStatusEnums.Enroute
-                                || ScreenManager.theCoordinator
-                                        .getCadDataUnitStatus(unitNum) == UnitStatusEnums.Arrived) {
+                        UnitStatusEnums status = ScreenManager.theCoordinator
+                                .getCadDataUnitStatus(unitNum);
+                        if (status == UnitStatusEnums.Enroute
+                                || status == UnitStatusEnums.Arrived) {
                             openDropDownWithAssignedIncMenu(e);
                         } else {
                             openDropDownMenu(e);
@@ -456,69 +463,28 @@ public class UnitStatus extends JFrame {
     public void initializeBottomButtons(Box bottomButtons) {
         bottomButtons.add(buttonEnrt = makeButton("ENRT", new ActionListener() {
             public void actionPerformed(ActionEvent arg0) {
-                try {
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.STATUS, "ENRT");
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.UNIT_STATUS, UnitStatusEnums.Enroute);
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                }
+                setSelectedUnitStatus("ENRT", UnitStatusEnums.Enroute);
                 refreshTable();
             }
         }));
         bottomButtons.add(buttonStage = makeButton("STAGE",
                 new ActionListener() {
                     public void actionPerformed(ActionEvent arg0) {
-                        try {
-                            ScreenManager.theCoordinator.setCadDataUnitValue(
-                                    (String) unitStatusTable
-                                            .getValueAt(unitStatusTable
-                                                    .getSelectedRow(), 2),
-                                    UNIT_TAGS.STATUS, "STAGE");
-                        } catch (RemoteException e) {
-                            e.printStackTrace();
-                        }
+                        setSelectedUnitStatus("STAGE", null);
                         refreshTable();
                     }
                 }));
         bottomButtons.add(button1097 = makeButton("10-97",
                 new ActionListener() {
                     public void actionPerformed(ActionEvent arg0) {
-                        try {
-                            ScreenManager.theCoordinator.setCadDataUnitValue(
-                                    (String) unitStatusTable
-                                            .getValueAt(unitStatusTable
-                                                    .getSelectedRow(), 2),
-                                    UNIT_TAGS.STATUS, "10-97");
-                            ScreenManager.theCoordinator.setCadDataUnitValue(
-                                    (String) unitStatusTable
-                                            .getValueAt(unitStatusTable
-                                                    .getSelectedRow(), 2),
-                                    UNIT_TAGS.UNIT_STATUS,
-                                    UnitStatusEnums.Arrived);
-                        } catch (RemoteException e) {
-                            e.printStackTrace();
-                        }
+                        setSelectedUnitStatus("10-97", UnitStatusEnums.Arrived);
                         refreshTable();
                     }
                 }));
         bottomButtons.add(buttonCode4 = makeButton("CODE 4",
                 new ActionListener() {
                     public void actionPerformed(ActionEvent arg0) {
-                        try {
-                            ScreenManager.theCoordinator.setCadDataUnitValue(
-                                    (String) unitStatusTable
-                                            .getValueAt(unitStatusTable
-                                                    .getSelectedRow(), 2),
-                                    UNIT_TAGS.STATUS, "CODE 4");
-                        } catch (RemoteException e) {
-                            e.printStackTrace();
-                        }
+                        setSelectedUnitStatus("CODE 4", null);
                         refreshTable();
                     }
                 }));
@@ -527,58 +493,43 @@ public class UnitStatus extends JFrame {
         bottomButtons.add(buttonDash3 = makeButton("-", null));
         bottomButtons.add(button108 = makeButton("10-8", new ActionListener() {
             public void actionPerformed(ActionEvent arg0) {
-                try {
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.STATUS, "10-8");
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.UNIT_STATUS, UnitStatusEnums.Assignable);
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                }
+                setSelectedUnitStatus("10-8", UnitStatusEnums.Assignable);
                 refreshTable();
             }
         }));
         bottomButtons.add(buttonOFC = makeButton("OFC", new ActionListener() {
             public void actionPerformed(ActionEvent arg0) {
-                try {
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.STATUS, "OFC");
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.UNIT_STATUS, UnitStatusEnums.Arrived);
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                }
+                setSelectedUnitStatus("OFC", UnitStatusEnums.Arrived);
                 refreshTable();
             }
         }));
         bottomButtons.add(buttonOOS = makeButton("OOS", new ActionListener() {
             public void actionPerformed(ActionEvent arg0) {
-                try {
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.STATUS, "OOS");
-                    ScreenManager.theCoordinator.setCadDataUnitValue(
-                            (String) unitStatusTable.getValueAt(
-                                    unitStatusTable.getSelectedRow(), 2),
-                            UNIT_TAGS.UNIT_STATUS,
-                            UnitStatusEnums.NotAssignable);
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                }
+                setSelectedUnitStatus("OOS", UnitStatusEnums.NotAssignable);
                 refreshTable();
             }
         }));
     }
 
+    /*
+     * Sets the status text of the selected unit and, if unitStatus is not
+     * null, its unit status, in one call to the Coordinator.
+     */
+    private void setSelectedUnitStatus(String status, UnitStatusEnums unitStatus) {
+        Vector<CADField> fields = new Vector<CADField>();
+        fields.add(new CADField(UNIT_TAGS.STATUS, status));
+        if (unitStatus != null) {
+            fields.add(new CADField(UNIT_TAGS.UNIT_STATUS, unitStatus));
+        }
+        try {
+            ScreenManager.theCoordinator.setCadDataUnitFields(
+                    (String) unitStatusTable.getValueAt(
+                            unitStatusTable.getSelectedRow(), 2), fields);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+
     /*
      * Makes a JButton with an text and listener.
      * 
@@ -883,27 +834,56 @@ public class UnitStatus extends JFrame {
      */
     public void refreshTable() {
         if(unitStatusTable.getTableHeader().getResizingColumn() == null){//only update info if resize not in progress
-              try {
-                int index = unitStatusTable.getSelectedRow();
-                List<? extends SortKey> keys = unitStatusTable.getRowSorter().getSortKeys();
-                int[] columnWidths = new int[20];
-                for(int i = 0; i < unitStatusTable.getColumnCount(); i++){
-                    columnWidths[i] = unitStatusTable.getColumnModel().getColumn(i).getWidth();
-                }
-                
-                unitStatusTable.setModel(ScreenManager.theCoordinator.getCadDataTable(CADDataEnums.TABLE.UNIT_STATUS));
-                
-                for(int i = 0; i < unitStatusTable.getColumnCount(); i++){
-                    unitStatusTable.getColumnModel().getColumn(i).setPreferredWidth(columnWidths[i]);
-                }
-                unitStatusTable.getRowSorter().setSortKeys(keys);
-                unitStatusTable.getSelectionModel().setSelectionInterval(index, index);
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                }
-                revalidate();
-                repaint();
-          }
+            try {
+                applyDelta(ScreenManager.theCoordinator.getCadDataTableDelta(
+                        CADDataEnums.TABLE.UNIT_STATUS, unitStatusModel.getVersion()));
+            } catch (RemoteException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Applies the changes to the table, either pulled by refreshTable or pushed
+     * by the Coordinator. A pushed delta that is older than the table is
+     * ignored, and one that does not follow the table's version is replaced by
+     * a refresh.
+     */
+    public void applyDelta(TableDelta delta) {
+        if(!delta.reset && delta.toVersion <= unitStatusModel.getVersion()){
+            return;
+        }
+        if(!delta.reset && delta.fromVersion != unitStatusModel.getVersion()){
+            refreshTable();
+            return;
+        }
+        if(unitStatusTable.getTableHeader().getResizingColumn() != null){//applied by a later refresh
+            return;
+        }
+        if(delta.isEmpty()){
+            return;
+        }
+        if(!delta.reset){
+            //only changed rows are applied, so the selection, sorting and column sizes are kept
+            unitStatusModel.applyDelta(delta);
+            return;
+        }
+        int index = unitStatusTable.getSelectedRow();
+        List<? extends SortKey> keys = unitStatusTable.getRowSorter().getSortKeys();
+        int[] columnWidths = new int[20];
+        for(int i = 0; i < unitStatusTable.getColumnCount(); i++){
+            columnWidths[i] = unitStatusTable.getColumnModel().getColumn(i).getWidth();
+        }
+
+        unitStatusModel.applyDelta(delta);
+
+        for(int i = 0; i < unitStatusTable.getColumnCount(); i++){
+            unitStatusTable.getColumnModel().getColumn(i).setPreferredWidth(columnWidths[i]);
+        }
+        unitStatusTable.getRowSorter().setSortKeys(keys);
+        unitStatusTable.getSelectionModel().setSelectionInterval(index, index);
+        revalidate();
+        repaint();
     }
 
     /*
@@ -922,22 +902,41 @@ public class UnitStatus extends JFrame {
 
     /**
      * This method is called every second in ScreenManger to update the display
-     * time every second.
+     * time every second. The timers of all rows are read in one call.
      */
     public void handleUpdateTime() {
         int timerColumn = 13;
-        int unitColumn = 2;
-        for (int i = 0; i < unitStatusTable.getModel().getRowCount(); i++) {
-            try {
-                unitStatusTable.getModel().setValueAt(
-                        ScreenManager.theCoordinator.getCadDataUnitValue(
-                                (String) unitStatusTable.getModel().getValueAt(
-                                        i, unitColumn), UNIT_TAGS.TIMER), i,
+        Vector<String> unitNums = getUnitNums();
+        try {
+            Vector<Object> timers = ScreenManager.theCoordinator
+                    .getCadDataUnitValues(unitNums, UNIT_TAGS.TIMER);
+            for (int i = 0; i < timers.size(); i++) {
+                unitStatusTable.getModel().setValueAt(timers.get(i), i,
                         timerColumn);
-            } catch (RemoteException e) {
-                e.printStackTrace();
             }
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the unit status of the unit, as last sent by the Coordinator,
+     * or null if the unit is not in the table. Used to color the rows of
+     * other screens without a call to the Coordinator.
+     */
+    public UnitStatusEnums getUnitStatus(Object unitNum) {
+        return (UnitStatusEnums) unitStatusModel.getSentValue(
+                unitStatusModel.getRow(unitNum), UNIT_STATUS_INDEX);
+    }
+
+    private Vector<String> getUnitNums() {
+        int unitColumn = 2;
+        Vector<String> unitNums = new Vector<String>();
+        for (int i = 0; i < unitStatusTable.getModel().getRowCount(); i++) {
+            unitNums.add((String) unitStatusTable.getModel().getValueAt(i,
+                    unitColumn));
         }
+        return unitNums;
     }
 
     /**
@@ -302,4 +302,39 @@ public class CADEnums {
         DROPPED, 
         UNREACHABLE };
 
+    /**
+     * Enumeration representing the modes that the simulation clock may run in.
+     * REAL_TIME advances the simulation one second every second.  ACCELERATED
+     * advances the simulation by a multiple of real time.  AS_FAST_AS_POSSIBLE
+     * jumps directly to the next time at which an IncidentEvent is scheduled.
+     * @author Jonathan Molina
+     */
+    public static enum CLOCK_MODE {
+        REAL_TIME           ("RealTime"),
+        ACCELERATED         ("Accelerated"),
+        AS_FAST_AS_POSSIBLE ("AsFastAsPossible");
+
+        /** Clock mode name used in properties files. */
+        public String name;
+
+        private CLOCK_MODE(String n) {
+            name = n;
+        }
+
+        /**
+         * Returns the CLOCK_MODE enumeration value which has a name that
+         * matches the parameter value, ignoring case.
+         * @param val Clock mode name.
+         * @return CLOCK_MODE for the parameter value, REAL_TIME if no match.
+         */
+        public static CLOCK_MODE fromValue(String val) {
+
+            for(CLOCK_MODE mode : values()) {
+                if(mode.name.equalsIgnoreCase(val) || mode.name().equalsIgnoreCase(val))
+                    return mode;
+            }
+
+            return REAL_TIME;
+        }
+    };
 }
\ No newline at end of file
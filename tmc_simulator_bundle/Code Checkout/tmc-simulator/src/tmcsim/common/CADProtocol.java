@@ -238,6 +238,7 @@ public class CADProtocol {
         WRITER      ("WRITER"),
         READER      ("READER"),
         RESET       ("RESET"),
+        PROTOCOL    ("PROTOCOL"),
         UNKNOWN     ("");
         
         public String tag;
@@ -0,0 +1,34 @@
+package tmcsim.common;
+
+/**
+ * Running count, mean and maximum of latency samples (in ms).
+ * @author Jonathan Molina
+ */
+public class LatencyStats {
+    private long count = 0;
+    private long total = 0;
+    private long max   = 0;
+
+    public synchronized void record(long latency) {
+        latency = Math.max(0, latency);
+        count++;
+        total += latency;
+        max    = Math.max(max, latency);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized String toString() {
+        return count + " samples, mean " + getMean() + " ms, max " + max + " ms";
+    }
+}
@@ -0,0 +1,210 @@
+package tmcsim.common;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * ManagedObjectOutputStream is the ObjectOutputStream used for the long-lived
+ * sockets between the CAD Simulator, the CAD Clients and the
+ * ParamicsCommunicator.  An ObjectOutputStream keeps a reference to every
+ * object it has written, so that a repeated object can be sent as a
+ * back-reference.  The messages sent on these sockets are new Documents that
+ * are never repeated, so without a reset the table holds every Document sent
+ * for the whole session.  This stream resets itself according to a
+ * ResetPolicy after messages written with writeMessage(), which releases the
+ * written objects and adds a reset marker and the class descriptors of the
+ * next message to the stream.  The reader needs no changes.<br>
+ * <br>
+ * The number of messages, bytes and resets written are counted.
+ *
+ * @author Jonathan Molina
+ */
+public class ManagedObjectOutputStream extends ObjectOutputStream {
+
+    /** Property for the number of messages between resets. */
+    public static final String RESET_MESSAGES_PROPERTY = "StreamResetMessages";
+
+    /** Property for the number of bytes between resets. */
+    public static final String RESET_BYTES_PROPERTY = "StreamResetBytes";
+
+    /**
+     * ResetPolicy defines when the stream is reset: after a number of
+     * messages, or after a number of bytes, whichever comes first.  A value
+     * of 0 disables that limit.
+     */
+    public static class ResetPolicy {
+
+        /** Reset after every message. */
+        public static final ResetPolicy EVERY_MESSAGE = new ResetPolicy(1, 0);
+
+        /** Never reset. */
+        public static final ResetPolicy NEVER = new ResetPolicy(0, 0);
+
+        /** Reset after 64 messages or 1 MB. */
+        public static final ResetPolicy DEFAULT = new ResetPolicy(64, 1024 * 1024);
+
+        /** Number of messages between resets, or 0 for no limit. */
+        public final int messages;
+
+        /** Number of bytes between resets, or 0 for no limit. */
+        public final long bytes;
+
+        /**
+         * Constructor.
+         *
+         * @param messages Number of messages between resets, 0 for no limit.
+         * @param bytes Number of bytes between resets, 0 for no limit.
+         */
+        public ResetPolicy(int messages, long bytes) {
+            this.messages = messages;
+            this.bytes    = bytes;
+        }
+
+        /**
+         * Returns the policy defined by the StreamResetMessages and
+         * StreamResetBytes properties.  A property that is not set has the
+         * DEFAULT policy's value.
+         *
+         * @param props Application properties.
+         * @throws NumberFormatException if a property is not a number.
+         */
+        public static ResetPolicy fromProperties(Properties props) {
+            return new ResetPolicy(
+                    Integer.parseInt(props.getProperty(RESET_MESSAGES_PROPERTY,
+                            String.valueOf(DEFAULT.messages)).trim()),
+                    Long.parseLong(props.getProperty(RESET_BYTES_PROPERTY,
+                            String.valueOf(DEFAULT.bytes)).trim()));
+        }
+
+        public String toString() {
+            return "ResetPolicy[messages=" + messages + ", bytes=" + bytes + "]";
+        }
+    }
+
+    /**
+     * OutputStream that counts the bytes written to the underlying stream.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private volatile long count = 0;
+
+        public CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /** Counter of the bytes written to the underlying stream. */
+    private CountingOutputStream counter;
+
+    /** The reset policy. */
+    private ResetPolicy policy;
+
+    /** Number of messages written. */
+    private volatile long messagesWritten = 0;
+
+    /** Number of resets written. */
+    private volatile long resetCount = 0;
+
+    /** Number of messages written since the last reset. */
+    private int messagesSinceReset = 0;
+
+    /** Byte count at the last reset. */
+    private long bytesAtReset = 0;
+
+    /**
+     * Constructor.  The stream header is written to the underlying stream.
+     *
+     * @param out The underlying stream.
+     * @param policy The reset policy.
+     * @throws IOException if the stream header cannot be written.
+     */
+    public ManagedObjectOutputStream(OutputStream out, ResetPolicy policy) throws IOException {
+        this(new CountingOutputStream(out), policy);
+    }
+
+    private ManagedObjectOutputStream(CountingOutputStream counter, ResetPolicy policy)
+            throws IOException {
+        super(counter);
+        this.counter = counter;
+        this.policy  = policy;
+    }
+
+    /**
+     * Writes a message object and resets the stream if the policy requires.
+     * The stream is not flushed.
+     *
+     * @param message The message object.
+     * @throws IOException if the object cannot be written.
+     */
+    public void writeMessage(Object message) throws IOException {
+        writeObject(message);
+        messagesWritten++;
+        messagesSinceReset++;
+
+        if((policy.messages > 0 && messagesSinceReset >= policy.messages) ||
+                (policy.bytes > 0 && getBytesWritten() - bytesAtReset >= policy.bytes)) {
+            reset();
+        }
+    }
+
+    /**
+     * Resets the stream, releasing every object written.
+     */
+    public void reset() throws IOException {
+        super.reset();
+        resetCount++;
+        messagesSinceReset = 0;
+        bytesAtReset       = getBytesWritten();
+    }
+
+    /**
+     * Returns the reset policy.
+     */
+    public ResetPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of messages written with writeMessage().
+     */
+    public long getMessagesWritten() {
+        return messagesWritten;
+    }
+
+    /**
+     * Returns the number of bytes written to the underlying stream, including
+     * the stream header.  Bytes still buffered by this stream are not counted
+     * until the stream is flushed.
+     */
+    public long getBytesWritten() {
+        return counter.count;
+    }
+
+    /**
+     * Returns the number of times the stream has been reset.
+     */
+    public long getResetCount() {
+        return resetCount;
+    }
+
+    /**
+     * Returns a summary of the counters.
+     */
+    public String getStatistics() {
+        return messagesWritten + " messages, " + getBytesWritten() + " bytes, " +
+                resetCount + " resets";
+    }
+}
@@ -0,0 +1,367 @@
+package tmcsim.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.xml.serialize.OutputFormat;
+import org.apache.xml.serialize.XMLSerializer;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import tmcsim.common.CADProtocol.PARAMICS_ACTIONS;
+import tmcsim.common.CADProtocol.PARAMICS_COMM_TAGS;
+
+/**
+ * ParamicsFrame is a single message sent between the CAD Simulator and the
+ * remote ParamicsCommunicator: a RESET, a READER or WRITER registration, a
+ * READ_FILE message with the data read by a remote reader, or a WRITE_FILE
+ * message with the data to be written by a remote writer.<br>
+ * <br>
+ * A frame may be sent in one of two encodings.  The framed encoding is a
+ * length prefixed record written with a DataOutput:<br>
+ * <code>
+ * -----------------------------------------------------------------------------<br>
+ * int     Number of bytes that follow.<br>
+ * byte    Type (0 = RESET, 1 = READER, 2 = WRITER).<br>
+ * byte    Action (0 = none, 1 = REGISTER, 2 = UNREGISTER, 3 = READ_FILE, 4 = WRITE_FILE).<br>
+ * string  ID, interval, target file and message, each as an int byte count
+ *         (-1 for null) followed by the UTF-8 bytes.<br>
+ * -----------------------------------------------------------------------------<br>
+ * </code>
+ * The DOM encoding is the XML Document sent through an ObjectOutputStream by
+ * earlier versions of the communicators.  It is used when the remote side does
+ * not accept the framed protocol during the connect time negotiation.  The
+ * negotiation is a RESET Document with a PROTOCOL attribute of "FRAMED", which
+ * an earlier ParamicsCommunicator treats as a normal RESET.  A ParamicsCommunicator
+ * that supports the framed protocol responds with the same Document, after which
+ * both sides send frames.
+ *
+ * @author Jonathan Molina
+ */
+public class ParamicsFrame {
+
+    /** Value of the PROTOCOL attribute that requests the framed encoding. */
+    public static final String FRAMED_PROTOCOL = "FRAMED";
+
+    /** Largest accepted frame length, to guard against a corrupt stream. */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    /** Frame type codes, indexed by code. */
+    private static final PARAMICS_COMM_TAGS[] TYPES = {
+        PARAMICS_COMM_TAGS.RESET,
+        PARAMICS_COMM_TAGS.READER,
+        PARAMICS_COMM_TAGS.WRITER };
+
+    /** Frame action codes, indexed by code. */
+    private static final PARAMICS_ACTIONS[] ACTIONS = {
+        PARAMICS_ACTIONS.UNKNOWN,
+        PARAMICS_ACTIONS.REGISTER,
+        PARAMICS_ACTIONS.UNREGISTER,
+        PARAMICS_ACTIONS.READ_FILE,
+        PARAMICS_ACTIONS.WRITE_FILE };
+
+    /** Document builders, one per thread, used for the DOM encoding. */
+    private static ThreadLocal<DocumentBuilder> builders = new ThreadLocal<DocumentBuilder>() {
+        protected DocumentBuilder initialValue() {
+            try {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            } catch (ParserConfigurationException pce) {
+                throw new IllegalStateException(pce);
+            }
+        }
+    };
+
+    /** Message type (RESET, READER or WRITER). */
+    public PARAMICS_COMM_TAGS type;
+
+    /** Action performed, UNKNOWN for RESET. */
+    public PARAMICS_ACTIONS action;
+
+    /** Unique ID of the reader or writer. */
+    public String id = null;
+
+    /** Interval (in seconds) between reads, for reader registration. */
+    public String interval = null;
+
+    /** Target file, for reader and writer registration. */
+    public String targetFile = null;
+
+    /**
+     * Message data as XML text.  For a WRITE_FILE frame created from an
+     * Element, the text is created when first needed.
+     */
+    public String message = null;
+
+    /** Message data as an Element, for WRITE_FILE frames in the DOM encoding. */
+    public Element content = null;
+
+    /** Requested protocol of a RESET, null if none. */
+    public String protocol = null;
+
+    /**
+     * Constructor.
+     *
+     * @param newType Message type.
+     * @param newAction Action performed.
+     * @param newID Unique ID of the reader or writer.
+     */
+    public ParamicsFrame(PARAMICS_COMM_TAGS newType, PARAMICS_ACTIONS newAction,
+            String newID) {
+        type   = newType;
+        action = newAction;
+        id     = newID;
+    }
+
+    /** Returns a RESET frame. */
+    public static ParamicsFrame reset() {
+        return new ParamicsFrame(PARAMICS_COMM_TAGS.RESET, PARAMICS_ACTIONS.UNKNOWN, null);
+    }
+
+    /** Returns a frame registering a remote reader. */
+    public static ParamicsFrame registerReader(String id, String interval, String targetFile) {
+        ParamicsFrame frame = new ParamicsFrame(PARAMICS_COMM_TAGS.READER,
+                PARAMICS_ACTIONS.REGISTER, id);
+        frame.interval   = interval;
+        frame.targetFile = targetFile;
+        return frame;
+    }
+
+    /** Returns a frame registering a remote writer. */
+    public static ParamicsFrame registerWriter(String id, String targetFile) {
+        ParamicsFrame frame = new ParamicsFrame(PARAMICS_COMM_TAGS.WRITER,
+                PARAMICS_ACTIONS.REGISTER, id);
+        frame.targetFile = targetFile;
+        return frame;
+    }
+
+    /** Returns a frame with the data read by a remote reader. */
+    public static ParamicsFrame readFile(String id, String data) {
+        ParamicsFrame frame = new ParamicsFrame(PARAMICS_COMM_TAGS.READER,
+                PARAMICS_ACTIONS.READ_FILE, id);
+        frame.message = data;
+        return frame;
+    }
+
+    /** Returns a frame with the data to be written by a remote writer. */
+    public static ParamicsFrame writeFile(String id, Element data) {
+        ParamicsFrame frame = new ParamicsFrame(PARAMICS_COMM_TAGS.WRITER,
+                PARAMICS_ACTIONS.WRITE_FILE, id);
+        frame.content = data;
+        return frame;
+    }
+
+    /**
+     * Returns the message data as XML text.  An Element is serialized in the
+     * same format the ParamicsFileWriter writes to the target file.
+     *
+     * @return The message text, or null if there is no message.
+     * @throws IOException if the Element cannot be serialized.
+     */
+    public String getMessage() throws IOException {
+        if(message == null && content != null) {
+            message = toXML(content);
+        }
+        return message;
+    }
+
+    /**
+     * Writes this frame in the framed encoding.
+     *
+     * @param out Output to write to.
+     * @throws IOException if there is an error in writing.
+     */
+    public void write(DataOutput out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream body = new DataOutputStream(bytes);
+
+        body.writeByte(code(TYPES, type));
+        body.writeByte(code(ACTIONS, action));
+        writeString(body, id);
+        writeString(body, interval);
+        writeString(body, targetFile);
+        writeString(body, getMessage());
+        body.flush();
+
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    /**
+     * Reads a frame in the framed encoding.
+     *
+     * @param in Input to read from.
+     * @return The frame read.
+     * @throws IOException if there is an error in reading or the frame is invalid.
+     */
+    public static ParamicsFrame read(DataInput in) throws IOException {
+        int length = in.readInt();
+        if(length < 2 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid Paramics frame length " + length);
+        }
+
+        int typeCode   = in.readByte();
+        int actionCode = in.readByte();
+        if(typeCode < 0 || typeCode >= TYPES.length ||
+                actionCode < 0 || actionCode >= ACTIONS.length) {
+            throw new IOException("Invalid Paramics frame type " + typeCode +
+                    " or action " + actionCode);
+        }
+
+        ParamicsFrame frame = new ParamicsFrame(TYPES[typeCode],
+                ACTIONS[actionCode], readString(in));
+        frame.interval   = readString(in);
+        frame.targetFile = readString(in);
+        frame.message    = readString(in);
+        return frame;
+    }
+
+    /**
+     * Returns this frame in the DOM encoding.
+     *
+     * @return The XML Document for this frame.
+     */
+    public Document toDocument() {
+        Document doc = builders.get().newDocument();
+        Element root = doc.createElement(type.tag);
+
+        if(type == PARAMICS_COMM_TAGS.RESET) {
+            if(protocol != null) {
+                root.setAttribute(PARAMICS_COMM_TAGS.PROTOCOL.tag, protocol);
+            }
+        }
+        else {
+            root.setAttribute(PARAMICS_COMM_TAGS.ID.tag, id);
+            root.setAttribute(PARAMICS_COMM_TAGS.ACTION.tag, action.action);
+
+            if(interval != null) {
+                Element intElem = doc.createElement(PARAMICS_COMM_TAGS.INTERVAL.tag);
+                intElem.appendChild(doc.createTextNode(interval));
+                root.appendChild(intElem);
+            }
+            if(targetFile != null) {
+                Element fileElem = doc.createElement(PARAMICS_COMM_TAGS.TARGET_FILE.tag);
+                fileElem.appendChild(doc.createTextNode(targetFile));
+                root.appendChild(fileElem);
+            }
+            if(content != null) {
+                root.appendChild(doc.importNode(content, true));
+            }
+            else if(message != null) {
+                Element messageElem = doc.createElement(PARAMICS_COMM_TAGS.MESSAGE.tag);
+                messageElem.appendChild(doc.createTextNode(message));
+                root.appendChild(messageElem);
+            }
+        }
+
+        doc.appendChild(root);
+        return doc;
+    }
+
+    /**
+     * Returns the frame for a message received in the DOM encoding.
+     *
+     * @param doc Received XML Document.
+     * @return The frame for the Document.
+     */
+    public static ParamicsFrame fromDocument(Document doc) {
+        Element root = doc.getDocumentElement();
+        PARAMICS_COMM_TAGS type = PARAMICS_COMM_TAGS.fromString(root.getNodeName());
+
+        if(type != PARAMICS_COMM_TAGS.READER && type != PARAMICS_COMM_TAGS.WRITER) {
+            ParamicsFrame frame = new ParamicsFrame(type, PARAMICS_ACTIONS.UNKNOWN, null);
+            if(root.hasAttribute(PARAMICS_COMM_TAGS.PROTOCOL.tag)) {
+                frame.protocol = root.getAttribute(PARAMICS_COMM_TAGS.PROTOCOL.tag);
+            }
+            return frame;
+        }
+
+        ParamicsFrame frame = new ParamicsFrame(type, PARAMICS_ACTIONS.fromString(
+                root.getAttribute(PARAMICS_COMM_TAGS.ACTION.tag)),
+                root.getAttribute(PARAMICS_COMM_TAGS.ID.tag));
+
+        Node first = root.getChildNodes().item(0);
+        switch(frame.action) {
+            case REGISTER:
+                if(type == PARAMICS_COMM_TAGS.READER) {
+                    frame.interval   = first.getTextContent();
+                    frame.targetFile = root.getChildNodes().item(1).getTextContent();
+                }
+                else {
+                    frame.targetFile = first.getTextContent();
+                }
+                break;
+            case READ_FILE:
+                frame.message = first.getTextContent();
+                break;
+            case WRITE_FILE:
+                frame.content = (Element)first;
+                break;
+            default:
+                break;
+        }
+
+        return frame;
+    }
+
+    /**
+     * Serializes an Element in the format used for Paramics target files.
+     *
+     * @param elem Element to serialize.
+     * @return The XML text.
+     * @throws IOException if there is an error in serializing.
+     */
+    public static String toXML(Element elem) throws IOException {
+        StringWriter writer = new StringWriter(1024);
+
+        OutputFormat of = new OutputFormat("XML","ISO-8859-1",true);
+        of.setIndent(1);
+        of.setIndenting(true);
+
+        XMLSerializer serializer = new XMLSerializer(writer, of);
+        serializer.asDOMSerializer();
+        serializer.serialize(elem);
+
+        return writer.toString();
+    }
+
+    private static int code(Object[] codes, Object value) {
+        for(int i = 0; i < codes.length; i++) {
+            if(codes[i] == value)
+                return i;
+        }
+        return 0;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+        }
+        else {
+            byte[] bytes = value.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if(length < 0) {
+            return null;
+        }
+        if(length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid Paramics frame string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
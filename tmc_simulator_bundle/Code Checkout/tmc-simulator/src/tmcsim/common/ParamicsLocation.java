@@ -16,6 +16,8 @@ import java.io.Serializable;
 @SuppressWarnings("serial")
 public class ParamicsLocation implements Serializable {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Enumeration with XML tag names.
      * @author Matthew Cechini
@@ -52,6 +52,12 @@ public class ScriptException extends Exception {
      */
     public static final String INVALID_ENUM = "Invalid enumeration value.";
 
+    /**
+     * Exception error when a script file cannot be read or parsed.<br>
+     * Error Message: "Script file could not be loaded."
+     */
+    public static final String INVALID_SCRIPT = "Script file could not be loaded.";
+
     
     /**
      * Constructor accepting a String message.
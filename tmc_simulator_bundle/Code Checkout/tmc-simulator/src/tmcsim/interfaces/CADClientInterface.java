@@ -3,7 +3,10 @@ package tmcsim.interfaces;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 
+import java.util.Vector;
+
 import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.CADUpdate;
 
 /**This interface exists for CADClient to communicate with Coordinator through the RMI. RMI requires that objects sent through implement
  * an interface that extends Remote.
@@ -15,4 +18,11 @@ public interface CADClientInterface extends Remote  {
     
     public void refresh() throws RemoteException;
     
+    /**
+     * Receives the updates for the topics this client has subscribed to.
+     * @param updates coalesced updates, one per changed topic
+     * @throws RemoteException
+     */
+    public void publish(Vector<CADUpdate> updates) throws RemoteException;
+    
 }
@@ -4,14 +4,18 @@ import java.awt.List;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.LinkedList;
+import java.util.Vector;
 
 import javax.swing.JList;
 import javax.swing.table.DefaultTableModel;
 
 import tmcsim.client.cadclientgui.data.CADData;
+import tmcsim.client.cadclientgui.data.CADField;
+import tmcsim.client.cadclientgui.data.CADTopic;
 import tmcsim.client.cadclientgui.data.CardfileDataObject;
-import tmcsim.client.cadclientgui.data.CardfileList;
+import tmcsim.client.cadclientgui.data.CardfilePage;
 import tmcsim.client.cadclientgui.data.ChangeLog;
+import tmcsim.client.cadclientgui.data.TableDelta;
 import tmcsim.client.cadclientgui.enums.CADScriptTags.UNIT_TAGS;
 import tmcsim.client.cadclientgui.enums.CADScriptTags;
 import tmcsim.client.cadclientgui.enums.IncidentEnums;
@@ -37,6 +41,26 @@ public interface CADInterface extends Remote{
     public void unregisterForCallback(CADClientInterface client)
         throws RemoteException;
     
+    /**
+     * Subscribes a remote CADClient to the topics. Changes to the topics are
+     * pushed to the client through CADClientInterface.publish instead of the
+     * client polling for them.
+     * @param client Interface to the CADClient for callback RMI
+     * @param topics the topics to subscribe to
+     * @throws RemoteException if there is an error in the RMI communication.
+     */
+    public void subscribe(CADClientInterface client, Vector<CADTopic> topics)
+        throws RemoteException;
+    
+    /**
+     * Unsubscribes a remote CADClient from the topics.
+     * @param client Interface to the CADClient for callback RMI
+     * @param topics the topics to unsubscribe from
+     * @throws RemoteException if there is an error in the RMI communication.
+     */
+    public void unsubscribe(CADClientInterface client, Vector<CADTopic> topics)
+        throws RemoteException;
+    
     /**
      * Checks the CADData for an existing incident with id
      * @param id the incident id
@@ -60,6 +84,17 @@ public interface CADInterface extends Remote{
      */
     public DefaultTableModel getCadDataTable(TABLE tag) throws RemoteException;
     
+    /**
+     * Returns the rows of a CADData table that were inserted, updated or deleted
+     * since the specified version. Clients apply the delta to a long-lived
+     * DeltaTableModel instead of replacing their model on every refresh.
+     * @param tag a CADDataEnums tag
+     * @param sinceVersion the last version the client has applied, 0 for the full table
+     * @return the changes since sinceVersion
+     * @throws RemoteException
+     */
+    public TableDelta getCadDataTableDelta(TABLE tag, long sinceVersion) throws RemoteException;
+    
     /**
     * Returns the specified incident's table based on the tag.
     * @param tag a CADDataEnums tag
@@ -239,9 +274,17 @@ public interface CADInterface extends Remote{
     public String getCadDataIncTimes(INC_TIMES tag, int incidentId) throws RemoteException; 
     
     /**
-     * Returns a CardfileList matching the tag.
+     * Returns a page of the Cardfile list matching the tag, the objects from
+     * offset up to offset + limit in name order, or null if the list is still
+     * at the parameter version, so the pages the caller holds are current.
+     * @param tag the Cardfile list
+     * @param offset position of the first object of the page
+     * @param limit maximum number of objects in the page
+     * @param version version of the pages the caller holds, or -1 if none
+     * @throws RemoteException
      */
-    public CardfileList getCardfileList(CARDFILE tag) throws RemoteException;
+    public CardfilePage getCardfilePage(CARDFILE tag, int offset, int limit, long version)
+            throws RemoteException;
     
     /**
      * Receives the fields of the ChangeLog in Cardfile.java and uses those fields
@@ -303,8 +346,58 @@ public interface CADInterface extends Remote{
      */
     public void setCadDataIncidentStatus(int incidentId, IncidentEnums status) throws RemoteException;
     
+    /**
+     * Sets several fields of an incident in one call. The fields are applied
+     * together, and subscribed clients are notified once.
+     * @param incidentId the incident's ID to look up
+     * @param fields the fields to set, tagged with CADDataEnums incident tags
+     * @throws RemoteException
+     */
+    public void setCadDataIncFields(int incidentId, Vector<CADField> fields) throws RemoteException;
+    
+    /**
+     * Reads several fields of an incident in one call.
+     * @param incidentId the incident's ID to look up
+     * @param fields the fields to read, tagged with CADDataEnums incident tags
+     * @return the fields in the same order, with their values
+     * @throws RemoteException
+     */
+    public Vector<CADField> getCadDataIncFields(int incidentId, Vector<CADField> fields) throws RemoteException;
+    
+    /**
+     * Sets several fields of a unit in one call. The fields are applied
+     * together, and subscribed clients are notified once.
+     * @param unitNum the unitNum to look up
+     * @param fields the fields to set, tagged with CADScriptTags.UNIT_TAGS
+     * @throws RemoteException
+     */
+    public void setCadDataUnitFields(String unitNum, Vector<CADField> fields) throws RemoteException;
+    
+    /**
+     * Reads several fields of a unit in one call.
+     * @param unitNum the unitNum to look up
+     * @param fields the fields to read, tagged with CADScriptTags.UNIT_TAGS
+     * @return the fields in the same order, with their values. UNIT_STATUS
+     * is returned as a UnitStatusEnums.
+     * @throws RemoteException
+     */
+    public Vector<CADField> getCadDataUnitFields(String unitNum, Vector<CADField> fields) throws RemoteException;
+    
+    /**
+     * Reads one field of several units in one call.
+     * @param unitNums the unitNums to look up
+     * @param tag a CADScriptTags tag
+     * @return the values in the same order as unitNums, null for a unit that
+     * does not exist. The values are strings, except for UNIT_STATUS, whose
+     * values are UnitStatusEnums.
+     * @throws RemoteException
+     */
+    public Vector<Object> getCadDataUnitValues(Vector<String> unitNums, UNIT_TAGS tag) throws RemoteException;
+    
     /** 
-     * Returns a LinkedList containing entries that match the search string.
+     * Returns a LinkedList containing entries that match the search string,
+     * best match first. Each word of the search matches a word of an entry
+     * that equals or starts with it.
      * @param search the string entry to be searched
      * @return linked list of CardfileDataObjects matching search
      */
@@ -7,6 +7,7 @@ import java.rmi.RemoteException;
 import tmcsim.cadmodels.CMSInfo;
 import tmcsim.client.cadclientgui.data.Incident;
 import tmcsim.common.ScriptException;
+import tmcsim.common.CADEnums.CLOCK_MODE;
 
 /**
  * RMI Interface providing methods for control of the simulation data.  
@@ -77,6 +78,19 @@ public interface SimulationControlInterface extends Remote {
      * @throws RemoteException
      */
     public void gotoSimulationTime(long time) throws RemoteException;
+
+    /**
+     * Change the clock used to advance simulation time.  The simulation may
+     * run in real time, at a multiple of real time, or as fast as possible,
+     * jumping directly to the next scheduled event.  Audio is only played
+     * when the clock runs in real time.
+     *
+     * @param mode The new clock mode.
+     * @param acceleration Number of simulation seconds per real second, used
+     * by the ACCELERATED mode.
+     * @throws RemoteException if there is an error in the RMI communication.
+     */
+    public void setClockMode(CLOCK_MODE mode, double acceleration) throws RemoteException;
     
     /**
      * Loads a new script into the simulation.  Any existing script data
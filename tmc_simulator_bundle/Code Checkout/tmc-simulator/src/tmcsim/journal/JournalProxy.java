@@ -0,0 +1,126 @@
+package tmcsim.journal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import tmcsim.cadsimulator.managers.SimulationClock.ClockTarget;
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+
+
+/**
+ * JournalProxy appends a CALL record to a SessionJournal for each call made
+ * through an interface that changes the simulation, before calling the
+ * target object.  The CAD Simulator binds the Coordinator for RMI through
+ * such a proxy, so the calls made by the Simulation Manager and the CAD
+ * Clients can be replayed without changing the Coordinator's methods.<br>
+ * <br>
+ * Calls that only read the simulation, registrations for callbacks and
+ * subscriptions, and the connection to Paramics are not journaled, as they
+ * do not change the simulation being replayed.  A loaded script is journaled
+ * with its contents by the Coordinator, so loadScriptFile() is not journaled
+ * here.
+ *
+ * @author Jonathan Molina
+ */
+public class JournalProxy implements InvocationHandler {
+
+    /** Prefixes of the names of methods that are not journaled. */
+    private static final String[] EXCLUDED_PREFIXES = {
+        "get", "check", "register", "unregister", "subscribe", "unsubscribe"
+    };
+
+    /** Names of other methods that are not journaled. */
+    private static final Set<String> EXCLUDED_METHODS = new HashSet<String>(
+            Arrays.asList("connectToParamics", "disconnectFromParamics",
+                    "loadParamicsNetwork", "loadScriptFile"));
+
+    /** The object whose methods are called. */
+    private Object target;
+
+    /** Journal the calls are appended to. */
+    private SessionJournal journal;
+
+    /** Source of the simulation time of each call. */
+    private ClockTarget clock;
+
+    /**
+     * Returns a proxy of the target that journals the calls made through the
+     * parameter interface.
+     *
+     * @param iface Interface implemented by the proxy.
+     * @param target The object whose methods are called.
+     * @param journal Journal the calls are appended to.
+     * @param clock Source of the simulation time of each call.
+     * @return The proxy.
+     */
+    public static <T> T wrap(Class<T> iface, T target, SessionJournal journal,
+            ClockTarget clock) {
+
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(),
+                new Class<?>[] { iface }, new JournalProxy(target, journal, clock)));
+    }
+
+    /**
+     * Returns whether calls to the parameter method are journaled.
+     *
+     * @param method Method of the proxied interface.
+     * @return True if the method's calls are journaled.
+     */
+    public static boolean isJournaled(Method method) {
+        String name = method.getName();
+
+        for(String prefix : EXCLUDED_PREFIXES) {
+            if(name.startsWith(prefix))
+                return false;
+        }
+        return !EXCLUDED_METHODS.contains(name);
+    }
+
+    private JournalProxy(Object target, SessionJournal journal, ClockTarget clock) {
+        this.target  = target;
+        this.journal = journal;
+        this.clock   = clock;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        if(method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+
+        if(isJournaled(method)) {
+            journal.append(RECORD_TYPE.CALL, clock.getCurrentSimTime(),
+                    method.getName(), method.getParameterTypes(),
+                    args == null ? new Object[0] : args);
+        }
+
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException ite) {
+            throw ite.getCause();
+        }
+    }
+
+    /**
+     * Implements the Object methods so proxies compare by identity.
+     */
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        if(name.equals("equals")) {
+            return proxy == args[0];
+        }
+        else if(name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        else {
+            return "JournalProxy[" + journal.getFile() + "]";
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package tmcsim.journal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+
+/**
+ * JournalReader reads the records of a SessionJournal file in order.  The
+ * file header is checked when the reader is opened.  Each record's length
+ * and CRC are checked as it is read, and reading stops at the first record
+ * that is incomplete or corrupt, such as a record whose write was cut short
+ * when the CAD Simulator stopped.  The records before it are valid, and
+ * getValidLength() returns the length of the file they occupy.
+ *
+ * @author Jonathan Molina
+ */
+public class JournalReader implements Closeable {
+
+    /** Error Logger. */
+    private static Logger journalLogger = Logger.getLogger("tmcsim.journal");
+
+    /** The journal file. */
+    private File journalFile;
+
+    /** Stream reading the file, or null once reading has stopped. */
+    private DataInputStream in;
+
+    /** Length (bytes) of the header and the valid records read. */
+    private long validLength = 0;
+
+    /**
+     * Constructor.  Opens the file and reads its header.  An empty file is
+     * read as a journal with no records.
+     *
+     * @param file The journal file.
+     * @throws IOException if the file cannot be read or is not a session journal.
+     */
+    public JournalReader(File file) throws IOException {
+        journalFile = file;
+        in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file), 64 * 1024));
+
+        if(file.length() == 0) {
+            close();
+            return;
+        }
+
+        try {
+            int magic   = in.readInt();
+            int version = in.readShort();
+
+            if(magic != SessionJournal.MAGIC || version != SessionJournal.VERSION) {
+                throw new IOException(file + " is not a version " +
+                        SessionJournal.VERSION + " session journal.");
+            }
+            validLength = SessionJournal.HEADER_BYTES;
+        }
+        catch (IOException ioe) {
+            close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Returns the next record of the journal.
+     *
+     * @return The next record, or null at the end of the journal or at the
+     * first incomplete or corrupt record.
+     * @throws IOException if the file cannot be read.
+     */
+    public JournalRecord next() throws IOException {
+        if(in == null)
+            return null;
+
+        int length;
+        try {
+            length = in.readInt();
+        }
+        catch (EOFException eofe) {
+            close();
+            return null;
+        }
+
+        if(length < SessionJournal.RECORD_FIELD_BYTES ||
+                length > SessionJournal.MAX_RECORD_BYTES) {
+            return stop("a record length of " + length);
+        }
+
+        byte[] body = new byte[length];
+        int crc;
+        try {
+            in.readFully(body);
+            crc = in.readInt();
+        }
+        catch (EOFException eofe) {
+            return stop("an incomplete record");
+        }
+
+        CRC32 check = new CRC32();
+        check.update(body);
+        if((int)check.getValue() != crc) {
+            return stop("a record with an incorrect CRC");
+        }
+
+        ByteBuffer fields = ByteBuffer.wrap(body);
+        long sequence = fields.getLong();
+        long simTime  = fields.getLong();
+        long wallTime = fields.getLong();
+        RECORD_TYPE type = RECORD_TYPE.fromCode(fields.get());
+
+        if(type == null) {
+            return stop("a record of unknown type");
+        }
+
+        validLength += 4 + length + 4;
+
+        return new JournalRecord(sequence, simTime, wallTime, type,
+                Arrays.copyOfRange(body, fields.position(), length));
+    }
+
+    /**
+     * Returns the length (bytes) of the journal's header and of the valid
+     * records read so far.
+     *
+     * @return Valid length of the file.
+     */
+    public long getValidLength() {
+        return validLength;
+    }
+
+    public void close() throws IOException {
+        if(in != null) {
+            in.close();
+            in = null;
+        }
+    }
+
+    /**
+     * Stop reading at an incomplete or corrupt record.
+     */
+    private JournalRecord stop(String problem) throws IOException {
+        journalLogger.logp(Level.WARNING, "JournalReader", "next",
+                "Journal " + journalFile + " ends with " + problem +
+                " at byte " + validLength + ".");
+        close();
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package tmcsim.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * JournalRecord is one record of a SessionJournal.  Each record has the
+ * journal's sequence number, the simulation time and wall clock time at which
+ * it was appended, its RECORD_TYPE, and a payload holding the record's
+ * arguments serialized in a single object stream.  The payload is serialized
+ * when the record is created, so later changes to the arguments do not
+ * change the record.  The arguments of each type are:<br>
+ * <ul>
+ * <li>CALL - the method name (String), its parameter types (Class[]) and the
+ *     call's arguments (Object[]).</li>
+ * <li>SCRIPT - the script file name (String) and the file's contents (byte[]).</li>
+ * <li>EVENT - the incident log number (Integer) and the completed IncidentEvent.</li>
+ * <li>TERMINAL - the CAD Client's address (String) and the received command (XML String).</li>
+ * </ul>
+ *
+ * @author Jonathan Molina
+ */
+public class JournalRecord {
+
+    /**
+     * Enumeration of the types of journal records, with the code written to
+     * the journal for each.
+     */
+    public static enum RECORD_TYPE {
+        /** A call that changed the simulation, replayed on the Coordinator. */
+        CALL     ((byte)1),
+        /** A script loaded into the simulation, replayed from its contents. */
+        SCRIPT   ((byte)2),
+        /** An IncidentEvent that completed, kept for review. */
+        EVENT    ((byte)3),
+        /** A command received from a CAD terminal, kept for review. */
+        TERMINAL ((byte)4);
+
+        public final byte code;
+
+        private RECORD_TYPE(byte c) {
+            code = c;
+        }
+
+        /**
+         * Returns the type with the parameter code.
+         *
+         * @param code Code written to the journal.
+         * @return The RECORD_TYPE, or null if no type has the code.
+         */
+        public static RECORD_TYPE fromCode(byte code) {
+            for(RECORD_TYPE type : values()) {
+                if(type.code == code)
+                    return type;
+            }
+            return null;
+        }
+    }
+
+    /** Sequence number of the record in its journal. */
+    private final long sequence;
+
+    /** Simulation time (in seconds) at which the record was appended. */
+    private final long simTime;
+
+    /** Wall clock time (in milliseconds) at which the record was appended. */
+    private final long wallTime;
+
+    /** Type of the record. */
+    private final RECORD_TYPE type;
+
+    /** Serialized arguments of the record. */
+    private final byte[] payload;
+
+    /**
+     * Constructor.
+     *
+     * @param sequence Sequence number of the record.
+     * @param simTime Simulation time (in seconds) of the record.
+     * @param wallTime Wall clock time (in milliseconds) of the record.
+     * @param type Type of the record.
+     * @param payload Serialized arguments of the record.
+     */
+    public JournalRecord(long sequence, long simTime, long wallTime,
+            RECORD_TYPE type, byte[] payload) {
+        this.sequence = sequence;
+        this.simTime  = simTime;
+        this.wallTime = wallTime;
+        this.type     = type;
+        this.payload  = payload;
+    }
+
+    /**
+     * Serializes record arguments into a payload.
+     *
+     * @param args Arguments of the record, each Serializable.
+     * @return The payload.
+     * @throws IOException if an argument cannot be serialized.
+     */
+    public static byte[] encodeArguments(Object... args) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(args);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the record's arguments, deserialized from the payload.
+     *
+     * @return The arguments, in the order they were appended.
+     * @throws IOException if the payload cannot be deserialized.
+     */
+    public Object[] getArguments() throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload));
+        try {
+            return (Object[])in.readObject();
+        }
+        catch (ClassNotFoundException cnfe) {
+            throw new IOException("Unknown class in journal record " + sequence + ".", cnfe);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getSimTime() {
+        return simTime;
+    }
+
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    public RECORD_TYPE getType() {
+        return type;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public String toString() {
+        return "JournalRecord[" + sequence + " " + type + " t=" + simTime + "]";
+    }
+}
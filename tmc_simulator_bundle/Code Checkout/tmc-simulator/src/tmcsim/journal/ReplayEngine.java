@@ -0,0 +1,341 @@
+package tmcsim.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tmcsim.cadsimulator.managers.SimulationClock;
+import tmcsim.cadsimulator.managers.SimulationClock.ClockTarget;
+import tmcsim.common.CADEnums.CLOCK_MODE;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
+
+/**
+ * ReplayEngine replays a SessionJournal, driving the Coordinator through the
+ * session's calls in their original order and at their original simulation
+ * times, so a session can be reviewed or a problem reproduced.<br>
+ * <br>
+ * The engine advances the simulation time itself.  The clock returned by
+ * getClock() must be set as the SimulationControlManager's clock before the
+ * replay is run; it only records whether the simulation has been started,
+ * so the journaled start and pause calls still start and stop the replayed
+ * simulation.  Before each record, the running simulation is advanced to
+ * the record's simulation time, waiting for each tick to be processed.  At
+ * a speed of 0 the time jumps from one scheduled event to the next, as the
+ * AS_FAST_AS_POSSIBLE clock does; otherwise it advances one second at a
+ * time, paced at the speed's multiple of real time.<br>
+ * <br>
+ * CALL records are replayed by calling the named method on the target.
+ * Calls that change the clock are not replayed, so the replay keeps its
+ * own clock.  SCRIPT records are replayed by loading the journaled contents
+ * from a temporary file.  EVENT and TERMINAL records are counted but not
+ * replayed; the events are completed again by the replayed simulation, and
+ * the commands' effects are journaled as calls.  A gap in the sequence
+ * numbers is logged and counted as missing records.
+ *
+ * @author Jonathan Molina
+ */
+public class ReplayEngine implements Runnable {
+
+    /** Error Logger. */
+    private static Logger journalLogger = Logger.getLogger("tmcsim.journal");
+
+    /** Name of the method that changes the clock, which is not replayed. */
+    private static final String SET_CLOCK_MODE = "setClockMode";
+
+    /** Name of the method that loads a script file. */
+    private static final String LOAD_SCRIPT_FILE = "loadScriptFile";
+
+    /** The journal file. */
+    private File journalFile;
+
+    /** Object the journaled calls are made on. */
+    private Object target;
+
+    /** Target whose simulation time is advanced. */
+    private ClockTarget time;
+
+    /** Simulation seconds per real second, 0 for as fast as possible. */
+    private double speed;
+
+    /** Clock set as the simulation clock during the replay. */
+    private ReplayClock clock = new ReplayClock();
+
+    /** Methods of the target, indexed by name and parameter types. */
+    private HashMap<String, Method> methods = new HashMap<String, Method>();
+
+    /** Flag set to stop the replay. */
+    private volatile boolean stopped = false;
+
+    /** Time (ns) the previous paced step was made, or 0 if none has been. */
+    private long lastStepNanos = 0;
+
+    private long lastSequence      = 0;
+    private long recordsReplayed   = 0;
+    private long recordsMissing    = 0;
+    private long callsFailed       = 0;
+    private long eventsJournaled   = 0;
+    private long terminalCommands  = 0;
+
+    /** Time taken to replay each record. */
+    private Timer recordTimer;
+
+    /**
+     * Constructor.
+     *
+     * @param journalFile The journal file.
+     * @param target Object the journaled calls are made on, the Coordinator.
+     * @param time Target whose simulation time is advanced, the
+     *        SimulationControlManager.
+     * @param speed Simulation seconds per real second, 0 to replay as fast as
+     *        possible.
+     */
+    public ReplayEngine(File journalFile, Object target, ClockTarget time, double speed) {
+        this.journalFile = journalFile;
+        this.target      = target;
+        this.time        = time;
+        this.speed       = Math.max(0, speed);
+
+        recordTimer = MetricsRegistry.getInstance().timer("ReplayEngine.record");
+    }
+
+    /**
+     * Returns the clock to be set as the simulation clock during the replay.
+     *
+     * @return The replay clock.
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replays the journal from its first record to its last.
+     */
+    public void run() {
+        long start = System.nanoTime();
+
+        JournalReader reader = null;
+        try {
+            reader = new JournalReader(journalFile);
+
+            JournalRecord record;
+            while(!stopped && (record = reader.next()) != null) {
+
+                if(record.getSequence() > lastSequence + 1) {
+                    long missing = record.getSequence() - lastSequence - 1;
+                    recordsMissing += missing;
+
+                    journalLogger.logp(Level.WARNING, "ReplayEngine", "run",
+                            missing + " records missing before record " +
+                            record.getSequence() + ".");
+                }
+                lastSequence = record.getSequence();
+
+                advanceTo(record.getSimTime());
+
+                long recordStart = System.nanoTime();
+                replay(record);
+                recordTimer.recordSince(recordStart);
+
+                recordsReplayed++;
+            }
+        }
+        catch (IOException ioe) {
+            journalLogger.logp(Level.SEVERE, "ReplayEngine", "run",
+                    "Unable to read journal " + journalFile + ".", ioe);
+        }
+        finally {
+            try {
+                if(reader != null)
+                    reader.close();
+            }
+            catch (IOException ioe) {
+                journalLogger.logp(Level.WARNING, "ReplayEngine", "run",
+                        "Unable to close journal " + journalFile + ".", ioe);
+            }
+        }
+
+        journalLogger.logp(Level.INFO, "ReplayEngine", "run", "Replayed " +
+                recordsReplayed + " records of " + journalFile + " in " +
+                (System.nanoTime() - start) / 1000000 + "ms: " + callsFailed +
+                " failed, " + recordsMissing + " missing, " + eventsJournaled +
+                " events, " + terminalCommands + " terminal commands.");
+    }
+
+    /**
+     * Stops the replay after the current record.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /** Returns the number of records replayed. */
+    public long getRecordsReplayed() {
+        return recordsReplayed;
+    }
+
+    /** Returns the number of records missing from the sequence. */
+    public long getRecordsMissing() {
+        return recordsMissing;
+    }
+
+    /** Returns the number of CALL and SCRIPT records that could not be replayed. */
+    public long getCallsFailed() {
+        return callsFailed;
+    }
+
+    /** Returns the number of EVENT records read. */
+    public long getEventsJournaled() {
+        return eventsJournaled;
+    }
+
+    /** Returns the number of TERMINAL records read. */
+    public long getTerminalCommands() {
+        return terminalCommands;
+    }
+
+    /**
+     * Advance the running simulation to the parameter time.  The time is not
+     * advanced while the replayed simulation is not started.
+     */
+    private void advanceTo(long simTime) {
+        while(clock.running && !stopped) {
+            long now = time.getCurrentSimTime();
+            if(now >= simTime)
+                break;
+
+            long next = now + 1;
+            if(speed > 0) {
+                pace(next - now);
+            }
+            else {
+                next = time.getNextEventTime(now);
+                if(next <= now || next > simTime)
+                    next = simTime;
+            }
+
+            time.advanceTo(next);
+            time.awaitTick(next);
+        }
+    }
+
+    /**
+     * Wait until the real time of the parameter number of simulation seconds
+     * has passed since the previous step.
+     */
+    private void pace(long seconds) {
+        long now = System.nanoTime();
+
+        if(lastStepNanos != 0) {
+            long wait = lastStepNanos + Math.round(seconds * 1e9 / speed) - now;
+            if(wait > 0) {
+                try {
+                    Thread.sleep(wait / 1000000, (int)(wait % 1000000));
+                }
+                catch (InterruptedException ie) {
+                    stopped = true;
+                }
+            }
+        }
+        lastStepNanos = System.nanoTime();
+    }
+
+    /**
+     * Replay one record.
+     */
+    private void replay(JournalRecord record) {
+        try {
+            Object[] args;
+
+            switch(record.getType()) {
+                case CALL:
+                    args = record.getArguments();
+                    if(!SET_CLOCK_MODE.equals(args[0])) {
+                        call((String)args[0], (Class<?>[])args[1], (Object[])args[2]);
+                    }
+                    break;
+                case SCRIPT:
+                    args = record.getArguments();
+                    loadScript((String)args[0], (byte[])args[1]);
+                    break;
+                case EVENT:
+                    eventsJournaled++;
+                    break;
+                case TERMINAL:
+                    terminalCommands++;
+                    break;
+            }
+        }
+        catch (Exception e) {
+            callsFailed++;
+
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            journalLogger.logp(Level.WARNING, "ReplayEngine", "replay",
+                    "Unable to replay " + record + ".", cause);
+        }
+    }
+
+    /**
+     * Call a method on the target.
+     */
+    private void call(String name, Class<?>[] types, Object[] args) throws Exception {
+        String key = name + Arrays.toString(types);
+
+        Method method = methods.get(key);
+        if(method == null) {
+            method = target.getClass().getMethod(name, types);
+            methods.put(key, method);
+        }
+
+        method.invoke(target, args);
+    }
+
+    /**
+     * Load a journaled script from a temporary file with the same extension.
+     */
+    private void loadScript(String name, byte[] contents) throws Exception {
+        int dot = name.lastIndexOf('.');
+        File script = File.createTempFile("replay", dot < 0 ? null : name.substring(dot));
+
+        try {
+            Files.write(script.toPath(), contents);
+            call(LOAD_SCRIPT_FILE, new Class<?>[] { File.class }, new Object[] { script });
+        }
+        finally {
+            script.delete();
+        }
+    }
+
+    /**
+     * Clock set as the simulation clock during the replay.  It only records
+     * whether the simulation is started, as the engine advances the time.
+     */
+    private class ReplayClock extends SimulationClock {
+
+        /** Flag to designate whether the simulation is started. */
+        private volatile boolean running = false;
+
+        public void start(ClockTarget theTarget) {
+            this.target = theTarget;
+            running = true;
+        }
+
+        public void stop() {
+            running = false;
+        }
+
+        public CLOCK_MODE getMode() {
+            return speed > 0 ? CLOCK_MODE.ACCELERATED : CLOCK_MODE.AS_FAST_AS_POSSIBLE;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package tmcsim.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import tmcsim.journal.JournalRecord.RECORD_TYPE;
+import tmcsim.metrics.Counter;
+import tmcsim.metrics.Gauge;
+import tmcsim.metrics.Histogram;
+import tmcsim.metrics.MetricsRegistry;
+import tmcsim.metrics.Timer;
+
+/**
+ * SessionJournal is an append-only binary record of a training session, from
+ * which the session can be replayed by the ReplayEngine.  Records are
+ * numbered in the order they are appended; the sequence continues when a
+ * journal file is opened again, so a gap in the sequence shows that records
+ * were lost.<br>
+ * <br>
+ * The append() method only serializes the record and queues it, so the
+ * threads running the simulation never wait for the disk.  A writer thread
+ * takes all queued records, writes them with a single write, and forces
+ * them to the disk once for the whole batch (group commit).  If the queue is
+ * full, the record is dropped and counted rather than blocking the caller.
+ * When a journal file is opened, an incomplete or corrupt record at its end
+ * is removed and new records are appended after the last valid record.<br>
+ * <br>
+ * The file begins with the MAGIC number and the VERSION.  Each record is
+ * written as:<br>
+ * <code>
+ * int    length of the following fields and payload<br>
+ * long   sequence number<br>
+ * long   simulation time (seconds)<br>
+ * long   wall clock time (ms)<br>
+ * byte   RECORD_TYPE code<br>
+ * byte[] payload<br>
+ * int    CRC32 of the fields and payload<br>
+ * </code><br>
+ * The time taken to append and to commit records, the number of records in
+ * each commit, the queued records, and the dropped records are recorded in
+ * the "SessionJournal" metrics.
+ *
+ * @author Jonathan Molina
+ */
+public class SessionJournal {
+
+    /** Number at the start of a journal file, "TMCJ". */
+    public static final int MAGIC = 0x544D434A;
+
+    /** Version of the journal file format. */
+    public static final short VERSION = 1;
+
+    /** Length (bytes) of the file header. */
+    static final int HEADER_BYTES = 6;
+
+    /** Length (bytes) of a record's fields before its payload. */
+    static final int RECORD_FIELD_BYTES = 25;
+
+    /** Maximum length (bytes) of a record's fields and payload. */
+    static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    /** Default number of records that may wait to be written. */
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    /** Maximum number of records written in one commit. */
+    private static final int MAX_BATCH = 4096;
+
+    /** Error Logger. */
+    private static Logger journalLogger = Logger.getLogger("tmcsim.journal");
+
+    /** Record queued by close() to stop the writer thread. */
+    private static final JournalRecord CLOSE = new JournalRecord(0, 0, 0, null, null);
+
+    /** The journal file. */
+    private File journalFile;
+
+    /** Channel writing the journal file. */
+    private FileChannel channel;
+
+    /** Records waiting to be written. */
+    private ArrayBlockingQueue<JournalRecord> queue;
+
+    /** Thread writing the queued records. */
+    private Thread writer;
+
+    /** Buffer the records of a commit are encoded into. */
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    /** Sequence number of the latest record appended. */
+    private long lastSequence;
+
+    /** Sequence number of the latest record queued. */
+    private volatile long lastQueued;
+
+    /** Sequence number of the latest record forced to the disk. */
+    private volatile long lastCommitted;
+
+    /** Flag set once the journal is closed or cannot be written. */
+    private volatile boolean closed = false;
+
+    /** Lock notified when records are committed. */
+    private final Object commitLock = new Object();
+
+    private Timer appendTimer;
+    private Timer commitTimer;
+    private Histogram batchSize;
+    private Counter droppedCounter;
+
+    /**
+     * Constructor.  Opens a journal with the default capacity.
+     *
+     * @param file The journal file, created if it does not exist.
+     * @throws IOException if the file cannot be opened or is not a session journal.
+     */
+    public SessionJournal(File file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.  Opens the journal file, removing any incomplete record at
+     * its end, and starts the writer thread.
+     *
+     * @param file The journal file, created if it does not exist.
+     * @param capacity Number of records that may wait to be written.
+     * @throws IOException if the file cannot be opened or is not a session journal.
+     */
+    public SessionJournal(File file, int capacity) throws IOException {
+        journalFile = file;
+        queue       = new ArrayBlockingQueue<JournalRecord>(capacity);
+
+        long validLength = 0;
+        if(file.exists()) {
+            JournalReader reader = new JournalReader(file);
+            try {
+                for(JournalRecord record = reader.next(); record != null; record = reader.next()) {
+                    lastSequence = record.getSequence();
+                }
+                validLength = reader.getValidLength();
+            }
+            finally {
+                reader.close();
+            }
+        }
+        lastQueued    = lastSequence;
+        lastCommitted = lastSequence;
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+
+        if(validLength == 0) {
+            buffer.putInt(MAGIC).putShort(VERSION).flip();
+            writeBuffer();
+            channel.force(true);
+        }
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        appendTimer    = metrics.timer("SessionJournal.append");
+        commitTimer    = metrics.timer("SessionJournal.commit");
+        batchSize      = metrics.histogram("SessionJournal.batchSize");
+        droppedCounter = metrics.counter("SessionJournal.dropped");
+
+        metrics.gauge("SessionJournal.queueDepth", new Gauge() {
+            public long getValue() {
+                return queue.size();
+            }
+        });
+
+        writer = new Thread(new Runnable() {
+            public void run() {
+                writeRecords();
+            }
+        }, "SessionJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Appends a record to the journal.  The arguments are serialized before
+     * this method returns; the record is written by the writer thread.
+     *
+     * @param type Type of the record.
+     * @param simTime Current simulation time (in seconds).
+     * @param args Arguments of the record, each Serializable.
+     * @return Sequence number of the record, or -1 if it was dropped.
+     */
+    public long append(RECORD_TYPE type, long simTime, Object... args) {
+        long start = System.nanoTime();
+
+        byte[] payload;
+        try {
+            payload = JournalRecord.encodeArguments(args);
+        }
+        catch (IOException ioe) {
+            journalLogger.logp(Level.WARNING, "SessionJournal", "append",
+                    "Unable to serialize a " + type + " record.", ioe);
+            droppedCounter.increment();
+            return -1;
+        }
+
+        long sequence = -1;
+        synchronized(this) {
+            if(!closed) {
+                JournalRecord record = new JournalRecord(lastSequence + 1,
+                        simTime, System.currentTimeMillis(), type, payload);
+
+                if(queue.offer(record)) {
+                    sequence   = ++lastSequence;
+                    lastQueued = sequence;
+                }
+                else {
+                    // the number is skipped, so the gap shows a record was lost
+                    ++lastSequence;
+                }
+            }
+        }
+
+        if(sequence < 0)
+            droppedCounter.increment();
+
+        appendTimer.recordSince(start);
+        return sequence;
+    }
+
+    /**
+     * Waits until the records appended before this call have been forced to
+     * the disk, or the journal can no longer be written.
+     */
+    public void flush() {
+        long target = lastQueued;
+
+        synchronized(commitLock) {
+            while(lastCommitted < target && writer.isAlive()) {
+                try {
+                    commitLock.wait(100);
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the queued records and closes the journal file.  Records
+     * appended after the journal is closed are dropped.
+     */
+    public void close() {
+        synchronized(this) {
+            if(closed)
+                return;
+            closed = true;
+        }
+
+        try {
+            while(writer.isAlive() && !queue.offer(CLOSE, 100, TimeUnit.MILLISECONDS)) {
+                // wait for the writer to make room
+            }
+            writer.join();
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the latest record forced to the disk.
+     *
+     * @return Sequence number, 0 if no records have been written.
+     */
+    public long getLastCommitted() {
+        return lastCommitted;
+    }
+
+    /**
+     * Returns the journal file.
+     *
+     * @return The file.
+     */
+    public File getFile() {
+        return journalFile;
+    }
+
+    /**
+     * Writer thread loop.  Takes the waiting records in batches and commits
+     * each batch.
+     */
+    private void writeRecords() {
+        ArrayList<JournalRecord> batch = new ArrayList<JournalRecord>();
+        boolean closing = false;
+
+        try {
+            while(!closing) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                if(batch.get(batch.size() - 1) == CLOSE) {
+                    batch.remove(batch.size() - 1);
+                    closing = true;
+                }
+
+                if(!batch.isEmpty())
+                    commit(batch);
+                batch.clear();
+            }
+        }
+        catch (InterruptedException ie) {
+            journalLogger.logp(Level.WARNING, "SessionJournal", "writeRecords",
+                    "Journal writer interrupted, records may be lost.", ie);
+        }
+        catch (IOException ioe) {
+            closed = true;
+            journalLogger.logp(Level.SEVERE, "SessionJournal", "writeRecords",
+                    "Unable to write to journal " + journalFile +
+                    ", no more records are written.", ioe);
+        }
+        finally {
+            try {
+                channel.close();
+            }
+            catch (IOException ioe) {
+                journalLogger.logp(Level.WARNING, "SessionJournal", "writeRecords",
+                        "Unable to close journal " + journalFile + ".", ioe);
+            }
+            synchronized(commitLock) {
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of records with one write and forces them to the disk.
+     */
+    private void commit(ArrayList<JournalRecord> batch) throws IOException {
+        long start = System.nanoTime();
+
+        buffer.clear();
+        CRC32 crc = new CRC32();
+
+        for(JournalRecord record : batch) {
+            byte[] payload = record.getPayload();
+            int length = RECORD_FIELD_BYTES + payload.length;
+
+            if(buffer.remaining() < length + 8) {
+                ByteBuffer larger = ByteBuffer.allocate(
+                        Math.max(buffer.capacity() * 2, buffer.position() + length + 8));
+                buffer.flip();
+                buffer = larger.put(buffer);
+            }
+
+            buffer.putInt(length);
+            int fields = buffer.position();
+            buffer.putLong(record.getSequence())
+                  .putLong(record.getSimTime())
+                  .putLong(record.getWallTime())
+                  .put(record.getType().code)
+                  .put(payload);
+
+            crc.reset();
+            crc.update(buffer.array(), fields, length);
+            buffer.putInt((int)crc.getValue());
+        }
+
+        buffer.flip();
+        writeBuffer();
+        channel.force(false);
+
+        synchronized(commitLock) {
+            lastCommitted = batch.get(batch.size() - 1).getSequence();
+            commitLock.notifyAll();
+        }
+
+        batchSize.record(batch.size());
+        commitTimer.recordSince(start);
+    }
+
+    /**
+     * Write the buffer's remaining bytes to the channel.
+     */
+    private void writeBuffer() throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
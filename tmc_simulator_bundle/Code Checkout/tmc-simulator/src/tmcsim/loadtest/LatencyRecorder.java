@@ -0,0 +1,144 @@
+package tmcsim.loadtest;
+
+import java.util.Arrays;
+
+
+/**
+ * LatencyRecorder keeps every latency sample of one kind of request made by
+ * the load test, so exact percentiles can be reported when the test ends.
+ * Samples are recorded in nanoseconds and reported in milliseconds.  A load
+ * test of a few million requests keeps a few megabytes of samples.
+ *
+ * @author Jonathan Molina
+ */
+public class LatencyRecorder {
+
+    /** Name of the requests, used in the report. */
+    private String name;
+
+    /** Recorded samples (ns). */
+    private long[] samples = new long[1024];
+
+    /** Number of recorded samples. */
+    private int count = 0;
+
+    /** Number of failed requests. */
+    private long errors = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param name Name of the requests, used in the report.
+     */
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the requests.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param nanos Latency (ns).
+     */
+    public synchronized void record(long nanos) {
+        if(count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = Math.max(0, nanos);
+    }
+
+    /**
+     * Records a failed request.  Its latency is not recorded.
+     */
+    public synchronized void recordError() {
+        errors++;
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of failed requests.
+     */
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the latency (ms) below which the parameter percentage of the
+     * samples fall, using the nearest-rank method, or 0 if there are none.
+     *
+     * @param percent Percentile, from 0 to 100.
+     */
+    public synchronized double getPercentile(double percent) {
+        if(count == 0) {
+            return 0;
+        }
+
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+
+        int rank = (int)Math.ceil(percent / 100 * count);
+        return sorted[Math.min(count, Math.max(1, rank)) - 1] / 1000000.0;
+    }
+
+    /**
+     * Returns the mean latency (ms), or 0 if there are no samples.
+     */
+    public synchronized double getMean() {
+        if(count == 0) {
+            return 0;
+        }
+
+        double total = 0;
+        for(int i = 0; i < count; i++) {
+            total += samples[i];
+        }
+        return total / count / 1000000.0;
+    }
+
+    /**
+     * Adds the samples and errors of another recorder to this one.
+     *
+     * @param other The recorder to add.
+     */
+    public void add(LatencyRecorder other) {
+        long[] otherSamples;
+        long otherErrors;
+
+        synchronized(other) {
+            otherSamples = Arrays.copyOf(other.samples, other.count);
+            otherErrors  = other.errors;
+        }
+
+        synchronized(this) {
+            for(long sample : otherSamples) {
+                record(sample);
+            }
+            errors += otherErrors;
+        }
+    }
+
+    /**
+     * Returns a one line summary: the count, throughput over the parameter
+     * time and latency percentiles.
+     *
+     * @param seconds Length of the test (s).
+     */
+    public synchronized String summary(double seconds) {
+        return String.format("%-24s %8d req %9.1f req/s  p50 %8.2f  p90 %8.2f  " +
+                "p99 %8.2f  max %8.2f ms  %d errors", name, count,
+                seconds > 0 ? count / seconds : 0, getPercentile(50),
+                getPercentile(90), getPercentile(99), getPercentile(100), errors);
+    }
+}
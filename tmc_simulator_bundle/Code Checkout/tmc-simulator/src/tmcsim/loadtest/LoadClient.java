@@ -0,0 +1,202 @@
+package tmcsim.loadtest;
+
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.EnumMap;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tmcsim.client.cadclientgui.data.CADTopic;
+import tmcsim.client.cadclientgui.data.CADUpdate;
+import tmcsim.client.cadclientgui.data.TableDelta;
+import tmcsim.client.cadclientgui.enums.CADDataEnums.TABLE;
+import tmcsim.interfaces.CADClientInterface;
+import tmcsim.interfaces.CoordinatorInterface;
+
+
+/**
+ * LoadClient is a simulated CAD Client that uses the Coordinator's RMI
+ * interface, as the CAD Client GUI does.  It registers for callbacks and
+ * subscribes to the unit status, assigned incident and pending incident
+ * tables, and then makes the calls named in CALLS in turn for as long as it
+ * runs, recording the latency of each kind of call.  The updates the
+ * Coordinator publishes to the client are counted.
+ *
+ * @author Jonathan Molina
+ */
+public class LoadClient extends UnicastRemoteObject implements CADClientInterface, Runnable {
+
+    /** Names of the calls made by the client, in the order they are made. */
+    public static final String[] CALLS = { "getCadDataTableDelta",
+        "getCadDataTable", "getSearchList", "getCurrentSimulationTime" };
+
+    /** Words searched in the Cardfile, in turn. */
+    private static final String[] SEARCHES = { "tow", "hospital", "805", "san luis" };
+
+    /** Error Logger. */
+    private static Logger loadLogger = Logger.getLogger("tmcsim.loadtest");
+
+    /** The remote Coordinator. */
+    private CoordinatorInterface coordinator;
+
+    /** Number of the client, used in log messages. */
+    private int number;
+
+    /** Time (ms) between two calls. */
+    private long thinkTime;
+
+    /** Latency of each call, in the order of CALLS. */
+    private LatencyRecorder[] latencies;
+
+    /** Last table version received by getCadDataTableDelta, for each table. */
+    private EnumMap<TABLE, Long> versions = new EnumMap<TABLE, Long>(TABLE.class);
+
+    /** Whether the client is running. */
+    private volatile boolean running = true;
+
+    /** Number of refresh and publish callbacks received. */
+    private AtomicLong callbacks = new AtomicLong(0);
+
+    /** Number of updates received in publish callbacks. */
+    private AtomicLong updates = new AtomicLong(0);
+
+    /**
+     * Constructor.  The client is exported to receive callbacks.
+     *
+     * @param coordinator The remote Coordinator.
+     * @param number Number of the client, used in log messages.
+     * @param thinkTime Time (ms) between two calls.
+     * @param latencies Recorders for the latency of each call, in the
+     * order of CALLS.
+     * @throws RemoteException if the client cannot be exported.
+     */
+    public LoadClient(CoordinatorInterface coordinator, int number, long thinkTime,
+            LatencyRecorder[] latencies) throws RemoteException {
+
+        super();
+
+        this.coordinator = coordinator;
+        this.number      = number;
+        this.thinkTime   = thinkTime;
+        this.latencies   = latencies;
+
+        for(TABLE table : TABLE.values()) {
+            versions.put(table, 0L);
+        }
+    }
+
+    /**
+     * Registers the client for callbacks and subscribes it to the tables
+     * shown on the CAD Client screens.
+     *
+     * @throws RemoteException if the Coordinator cannot be reached.
+     */
+    public void connect() throws RemoteException {
+        coordinator.registerForCallback(this);
+
+        Vector<CADTopic> topics = new Vector<CADTopic>();
+        topics.add(new CADTopic(TABLE.UNIT_STATUS));
+        topics.add(new CADTopic(TABLE.ASSIGNED_INCIDENTS));
+        topics.add(new CADTopic(TABLE.PENDING_INCIDENTS));
+        coordinator.subscribe(this, topics);
+    }
+
+    /**
+     * Makes the calls in turn until the client is stopped.
+     */
+    public void run() {
+
+        TABLE[] tables = TABLE.values();
+        int turn = 0;
+
+        while(running) {
+            int call = turn % CALLS.length;
+            TABLE table = tables[turn / CALLS.length % tables.length];
+            turn++;
+
+            long start = System.nanoTime();
+            try {
+                switch(call) {
+                    case 0:
+                        TableDelta delta = coordinator.getCadDataTableDelta(table,
+                                versions.get(table));
+                        versions.put(table, delta.toVersion);
+                        break;
+                    case 1:
+                        coordinator.getCadDataTable(table);
+                        break;
+                    case 2:
+                        coordinator.getSearchList(SEARCHES[turn / CALLS.length %
+                                SEARCHES.length]);
+                        break;
+                    default:
+                        coordinator.getCurrentSimulationTime();
+                        break;
+                }
+                latencies[call].record(System.nanoTime() - start);
+            }
+            catch (RemoteException re) {
+                if(running) {
+                    loadLogger.logp(Level.WARNING, "LoadClient", "run",
+                            "Call " + CALLS[call] + " of client " + number + " failed.", re);
+                    latencies[call].recordError();
+                }
+            }
+
+            if(thinkTime > 0) {
+                try {
+                    Thread.sleep(thinkTime);
+                }
+                catch (InterruptedException ie) {
+                    running = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the client, unregisters it from the Coordinator and unexports it.
+     */
+    public void stop() {
+        running = false;
+
+        try {
+            coordinator.unregisterForCallback(this);
+        }
+        catch (RemoteException re) {
+            loadLogger.logp(Level.WARNING, "LoadClient", "stop",
+                    "Unable to unregister client " + number + ".", re);
+        }
+
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        }
+        catch (NoSuchObjectException nsoe) {}
+    }
+
+    /**
+     * Returns the number of refresh and publish callbacks received.
+     */
+    public long getCallbacks() {
+        return callbacks.get();
+    }
+
+    /**
+     * Returns the number of updates received in publish callbacks.
+     */
+    public long getUpdates() {
+        return updates.get();
+    }
+
+    public void refresh() {
+        callbacks.incrementAndGet();
+    }
+
+    public void publish(Vector<CADUpdate> newUpdates) {
+        callbacks.incrementAndGet();
+        updates.addAndGet(newUpdates.size());
+    }
+}
@@ -0,0 +1,344 @@
+package tmcsim.loadtest;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.rmi.Naming;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+import tmcsim.common.CADEnums.CLOCK_MODE;
+import tmcsim.interfaces.CoordinatorInterface;
+
+
+/**
+ * LoadDriver is a headless load test of a running CAD Simulator.  It starts
+ * a number of simulated CAD terminals, which use the CAD Simulator's socket
+ * protocol, and a number of simulated CAD Clients, which use the
+ * Coordinator's RMI interface, and runs them for a fixed time.  A script may
+ * first be loaded and run in accelerated time, so the simulation produces
+ * updates while the terminals and clients make their requests.  The script
+ * is generated by the ScenarioGenerator when a scenario size is given.<br>
+ * <br>
+ * When the test ends the driver reports the throughput and latency
+ * percentiles of the terminal commands and of each kind of RMI call, the
+ * updates pushed to the terminals and clients, the rate the simulation time
+ * advanced, and the heap used.  The heap is read from the CAD Simulator over
+ * JMX if its JMX address is given, and from the driver otherwise.<br>
+ * <br>
+ * Usage: LoadDriver [-host h] [-port n] [-rmiPort n] [-terminals n]
+ * [-clients n] [-duration s] [-think ms] [-script file] [-acceleration x]
+ * [-incidents n] [-events n] [-units n] [-cctv n] [-jmx host:port]
+ *
+ * @author Jonathan Molina
+ */
+public class LoadDriver {
+
+    /** Time (ms) between two heap samples. */
+    private static final long HEAP_SAMPLE_INTERVAL = 500;
+
+    /** Command lines typed by the terminals, in turn. */
+    private static final String[] COMMANDS = { "IB.", "SA.", "1", "IB.", "2", "3" };
+
+    /** Error Logger. */
+    private static Logger loadLogger = Logger.getLogger("tmcsim.loadtest");
+
+    private String host = "localhost";
+    private int port = 4444;
+    private int rmiPort = 4445;
+    private int terminals = 10;
+    private int clients = 10;
+    private int duration = 60;
+    private long thinkTime = 100;
+    private File scriptFile = null;
+    private double acceleration = 10.0;
+    private ScenarioGenerator generator = null;
+    private String jmxAddress = null;
+
+    /** Latency of the terminal commands. */
+    private LatencyRecorder commandLatency = new LatencyRecorder("terminal command");
+
+    /** Latency of each RMI call, in the order of LoadClient.CALLS. */
+    private LatencyRecorder[] callLatencies = new LatencyRecorder[LoadClient.CALLS.length];
+
+    /** Heap used, read from the CAD Simulator or from the driver. */
+    private MemoryMXBean memory;
+
+    /** Connector to the CAD Simulator's JMX agent, if one is used. */
+    private JMXConnector jmxConnector = null;
+
+    /** Largest heap used (bytes) sampled during the test. */
+    private long peakHeap = 0;
+
+    /**
+     * Constructor.  Reads the command line arguments.
+     *
+     * @param args Command line arguments.
+     * @throws IllegalArgumentException if an argument is invalid.
+     */
+    public LoadDriver(String[] args) {
+        int incidents = 0, events = 0, units = 50, cameras = 10;
+
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if(i + 1 == args.length) {
+                throw new IllegalArgumentException(arg);
+            }
+
+            if(arg.equals("-host")) {
+                host = args[++i];
+            }
+            else if(arg.equals("-port")) {
+                port = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-rmiPort")) {
+                rmiPort = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-terminals")) {
+                terminals = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-clients")) {
+                clients = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-duration")) {
+                duration = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-think")) {
+                thinkTime = Long.parseLong(args[++i]);
+            }
+            else if(arg.equals("-script")) {
+                scriptFile = new File(args[++i]).getAbsoluteFile();
+            }
+            else if(arg.equals("-acceleration")) {
+                acceleration = Double.parseDouble(args[++i]);
+            }
+            else if(arg.equals("-incidents")) {
+                incidents = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-events")) {
+                events = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-units")) {
+                units = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-cctv")) {
+                cameras = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("-jmx")) {
+                jmxAddress = args[++i];
+            }
+            else {
+                throw new IllegalArgumentException(arg);
+            }
+        }
+
+        if(terminals < 0 || clients < 0 || duration <= 0 || thinkTime < 0 ||
+                acceleration <= 0) {
+            throw new IllegalArgumentException("negative count or time");
+        }
+        if(incidents > 0) {
+            if(scriptFile == null) {
+                throw new IllegalArgumentException("-incidents without -script");
+            }
+            generator = new ScenarioGenerator(incidents,
+                    events > 0 ? events : incidents * 10, units, cameras);
+        }
+
+        for(int c = 0; c < callLatencies.length; c++) {
+            callLatencies[c] = new LatencyRecorder(LoadClient.CALLS[c]);
+        }
+    }
+
+    /**
+     * Runs the load test and prints its report.
+     *
+     * @throws Exception if the CAD Simulator cannot be reached or the
+     * script cannot be loaded.
+     */
+    public void run() throws Exception {
+
+        memory = ManagementFactory.getMemoryMXBean();
+        if(jmxAddress != null) {
+            jmxConnector = JMXConnectorFactory.connect(new JMXServiceURL(
+                    "service:jmx:rmi:///jndi/rmi://" + jmxAddress + "/jmxrmi"));
+            MBeanServerConnection connection = jmxConnector.getMBeanServerConnection();
+            memory = ManagementFactory.newPlatformMXBeanProxy(connection,
+                    ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+        }
+
+        CoordinatorInterface coordinator = (CoordinatorInterface)Naming.lookup(
+                "rmi://" + host + ":" + rmiPort + "/coordinator");
+
+        if(generator != null) {
+            generator.write(scriptFile);
+            System.out.println("Generated " + scriptFile + ": " + generator);
+        }
+        if(scriptFile != null) {
+            coordinator.loadScriptFile(scriptFile);
+            coordinator.setClockMode(CLOCK_MODE.ACCELERATED, acceleration);
+            coordinator.startSimulation();
+        }
+
+        List<LoadTerminal> terminalList = new ArrayList<LoadTerminal>();
+        for(int t = 0; t < terminals; t++) {
+            LoadTerminal terminal = new LoadTerminal(host, port, t + 1, COMMANDS,
+                    thinkTime, new LatencyRecorder("terminal " + (t + 1)));
+            terminal.connect();
+            terminalList.add(terminal);
+        }
+
+        List<LoadClient> clientList = new ArrayList<LoadClient>();
+        for(int c = 0; c < clients; c++) {
+            LoadClient client = new LoadClient(coordinator, c + 1, thinkTime, callLatencies);
+            client.connect();
+            clientList.add(client);
+        }
+
+        System.out.println("Running " + terminals + " terminals and " + clients +
+                " clients for " + duration + " s.");
+
+        long startSimTime = coordinator.getCurrentSimulationTime();
+        long start = System.nanoTime();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for(LoadTerminal terminal : terminalList) {
+            threads.add(new Thread(terminal, "LoadTerminal"));
+        }
+        for(LoadClient client : clientList) {
+            threads.add(new Thread(client, "LoadClient"));
+        }
+        for(Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long end = start + duration * 1000000000L;
+        while(System.nanoTime() < end) {
+            sampleHeap();
+            Thread.sleep(Math.min(HEAP_SAMPLE_INTERVAL,
+                    Math.max(1, (end - System.nanoTime()) / 1000000L)));
+        }
+        sampleHeap();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long simSeconds = coordinator.getCurrentSimulationTime() - startSimTime;
+
+        // The CADClientModel logs the closed socket of every stopped terminal.
+        Logger.getLogger("tmcsim.client").setLevel(Level.OFF);
+
+        for(LoadClient client : clientList) {
+            client.stop();
+        }
+        for(LoadTerminal terminal : terminalList) {
+            terminal.stop();
+        }
+        for(Thread thread : threads) {
+            thread.join(LoadTerminal.RESPONSE_TIMEOUT);
+        }
+        if(scriptFile != null) {
+            coordinator.pauseSimulation();
+        }
+
+        report(terminalList, clientList, seconds, simSeconds);
+
+        if(jmxConnector != null) {
+            jmxConnector.close();
+        }
+    }
+
+    /**
+     * Records the heap used if it is the largest so far.
+     */
+    private void sampleHeap() {
+        try {
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+        }
+        catch (RuntimeException re) {
+            loadLogger.logp(Level.WARNING, "LoadDriver", "sampleHeap",
+                    "Unable to read the heap usage.", re);
+        }
+    }
+
+    /**
+     * Prints the results of the test.
+     */
+    private void report(List<LoadTerminal> terminalList, List<LoadClient> clientList,
+            double seconds, long simSeconds) {
+
+        long bytesSent = 0, pushedUpdates = 0, lost = 0;
+        for(LoadTerminal terminal : terminalList) {
+            commandLatency.add(terminal.getLatency());
+            bytesSent     += terminal.getBytesSent();
+            pushedUpdates += terminal.getPushedUpdates();
+            if(terminal.isLost()) {
+                lost++;
+            }
+        }
+
+        long callbacks = 0, updates = 0;
+        for(LoadClient client : clientList) {
+            callbacks += client.getCallbacks();
+            updates   += client.getUpdates();
+        }
+
+        System.out.println();
+        System.out.println(String.format("Elapsed %.1f s, simulation advanced %d s " +
+                "(%.1fx)", seconds, simSeconds, simSeconds / seconds));
+        System.out.println();
+
+        System.out.println(commandLatency.summary(seconds));
+        LatencyRecorder allCalls = new LatencyRecorder("all RMI calls");
+        for(LatencyRecorder callLatency : callLatencies) {
+            System.out.println(callLatency.summary(seconds));
+            allCalls.add(callLatency);
+        }
+        System.out.println(allCalls.summary(seconds));
+        System.out.println();
+
+        System.out.println(String.format("Terminals: %d bytes sent, %d pushed updates " +
+                "(%.1f/s), %d lost connections", bytesSent, pushedUpdates,
+                pushedUpdates / seconds, lost));
+        System.out.println(String.format("Clients:   %d callbacks (%.1f/s), %d " +
+                "updates published", callbacks, callbacks / seconds, updates));
+
+        String heapSource = jmxAddress != null ? "CAD Simulator" : "load driver";
+        System.out.println(String.format("Heap (%s): peak %.1f MB, now %.1f MB of " +
+                "%.1f MB", heapSource, peakHeap / 1048576.0,
+                memory.getHeapMemoryUsage().getUsed() / 1048576.0,
+                memory.getHeapMemoryUsage().getMax() / 1048576.0));
+    }
+
+    public static void main(String[] args) {
+
+        LoadDriver driver;
+        try {
+            driver = new LoadDriver(args);
+        }
+        catch (RuntimeException re) {
+            System.err.println("Invalid argument: " + re.getMessage());
+            System.err.println("Usage: LoadDriver [-host h] [-port n] [-rmiPort n] " +
+                    "[-terminals n] [-clients n] [-duration s] [-think ms] " +
+                    "[-script file] [-acceleration x] [-incidents n] [-events n] " +
+                    "[-units n] [-cctv n] [-jmx host:port]");
+            System.exit(1);
+            return;
+        }
+
+        try {
+            driver.run();
+            System.exit(0);
+        }
+        catch (Exception e) {
+            loadLogger.logp(Level.SEVERE, "LoadDriver", "main",
+                    "Load test failed.", e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package tmcsim.loadtest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import tmcsim.client.CADClientModel;
+import tmcsim.client.CADCommandParser;
+import tmcsim.common.ObserverMessage;
+import tmcsim.common.CADProtocol.CAD_CLIENT_CMD;
+
+
+/**
+ * LoadTerminal is a simulated CAD terminal.  It connects to the
+ * CADSimulatorSocketHandler, registers a CAD position, and then types the
+ * parameter command lines in turn for as long as it runs, as a user at a CAD
+ * terminal would.  The commands are parsed and sent by the CADClientModel
+ * and CADCommandParser used by the CAD Client, so the CAD Simulator sees the
+ * same protocol.<br>
+ * <br>
+ * After sending a command the terminal waits for the new screen, or an
+ * informational message, and records the time between the two.  A command
+ * that is not answered within RESPONSE_TIMEOUT is recorded as an error.  The
+ * terminal then waits the think time before typing the next command.
+ * Updates the CAD Simulator pushes without a command, such as time and
+ * status updates, are counted.
+ *
+ * @author Jonathan Molina
+ */
+public class LoadTerminal implements Runnable, Observer {
+
+    /** Time (ms) a command may wait for its response. */
+    public static final long RESPONSE_TIMEOUT = 5000;
+
+    /** Time (ms) allowed to connect to the CAD Simulator. */
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    /** Error Logger. */
+    private static Logger loadLogger = Logger.getLogger("tmcsim.loadtest");
+
+    /** Host of the CAD Simulator. */
+    private String host;
+
+    /** CADClientPort of the CAD Simulator. */
+    private int port;
+
+    /** CAD position registered by the terminal. */
+    private int position;
+
+    /** Command lines typed by the terminal, in turn. */
+    private String[] commands;
+
+    /** Time (ms) between a response and the next command. */
+    private long thinkTime;
+
+    /** Latency between sending a command and receiving its response. */
+    private LatencyRecorder latency;
+
+    /** Socket connected to the CAD Simulator. */
+    private Socket socket;
+
+    /** Model that sends commands and receives updates. */
+    private CADClientModel model;
+
+    /** Whether the terminal is running. */
+    private volatile boolean running = true;
+
+    /** Lock notified when a response is received or the terminal stops. */
+    private final Object responseLock = new Object();
+
+    /** Whether a command is waiting for its response. */
+    private boolean waiting = false;
+
+    /** Whether the terminal lost its connection while running. */
+    private volatile boolean lost = false;
+
+    /** Number of updates received without a command. */
+    private AtomicLong pushedUpdates = new AtomicLong(0);
+
+    /**
+     * Constructor.
+     *
+     * @param host Host of the CAD Simulator.
+     * @param port CADClientPort of the CAD Simulator.
+     * @param position CAD position registered by the terminal.
+     * @param commands Command lines typed by the terminal, in turn.
+     * @param thinkTime Time (ms) between a response and the next command.
+     * @param latency Recorder for the command latencies.
+     */
+    public LoadTerminal(String host, int port, int position, String[] commands,
+            long thinkTime, LatencyRecorder latency) {
+
+        this.host      = host;
+        this.port      = port;
+        this.position  = position;
+        this.commands  = commands;
+        this.thinkTime = thinkTime;
+        this.latency   = latency;
+    }
+
+    /**
+     * Connects to the CAD Simulator and registers the terminal.  A thread is
+     * started to read the updates sent by the CAD Simulator.
+     *
+     * @throws Exception if the terminal cannot connect or register.
+     */
+    public void connect() throws Exception {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+        socket.setTcpNoDelay(true);
+
+        model = new CADClientModel();
+        model.addObserver(this);
+        model.initializeScreen(socket.getInputStream(), socket.getOutputStream());
+        model.register(position, "LOAD" + position);
+
+        Thread reader = new Thread(model, "LoadTerminal " + position);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Types the commands in turn until the terminal is stopped or loses its
+     * connection.
+     */
+    public void run() {
+
+        CADCommandParser parser = new CADCommandParser();
+        int next = 0;
+
+        while(running) {
+            String command = commands[next];
+            next = (next + 1) % commands.length;
+
+            try {
+                Document cmdDoc = DocumentBuilderFactory.newInstance()
+                        .newDocumentBuilder().newDocument();
+                Element cmdElem = cmdDoc.createElement(CAD_CLIENT_CMD.TERMINAL_CMD_LINE.type);
+                parser.parseCommand(cmdElem, command);
+                cmdDoc.appendChild(cmdElem);
+
+                long sent;
+                synchronized(responseLock) {
+                    waiting = true;
+                    sent = System.nanoTime();
+                }
+                model.transmitCommand(cmdDoc);
+
+                if(awaitResponse(sent)) {
+                    latency.record(System.nanoTime() - sent);
+                }
+                else if(running) {
+                    latency.recordError();
+                }
+
+                if(thinkTime > 0) {
+                    Thread.sleep(thinkTime);
+                }
+            }
+            catch (InterruptedException ie) {
+                running = false;
+            }
+            catch (Exception e) {
+                loadLogger.logp(Level.WARNING, "LoadTerminal", "run",
+                        "Unable to send command \"" + command + "\" from position " +
+                        position + ".", e);
+                latency.recordError();
+            }
+        }
+    }
+
+    /**
+     * Stops the terminal and closes its connection.
+     */
+    public void stop() {
+        running = false;
+        synchronized(responseLock) {
+            responseLock.notifyAll();
+        }
+
+        try {
+            if(socket != null) {
+                socket.close();
+            }
+        }
+        catch (IOException ioe) {
+            loadLogger.logp(Level.WARNING, "LoadTerminal", "stop",
+                    "Exception in closing the socket of position " + position + ".", ioe);
+        }
+    }
+
+    /**
+     * Returns whether the terminal is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns whether the terminal lost its connection while running.
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * Returns the recorder of the command latencies.
+     */
+    public LatencyRecorder getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the number of bytes the terminal has sent.
+     */
+    public long getBytesSent() {
+        return model == null ? 0 : model.getOutputStream().getBytesWritten();
+    }
+
+    /**
+     * Returns the number of updates received without a command.
+     */
+    public long getPushedUpdates() {
+        return pushedUpdates.get();
+    }
+
+    /**
+     * Observer method, called by the model's reader thread.  A new screen or
+     * informational message answers the waiting command.  One that arrives
+     * while no command is waiting, such as the response to a command that
+     * timed out, is counted as a pushed update.  A null argument
+     * means the model has lost its connection, which stops the terminal.
+     */
+    public void update(Observable o, Object arg) {
+
+        if(arg == null) {
+            if(running) {
+                loadLogger.logp(Level.WARNING, "LoadTerminal", "update",
+                        "Position " + position + " lost its connection.");
+                lost = true;
+            }
+            stop();
+            return;
+        }
+
+        switch(((ObserverMessage)arg).type) {
+            case INCIDENT_INQUIRY:
+            case INCIDENT_SUMMARY:
+            case INCIDENT_BOARD:
+            case ROUTED_MESSAGE:
+            case BLANK_SCREEN:
+            case CAD_INFO_MESSAGE:
+                synchronized(responseLock) {
+                    if(waiting) {
+                        waiting = false;
+                        responseLock.notifyAll();
+                        break;
+                    }
+                }
+                pushedUpdates.incrementAndGet();
+                break;
+
+            default:
+                pushedUpdates.incrementAndGet();
+                break;
+        }
+    }
+
+    /**
+     * Waits for the response to a command.
+     *
+     * @param sent Time (ns) the command was sent.
+     * @return True if the response arrived, false if the wait timed out or
+     * the terminal stopped.
+     */
+    private boolean awaitResponse(long sent) throws InterruptedException {
+        long deadline = sent + RESPONSE_TIMEOUT * 1000000L;
+
+        synchronized(responseLock) {
+            while(running && waiting) {
+                long remaining = (deadline - System.nanoTime()) / 1000000L;
+                if(remaining <= 0) {
+                    break;
+                }
+                responseLock.wait(remaining);
+            }
+
+            boolean answered = !waiting;
+            waiting = false;
+            return answered;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package tmcsim.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+
+/**
+ * ScenarioGenerator writes synthetic TMC_SCRIPT scenarios of any size, for
+ * load and capacity testing.  The script declares the units in its
+ * SCRIPT_DATA and spreads the events evenly over the incidents.  Each
+ * incident starts INCIDENT_SPACING seconds after the previous one and its
+ * events follow one every EVENT_SPACING seconds.  The first event of an
+ * incident sets its location and header, and every event adds a detail and
+ * assigns a unit.  If cameras are generated, the first event of an incident
+ * turns a camera toward it and its last event turns the camera away.<br>
+ * <br>
+ * Usage: ScenarioGenerator [-incidents n] [-events n] [-units n] [-cctv n] scriptFile
+ *
+ * @author Jonathan Molina
+ */
+public class ScenarioGenerator {
+
+    /** Seconds between the start of two incidents. */
+    public static final int INCIDENT_SPACING = 30;
+
+    /** Seconds between two events of an incident. */
+    public static final int EVENT_SPACING = 60;
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static final String[] DIRECTIONS = { "N", "S", "E", "W" };
+
+    /** Number of incidents. */
+    private int incidents;
+
+    /** Total number of events. */
+    private int events;
+
+    /** Number of units. */
+    private int units;
+
+    /** Number of CCTV cameras. */
+    private int cameras;
+
+    /**
+     * Constructor.
+     *
+     * @param incidents Number of incidents.
+     * @param events Total number of events, at least one per incident.
+     * @param units Number of units.
+     * @param cameras Number of CCTV cameras.
+     * @throws IllegalArgumentException if there are no incidents, fewer
+     * events than incidents, or a negative number of units or cameras.
+     */
+    public ScenarioGenerator(int incidents, int events, int units, int cameras) {
+        if(incidents < 1 || events < incidents || units < 0 || cameras < 0) {
+            throw new IllegalArgumentException("Invalid scenario: " + incidents +
+                    " incidents, " + events + " events, " + units + " units, " +
+                    cameras + " cameras.");
+        }
+
+        this.incidents = incidents;
+        this.events    = events;
+        this.units     = units;
+        this.cameras   = cameras;
+    }
+
+    /**
+     * Returns the simulation time, in seconds, of the last event.
+     */
+    public long getDuration() {
+        int most = (events + incidents - 1) / incidents;
+        return (long)(incidents - 1) * INCIDENT_SPACING + (long)(most - 1) * EVENT_SPACING;
+    }
+
+    /**
+     * Returns the scenario as a TMC_SCRIPT document.
+     */
+    public String toXML() {
+        StringBuilder xml = new StringBuilder(256 * events + 128 * units);
+
+        xml.append("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n");
+        xml.append("<TMC_SCRIPT title=\"Synthetic ").append(incidents).append('x')
+           .append(events).append("\">\n<SCRIPT_DATA>\n");
+
+        for(int u = 1; u <= units; u++) {
+            xml.append("<NEW_UNIT UnitNum=\"").append(unitNum(u)).append("\">")
+               .append("<STATUS>10-8</STATUS><CURR_LOC>Area ").append(u % 10)
+               .append("</CURR_LOC><AREA>Area ").append(u % 10).append("</AREA>")
+               .append("<TIMER>").append(600 + u).append("</TIMER><AGY>CHP</AGY>")
+               .append("<UNIT_STATUS>Assignable</UNIT_STATUS></NEW_UNIT>\n");
+        }
+        xml.append("</SCRIPT_DATA>\n");
+
+        for(int i = 1; i <= incidents; i++) {
+            int count = events / incidents + (i <= events % incidents ? 1 : 0);
+            long start = (long)(i - 1) * INCIDENT_SPACING;
+
+            for(int e = 0; e < count; e++) {
+                xml.append("<SCRIPT_EVENT><TIME_INDEX>")
+                   .append(timeIndex(start + (long)e * EVENT_SPACING))
+                   .append("</TIME_INDEX><INCIDENT LogNum=\"").append(i)
+                   .append("\">Incident ").append(i).append("</INCIDENT><CAD_DATA>");
+
+                if(e == 0) {
+                    xml.append("<LOCATION><ADDRESS>Us101 N / Exit ").append(i)
+                       .append("</ADDRESS></LOCATION><HEADER_INFO><Type>1183</Type>")
+                       .append("<Beat>").append(i % 40).append("</Beat>")
+                       .append("<TruncLoc>Us101 N</TruncLoc><FullLoc>Us101 N / Exit ")
+                       .append(i).append("</FullLoc></HEADER_INFO>");
+                }
+
+                xml.append("<CAD_INCIDENT_EVENT><DETAIL>Event ").append(e + 1)
+                   .append(" of incident ").append(i).append("</DETAIL>");
+
+                if(units > 0) {
+                    xml.append("<UNIT UnitNum=\"").append(unitNum((i + e) % units + 1))
+                       .append("\" Status=\"").append(e == 0 ? "ENRT" : "1097")
+                       .append("\" Primary=\"").append(e == 0)
+                       .append("\" Active=\"true\"/>");
+                }
+
+                if(cameras > 0 && (e == 0 || e == count - 1)) {
+                    xml.append("<CCTV_INFO ID=\"").append((i - 1) % cameras + 1)
+                       .append("\" Dir=\"").append(DIRECTIONS[i % DIRECTIONS.length])
+                       .append("\" Toggle=\"").append(e == 0).append("\"/>");
+                }
+
+                xml.append("</CAD_INCIDENT_EVENT></CAD_DATA></SCRIPT_EVENT>\n");
+            }
+        }
+        xml.append("</TMC_SCRIPT>\n");
+
+        return xml.toString();
+    }
+
+    /**
+     * Writes the scenario to a script file.
+     *
+     * @param scriptFile The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File scriptFile) throws IOException {
+        Files.write(scriptFile.toPath(), toXML().getBytes(ISO_8859_1));
+    }
+
+    public String toString() {
+        return incidents + " incidents, " + events + " events, " + units +
+                " units, " + cameras + " cameras, " + getDuration() + " s";
+    }
+
+    private static String unitNum(int u) {
+        return "LT-" + u;
+    }
+
+    private static String timeIndex(long seconds) {
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60,
+                seconds % 60);
+    }
+
+    public static void main(String[] args) {
+
+        int incidents = 100;
+        int events    = 1000;
+        int units     = 50;
+        int cameras   = 10;
+        File scriptFile = null;
+
+        try {
+            for(int i = 0; i < args.length; i++) {
+                if(args[i].equals("-incidents")) {
+                    incidents = Integer.parseInt(args[++i]);
+                }
+                else if(args[i].equals("-events")) {
+                    events = Integer.parseInt(args[++i]);
+                }
+                else if(args[i].equals("-units")) {
+                    units = Integer.parseInt(args[++i]);
+                }
+                else if(args[i].equals("-cctv")) {
+                    cameras = Integer.parseInt(args[++i]);
+                }
+                else if(scriptFile == null && !args[i].startsWith("-")) {
+                    scriptFile = new File(args[i]);
+                }
+                else {
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if(scriptFile == null) {
+                throw new IllegalArgumentException("scriptFile");
+            }
+
+            ScenarioGenerator generator = new ScenarioGenerator(incidents, events,
+                    units, cameras);
+            generator.write(scriptFile);
+            System.out.println("Wrote " + scriptFile + ": " + generator);
+        }
+        catch (IOException ioe) {
+            System.err.println("Unable to write " + scriptFile + ": " + ioe.getMessage());
+            System.exit(1);
+        }
+        catch (RuntimeException re) {
+            System.err.println("Invalid argument: " + re.getMessage());
+            System.err.println("Usage: ScenarioGenerator [-incidents n] [-events n] " +
+                    "[-units n] [-cctv n] scriptFile");
+            System.exit(1);
+        }
+    }
+}
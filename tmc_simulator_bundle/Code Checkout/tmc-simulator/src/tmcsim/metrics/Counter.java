@@ -0,0 +1,43 @@
+package tmcsim.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Counter is a metric counting occurrences, such as failed calls.
+ *
+ * @author Jonathan Molina
+ */
+public class Counter implements CounterMBean {
+
+    /** The count. */
+    private AtomicLong count = new AtomicLong(0);
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    /**
+     * Adds the parameter amount to the count.
+     *
+     * @param amount Amount to add.
+     */
+    public void add(long amount) {
+        count.addAndGet(amount);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public void reset() {
+        count.set(0);
+    }
+
+    public String toString() {
+        return "count=" + getCount();
+    }
+}
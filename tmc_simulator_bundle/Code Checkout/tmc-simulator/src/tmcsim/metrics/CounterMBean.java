@@ -0,0 +1,19 @@
+package tmcsim.metrics;
+
+/**
+ * JMX management interface of a Counter.
+ *
+ * @author Jonathan Molina
+ */
+public interface CounterMBean {
+
+    /**
+     * Returns the number counted since the counter was created or reset.
+     */
+    public long getCount();
+
+    /**
+     * Sets the count to zero.
+     */
+    public void reset();
+}
@@ -0,0 +1,17 @@
+package tmcsim.metrics;
+
+/**
+ * Gauge is a metric whose value is read from the instrumented object when
+ * the metric is reported, such as the length of a queue.  Subclasses
+ * return the value from getValue(), which may be called from any thread.
+ *
+ * @author Jonathan Molina
+ */
+public abstract class Gauge implements GaugeMBean {
+
+    public abstract long getValue();
+
+    public String toString() {
+        return "value=" + getValue();
+    }
+}
@@ -0,0 +1,14 @@
+package tmcsim.metrics;
+
+/**
+ * JMX management interface of a Gauge.
+ *
+ * @author Jonathan Molina
+ */
+public interface GaugeMBean {
+
+    /**
+     * Returns the current value.
+     */
+    public long getValue();
+}
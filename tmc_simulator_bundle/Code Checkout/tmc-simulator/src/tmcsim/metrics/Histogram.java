@@ -0,0 +1,134 @@
+package tmcsim.metrics;
+
+import java.util.Arrays;
+
+
+/**
+ * Histogram is a metric recording the distribution of non-negative values,
+ * such as message sizes.  Values are counted in buckets of logarithmic
+ * width, eight to each power of two, so percentiles are reported within
+ * 12.5% of the recorded value while the histogram stays a fixed size.  The
+ * count, mean, maximum and last value are exact.
+ *
+ * @author Jonathan Molina
+ */
+public class Histogram implements HistogramMBean {
+
+    /** Number of buckets for each power of two. */
+    private static final int SUB_BUCKETS = 8;
+
+    /** Number of bits selecting the bucket within a power of two. */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** Number of values in each bucket. */
+    private long[] buckets = new long[bucketIndex(Long.MAX_VALUE) + 1];
+
+    private long count = 0;
+    private long total = 0;
+    private long max   = 0;
+    private long last  = 0;
+
+    /**
+     * Records a value.  Negative values are recorded as 0.
+     *
+     * @param value The value.
+     */
+    public synchronized void record(long value) {
+        value = Math.max(0, value);
+
+        buckets[bucketIndex(value)]++;
+        count++;
+        total += value;
+        max    = Math.max(max, value);
+        last   = value;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double)total / count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized long getLast() {
+        return last;
+    }
+
+    public long getMedian() {
+        return getPercentile(50);
+    }
+
+    public long get99thPercentile() {
+        return getPercentile(99);
+    }
+
+    /**
+     * Returns the approximate value below which the parameter percentage of
+     * the recorded values fall, or 0 if there are none.  The largest value
+     * of the bucket holding the percentile is returned, limited to the
+     * largest recorded value.
+     *
+     * @param percent Percentile, from 0 to 100.
+     */
+    public synchronized long getPercentile(double percent) {
+        if(count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long)Math.ceil(percent / 100 * count));
+        long seen = 0;
+
+        for(int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if(seen >= rank) {
+                return Math.min(max, bucketLimit(i));
+            }
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        total = 0;
+        max   = 0;
+        last  = 0;
+    }
+
+    public synchronized String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p99=%d max=%d last=%d",
+                count, getMean(), getMedian(), get99thPercentile(), max, last);
+    }
+
+    /**
+     * Returns the bucket counting the parameter value.
+     */
+    static int bucketIndex(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int)value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value counted by the parameter bucket.
+     */
+    static long bucketLimit(int index) {
+        if(index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (SUB_BUCKETS + index % SUB_BUCKETS) * width;
+        return lower + width - 1;
+    }
+}
@@ -0,0 +1,44 @@
+package tmcsim.metrics;
+
+/**
+ * JMX management interface of a Histogram.
+ *
+ * @author Jonathan Molina
+ */
+public interface HistogramMBean {
+
+    /**
+     * Returns the number of recorded values.
+     */
+    public long getCount();
+
+    /**
+     * Returns the mean of the recorded values, or 0 if there are none.
+     */
+    public double getMean();
+
+    /**
+     * Returns the largest recorded value, or 0 if there are none.
+     */
+    public long getMax();
+
+    /**
+     * Returns the last recorded value, or 0 if there are none.
+     */
+    public long getLast();
+
+    /**
+     * Returns the approximate median of the recorded values.
+     */
+    public long getMedian();
+
+    /**
+     * Returns the approximate 99th percentile of the recorded values.
+     */
+    public long get99thPercentile();
+
+    /**
+     * Discards the recorded values.
+     */
+    public void reset();
+}
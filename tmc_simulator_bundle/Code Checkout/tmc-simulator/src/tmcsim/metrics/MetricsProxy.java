@@ -0,0 +1,101 @@
+package tmcsim.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * MetricsProxy times every call made through an interface.  The proxy
+ * returned by wrap() implements the interface by calling the target object,
+ * recording the time of each call in a Timer named for the method, and
+ * counting the calls that throw an exception in a Counter with the same
+ * name followed by ".errors".  The CAD Simulator exports such a proxy of the
+ * Coordinator for RMI, so the count and latency of each remote call are
+ * recorded without changing the Coordinator's methods.<br>
+ * <br>
+ * Overloaded methods share their metrics.
+ *
+ * @author Jonathan Molina
+ */
+public class MetricsProxy implements InvocationHandler {
+
+    /** The object whose methods are called. */
+    private Object target;
+
+    /** Registry of the metrics. */
+    private MetricsRegistry registry;
+
+    /** Prefix of the metric names. */
+    private String prefix;
+
+    /** Timer of each method, indexed by method. */
+    private ConcurrentHashMap<Method, Timer> timers = new ConcurrentHashMap<Method, Timer>();
+
+    /**
+     * Returns a proxy of the target that times the calls made through the
+     * parameter interface.
+     *
+     * @param iface Interface implemented by the proxy.
+     * @param target The object whose methods are called.
+     * @param registry Registry of the metrics.
+     * @param prefix Prefix of the metric names, followed by the method names.
+     * @return The proxy.
+     */
+    public static <T> T wrap(Class<T> iface, T target, MetricsRegistry registry,
+            String prefix) {
+
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(),
+                new Class<?>[] { iface }, new MetricsProxy(target, registry, prefix)));
+    }
+
+    private MetricsProxy(Object target, MetricsRegistry registry, String prefix) {
+        this.target   = target;
+        this.registry = registry;
+        this.prefix   = prefix;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        if(method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+
+        Timer timer = timers.get(method);
+        if(timer == null) {
+            timer = registry.timer(prefix + "." + method.getName());
+            timers.put(method, timer);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException ite) {
+            registry.counter(prefix + "." + method.getName() + ".errors").increment();
+            throw ite.getCause();
+        }
+        finally {
+            timer.recordSince(start);
+        }
+    }
+
+    /**
+     * Implements the Object methods so proxies compare by identity.
+     */
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        if(name.equals("equals")) {
+            return proxy == args[0];
+        }
+        else if(name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        else {
+            return "MetricsProxy[" + prefix + "]";
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package tmcsim.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+
+/**
+ * MetricsRegistry holds the named metrics of the CAD Simulator: Counters,
+ * Gauges, Histograms and Timers.  Metrics are created when first requested
+ * by name, so instrumented classes simply ask the registry for their metric
+ * and record to it.  Names are dotted paths beginning with the instrumented
+ * class, such as "IncidentManager.tick".<br>
+ * <br>
+ * Each metric is registered as an MBean in the domain "tmcsim", with its
+ * type and name as keys, so it can be watched with JConsole or any other
+ * JMX client.  Remote JMX access is enabled with the standard
+ * com.sun.management.jmxremote system properties.  The registry can also
+ * write a snapshot of all metrics to a text file at a fixed interval, so a
+ * record remains after a training session has ended.<br>
+ * <br>
+ * The CAD Simulator uses the instance returned by getInstance().
+ *
+ * @author Jonathan Molina
+ */
+public class MetricsRegistry {
+
+    /** Domain of the metric MBeans. */
+    public static final String JMX_DOMAIN = "tmcsim";
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /** Error Logger. */
+    private static Logger metricsLogger = Logger.getLogger("tmcsim.metrics");
+
+    /** The registry used by the CAD Simulator. */
+    private static MetricsRegistry instance = null;
+
+    /** Metrics, indexed by name. */
+    private ConcurrentHashMap<String, Object> metrics =
+            new ConcurrentHashMap<String, Object>();
+
+    /** MBean server the metrics are registered with, or null for none. */
+    private MBeanServer mbeanServer;
+
+    /** Timer writing the snapshot file, or null if none is written. */
+    private java.util.Timer snapshotTimer = null;
+
+    /**
+     * Returns the registry used by the CAD Simulator, whose metrics are
+     * registered with the platform MBean server.
+     */
+    public static synchronized MetricsRegistry getInstance() {
+        if(instance == null) {
+            instance = new MetricsRegistry(ManagementFactory.getPlatformMBeanServer());
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param server MBean server the metrics are registered with, or null if
+     * they are not registered.
+     */
+    public MetricsRegistry(MBeanServer server) {
+        mbeanServer = server;
+    }
+
+    /**
+     * Returns the Counter with the parameter name, creating it if needed.
+     *
+     * @param name Name of the metric.
+     * @throws IllegalArgumentException if a metric of another type has the name.
+     */
+    public Counter counter(String name) {
+        return getOrCreate(name, Counter.class, CounterMBean.class);
+    }
+
+    /**
+     * Returns the Histogram with the parameter name, creating it if needed.
+     *
+     * @param name Name of the metric.
+     * @throws IllegalArgumentException if a metric of another type has the name.
+     */
+    public Histogram histogram(String name) {
+        return getOrCreate(name, Histogram.class, HistogramMBean.class);
+    }
+
+    /**
+     * Returns the Timer with the parameter name, creating it if needed.
+     *
+     * @param name Name of the metric.
+     * @throws IllegalArgumentException if a metric of another type has the name.
+     */
+    public Timer timer(String name) {
+        return getOrCreate(name, Timer.class, TimerMBean.class);
+    }
+
+    /**
+     * Registers a Gauge with the parameter name.  A Gauge that already has
+     * the name is replaced, as it reads an object that has been replaced.
+     *
+     * @param name Name of the metric.
+     * @param gauge The Gauge.
+     * @throws IllegalArgumentException if a metric of another type has the name.
+     */
+    public void gauge(String name, Gauge gauge) {
+        synchronized(metrics) {
+            Object existing = metrics.get(name);
+            if(existing != null && !(existing instanceof Gauge)) {
+                throw new IllegalArgumentException("Metric " + name + " is a " +
+                        existing.getClass().getSimpleName() + ".");
+            }
+
+            remove(name);
+            metrics.put(name, gauge);
+            register(name, gauge, GaugeMBean.class);
+        }
+    }
+
+    /**
+     * Removes the metric with the parameter name, if there is one.
+     *
+     * @param name Name of the metric.
+     */
+    public void remove(String name) {
+        synchronized(metrics) {
+            Object metric = metrics.remove(name);
+            if(metric != null && mbeanServer != null) {
+                try {
+                    mbeanServer.unregisterMBean(objectName(name, metric.getClass()));
+                }
+                catch (Exception e) {
+                    metricsLogger.logp(Level.FINE, "MetricsRegistry", "remove",
+                            "Metric " + name + " was not registered.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the metric with the parameter name, or null if there is none.
+     *
+     * @param name Name of the metric.
+     */
+    public Object getMetric(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Returns all metrics, sorted by name.
+     */
+    public Map<String, Object> getMetrics() {
+        return new TreeMap<String, Object>(metrics);
+    }
+
+    /**
+     * Returns a snapshot of all metrics as text, one metric to a line,
+     * sorted by name.  The first line gives the time of the snapshot.
+     */
+    public String snapshot() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TMC Simulator metrics ").append(new Date()).append('\n');
+
+        for(Map.Entry<String, Object> entry : getMetrics().entrySet()) {
+            text.append(entry.getKey()).append(' ')
+                .append(entry.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a snapshot of all metrics to the parameter file.  The snapshot
+     * is written to a temporary file which then replaces the file, so a
+     * reader never sees a partial snapshot.
+     *
+     * @param file The snapshot file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeSnapshot(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+
+        try {
+            Files.write(temp.toPath(), snapshot().getBytes(ISO_8859_1));
+            try {
+                Files.move(temp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(temp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Begins writing a snapshot to the parameter file at a fixed interval.
+     * Snapshots already being written to another file are stopped.
+     *
+     * @param file The snapshot file.
+     * @param interval Time (ms) between two snapshots.
+     */
+    public synchronized void startSnapshots(final File file, long interval) {
+        stopSnapshots();
+
+        snapshotTimer = new java.util.Timer("MetricsSnapshot", true);
+        snapshotTimer.scheduleAtFixedRate(new TimerTask() {
+            public void run() {
+                try {
+                    writeSnapshot(file);
+                }
+                catch (IOException ioe) {
+                    metricsLogger.logp(Level.WARNING, "MetricsRegistry",
+                            "startSnapshots", "Unable to write metrics to " +
+                            file + ".", ioe);
+                }
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * Stops writing snapshots.
+     */
+    public synchronized void stopSnapshots() {
+        if(snapshotTimer != null) {
+            snapshotTimer.cancel();
+            snapshotTimer = null;
+        }
+    }
+
+    /**
+     * Returns the metric with the parameter name and type, creating and
+     * registering it if there is none.
+     */
+    private <T> T getOrCreate(String name, Class<T> type, Class<? super T> mbeanInterface) {
+        Object metric = metrics.get(name);
+
+        if(metric == null) {
+            synchronized(metrics) {
+                metric = metrics.get(name);
+                if(metric == null) {
+                    try {
+                        metric = type.newInstance();
+                    }
+                    catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    metrics.put(name, metric);
+                    register(name, metric, mbeanInterface);
+                }
+            }
+        }
+
+        if(!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " +
+                    metric.getClass().getSimpleName() + ", not a " +
+                    type.getSimpleName() + ".");
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * Registers a metric with the MBean server.  A metric that cannot be
+     * registered is still recorded and written to snapshots.
+     */
+    private <T> void register(String name, Object metric, Class<T> mbeanInterface) {
+        if(mbeanServer == null) {
+            return;
+        }
+
+        try {
+            ObjectName objectName = objectName(name, metric.getClass());
+            if(mbeanServer.isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+            mbeanServer.registerMBean(new StandardMBean(mbeanInterface.cast(metric),
+                    mbeanInterface), objectName);
+        }
+        catch (Exception e) {
+            metricsLogger.logp(Level.WARNING, "MetricsRegistry", "register",
+                    "Unable to register metric " + name + " with JMX.", e);
+        }
+    }
+
+    /**
+     * Returns the JMX name of a metric.
+     */
+    private static ObjectName objectName(String name, Class<?> type) throws Exception {
+        String typeName = Gauge.class.isAssignableFrom(type) ? "Gauge" : type.getSimpleName();
+        return new ObjectName(JMX_DOMAIN + ":type=" + typeName + ",name=" +
+                ObjectName.quote(name));
+    }
+}
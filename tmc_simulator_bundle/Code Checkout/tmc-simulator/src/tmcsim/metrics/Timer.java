@@ -0,0 +1,69 @@
+package tmcsim.metrics;
+
+/**
+ * Timer is a metric recording the distribution of durations, such as the
+ * time to process a clock tick.  Durations are recorded in nanoseconds,
+ * usually as the difference of two System.nanoTime() values, and reported
+ * in milliseconds.
+ *
+ * @author Jonathan Molina
+ */
+public class Timer implements TimerMBean {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /** Distribution of the recorded durations (ns). */
+    private Histogram nanos = new Histogram();
+
+    /**
+     * Records a duration.
+     *
+     * @param duration Duration (ns).
+     */
+    public void record(long duration) {
+        nanos.record(duration);
+    }
+
+    /**
+     * Records the time elapsed since the parameter start time.
+     *
+     * @param start Start time (ns), from System.nanoTime().
+     */
+    public void recordSince(long start) {
+        nanos.record(System.nanoTime() - start);
+    }
+
+    public long getCount() {
+        return nanos.getCount();
+    }
+
+    public double getMeanMillis() {
+        return nanos.getMean() / NANOS_PER_MILLI;
+    }
+
+    public double getMaxMillis() {
+        return nanos.getMax() / NANOS_PER_MILLI;
+    }
+
+    public double getLastMillis() {
+        return nanos.getLast() / NANOS_PER_MILLI;
+    }
+
+    public double getMedianMillis() {
+        return nanos.getMedian() / NANOS_PER_MILLI;
+    }
+
+    public double get99thPercentileMillis() {
+        return nanos.get99thPercentile() / NANOS_PER_MILLI;
+    }
+
+    public void reset() {
+        nanos.reset();
+    }
+
+    public String toString() {
+        return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms " +
+                "last=%.3fms", getCount(), getMeanMillis(), getMedianMillis(),
+                get99thPercentileMillis(), getMaxMillis(), getLastMillis());
+    }
+}
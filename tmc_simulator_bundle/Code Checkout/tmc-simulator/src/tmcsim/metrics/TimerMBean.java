@@ -0,0 +1,44 @@
+package tmcsim.metrics;
+
+/**
+ * JMX management interface of a Timer.  Times are in milliseconds.
+ *
+ * @author Jonathan Molina
+ */
+public interface TimerMBean {
+
+    /**
+     * Returns the number of recorded times.
+     */
+    public long getCount();
+
+    /**
+     * Returns the mean time, or 0 if none were recorded.
+     */
+    public double getMeanMillis();
+
+    /**
+     * Returns the longest time, or 0 if none were recorded.
+     */
+    public double getMaxMillis();
+
+    /**
+     * Returns the last recorded time, or 0 if none were recorded.
+     */
+    public double getLastMillis();
+
+    /**
+     * Returns the approximate median time.
+     */
+    public double getMedianMillis();
+
+    /**
+     * Returns the approximate 99th percentile time.
+     */
+    public double get99thPercentileMillis();
+
+    /**
+     * Discards the recorded times.
+     */
+    public void reset();
+}
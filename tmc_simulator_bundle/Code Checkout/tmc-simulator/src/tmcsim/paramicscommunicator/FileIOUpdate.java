@@ -25,6 +25,12 @@ public class FileIOUpdate {
     /** Number of bytes written to or read from the target file. */
     public Long    ioBytes;
     
+    /** 
+     * Latency (in ms) of the I/O.  For a read, the time since Paramics 
+     * modified the file.  For a write, the time the message was queued.
+     */
+    public Long    ioLatency;
+    
     /**
      * Constructor.
      * 
@@ -33,8 +39,21 @@ public class FileIOUpdate {
      * @param bytes Number of bytes for I/O action.
      */
     public FileIOUpdate(IO_TYPE type, String id, Long bytes) {
+        this(type, id, bytes, 0L);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param type I/O type.
+     * @param id   I/O object id.
+     * @param bytes Number of bytes for I/O action.
+     * @param latency Latency (in ms) of the I/O action.
+     */
+    public FileIOUpdate(IO_TYPE type, String id, Long bytes, Long latency) {
         ioType       = type;
         ioID         = id;
         ioBytes      = bytes;
+        ioLatency    = latency;
     }
 }
@@ -8,7 +8,6 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
@@ -24,12 +23,15 @@ import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
+import tmcsim.common.ManagedObjectOutputStream;
+import tmcsim.common.ParamicsFrame;
+import tmcsim.common.ManagedObjectOutputStream.ResetPolicy;
 import tmcsim.common.CADProtocol.PARAMICS_ACTIONS;
 import tmcsim.common.CADProtocol.PARAMICS_COMM_TAGS;
 import tmcsim.paramicscommunicator.FileIOUpdate.IO_TYPE;
 import tmcsim.paramicscommunicator.FileRegUpdate.REG_TYPE;
+import tmcsim.paramicscommunicator.ParamicsFileExchange.TRANSPORT;
 import tmcsim.paramicscommunicator.gui.ParamicsCommunicatorGUI;
 import tmcsim.simulationmanager.SimulationManager;
 
@@ -42,17 +44,27 @@ import tmcsim.simulationmanager.SimulationManager;
  * XML documents containing information and action commands. The CAD Simulator 
  * registers readers and writers with the ParamicsCommunicator.  Any data read 
  * by a ParamicsReader is sent back to the CAD Simulator.  All data to be 
- * written by a ParamicsWriter is received through the socket.<br><br>  
+ * written by a ParamicsWriter is received through the socket.  If the CAD 
+ * Simulator requests the framed protocol in its first RESET, the request is 
+ * acknowledged and all later messages are sent as ParamicsFrames instead of 
+ * XML documents.<br><br>  
  * The properties file for the ParamicsCommunicator class contains the following data.<br>
  * <code>
  * -----------------------------------------------------------------------------<br>
  * Socket Port          The port number to use for socket communication.<br>
  * Working Directory    The working directory use for Paramics file communication.<br>
+ * Transport            FILE (default) to exchange whole files with Paramics, or
+ *                      RING to exchange records in memory-mapped ring files.<br>
+ * StreamResetMessages  (Optional) Documents sent between resets of the socket's
+ *                      object stream, 0 for no limit.  Defaults to 64.<br>
+ * StreamResetBytes     (Optional) Bytes sent between resets of the socket's
+ *                      object stream, 0 for no limit.  Defaults to 1048576.<br>
  * Error File           The target file to use for error logging.<br>
  * -----------------------------------------------------------------------------<br>
  * Example File: <br>
  * SocketPort          = 4450 <br>
  * WorkingDirectory    = c:\\tmc_simulator\\ <br>
+ * Transport           = FILE <br>
  * ErrorFile           = sim_mgr_error.xml <br>
  * -----------------------------------------------------------------------------<br>
  * </code>
@@ -72,7 +84,8 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
     private static enum PROPERTIES {
         
         SOCKET_PORT ("SocketPort"),
-        WORKING_DIR ("WorkingDirectory");       
+        WORKING_DIR ("WorkingDirectory"),
+        TRANSPORT   ("Transport");       
         
         public String name;
         
@@ -98,7 +111,7 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
     private ObjectInputStream in = null;
     
     /** Output Stream for writing data to the CAD Simulator.  */
-    private ObjectOutputStream out = null;
+    private ManagedObjectOutputStream out = null;
     
     /** Map of all current ParamicsFileWriters referenced by I/O ID. */
     private TreeMap<String, ParamicsFileWriter> writers = null;
@@ -109,6 +122,15 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
     /** The view class for the ParamicsCommunicator. */
     private ParamicsCommunicatorGUI theGUI;
     
+    /** File exchange shared by all ParamicsFileReaders and ParamicsFileWriters. */
+    private ParamicsFileExchange exchange = null;
+    
+    /** Transport used by the readers and writers to exchange data with Paramics. */
+    private TRANSPORT transport = TRANSPORT.FILE;
+    
+    /** Whether the CAD Simulator has negotiated the framed protocol. */
+    private boolean framed = false;
+    
     /**
      * Constructor.  Read in the property values.  If the properties file 
      * does not contain a value for the working directory, open a dialog
@@ -201,12 +223,24 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
             workingDirectory = paramicsCommProp.getProperty(
                     PROPERTIES.WORKING_DIR.name).trim();                    
 
+            transport = TRANSPORT.valueOf(paramicsCommProp.getProperty(
+                    PROPERTIES.TRANSPORT.name, TRANSPORT.FILE.name()).trim().toUpperCase());
+
         } catch (Exception e) {
             paramLogger.logp(Level.SEVERE, "ParamicsCommunicator", "Constructor", 
                     "Exception in reading properties file.", e);
         }
         
         
+        try {
+            exchange = new ParamicsFileExchange(
+                    ParamicsFileExchange.DEFAULT_RESCAN_INTERVAL);
+        }
+        catch (IOException ioe) {
+            paramLogger.logp(Level.SEVERE, "ParamicsCommunicator", "Constructor", 
+                    "Exception in creating the file exchange.", ioe);
+        }
+        
         try {
             initializeSockets(Integer.parseInt(paramicsCommProp.getProperty(
                     PROPERTIES.SOCKET_PORT.name).trim()));
@@ -219,15 +253,21 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
     }
     
     /**
-     * Transmits a message XML document object to the CAD Simulator.
+     * Transmits a message to the CAD Simulator, as a frame if the framed 
+     * protocol has been negotiated or else as an XML document object.
      *
-     * @param mess The ParamicsCommMessage to be transmitted.
+     * @param mess The ParamicsFrame to be transmitted.
      */
-    private void write(Document mess) {
+    private void write(ParamicsFrame mess) {
         
         synchronized(paramicsSocket) {
             try {
-                out.writeObject(mess);
+                if(framed) {
+                    mess.write(out);
+                }
+                else {
+                    out.writeMessage(mess.toDocument());
+                }
                 out.flush();
             }
             catch (Exception e) {
@@ -240,26 +280,31 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
     /**
      * Observer/Observable update method.  The Paramics Communicator observers
      * registered ParamicsReaders.  When messages are to be sent, they are sent
-     * through this method.  All messages are ParamicsCommMessage objects.  Send 
+     * through this method.  All messages are ParamicsFrame objects.  Send 
      * these messages to the write() method for transmission on the socket.
      */
     public void update(Observable o, Object arg) {      
 
-        if(arg instanceof Document) {
-            write((Document)arg);               
+        if(arg instanceof ParamicsFrame) {
+            write((ParamicsFrame)arg);               
         }           
     }
     
     /**
-     * Runnable method.  While this thread is not interrupted, read in an 
-     * object from the socket input stream.  If an object exists, call
-     * doMessage() to parse and perform the received action in the message.  
+     * Runnable method.  While this thread is not interrupted, read in a 
+     * frame or object from the socket input stream.  If one exists, call
+     * doMessage() to perform the received action in the message.  
      */
     public void run() {
         
         while(true) {                       
             try {
-                doMessage((Document)in.readObject());
+                if(framed) {
+                    doMessage(ParamicsFrame.read(in));
+                }
+                else {
+                    doMessage(ParamicsFrame.fromDocument((Document)in.readObject()));
+                }
             } 
             catch(SocketTimeoutException ste) {
                 //just try again
@@ -281,44 +326,51 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
         }
         
         
+        if(out != null) {
+            paramLogger.logp(Level.INFO, "ParamicsCommunicator", "run", 
+                    "Socket output: " + out.getStatistics());
+        }
+        
         try { in.close(); } catch (Exception e) {}
         try { out.close(); } catch (Exception e) {}
         try { serverSocket.close(); } catch (Exception e) {}
         try { paramicsSocket.close(); } catch (Exception e) {}
         
+        if(exchange != null) {
+            paramLogger.logp(Level.INFO, "ParamicsCommunicator", "run", 
+                    "Read latency: " + exchange.getReadLatency() + 
+                    ".  Write latency: " + exchange.getWriteLatency());
+            exchange.close();
+        }
+        
     }
     
     /**
-     * Perform the action represented in the received XML document message.
+     * Perform the action represented in the received message.
      * First determine if the action is from a READER, WRITER, and RESET.  
      * If the paramics action is REGISTER, add a new ParamicsFileReader/Writer 
      * to the local list of readers/writers and update the GUI with a 
      * FileRegUpdate object. If the paramics action is UNREGISTER, remove the 
      * ParamicsFileReader/Writer from the local list of readers/writers and update
      * the GUI with a FileRegUpdate object.  If RESET is received, clear all 
-     * readers and writers. 
+     * readers and writers, and if the RESET requests the framed protocol, 
+     * acknowledge it and switch to frames. 
      * 
-     * @param mess Received XML document message.
+     * @param mess Received message.
      */
-    private void doMessage (Document mess) {
+    private void doMessage (ParamicsFrame mess) throws IOException {
         
-        Element rootElement = mess.getDocumentElement();
-
-        String id     = null;
-        String action = null;
+        String id = mess.id;
         
-        switch(PARAMICS_COMM_TAGS.fromString(rootElement.getNodeName())) {
+        switch(mess.type) {
             case READER:
-                id     = rootElement.getAttribute(PARAMICS_COMM_TAGS.ID.tag);
-                action = rootElement.getAttribute(PARAMICS_COMM_TAGS.ACTION.tag);
-                
-                switch(PARAMICS_ACTIONS.fromString(action)) {
+                switch(mess.action) {
                     case REGISTER:
-                        Integer interval   = Integer.parseInt(rootElement.getChildNodes().item(0).getTextContent());
-                        String  targetFile = rootElement.getChildNodes().item(1).getTextContent();
+                        Integer interval   = Integer.parseInt(mess.interval);
+                        String  targetFile = mess.targetFile;
                         
-                        readers.put(id, new ParamicsFileReader(workingDirectory, id, 
-                                interval, targetFile));
+                        readers.put(id, new ParamicsFileReader(exchange, 
+                                transport, workingDirectory, id, targetFile));
                         readers.get(id).addObserver(this);
                         readers.get(id).addObserver(theGUI);
                         
@@ -327,6 +379,7 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
                                 REG_TYPE.REGISTER, id, targetFile, interval));
                         break;
                     case UNREGISTER: 
+                        readers.get(id).close();
                         readers.get(id).deleteObserver(this);
                         readers.get(id).deleteObserver(theGUI);
                         readers.remove(id);
@@ -338,15 +391,12 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
                 }
                 break;
             case WRITER:
-                id     = rootElement.getAttribute(PARAMICS_COMM_TAGS.ID.tag);
-                action = rootElement.getAttribute(PARAMICS_COMM_TAGS.ACTION.tag);
-                
-                switch(PARAMICS_ACTIONS.fromString(action)) {
+                switch(mess.action) {
                     case REGISTER:
-                        String targetFile = rootElement.getChildNodes().item(0).getTextContent(); 
+                        String targetFile = mess.targetFile; 
                         
-                        writers.put(id, new ParamicsFileWriter(id, 
-                                workingDirectory, targetFile));
+                        writers.put(id, new ParamicsFileWriter(exchange, 
+                                transport, id, workingDirectory, targetFile));
                         writers.get(id).addObserver(theGUI);
                         
                         setChanged();
@@ -354,22 +404,41 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
                                 REG_TYPE.REGISTER, id, targetFile, null));      
                         break;
                     case UNREGISTER: 
-                        writers.remove(id);
-                        
+                        writers.get(id).close();
                         writers.get(id).deleteObserver(theGUI);
+                        
+                        writers.remove(id);
 
                         setChanged();
                         notifyObservers(new FileRegUpdate(IO_TYPE.WRITE, 
                                 REG_TYPE.UNREGISTER, id, null, null));
                         break;
                     case WRITE_FILE:
-                        writers.get(id).writeMessage((Element)rootElement.getChildNodes().item(0));
+                        if(mess.content != null) {
+                            writers.get(id).writeMessage(mess.content);
+                        }
+                        else {
+                            writers.get(id).writeMessage(mess.message);
+                        }
                         break;
                 }
                 break;
             case RESET:
+                for(ParamicsFileReader reader : readers.values()) {
+                    reader.close();
+                }
+                for(ParamicsFileWriter writer : writers.values()) {
+                    writer.close();
+                }
                 readers.clear();
                 writers.clear();
+                
+                if(!framed && ParamicsFrame.FRAMED_PROTOCOL.equals(mess.protocol)) {
+                    ParamicsFrame ack = ParamicsFrame.reset();
+                    ack.protocol = ParamicsFrame.FRAMED_PROTOCOL;
+                    write(ack);
+                    framed = true;
+                }
                 break;
         }   
     }
@@ -413,7 +482,8 @@ public class ParamicsCommunicator extends Observable implements Observer, Runnab
         
         //** out must be performed before in to unlock for connecting socket **//
         try {       
-            out     = new ObjectOutputStream(paramicsSocket.getOutputStream());
+            out     = new ManagedObjectOutputStream(paramicsSocket.getOutputStream(),
+                    ResetPolicy.fromProperties(paramicsCommProp));
             in      = new ObjectInputStream(paramicsSocket.getInputStream());
         }
         catch (IOException ioe) {
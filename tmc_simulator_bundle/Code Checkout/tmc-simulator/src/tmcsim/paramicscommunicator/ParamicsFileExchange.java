@@ -0,0 +1,312 @@
+package tmcsim.paramicscommunicator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tmcsim.common.LatencyStats;
+
+
+/**
+ * The ParamicsFileExchange is the file layer shared by all ParamicsFileReaders
+ * and ParamicsFileWriters.  One WatchService watches the directories of all
+ * registered target files and notifies the reader or writer of a file as
+ * soon as the file is created, modified or deleted, so no component polls
+ * file modification times.  Because a file system may drop events (an
+ * OVERFLOW, or a network share that does not report changes), every
+ * listener is also notified once per rescan interval.<br><br>
+ *
+ * Writers hand data to Paramics with writeAtomically(), which writes a
+ * temporary file and renames it over the target file so Paramics never
+ * sees a partially written file.<br><br>
+ *
+ * The exchange keeps the read and write latency statistics for all readers
+ * and writers.  Read latency is the time from Paramics modifying a file to
+ * its data being read.  Write latency is the time from a message being
+ * received from the CAD Simulator to Paramics consuming the written file.
+ *
+ * @author Jonathan Molina
+ */
+public class ParamicsFileExchange implements Runnable {
+
+    /**
+     * Enumeration of the transports used to exchange messages with Paramics.
+     * FILE exchanges one whole file at a time.  RING exchanges records in a
+     * memory-mapped ParamicsRingBuffer.
+     * @author Jonathan Molina
+     */
+    public static enum TRANSPORT { FILE, RING };
+
+    /**
+     * Interface for objects notified when their target file changes.
+     * @author Jonathan Molina
+     */
+    public static interface ExchangeListener {
+        /** Called on the exchange thread when the target file may have changed. */
+        public void fileChanged();
+    }
+
+    /** Default interval (in ms) at which all listeners are notified. */
+    public static final long DEFAULT_RESCAN_INTERVAL = 5000;
+
+    /** Charset used for target files, matching FileReader and FileWriter. */
+    public static final Charset FILE_CHARSET = Charset.defaultCharset();
+
+    /** Suffix of the temporary file written before a rename. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Error Logger. */
+    private static Logger paramLogger = Logger.getLogger("tmcsim.paramicscommunicator");
+
+    /** Watch service for the directories of all target files. */
+    private WatchService watcher = null;
+
+    /** Map of watched directories referenced by their watch key. */
+    private Map<WatchKey, Path> directories = null;
+
+    /** Map of listeners referenced by the absolute path of their target file. */
+    private Map<Path, List<ExchangeListener>> listeners = null;
+
+    /** Timer used to periodically notify all listeners. */
+    private Timer rescanTimer = null;
+
+    /** Thread dispatching watch events. */
+    private Thread watchThread = null;
+
+    /** Latency between Paramics writing a file and the data being read. */
+    private LatencyStats readLatency = new LatencyStats();
+
+    /** Latency between a message being received and Paramics consuming it. */
+    private LatencyStats writeLatency = new LatencyStats();
+
+
+    /**
+     * Constructor.  Create the WatchService and start the thread that
+     * dispatches its events.
+     *
+     * @param rescanInterval Interval (in ms) at which all listeners are notified.
+     * @throws IOException if the WatchService cannot be created.
+     */
+    public ParamicsFileExchange(long rescanInterval) throws IOException {
+
+        watcher     = FileSystems.getDefault().newWatchService();
+        directories = new HashMap<WatchKey, Path>();
+        listeners   = new HashMap<Path, List<ExchangeListener>>();
+
+        watchThread = new Thread(this, "Paramics File Exchange");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        rescanTimer = new Timer("Paramics File Rescan", true);
+        rescanTimer.schedule(new TimerTask() {
+            public void run() {
+                notifyAllListeners();
+            }
+        }, rescanInterval, rescanInterval);
+    }
+
+    /**
+     * Register a listener for changes to the target file.  The file's
+     * directory is watched if it is not already.
+     *
+     * @param targetFile File to watch.
+     * @param listener Listener notified when the file changes.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public synchronized void register(File targetFile, ExchangeListener listener)
+        throws IOException {
+
+        Path path = targetFile.toPath().toAbsolutePath().normalize();
+        Path dir  = path.getParent();
+
+        if(!directories.containsValue(dir)) {
+            directories.put(dir.register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE), dir);
+        }
+
+        List<ExchangeListener> fileListeners = listeners.get(path);
+        if(fileListeners == null) {
+            fileListeners = new ArrayList<ExchangeListener>();
+            listeners.put(path, fileListeners);
+        }
+        fileListeners.add(listener);
+    }
+
+    /**
+     * Remove a listener registered for the target file.
+     *
+     * @param targetFile Watched file.
+     * @param listener Listener to remove.
+     */
+    public synchronized void unregister(File targetFile, ExchangeListener listener) {
+
+        Path path = targetFile.toPath().toAbsolutePath().normalize();
+
+        List<ExchangeListener> fileListeners = listeners.get(path);
+        if(fileListeners != null) {
+            fileListeners.remove(listener);
+            if(fileListeners.isEmpty()) {
+                listeners.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Stop watching all files and the dispatch thread.
+     */
+    public void close() {
+        rescanTimer.cancel();
+        try {
+            watcher.close();
+        } catch (IOException ioe) {
+            paramLogger.logp(Level.WARNING, "ParamicsFileExchange", "close()",
+                    "Exception in closing the watch service.", ioe);
+        }
+    }
+
+    /** Returns the read latency statistics. */
+    public LatencyStats getReadLatency() {
+        return readLatency;
+    }
+
+    /** Returns the write latency statistics. */
+    public LatencyStats getWriteLatency() {
+        return writeLatency;
+    }
+
+    /**
+     * Write data to the target file by writing a temporary file in the same
+     * directory and renaming it over the target.  If the file system cannot
+     * rename atomically, the target is replaced with a plain rename.
+     *
+     * @param targetFile File to write.
+     * @param data Data to write.
+     * @throws IOException if the data cannot be written or renamed.
+     */
+    public static void writeAtomically(File targetFile, String data) throws IOException {
+
+        Path target = targetFile.toPath();
+        Path temp   = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+
+        Files.write(temp, data.getBytes(FILE_CHARSET));
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Runnable method.  Wait for watch events and notify the listeners of
+     * each changed file.  If events were lost, notify all listeners.  The
+     * method exits when the watch service is closed.
+     */
+    public void run() {
+
+        while(true) {
+            WatchKey key = null;
+            try {
+                key = watcher.take();
+            }
+            catch (InterruptedException ie) {
+                return;
+            }
+            catch (ClosedWatchServiceException cwse) {
+                return;
+            }
+
+            Path dir = null;
+            synchronized(this) {
+                dir = directories.get(key);
+            }
+
+            for(WatchEvent<?> event : key.pollEvents()) {
+                if(event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                    notifyAllListeners();
+                }
+                else {
+                    notifyListeners(dir.resolve((Path)event.context()));
+                }
+            }
+
+            if(!key.reset()) {
+                synchronized(this) {
+                    directories.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify the listeners registered for the file.
+     */
+    private void notifyListeners(Path path) {
+
+        List<ExchangeListener> fileListeners = null;
+        synchronized(this) {
+            if(listeners.containsKey(path)) {
+                fileListeners = new ArrayList<ExchangeListener>(listeners.get(path));
+            }
+        }
+
+        if(fileListeners != null) {
+            for(ExchangeListener listener : fileListeners) {
+                fireChanged(listener);
+            }
+        }
+    }
+
+    /**
+     * Notify every registered listener.
+     */
+    private void notifyAllListeners() {
+
+        List<ExchangeListener> allListeners = new ArrayList<ExchangeListener>();
+        synchronized(this) {
+            for(List<ExchangeListener> fileListeners : listeners.values()) {
+                allListeners.addAll(fileListeners);
+            }
+        }
+
+        for(ExchangeListener listener : allListeners) {
+            fireChanged(listener);
+        }
+    }
+
+    /**
+     * Notify a listener, logging any exception so that one failing
+     * listener does not stop the dispatch thread.
+     */
+    private void fireChanged(ExchangeListener listener) {
+        try {
+            listener.fileChanged();
+        }
+        catch (Exception e) {
+            paramLogger.logp(Level.SEVERE, "ParamicsFileExchange", "fireChanged()",
+                    "Exception in handling file change.", e);
+        }
+    }
+}
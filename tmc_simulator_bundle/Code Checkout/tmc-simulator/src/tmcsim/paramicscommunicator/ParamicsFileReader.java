@@ -1,36 +1,53 @@
 package tmcsim.paramicscommunicator;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Observable;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
-import tmcsim.common.CADProtocol.PARAMICS_ACTIONS;
-import tmcsim.common.CADProtocol.PARAMICS_COMM_TAGS;
+import tmcsim.common.ParamicsFrame;
 import tmcsim.paramicscommunicator.FileIOUpdate.IO_TYPE;
+import tmcsim.paramicscommunicator.ParamicsFileExchange.TRANSPORT;
 
 
 /**
  * The ParamicsFileReader handles reading fom a target file which
- * is written to by Paramics.  Once initialized, a timer task is
- * started which periodically checks the target file for updates.
- * If the file has been modified, it is read and cleared.  The read
- * data is transmitted to the CAD Simulator.
+ * is written to by Paramics.  Once initialized, the reader is registered
+ * with the ParamicsFileExchange, which notifies it when the target file
+ * changes.  Paramics writes the file in place, so a notification may arrive
+ * while it is still writing.  The file is only read and cleared once its
+ * data is complete: when it parses as a complete XML document, or when its
+ * length and modification time have not changed for SETTLE_TIME.  The read
+ * data is transmitted to the CAD Simulator.<br><br>
+ *
+ * With the RING transport, the target file is a ParamicsRingBuffer written by
+ * Paramics.  A timer polls the ring and each record is transmitted to the
+ * CAD Simulator as it is read.
  *
  * @author Matthew Cechini
  * @version
  */
-public class ParamicsFileReader extends Observable {
+public class ParamicsFileReader extends Observable 
+    implements ParamicsFileExchange.ExchangeListener {
+    
+    /** 
+     * Time (in milliseconds) the length and modification time of data which
+     * is not a complete document must stay unchanged before it is read.
+     */
+    public static final long SETTLE_TIME = 1000;
     
     /** Error Logger. */
     private Logger paramLogger = Logger.getLogger("tmcsim.paramicscommunicator");   
@@ -41,80 +58,59 @@ public class ParamicsFileReader extends Observable {
     /** File reference to the file where data is read. */
     private File inputFile = null;
     
-    /** FileReader used to read data from the input file. */
-    private FileReader fileReader = null;
-    
     /** FileWriter used to clear the input file. */
     private FileWriter fileWriter = null;
     
-    /** Value (seconds since 1/1/1970) of input file's last modification time. */
-    private long lastModified = 0;
+    /** File exchange which notifies this reader of changes to the input file. */
+    private ParamicsFileExchange exchange = null;
+    
+    /** Ring read from with the RING transport, else null. */
+    private ParamicsRingBuffer ring = null;
     
-    /** Timer used to schedule file reading tasks. */
+    /** Timer used to poll the ring. */
     private Timer readerTimer = null;
     
-    /** 
-     * Duration (in seconds) that the TimerTask will be scheduled to
-     * read from the target file.
-     */
-    private long readerInterval;
+    /** Length of the target file when it was last found incomplete, or -1. */
+    private long incompleteLength = -1;
+    
+    /** Modification time of the target file when it was last found incomplete. */
+    private long incompleteModified = 0;
+    
+    /** Time the target file was first found incomplete with that length. */
+    private long incompleteSince = 0;
     
     /**
-     * A TimerTask to read from the target file.  If the file has been modified since
-     * last read, read the file and transmit the data to the CAD Simulator.
+     * A TimerTask to read all new records from the ring.
      * @author Matthew Cechini
      */
-    private class ReaderTimerTask extends TimerTask {
+    private class RingTimerTask extends TimerTask {
         public void run() {     
-            
-            if (lastModified < inputFile.lastModified()) {
-                                
-                try {
-                    Document readerDoc = DocumentBuilderFactory.newInstance()
-                        .newDocumentBuilder().newDocument();
-            
-                    Element readerElem = readerDoc.createElement(PARAMICS_COMM_TAGS.READER.tag);
-                    readerElem.setAttribute(PARAMICS_COMM_TAGS.ID.tag, readerID);
-                    readerElem.setAttribute(PARAMICS_COMM_TAGS.ACTION.tag, 
-                            PARAMICS_ACTIONS.READ_FILE.action);
-                    
-                    Element messageElem = readerDoc.createElement(PARAMICS_COMM_TAGS.MESSAGE.tag);
-                    messageElem.appendChild(readerDoc.createTextNode(readFromFile()));
-                    readerElem.appendChild(messageElem);
-                    
-                    readerDoc.appendChild(readerElem);          
-                        
-                    setChanged();
-                    notifyObservers(readerDoc);
-                }                   
-                catch (Exception e) {
-                    paramLogger.logp(Level.SEVERE, 
-                            "ParamicsFileReader.ReaderTimerTask", "run()", 
-                            "Exception in reading from file: " + 
-                            inputFile.getName(), e);
-                }
-            }
+            readFromRing();
         }
     }
 
 
     /**
-     * Constructor.  Set the reader id and interval from the parsed
-     * ParamicsCommMessage.  The interval is found within the first three
-     * characters of the object's "message" data member.  Create a file
-     * object for the target file, and create a new file if it does
-     * not already exist.  Instantiate the timer and ReaderTimerTask
-     * to begin periodic reading of the file.
+     * Constructor.  Set the reader id from the parsed ParamicsCommMessage.  
+     * The requested read interval is no longer needed, since changes are 
+     * read as they happen.  Create a file object for the target file, and 
+     * create a new file if it does not already exist.  With the FILE 
+     * transport, register with the file exchange to be notified of changes to
+     * the file.  With the RING transport, open the ring in the file, keeping
+     * any records Paramics has already written, and start polling it.
      * 
+     * @param theExchange File exchange shared by all readers and writers.
+     * @param transport Transport used to exchange messages with Paramics.
      * @param workingDir Target working directory.
-     * @param mess ParamicsCommMessage object containing registration data.
-     * @param theComm Reference to the ParamicsCommunicator.
+     * @param id Reader id.
+     * @param targetFile Target file name.
      */
-    public ParamicsFileReader(String workingDir, String id, Integer interval, String targetFile) {
+    public ParamicsFileReader(ParamicsFileExchange theExchange, TRANSPORT transport, 
+            String workingDir, String id, String targetFile) {
         
         try {       
+            exchange       = theExchange;
             readerID       = id;
-            readerInterval = interval;
                     
             inputFile = new File(workingDir + targetFile);  
                         
@@ -122,9 +118,17 @@ public class ParamicsFileReader extends Observable {
                 inputFile.createNewFile();
             }
             
-            readerTimer = new Timer();
-            readerTimer.scheduleAtFixedRate(new ReaderTimerTask(), 
-                0L, readerInterval * 1000); 
+            if(transport == TRANSPORT.RING) {
+                ring = new ParamicsRingBuffer(inputFile, 
+                        ParamicsRingBuffer.DEFAULT_CAPACITY, false);
+                
+                readerTimer = new Timer(true);
+                readerTimer.scheduleAtFixedRate(new RingTimerTask(), 
+                        0L, ParamicsRingBuffer.POLL_INTERVAL);
+            }
+            else {
+                exchange.register(inputFile, this);
+            }
             
         } catch (IOException ioe) {
             paramLogger.logp(Level.SEVERE, "ParamicsFileReader", 
@@ -132,38 +136,148 @@ public class ParamicsFileReader extends Observable {
         }
     }
     
+    /**
+     * Unregister this reader from the file exchange, or stop polling and 
+     * close the ring.
+     */
+    public void close() {
+        if(ring != null) {
+            readerTimer.cancel();
+            ring.close();
+        }
+        else {
+            exchange.unregister(inputFile, this);
+        }
+    }
     
     /**
-     * Method opens the target file and reads all contents.  The file is then 
-     * cleared.
-     *
-     * @returns
-     * @throws IOException if there is an error in reading or writing to the file.
+     * Called by the file exchange when the target file may have changed.  If
+     * the file contains complete data, read the file and transmit the data to 
+     * the CAD Simulator.  If Paramics may still be writing the file, it is left 
+     * as it is until a later notification, at the latest the exchange's next
+     * rescan.  Clearing the file causes another 
+     * change notification, which finds the file empty.
      */
-    private String readFromFile() throws IOException {
+    public synchronized void fileChanged() {
         
-        char[] input = new char[(int)inputFile.length()];
+        if (inputFile.length() > 0) {
+                            
+            try {
+                long modified = inputFile.lastModified();
+                byte[] input = Files.readAllBytes(inputFile.toPath());
+                
+                if(!isComplete(input)) {
+                    if(input.length != incompleteLength 
+                            || modified != incompleteModified) {
+                        incompleteLength   = input.length;
+                        incompleteModified = modified;
+                        incompleteSince    = System.currentTimeMillis();
+                        return;
+                    }
+                    else if(System.currentTimeMillis() - incompleteSince 
+                            < SETTLE_TIME) {
+                        return;
+                    }
+                }
+                incompleteLength = -1;
+                
+                ParamicsFrame readerFrame = ParamicsFrame.readFile(
+                        readerID, readFromFile(input, modified));
+                    
+                setChanged();
+                notifyObservers(readerFrame);
+            }                   
+            catch (Exception e) {
+                paramLogger.logp(Level.SEVERE, 
+                        "ParamicsFileReader", "fileChanged()", 
+                        "Exception in reading from file: " + 
+                        inputFile.getName(), e);
+            }
+        }
+    }
+    
+    /**
+     * Returns whether the data parses as a complete XML document.
+     *
+     * @param input Data read from the target file.
+     * @return true if the data is a complete document, false if not.
+     */
+    private static boolean isComplete(byte[] input) {
         
-        fileReader = new FileReader(inputFile);
-        fileReader.read(input);     
-        fileReader.close();
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance()
+                    .newDocumentBuilder();
+            builder.setErrorHandler(new ErrorHandler() {
+                public void warning(SAXParseException e) {
+                }
+                public void error(SAXParseException e) throws SAXException {
+                    throw e;
+                }
+                public void fatalError(SAXParseException e) throws SAXException {
+                    throw e;
+                }
+            });
+            builder.parse(new ByteArrayInputStream(input));
+            return true;
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Read every new record from the ring and transmit each to the CAD 
+     * Simulator.  The time since Paramics appended the record is recorded 
+     * as the read latency.
+     */
+    private synchronized void readFromRing() {
         
-        //make sure the new file has a modified time that is different
         try {
-            Thread.sleep(1000);
+            ParamicsRingBuffer.Record record = null;
+            
+            while((record = ring.poll()) != null) {
+                long latency = Math.max(0, System.currentTimeMillis() - record.timestamp);
+                exchange.getReadLatency().record(latency);
+                
+                setChanged();
+                notifyObservers(new FileIOUpdate(IO_TYPE.READ, readerID, 
+                        (long)record.data.length(), latency));
+                
+                setChanged();
+                notifyObservers(ParamicsFrame.readFile(readerID, record.data));
+            }
+        }
+        catch (Exception e) {
+            paramLogger.logp(Level.SEVERE, "ParamicsFileReader", 
+                    "readFromRing()", "Exception in reading from ring: " + 
+                    inputFile.getName(), e);
         }
-        catch (Exception e) {}
+    }
+    
+    /**
+     * Method clears the target file after its contents have been read.  The 
+     * time since Paramics last modified the file is recorded as the read 
+     * latency.
+     *
+     * @param input Data read from the target file.
+     * @param modified Modification time of the target file when it was read.
+     * @returns
+     * @throws IOException if there is an error in writing to the file.
+     */
+    private String readFromFile(byte[] input, long modified) throws IOException {
         
         //clear file after reading contents
         fileWriter = new FileWriter(inputFile);
         fileWriter.write("");
         fileWriter.close();
         
-        lastModified = inputFile.lastModified();
+        long latency = Math.max(0, System.currentTimeMillis() - modified);
+        exchange.getReadLatency().record(latency);
         
         setChanged();
-        notifyObservers(new FileIOUpdate(IO_TYPE.READ, readerID, (long)input.length));      
+        notifyObservers(new FileIOUpdate(IO_TYPE.READ, readerID, 
+                (long)input.length, latency));      
                         
-        return new String(input);
+        return new String(input, ParamicsFileExchange.FILE_CHARSET);
     }       
-}
\ No newline at end of file
+}
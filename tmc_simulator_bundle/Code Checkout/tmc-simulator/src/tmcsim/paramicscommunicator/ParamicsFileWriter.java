@@ -2,7 +2,6 @@ package tmcsim.paramicscommunicator;
 
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.Observable;
@@ -11,213 +10,401 @@ import java.util.TimerTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.xml.serialize.OutputFormat;
-import org.apache.xml.serialize.XMLSerializer;
 import org.w3c.dom.Element;
 
+import tmcsim.common.ParamicsFrame;
 import tmcsim.paramicscommunicator.FileIOUpdate.IO_TYPE;
+import tmcsim.paramicscommunicator.ParamicsFileExchange.TRANSPORT;
 
 /**
  * The ParamicsFileWriter handles writing messages to a target file which
  * is read by Paramics.  Messages are received through the writeMessage() method.
  * This object handles queueing messages and writing as the file becomes
- * available.  New data is written to the target file when it has been
- * modified (cleared) by Paramics.  If this does not happen, messages
- * are queued and a timer is used to periodically determine if the
- * file has become available for writing.
- * 
+ * available.  New data is written to the target file when Paramics has
+ * modified (cleared) the last data written.  The writer is registered with
+ * the ParamicsFileExchange, which notifies it when the target file changes,
+ * and each message is handed to Paramics with an atomic write and rename.
+ * If writing fails, a timer is used to retry the write.<br><br>
+ *
+ * With the RING transport, the target file is a ParamicsRingBuffer instead.
+ * Messages are appended to the ring as long as it has room, so several
+ * messages can be waiting for Paramics at once.  A timer polls the ring's
+ * read position to learn which messages Paramics has consumed.
+ *
  * @author Matthew Cechini
  * @version
  */
-public class ParamicsFileWriter extends Observable {
-    
-    /** 
-     * Duration (in  ms) that the TimerTask will be scheduled to
-     * retry writing to the target file. Default = 2000ms
+public class ParamicsFileWriter extends Observable
+    implements ParamicsFileExchange.ExchangeListener {
+
+    /**
+     * Duration (in  ms) after which a failed write is retried.
+     * Default = 2000ms
      */
     private static long TIMER_DURATION = 2000;
-    
+
     /** Error Logger. */
     private Logger paramLogger = Logger.getLogger("tmcsim.paramicscommunicator");
     
+    /** Whether the ParamicsLog could not be initialized, logged only once. */
+    private static boolean paramicsLogUnavailable = false;
+
+    /**
+     * A message that has been received and its time of receipt.
+     * @author Jonathan Molina
+     */
+    private static class QueuedMessage {
+        String data;
+        long   received;
+        long   endPosition;
+
+        QueuedMessage(String newData) {
+            data     = newData;
+            received = System.currentTimeMillis();
+        }
+    }
+
     /** Linked List of messages that have been received */
-    private LinkedList<Element> queuedMessages = null;
-    
+    private LinkedList<QueuedMessage> queuedMessages = null;
+
     /**  */
     private String writerID = null;
 
     /** File name of the file where data is written */
     private String outputFile = null;
-    
-    /** FileWriter used to write data to the output file. */
-    private FileWriter fileWriter = null;
-    
-    /** Value (seconds since 1/1/1970) of output file's last modifcation time */
-    private long lastModified = 0;  
-    
-    /** Timer used to schedule file writing tasks. */
+
+    /** File exchange which notifies this writer of changes to the output file. */
+    private ParamicsFileExchange exchange = null;
+
+    /** Whether the last message written has not yet been consumed by Paramics. */
+    private boolean awaitingRead = false;
+
+    /** Output file's modification time after the last write. */
+    private long lastModified = 0;
+
+    /** Output file's length after the last write. */
+    private long lastLength = 0;
+
+    /** Receipt time of the last message written. */
+    private long lastReceived = 0;
+
+    /** Timer used to schedule retries of failed writes. */
     private Timer writerTimer = null;
-    
+
+    /** Whether a retry of a failed write has been scheduled. */
+    private boolean retryScheduled = false;
+
+    /** Ring written to with the RING transport, else null. */
+    private ParamicsRingBuffer ring = null;
+
+    /** Messages appended to the ring that Paramics has not yet consumed. */
+    private LinkedList<QueuedMessage> inFlight = null;
+
     /**
-     * A TimerTask to retry writing messages that have been queued within this
-     * ParamicsWriter.  If a message has been queued, see if the target file
-     * has been modified since last write.  If so, write the first queued message
-     * to the file and remove the message from the queue.  If writing is unsuccessful,
-     * do not remove the message from the queue.  If there are no more messages in 
-     * the queue, cancel this timer.
+     * A TimerTask to retry writing messages after a failed write.
      */
     private class WriterTimerTask extends TimerTask {
         public void run() {
 
             synchronized(lock) {
-            
-                //if we've queued something, continue.
-                if(queuedMessages.size() > 0) {         
-                    
-                    //if file has been modified, write to it
-                    if(lastModified < new File(outputFile).lastModified())
-                    {       
-                        try {
-                            writeToFile(queuedMessages.getFirst());
-                            queuedMessages.remove(0);
-                        }
-                        catch (IOException ioe) {
-                            paramLogger.logp(Level.SEVERE, "ParamicsFileWriter.WriterTimerTask", 
-                                    "run()", "Exception in writing to the target file: " + 
-                                    outputFile + ".  Queue size = " + queuedMessages.size(), ioe);
-                        }
-                        
-                        //all queued messages gone, cancel timer
-                        if(queuedMessages.size() == 0)
-                            this.cancel();
-                    }   
-                }
-            }               
+                retryScheduled = false;
+                writeQueued();
+            }
         }
     }
-    
+
+    /**
+     * A TimerTask to poll the ring.  Record the latency of messages that
+     * Paramics has consumed, and append queued messages that now fit.
+     */
+    private class RingTimerTask extends TimerTask {
+        public void run() {
+
+            synchronized(lock) {
+                checkRing();
+                writeQueued();
+            }
+        }
+    }
+
     /** Synchronizing lock to protect File IO and message queuing. */
-    private Object lock = null;     
-    
+    private Object lock = null;
+
     /**
-     * Constructor.  Initialize data objects.  If the target file exists, delete 
-     * it, and then create a new file.  
+     * Constructor.  Initialize data objects.  If the target file exists, delete
+     * it, and then create a new file.  A ring file is not deleted, since
+     * Paramics may already have it mapped.  With the FILE transport, register with
+     * the file exchange to be notified of changes to the file.  With the RING
+     * transport, create an empty ring in the file and start polling it.
      *
+     * @param theExchange File exchange shared by all readers and writers.
+     * @param transport Transport used to exchange messages with Paramics.
+     * @param id Writer id.
      * @param workingDir Directory path where the output file is to be written
-     * @param mess The ParamicsCommMessage containing the outputFile filename.
+     * @param targetFile Target file name.
      */
-    public ParamicsFileWriter(String id, String workingDir, String targetFile) {
+    public ParamicsFileWriter(ParamicsFileExchange theExchange, TRANSPORT transport,
+            String id, String workingDir, String targetFile) {
 
         try {
+            exchange = theExchange;
             writerID = id;
-    
-            queuedMessages  = new LinkedList<Element>();    
+
+            queuedMessages  = new LinkedList<QueuedMessage>();
             lock            = new Object();
-                        
-            outputFile      = workingDir + targetFile;  
-            
-            File tempFile = new File(outputFile);           
-            if(tempFile.exists()) {
+
+            outputFile      = workingDir + targetFile;
+
+            File tempFile = new File(outputFile);
+            if(tempFile.exists() && transport != TRANSPORT.RING) {
                 tempFile.delete();
             }
 
-            tempFile.createNewFile();           
-                                                
-            writerTimer     = new Timer();
-            
+            tempFile.createNewFile();
+
+            writerTimer     = new Timer(true);
+
+            if(transport == TRANSPORT.RING) {
+                ring     = new ParamicsRingBuffer(tempFile,
+                        ParamicsRingBuffer.DEFAULT_CAPACITY, true);
+                inFlight = new LinkedList<QueuedMessage>();
+
+                writerTimer.scheduleAtFixedRate(new RingTimerTask(),
+                        ParamicsRingBuffer.POLL_INTERVAL,
+                        ParamicsRingBuffer.POLL_INTERVAL);
+            }
+            else {
+                exchange.register(tempFile, this);
+            }
+
         } catch (IOException ioe) {
-            paramLogger.logp(Level.SEVERE, "ParamicsFileWriter", "Constructor", 
+            paramLogger.logp(Level.SEVERE, "ParamicsFileWriter", "Constructor",
                     "Unable to create Paramics File Writer.", ioe);
         }
-        
+
     }
-    
-    
+
     /**
-     * Method is called when a message has been received from the CAD Simulator.
-     * If the message queue is not empty, add the new message to the queue.
-     * If the output file has not been modified (read) since last write,
-     * add the message to the queue and set a timer to repeatedly check for 
-     * modification to the output file.  Else, write the new message to the file.  
-     * If there is an error in writing the data, queue the message start a timer
-     * to retry the writing.
+     * Unregister this writer from the file exchange, or close the ring, and
+     * cancel the timer.
+     */
+    public void close() {
+        writerTimer.cancel();
+
+        if(ring != null) {
+            ring.close();
+        }
+        else {
+            exchange.unregister(new File(outputFile), this);
+        }
+    }
+
+
+    /**
+     * Method is called when an XML message has been received from the CAD
+     * Simulator.  The element is serialized once and written with
+     * writeMessage(String).
      *
-     * @param newMessage The received message which is to be written to 
+     * @param messageElem The received message which is to be written to
      * the output file.
      */
     public void writeMessage(Element messageElem) {
-        
+
+        try {
+            writeMessage(ParamicsFrame.toXML(messageElem));
+        }
+        catch(IOException ioe) {
+            paramLogger.logp(Level.SEVERE, "ParamicsFileWriter",
+                    "writeMessage()", "Exception in serializing message for " +
+                    "target file: " + outputFile, ioe);
+        }
+    }
+
+    /**
+     * Method is called when a message has been received from the CAD Simulator.
+     * The message is added to the queue.  If Paramics has consumed the last
+     * message written, the new message is written immediately.  Otherwise
+     * it is written when the file exchange reports that Paramics has
+     * modified the output file.  With the RING transport, the message is
+     * appended immediately if the ring has room.
+     *
+     * @param message The received message which is to be written to
+     * the output file.
+     */
+    public void writeMessage(String message) {
+
         synchronized(lock) {
-            
-            //messages already queued... get in line.           
-            if(queuedMessages.size() > 0) {
-                queuedMessages.add(messageElem);
 
+            queuedMessages.add(new QueuedMessage(message));
+
+            if(awaitingRead || queuedMessages.size() > 1) {
                 paramLogger.log(Level.INFO, "Queueing message, new queue " +
                         "size = " + queuedMessages.size());
-            }               
-            //No modification since last write. (first queue)               
-            else if (lastModified >= new File(outputFile).lastModified()) {
-                queuedMessages.add(messageElem);                
-                                
-                writerTimer.scheduleAtFixedRate(new WriterTimerTask(), 
-                        0L, TIMER_DURATION);
-
-                paramLogger.log(Level.INFO, "First message queued");
-            }           
-            //free and clear, write.
-            else {
-                try {
-                    writeToFile(messageElem);
-                }
-                catch(IOException ioe) {
-                    paramLogger.logp(Level.SEVERE, "ParamicsFileWriter", 
-                            "writeMessage()", "Exception in writing to the " +
-                            "target file: " + outputFile, ioe);
-                    
-                    queuedMessages.add(messageElem);
-                    
-                    writerTimer.scheduleAtFixedRate(new WriterTimerTask(), 
-                            0L, TIMER_DURATION);
+            }
+
+            writeQueued();
+        }
+    }
+
+    /**
+     * Called by the file exchange when the output file may have changed.  If
+     * the file has been modified since the last write, Paramics has consumed
+     * the message.  Record the write latency and write the next queued message.
+     */
+    public void fileChanged() {
+
+        synchronized(lock) {
+
+            if(awaitingRead && isConsumed()) {
+                awaitingRead = false;
+                exchange.getWriteLatency().record(
+                        System.currentTimeMillis() - lastReceived);
+            }
+
+            writeQueued();
+        }
+    }
+
+    /**
+     * Returns whether the output file has been modified or removed since the
+     * last write.  Must be called while holding the lock.
+     */
+    private boolean isConsumed() {
+
+        File file = new File(outputFile);
+
+        return !file.exists() || file.length() != lastLength ||
+            file.lastModified() != lastModified;
+    }
+
+    /**
+     * Write the first queued message if Paramics has consumed the last
+     * message.  If writing fails, the message stays queued and a retry is
+     * scheduled.  Must be called while holding the lock.
+     */
+    private void writeQueued() {
+
+        if(ring != null) {
+            appendQueued();
+            return;
+        }
+
+        if(awaitingRead || queuedMessages.size() == 0) {
+            return;
+        }
+
+        try {
+            writeToFile(queuedMessages.getFirst());
+            queuedMessages.removeFirst();
+        }
+        catch(IOException ioe) {
+            paramLogger.logp(Level.SEVERE, "ParamicsFileWriter",
+                    "writeQueued()", "Exception in writing to the target file: " +
+                    outputFile + ".  Queue size = " + queuedMessages.size(), ioe);
+
+            if(!retryScheduled) {
+                retryScheduled = true;
+                writerTimer.schedule(new WriterTimerTask(), TIMER_DURATION);
+            }
+        }
+    }
+
+    /**
+     * Append queued messages to the ring until it is full.  A message too
+     * large for the ring is dropped.  Must be called while holding the lock.
+     */
+    private void appendQueued() {
+
+        while(queuedMessages.size() > 0) {
+            QueuedMessage output = queuedMessages.getFirst();
+
+            try {
+                long start = ring.getWritePosition();
+
+                if(ring.append(output.data) < 0) {
+                    return;
                 }
+
+                output.endPosition = ring.getWritePosition();
+                inFlight.add(output);
+
+                logMessage(output.data);
+
+                setChanged();
+                notifyObservers(new FileIOUpdate(IO_TYPE.WRITE, writerID,
+                        output.endPosition - start,
+                        System.currentTimeMillis() - output.received));
+            }
+            catch(IOException ioe) {
+                paramLogger.logp(Level.SEVERE, "ParamicsFileWriter",
+                        "appendQueued()", "Dropping message for the target ring: " +
+                        outputFile, ioe);
             }
+
+            queuedMessages.removeFirst();
         }
     }
-        
+
+    /**
+     * Record the write latency of every message that Paramics has read from
+     * the ring.  Must be called while holding the lock.
+     */
+    private void checkRing() {
+
+        long readPosition = ring.getReadPosition();
+
+        while(inFlight.size() > 0 &&
+                inFlight.getFirst().endPosition <= readPosition) {
+            exchange.getWriteLatency().record(System.currentTimeMillis() -
+                    inFlight.removeFirst().received);
+        }
+    }
+
     /**
      * Method writes data to the output file.
-     * 
-     * @param output Data to be written to the file.
+     *
+     * @param output Message to be written to the file.
+     */
+    private void writeToFile(QueuedMessage output) throws IOException {
+
+        File file = new File(outputFile);
+
+        ParamicsFileExchange.writeAtomically(file, output.data);
+
+        awaitingRead = true;
+        lastModified = file.lastModified();
+        lastLength   = file.length();
+        lastReceived = output.received;
+
+        logMessage(output.data);
+
+        setChanged();
+        notifyObservers(new FileIOUpdate(IO_TYPE.WRITE, writerID, lastLength,
+                System.currentTimeMillis() - output.received));
+
+    }
+
+    /**
+     * Write a message sent to Paramics to the ParamicsLog.
+     *
+     * @param data Message data.
      */
-    private void writeToFile(Element output) throws IOException {       
-        
-        fileWriter = new FileWriter(outputFile);
-        
-        OutputFormat of = new OutputFormat("XML","ISO-8859-1",true);
-        of.setIndent(1);
-        of.setIndenting(true);
-        
-        XMLSerializer serializer = new XMLSerializer(fileWriter, of);
-        serializer.asDOMSerializer();
-        serializer.serialize(output);
+    private void logMessage(String data) {
 
         /** Added by Nathaniel Lehrer */
         try {
-            java.io.ByteArrayOutputStream outputStream = new java.io.ByteArrayOutputStream();
-            new XMLSerializer(outputStream, of).serialize(output);
-            tmcsim.paramicslog.ParamicsLog.getInstance().writeToLog(outputStream.toString());
+            tmcsim.paramicslog.ParamicsLog.getInstance().writeToLog(data);
         } catch(Exception e) {
             System.out.println(e);
+        } catch(LinkageError le) {
+            //ParamicsLog could not be initialized, do not stop writing.
+            if(!paramicsLogUnavailable) {
+                paramicsLogUnavailable = true;
+                paramLogger.logp(Level.WARNING, "ParamicsFileWriter", 
+                        "logMessage()", "ParamicsLog could not be " +
+                        "initialized, messages will not be logged.", le);
+            }
         }
         /** End Add by Nathaniel Lehrer */
-        
-        fileWriter.flush();
-        fileWriter.close();
-        
-        lastModified = new File(outputFile).lastModified();     
-        
-        setChanged();
-        notifyObservers(new FileIOUpdate(IO_TYPE.WRITE, writerID, new File(outputFile).length()));
-                            
-    }               
-}
\ No newline at end of file
+    }
+}
@@ -0,0 +1,327 @@
+package tmcsim.paramicscommunicator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+
+/**
+ * The ParamicsRingBuffer is a memory-mapped file holding a ring of
+ * sequence-numbered records.  It lets one process append several messages
+ * for another process without rewriting or clearing a file.  Each ring
+ * has exactly one writer and one reader, which may be in different
+ * processes.<br><br>
+ *
+ * The file starts with a fixed header, followed by the data area:<br>
+ * <code>
+ * -----------------------------------------------------------------------------<br>
+ * 0   int   Magic number "PRNG"<br>
+ * 4   int   Format version<br>
+ * 8   int   Capacity of the data area in bytes<br>
+ * 16  long  Write position, total bytes ever appended<br>
+ * 24  long  Read position, total bytes ever consumed<br>
+ * 32  long  Sequence number of the next record<br>
+ * -----------------------------------------------------------------------------<br>
+ * </code>
+ * Each record is an int payload length, a long sequence number, a long
+ * append time (ms), an int CRC32 of the other fields and the payload, and
+ * the UTF-8 payload, and wraps around the end of the data area.  The writer
+ * only advances the write position after the record is complete, and the
+ * reader only advances the read position after the record has been copied
+ * out.  Only the writer changes the write position and only the reader
+ * changes the read position.<br><br>
+ *
+ * The mapping does not guarantee that another process sees the record's
+ * bytes before the new write position, so the reader checks each record's
+ * CRC and leaves a record that fails it in the ring to be read again on the
+ * next poll.
+ *
+ * @author Jonathan Molina
+ */
+public class ParamicsRingBuffer {
+
+    /**
+     * A record read from the ring.
+     * @author Jonathan Molina
+     */
+    public static class Record {
+        /** Sequence number of the record. */
+        public long   sequence;
+
+        /** Time (ms) the record was appended. */
+        public long   timestamp;
+
+        /** Record payload. */
+        public String data;
+
+        public Record(long seq, long time, String newData) {
+            sequence  = seq;
+            timestamp = time;
+            data      = newData;
+        }
+    }
+
+    /** Interval (in ms) at which readers and writers poll a ring. */
+    public static final long POLL_INTERVAL = 50;
+
+    /** Default capacity of the data area in bytes. */
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    /** Magic number identifying a ring file, "PRNG". */
+    private static final int MAGIC = 0x50524E47;
+
+    /** Ring file format version. */
+    private static final int VERSION = 2;
+
+    /** Size of the file header in bytes. */
+    public static final int HEADER_SIZE = 64;
+
+    /** Size of a record header in bytes. */
+    public static final int RECORD_HEADER_SIZE = 24;
+
+    private static final int MAGIC_OFFSET     = 0;
+    private static final int VERSION_OFFSET   = 4;
+    private static final int CAPACITY_OFFSET  = 8;
+    private static final int WRITE_POS_OFFSET = 16;
+    private static final int READ_POS_OFFSET  = 24;
+    private static final int NEXT_SEQ_OFFSET  = 32;
+
+    /** Mapped ring file. */
+    private MappedByteBuffer buffer = null;
+
+    /** Channel of the ring file. */
+    private FileChannel channel = null;
+
+    /** Capacity of the data area in bytes. */
+    private int capacity;
+
+
+    /**
+     * Open the ring file.  If the file does not exist, is not a ring file, or
+     * reset is true, a new empty ring is created with the given capacity.
+     * Otherwise the existing ring and its capacity are used.
+     *
+     * @param ringFile File holding the ring.
+     * @param newCapacity Capacity of the data area for a new ring.
+     * @param reset Whether to discard any existing ring.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public ParamicsRingBuffer(File ringFile, int newCapacity, boolean reset)
+        throws IOException {
+
+        channel = FileChannel.open(ringFile.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+        boolean existing = !reset && channel.size() >= HEADER_SIZE && readHeader();
+
+        if(!existing) {
+            capacity = newCapacity;
+            buffer   = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + capacity);
+
+            buffer.putLong(WRITE_POS_OFFSET, 0);
+            buffer.putLong(READ_POS_OFFSET, 0);
+            buffer.putLong(NEXT_SEQ_OFFSET, 1);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+        }
+    }
+
+    /**
+     * Map an existing ring using the capacity in its header.  Returns false
+     * if the file does not hold a valid ring.
+     */
+    private boolean readHeader() throws IOException {
+
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                HEADER_SIZE);
+
+        if(header.getInt(MAGIC_OFFSET) != MAGIC ||
+                header.getInt(VERSION_OFFSET) != VERSION) {
+            return false;
+        }
+
+        capacity = header.getInt(CAPACITY_OFFSET);
+        if(capacity <= RECORD_HEADER_SIZE ||
+                channel.size() < HEADER_SIZE + (long)capacity) {
+            return false;
+        }
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + capacity);
+        return true;
+    }
+
+    /**
+     * Append a record to the ring.
+     *
+     * @param data Record payload.
+     * @return The record's sequence number, or -1 if the ring does not have
+     * room for the record.
+     * @throws IOException if the record is larger than the ring.
+     */
+    public synchronized long append(String data) throws IOException {
+
+        byte[] payload = data.getBytes("UTF-8");
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+
+        if(recordSize > capacity) {
+            throw new IOException("Record of " + payload.length +
+                    " bytes does not fit in a ring of " + capacity + " bytes.");
+        }
+
+        long writePos = buffer.getLong(WRITE_POS_OFFSET);
+        long readPos  = buffer.getLong(READ_POS_OFFSET);
+
+        if(recordSize > capacity - (writePos - readPos)) {
+            return -1;
+        }
+
+        long sequence = buffer.getLong(NEXT_SEQ_OFFSET);
+
+        ByteBuffer record = ByteBuffer.allocate(recordSize);
+        record.putInt(payload.length);
+        record.putLong(sequence);
+        record.putLong(System.currentTimeMillis());
+        record.putInt(0);
+        record.put(payload);
+        record.putInt(RECORD_HEADER_SIZE - 4, checksum(record.array()));
+
+        put(writePos, record.array());
+
+        buffer.putLong(NEXT_SEQ_OFFSET, sequence + 1);
+        buffer.putLong(WRITE_POS_OFFSET, writePos + recordSize);
+
+        return sequence;
+    }
+
+    /**
+     * Remove and return the oldest record in the ring.  A record whose 
+     * length or CRC does not match is not yet completely visible, and is 
+     * left in the ring.
+     *
+     * @return The oldest record, or null if the ring is empty or the oldest
+     * record is not yet complete.
+     * @throws IOException if the record cannot be decoded.
+     */
+    public synchronized Record poll() throws IOException {
+
+        long writePos = buffer.getLong(WRITE_POS_OFFSET);
+        long readPos  = buffer.getLong(READ_POS_OFFSET);
+
+        if(readPos >= writePos) {
+            return null;
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(get(readPos, RECORD_HEADER_SIZE));
+        int  length    = header.getInt();
+        long sequence  = header.getLong();
+        long timestamp = header.getLong();
+        int  crc       = header.getInt();
+
+        if(length < 0 || readPos + RECORD_HEADER_SIZE + length > writePos) {
+            return null;
+        }
+
+        byte[] record = get(readPos, RECORD_HEADER_SIZE + length);
+        if(checksum(record) != crc) {
+            return null;
+        }
+
+        String data = new String(record, RECORD_HEADER_SIZE, length, "UTF-8");
+
+        buffer.putLong(READ_POS_OFFSET, readPos + RECORD_HEADER_SIZE + length);
+
+        return new Record(sequence, timestamp, data);
+    }
+
+    /**
+     * Returns the total number of bytes ever consumed by the reader.
+     */
+    public synchronized long getReadPosition() {
+        return buffer.getLong(READ_POS_OFFSET);
+    }
+
+    /**
+     * Returns the total number of bytes ever appended by the writer.
+     */
+    public synchronized long getWritePosition() {
+        return buffer.getLong(WRITE_POS_OFFSET);
+    }
+
+    /**
+     * Returns the capacity of the data area in bytes.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Close the ring file.  The mapping stays valid until it is garbage
+     * collected.
+     */
+    public void close() {
+        try {
+            channel.close();
+        }
+        catch (IOException ioe) {}
+    }
+
+    /**
+     * Returns the CRC32 of a record's fields and payload, skipping the CRC
+     * field itself.
+     */
+    private static int checksum(byte[] record) {
+
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, RECORD_HEADER_SIZE - 4);
+        crc.update(record, RECORD_HEADER_SIZE, record.length - RECORD_HEADER_SIZE);
+        return (int)crc.getValue();
+    }
+
+    /**
+     * Copy bytes into the data area at the ring position, wrapping around
+     * the end of the area.
+     */
+    private void put(long position, byte[] bytes) {
+
+        int offset = (int)(position % capacity);
+        int first  = Math.min(bytes.length, capacity - offset);
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(HEADER_SIZE + offset);
+        data.put(bytes, 0, first);
+
+        if(first < bytes.length) {
+            data.position(HEADER_SIZE);
+            data.put(bytes, first, bytes.length - first);
+        }
+    }
+
+    /**
+     * Copy bytes out of the data area at the ring position, wrapping around
+     * the end of the area.
+     */
+    private byte[] get(long position, int length) {
+
+        byte[] bytes = new byte[length];
+        int offset = (int)(position % capacity);
+        int first  = Math.min(length, capacity - offset);
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(HEADER_SIZE + offset);
+        data.get(bytes, 0, first);
+
+        if(first < length) {
+            data.position(HEADER_SIZE);
+            data.get(bytes, first, length - first);
+        }
+
+        return bytes;
+    }
+}
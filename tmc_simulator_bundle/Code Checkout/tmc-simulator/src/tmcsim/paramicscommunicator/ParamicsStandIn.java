@@ -0,0 +1,201 @@
+package tmcsim.paramicscommunicator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+
+/**
+ * ParamicsStandIn is a small process that takes the place of Paramics when
+ * testing the RING transport of the ParamicsCommunicator.  It consumes the
+ * records appended to the rings written by ParamicsFileWriters and appends
+ * Paramics status records to the rings read by ParamicsFileReaders.  Each
+ * record consumed or produced is reported on standard output, as
+ * "CONSUMED file sequence data" or "PRODUCED file sequence".  The process
+ * exits when its standard input is closed.<br><br>
+ *
+ * Usage:<br>
+ * <code>
+ * java tmcsim.paramicscommunicator.ParamicsStandIn workingDir interval
+ *      [consume:file]... [produce:file]...<br>
+ * </code>
+ * The interval is the time (in ms) between status records appended to each
+ * produced ring.  Consumed rings are polled every
+ * ParamicsRingBuffer.POLL_INTERVAL.
+ *
+ * @author Jonathan Molina
+ */
+public class ParamicsStandIn {
+
+    /** Status document appended to produced rings. */
+    private static final String STATUS_RECORD =
+        "<Paramics><Network_Status>LOADED</Network_Status>" +
+        "<Network_ID>%d</Network_ID></Paramics>";
+
+    /** Rings consumed by the stand-in. */
+    private List<ParamicsRingBuffer> consumed = new ArrayList<ParamicsRingBuffer>();
+
+    /** File names of the rings consumed by the stand-in. */
+    private List<String> consumedNames = new ArrayList<String>();
+
+    /** Rings produced by the stand-in. */
+    private List<ParamicsRingBuffer> produced = new ArrayList<ParamicsRingBuffer>();
+
+    /** File names of the rings produced by the stand-in. */
+    private List<String> producedNames = new ArrayList<String>();
+
+    /** Number of status records produced to each ring. */
+    private int statusCount = 0;
+
+    /** Timer used to poll and append to the rings. */
+    private Timer timer = new Timer(true);
+
+    /**
+     * Constructor.  Open every ring named in the arguments.  Rings are opened
+     * without discarding existing records.
+     *
+     * @param workingDir Directory containing the ring files.
+     * @param files Arguments of the form consume:file or produce:file.
+     * @throws IOException if a ring cannot be opened.
+     */
+    public ParamicsStandIn(String workingDir, String[] files) throws IOException {
+
+        for(String arg : files) {
+            String name = arg.substring(arg.indexOf(':') + 1);
+            ParamicsRingBuffer ring = new ParamicsRingBuffer(
+                    new File(workingDir, name),
+                    ParamicsRingBuffer.DEFAULT_CAPACITY, false);
+
+            if(arg.startsWith("consume:")) {
+                consumed.add(ring);
+                consumedNames.add(name);
+            }
+            else if(arg.startsWith("produce:")) {
+                produced.add(ring);
+                producedNames.add(name);
+            }
+            else {
+                throw new IllegalArgumentException("Invalid ring argument: " + arg);
+            }
+        }
+    }
+
+    /**
+     * Start consuming and producing records.
+     *
+     * @param interval Time (in ms) between produced status records.
+     */
+    public void start(long interval) {
+
+        timer.scheduleAtFixedRate(new TimerTask() {
+            public void run() {
+                consume();
+            }
+        }, 0L, ParamicsRingBuffer.POLL_INTERVAL);
+
+        timer.scheduleAtFixedRate(new TimerTask() {
+            public void run() {
+                produce();
+            }
+        }, 0L, interval);
+    }
+
+    /**
+     * Stop the stand-in and close all rings.
+     */
+    public void stop() {
+        timer.cancel();
+
+        for(ParamicsRingBuffer ring : consumed) {
+            ring.close();
+        }
+        for(ParamicsRingBuffer ring : produced) {
+            ring.close();
+        }
+    }
+
+    /**
+     * Read every new record from the consumed rings.
+     */
+    private synchronized void consume() {
+
+        for(int i = 0; i < consumed.size(); i++) {
+            try {
+                ParamicsRingBuffer.Record record = null;
+                while((record = consumed.get(i).poll()) != null) {
+                    report("CONSUMED " + consumedNames.get(i) + " " +
+                            record.sequence + " " + record.data.replace('\n', ' '));
+                }
+            }
+            catch (IOException ioe) {
+                report("ERROR " + consumedNames.get(i) + " " + ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Append a status record to every produced ring.
+     */
+    private synchronized void produce() {
+
+        statusCount++;
+
+        for(int i = 0; i < produced.size(); i++) {
+            try {
+                long sequence = produced.get(i).append(
+                        String.format(STATUS_RECORD, statusCount));
+
+                if(sequence < 0) {
+                    report("FULL " + producedNames.get(i));
+                }
+                else {
+                    report("PRODUCED " + producedNames.get(i) + " " + sequence);
+                }
+            }
+            catch (IOException ioe) {
+                report("ERROR " + producedNames.get(i) + " " + ioe.getMessage());
+            }
+        }
+    }
+
+    private void report(String line) {
+        synchronized(System.out) {
+            System.out.println(line);
+            System.out.flush();
+        }
+    }
+
+    /**
+     * Start the stand-in with the command line arguments and run until
+     * standard input is closed.
+     *
+     * @param args workingDir interval [consume:file]... [produce:file]...
+     */
+    public static void main(String[] args) {
+
+        if(args.length < 2) {
+            System.err.println("Usage: ParamicsStandIn workingDir interval " +
+                    "[consume:file]... [produce:file]...");
+            System.exit(1);
+        }
+
+        try {
+            String[] files = new String[args.length - 2];
+            System.arraycopy(args, 2, files, 0, files.length);
+
+            ParamicsStandIn standIn = new ParamicsStandIn(args[0], files);
+            standIn.start(Long.parseLong(args[1]));
+
+            while(System.in.read() != -1) { }
+
+            standIn.stop();
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
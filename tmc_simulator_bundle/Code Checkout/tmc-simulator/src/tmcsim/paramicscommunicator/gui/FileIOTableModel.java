@@ -14,7 +14,7 @@ import tmcsim.paramicscommunicator.FileIOUpdate;
  * FileIOTableModel is a DefaultTableModel used to display the 
  * list of I/O operations that have been performed by a 
  * Paramics FileWriter or FileReader. The columns in this table 
- * show the I/O time and bytes written or read. 
+ * show the I/O time, bytes written or read, and I/O latency. 
  * 
  * @author Matthew Cechini
  * @version
@@ -28,7 +28,8 @@ public class FileIOTableModel extends DefaultTableModel {
      */     
     public static enum FILE_IO_COLUMNS {
         TIME_COL       ("Time", 0, 100),
-        NUM_BYTES_COL  ("Num Bytes", 1, 60);
+        NUM_BYTES_COL  ("Num Bytes", 1, 60),
+        LATENCY_COL    ("Latency (ms)", 2, 60);
         
         public String colName;
         public int colNum;
@@ -72,10 +73,12 @@ public class FileIOTableModel extends DefaultTableModel {
     protected class FileIOTableItem {
         String  ioTime;
         Long    ioBytes;
+        Long    ioLatency;
         
-        public FileIOTableItem(String time, Long bytes) {
-            ioTime  = time;
-            ioBytes = bytes;
+        public FileIOTableItem(String time, Long bytes, Long latency) {
+            ioTime    = time;
+            ioBytes   = bytes;
+            ioLatency = latency;
         }
     }
     
@@ -131,6 +134,8 @@ public class FileIOTableModel extends DefaultTableModel {
             return tableData.get(row).ioTime;
         else if(col == FILE_IO_COLUMNS.NUM_BYTES_COL.colNum)
             return tableData.get(row).ioBytes;
+        else if(col == FILE_IO_COLUMNS.LATENCY_COL.colNum)
+            return tableData.get(row).ioLatency;
         else
             return "";
     }
@@ -163,7 +168,7 @@ public class FileIOTableModel extends DefaultTableModel {
     public void addIOUpdate(FileIOUpdate update) {
  
         tableData.add(new FileIOTableItem(timeFormatter.format(new Date()), 
-                update.ioBytes));
+                update.ioBytes, update.ioLatency));
         
         fireTableChanged(new TableModelEvent(this));        
     }
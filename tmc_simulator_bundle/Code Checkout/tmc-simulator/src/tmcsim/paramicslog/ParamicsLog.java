@@ -1,19 +1,20 @@
 package tmcsim.paramicslog;
 
+import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.rmi.Naming;
+import java.util.LinkedList;
 import java.util.Observable;
 import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
 
-import org.w3c.dom.Element;
-
 import tmcsim.common.SimulationException;
 import tmcsim.interfaces.CoordinatorInterface;
 import tmcsim.paramicslog.gui.ParamicsLogGUI;
@@ -21,6 +22,12 @@ import tmcsim.paramicslog.gui.ParamicsLogGUI;
 /**
  * Logs communication from ParamicsCommunicator to ParamicsSimulator.
  * 
+ * Entries are written to the log file by a ParamicsLogWriter on a background
+ * thread, so writeToLog() never waits for file I/O or RMI.  The simulation 
+ * time prepended to each entry is read from the Coordinator once a second by
+ * a timer thread.  Only the most recent entries are kept in memory for the
+ * ParamicsLogGUI.
+ * 
  * The system property "PARAMICS_LOG_CONFIG" should be set to the path
  * where the properties file for this class is located. <br><br>
  * The data for the properties file follows. <br>
@@ -31,11 +38,20 @@ import tmcsim.paramicslog.gui.ParamicsLogGUI;
  * CAD Simulator RMI Port  The port on the host that runs the CAD 
  *                         Simulator where the RMI Coordinator
  *                         object is registered to. 
+ * Max Log File Size       Optional.  Size in bytes at which the log
+ *                         file is rolled (default 10485760).
+ * Log Roll Minutes        Optional.  Minutes after which the log file
+ *                         is rolled (default 60, 0 never).
+ * Max Log Backups         Optional.  Number of rolled log files kept
+ *                         (default 5).
  * -----------------------------------------------------------------<br>
  * Example File: <br>
  * LogFile=c:\\log.txt
  * CADSimulatorHost=localhost
  * CADSimulatorRMIPort=4445
+ * MaxLogFileSize=10485760
+ * LogRollMinutes=60
+ * MaxLogBackups=5
  * -----------------------------------------------------------------<br>
  * </code>
  * 
@@ -52,7 +68,10 @@ public class ParamicsLog extends Observable
     {
         LOG_FILE      ("LogFile"),
         CAD_SIM_HOST  ("CADSimulatorHost"),
-        CAD_SIM_PORT  ("CADSimulatorRMIPort");
+        CAD_SIM_PORT  ("CADSimulatorRMIPort"),
+        MAX_FILE_SIZE ("MaxLogFileSize"),
+        ROLL_MINUTES  ("LogRollMinutes"),
+        MAX_BACKUPS   ("MaxLogBackups");
         
         public String name;
         
@@ -71,11 +90,32 @@ public class ParamicsLog extends Observable
     /** Properties object. */
     private Properties paramicsLogProp;
     
-    /** File log entries are written to */
-    private File logFile;
+    /** Maximum number of entries kept in memory. */
+    public static final int MAX_TAIL_ENTRIES = 500;
+    
+    /** Maximum number of characters of entries kept in memory. */
+    public static final int MAX_TAIL_CHARS = 256 * 1024;
+    
+    /** Interval (ms) at which the simulation time is read from the Coordinator. */
+    private static final long CLOCK_REFRESH = 1000;
+    
+    /** Writes log entries to the log file, or null if there is no log file. */
+    private ParamicsLogWriter logWriter;
+    
+    /** The most recent log entries. */
+    private LinkedList<String> tail;
+    
+    /** Number of characters in the tail entries. */
+    private int tailChars;
+    
+    /** Simulation time (hh:mm:ss) last read from the Coordinator. */
+    private volatile String cachedTime = "?";
     
-    /** Stores the log entries. This contains the same information logFile. */
-    private StringBuilder log;
+    /** Whether the last attempt to read the simulation time failed. */
+    private boolean clockFailed = false;
+    
+    /** Timer used to read the simulation time. */
+    private Timer clockTimer;
 
     /** Remote reference to the simulation */
     private CoordinatorInterface theCoorInt;
@@ -106,12 +146,14 @@ public class ParamicsLog extends Observable
             paramLogger.logp(Level.WARNING, "ParamicsLog", "static initializer", 
                     "Error occured initializing application", e);
 
-            JOptionPane.showMessageDialog(null, e.getMessage(), 
-                    "Error - ParamicsLog will not save log to file.", 
-                    JOptionPane.ERROR_MESSAGE); 
+            showError(e.getMessage(), 
+                    "Error - ParamicsLog will not save log to file."); 
         }
         
-        instance.addObserver(ParamicsLogGUI.getInstance());
+        if (!GraphicsEnvironment.isHeadless())
+        {
+            instance.addObserver(ParamicsLogGUI.getInstance());
+        }
     }
     
     /**
@@ -121,7 +163,7 @@ public class ParamicsLog extends Observable
     private ParamicsLog() {
         
         lock = new Object();
-        log = new StringBuilder("");
+        tail = new LinkedList<String>();
     }
     
     /**
@@ -158,20 +200,24 @@ public class ParamicsLog extends Observable
             }
             catch (Exception e)
             {
-                JOptionPane.showMessageDialog(null, 
-                        "ParamicsLog: Could not connect to remote Coordinator object.", 
-                        "Network Error", JOptionPane.ERROR_MESSAGE);                
+                showError("ParamicsLog: Could not connect to remote Coordinator object.", 
+                        "Network Error");                
             }
             
             try 
             {
-                createLogFile(logFile);
+                createLogFile(logFile,
+                        Long.parseLong(paramicsLogProp.getProperty(
+                                PROPERTIES.MAX_FILE_SIZE.name, "10485760").trim()),
+                        Long.parseLong(paramicsLogProp.getProperty(
+                                PROPERTIES.ROLL_MINUTES.name, "60").trim()) * 60 * 1000,
+                        Integer.parseInt(paramicsLogProp.getProperty(
+                                PROPERTIES.MAX_BACKUPS.name, "5").trim()));
             }
             catch (Exception e)
             {
-                JOptionPane.showMessageDialog(null, 
-                        "ParamicsLog: Could not create new log file.", 
-                        "File Error", JOptionPane.ERROR_MESSAGE);
+                showError("ParamicsLog: Could not create new log file.", 
+                        "File Error");
             }
             
         } catch (Exception e) {
@@ -179,31 +225,55 @@ public class ParamicsLog extends Observable
             paramLogger.logp(Level.WARNING, "ParamicsLog", "ParamicsLog constructor", 
                     "Properties file incorrect or missing.", e);
             
-            JOptionPane.showMessageDialog(null, 
-                    "ParamicsLog: Properties file invalid.", 
-                    "Invalid Configuration", JOptionPane.ERROR_MESSAGE);
+            showError("ParamicsLog: Properties file invalid.", 
+                    "Invalid Configuration");
         }
     }
     
     /**
-     * Creates the log file.
+     * Shows an error dialog, or only logs the error if there is no display.
+     * @param message The error message.
+     * @param title The dialog title.
+     */
+    private static void showError(String message, String title)
+    {
+        if (GraphicsEnvironment.isHeadless())
+        {
+            paramLogger.logp(Level.WARNING, "ParamicsLog", "showError", 
+                    title + ": " + message);
+        }
+        else
+        {
+            JOptionPane.showMessageDialog(null, message, title, 
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Creates the log file and the writer that writes entries to it.  Queued 
+     * entries are written when the application exits.
      * @param filePath The path to the file including the file name.
+     * @param maxSize Size in bytes at which the file is rolled.
+     * @param rollInterval Time in ms after which the file is rolled.
+     * @param maxBackups Number of rolled files kept.
      * @throws IOException If the log file could not be created.
      */
-    private void createLogFile(String filePath) throws IOException
+    private void createLogFile(String filePath, long maxSize, long rollInterval,
+            int maxBackups) throws IOException
     {
         try {
-            logFile = new File(filePath);
-            
-            if (logFile.exists()) {
-                logFile.delete();
-            }
+            logWriter = new ParamicsLogWriter(new File(filePath), maxSize, 
+                    rollInterval, maxBackups, ParamicsLogWriter.DEFAULT_QUEUE_SIZE);
             
-            logFile.createNewFile();
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                public void run() {
+                    logWriter.close(2000);
+                }
+            });
             
         } catch (Exception e) {
             
-            logFile = null;
+            logWriter = null;
             
             paramLogger.logp(Level.WARNING, "ParamicsLog", "ParamicsLog constructor", 
                     "Could not create new log file.", e);
@@ -227,6 +297,13 @@ public class ParamicsLog extends Observable
             coorIntURL = "rmi://" + hostname + ":" + portNumber + "/coordinator"; 
             
             theCoorInt = (CoordinatorInterface)Naming.lookup(coorIntURL);           
+            
+            clockTimer = new Timer("ParamicsLog Clock", true);
+            clockTimer.schedule(new TimerTask() {
+                public void run() {
+                    refreshTime();
+                }
+            }, 0, CLOCK_REFRESH);
         }
         catch (Exception e) 
         {
@@ -237,63 +314,76 @@ public class ParamicsLog extends Observable
     }
     
     /**
-     * Accessor to the entries in the log. No file IO is used.
-     * @return The entries in the log.
+     * Reads the current simulation time from the Coordinator.  A failure is
+     * logged once until the time can be read again.
+     */
+    private void refreshTime()
+    {
+        try
+        {
+            cachedTime = formatTime(theCoorInt.getCurrentSimulationTime());
+            clockFailed = false;
+        }
+        catch (Exception e)
+        {
+            if (!clockFailed)
+            {
+                paramLogger.logp(Level.WARNING, "ParamicsLog", 
+                        "RMICommunication", "Unable to communicate with RMI object", e);
+            }
+            clockFailed = true;
+        }
+    }
+    
+    /**
+     * Accessor to the most recent entries in the log. No file IO is used.
+     * @return The most recent entries in the log.
      */
     public String getLog() {
         
-        return log.toString();
+        synchronized(lock)
+        {
+            StringBuilder log = new StringBuilder(tailChars);
+            for (String entry : tail)
+            {
+                log.append(entry);
+            }
+            return log.toString();
+        }
     }
     
     /**
      * Writes an entry to the log. 
      * The simulator time when the message was sent is prepended to the entry.
-     * Entries are padded by a blank line before and after them.
-     * TODO: Ensure output is written in order of request.
+     * Entries are padded by a blank line before and after them.  The entry
+     * is queued for the log file and observers are notified with the 
+     * formatted entry; this method does not wait for file I/O.
      * @param entry
      */
     public void writeToLog(String entry) {
         
-        String time = "?";
-        String formattedEntry;
+        String formattedEntry = "\n" + "<!-- Time written to file: " + 
+                cachedTime + " -->\n" + entry + "\n";
         
-        if (theCoorInt != null)
+        synchronized(lock)
         {
-            try
+            tail.add(formattedEntry);
+            tailChars += formattedEntry.length();
+            
+            while (tail.size() > 1 && (tail.size() > MAX_TAIL_ENTRIES || 
+                    tailChars > MAX_TAIL_CHARS))
             {
-                time = formatTime(theCoorInt.getCurrentSimulationTime());
+                tailChars -= tail.removeFirst().length();
             }
-            catch (Exception e)
-            {
-                paramLogger.logp(Level.WARNING, "ParamicsLog", 
-                        "RMICommunication", "Unable to communicate with RMI object", e);
-            }
-        }
-        
-        formattedEntry = "\n" + "<!-- Time written to file: " + time + " -->\n" + entry + "\n";
-        log.append(formattedEntry);
-        
-        if (logFile != null)
-        {
-            try 
-            {
-                synchronized(lock)
-                {
-                    FileWriter writer = new FileWriter(logFile, true);
-                    writer.append(formattedEntry);
-                    writer.flush();
-                    writer.close();
-                }
-            } 
-            catch (IOException e) 
+            
+            if (logWriter != null)
             {
-                paramLogger.logp(Level.WARNING, "ParamicsLog", "writeToLog", 
-                        "Could not write to log file.", e);
+                logWriter.write(formattedEntry);
             }
         }
         
         setChanged();
-        notifyObservers(entry);
+        notifyObservers(formattedEntry);
     }
     
     /**
@@ -0,0 +1,289 @@
+package tmcsim.paramicslog;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes ParamicsLog entries to the log file on a background thread.
+ * Entries are queued by write(), which never blocks, and the writer thread
+ * writes every queued entry in one batch with a single flush.  If the queue
+ * is full the entry is dropped and counted rather than blocking the caller.
+ * <br><br>
+ * The log file is rolled when it exceeds the maximum size or when the roll
+ * interval has passed since it was opened.  The current file is renamed to
+ * "file.1", older files are renamed to "file.2" and so on, and files beyond
+ * the maximum number of backups are deleted.
+ *
+ * @author Jonathan Molina
+ */
+public class ParamicsLogWriter implements Runnable
+{
+    /** Default maximum number of queued entries. */
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    /** Maximum number of entries written in one batch. */
+    private static final int MAX_BATCH = 256;
+
+    /** Entry queued by close() to stop the writer thread. */
+    private static final String CLOSE = new String("CLOSE");
+
+    /** Error logger. */
+    private static Logger paramLogger = Logger.getLogger("tmcsim.paramicslog");
+
+    /** The current log file. */
+    private File logFile;
+
+    /** Size (bytes) at which the log file is rolled, or 0 to never roll by size. */
+    private long maxFileSize;
+
+    /** Time (ms) after which the log file is rolled, or 0 to never roll by time. */
+    private long rollInterval;
+
+    /** Number of rolled files kept. */
+    private int maxBackups;
+
+    /** Entries waiting to be written. */
+    private BlockingQueue<String> queue;
+
+    /** Writer for the current log file. */
+    private BufferedWriter out;
+
+    /** Number of characters written to the current log file. */
+    private long fileSize;
+
+    /** Time (ms) the current log file was opened. */
+    private long fileOpened;
+
+    /** Number of entries dropped because the queue was full. */
+    private AtomicLong droppedEntries = new AtomicLong();
+
+    /** Number of entries written. */
+    private AtomicLong writtenEntries = new AtomicLong();
+
+    /** The writer thread. */
+    private Thread writerThread;
+
+    /**
+     * Creates the writer and starts its thread.  An existing log file is
+     * replaced.
+     *
+     * @param file The log file.
+     * @param maxSize Size (bytes) at which the file is rolled, 0 for no limit.
+     * @param interval Time (ms) after which the file is rolled, 0 for no limit.
+     * @param backups Number of rolled files kept.
+     * @param queueSize Maximum number of queued entries.
+     * @throws IOException If the log file could not be created.
+     */
+    public ParamicsLogWriter(File file, long maxSize, long interval, int backups,
+            int queueSize) throws IOException
+    {
+        logFile      = file;
+        maxFileSize  = maxSize;
+        rollInterval = interval;
+        maxBackups   = backups;
+        queue        = new ArrayBlockingQueue<String>(queueSize);
+
+        open();
+
+        writerThread = new Thread(this, "ParamicsLog Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues an entry to be written.  This method does not block.
+     *
+     * @param entry The formatted entry.
+     * @return False if the queue was full and the entry was dropped.
+     */
+    public boolean write(String entry)
+    {
+        if (!queue.offer(entry))
+        {
+            droppedEntries.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes all queued entries, closes the log file and stops the writer
+     * thread.  Waits up to the given time for the queue to be written.
+     *
+     * @param timeout Time (ms) to wait.
+     */
+    public void close(long timeout)
+    {
+        try
+        {
+            if (queue.offer(CLOSE, timeout, TimeUnit.MILLISECONDS))
+            {
+                writerThread.join(timeout);
+            }
+            else
+            {
+                writerThread.interrupt();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of entries dropped because the queue was full.
+     */
+    public long getDroppedEntries()
+    {
+        return droppedEntries.get();
+    }
+
+    /**
+     * Returns the number of entries written to the log file.
+     */
+    public long getWrittenEntries()
+    {
+        return writtenEntries.get();
+    }
+
+    /**
+     * Writer thread.  Waits for an entry, then writes it and every other
+     * queued entry before flushing once.
+     */
+    public void run()
+    {
+        List<String> batch = new ArrayList<String>(MAX_BATCH);
+        boolean closing = false;
+
+        try
+        {
+            while (!closing)
+            {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                closing = writeBatch(batch);
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // closed without draining
+        }
+        finally
+        {
+            try
+            {
+                out.close();
+            }
+            catch (IOException e)
+            {
+                paramLogger.logp(Level.WARNING, "ParamicsLogWriter", "run",
+                        "Could not close log file.", e);
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of entries and flushes the log file, rolling the file
+     * before an entry if it is due.
+     *
+     * @return True if the batch contained the close entry.
+     */
+    private boolean writeBatch(List<String> batch)
+    {
+        boolean closing = false;
+
+        try
+        {
+            for (String entry : batch)
+            {
+                if (entry == CLOSE)
+                {
+                    closing = true;
+                    break;
+                }
+
+                if (rollDue())
+                {
+                    roll();
+                }
+
+                out.write(entry);
+                fileSize += entry.length();
+                writtenEntries.incrementAndGet();
+            }
+
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            paramLogger.logp(Level.WARNING, "ParamicsLogWriter", "writeBatch",
+                    "Could not write to log file.", e);
+        }
+
+        return closing;
+    }
+
+    private boolean rollDue()
+    {
+        return fileSize > 0 &&
+                ((maxFileSize > 0 && fileSize >= maxFileSize) ||
+                 (rollInterval > 0 &&
+                  System.currentTimeMillis() - fileOpened >= rollInterval));
+    }
+
+    /**
+     * Closes the current file, shifts the rolled files and opens a new file.
+     */
+    private void roll() throws IOException
+    {
+        out.close();
+
+        File oldest = backup(maxBackups);
+        if (oldest.exists())
+        {
+            oldest.delete();
+        }
+        for (int i = maxBackups - 1; i >= 1; i--)
+        {
+            File backup = backup(i);
+            if (backup.exists())
+            {
+                backup.renameTo(backup(i + 1));
+            }
+        }
+        if (maxBackups > 0)
+        {
+            logFile.renameTo(backup(1));
+        }
+
+        open();
+    }
+
+    private File backup(int number)
+    {
+        return new File(logFile.getPath() + "." + number);
+    }
+
+    /**
+     * Opens a new, empty log file.
+     */
+    private void open() throws IOException
+    {
+        out        = new BufferedWriter(new FileWriter(logFile));
+        fileSize   = 0;
+        fileOpened = System.currentTimeMillis();
+    }
+}
@@ -62,18 +62,29 @@ public class ParamicsLogGUI extends JFrame implements Observer {
 
     /**
      * Updates the text area. If the observable class given is of type ParamicsLog then
-     * the log entries are displayed.
+     * the new log entry is appended on the event thread and the oldest text is 
+     * removed once the text area holds more than ParamicsLog.MAX_TAIL_CHARS.
      * @param o The model for this viewer.
-     * @param arg An argument that is not used.
+     * @param arg The formatted log entry.
      */
-    public void update(Observable o, Object arg)
+    public void update(Observable o, final Object arg)
     {
-        if (o instanceof tmcsim.paramicslog.ParamicsLog)
+        if (o instanceof tmcsim.paramicslog.ParamicsLog && arg instanceof String)
         {
-            textArea.setText(((tmcsim.paramicslog.ParamicsLog) o).getLog());
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run()
+                {
+                    textArea.append((String) arg);
+                    
+                    int excess = textArea.getDocument().getLength() - 
+                            tmcsim.paramicslog.ParamicsLog.MAX_TAIL_CHARS;
+                    if (excess > 0)
+                    {
+                        textArea.replaceRange("", 0, excess);
+                    }
+                }
+            });
         } 
-
-        repaint();
     }
     
     /**
@@ -6,8 +6,11 @@ import java.io.File;
 
 import javax.swing.filechooser.FileFilter;
 
+import tmcsim.client.cadclientgui.ScriptLoader;
+
 /**
- * FileFilter used to select only .xml files.
+ * FileFilter used to select only .xml script files and compiled .tmcs
+ * scenario files.
  * 
  * @author Matthew
  * @version
@@ -25,7 +28,8 @@ public class XmlFilter extends FileFilter{
 
         if (i > 0 &&  i < s.length() - 1) {
             String extension = s.substring(i+1).toLowerCase();
-            if (extension.equals("xml")) {
+            if (extension.equals("xml") ||
+                    extension.equals(ScriptLoader.COMPILED_EXTENSION)) {
                 return true;
             }
         }
@@ -34,9 +38,9 @@ public class XmlFilter extends FileFilter{
 
     /** 
      * Get description for display in file chooser. 
-     * @return "XML Files (.xml)"
+     * @return "Script Files (.xml, .tmcs)"
      */
     public String getDescription() {
-        return "XML Files (.xml)";
+        return "Script Files (.xml, ." + ScriptLoader.COMPILED_EXTENSION + ")";
     }
 }